@@ -0,0 +1,155 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.mit.sipg.core.City;
+import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.agriculture.RecordedAgricultureSystem;
+import edu.mit.sipg.core.electricity.RecordedElectricitySystem;
+import edu.mit.sipg.core.lifecycle.DefaultSimpleLifecycleModel;
+import edu.mit.sipg.core.optim.LinearProgram;
+import edu.mit.sipg.core.optim.LinearSolver;
+import edu.mit.sipg.core.optim.PreparedOptimization;
+import edu.mit.sipg.core.optim.RevisedSimplexSolver;
+import edu.mit.sipg.core.petroleum.RecordedPetroleumSystem;
+import edu.mit.sipg.core.price.ConstantPriceModel;
+import edu.mit.sipg.core.social.LocalSocialSystem;
+import edu.mit.sipg.core.social.demand.ConstantDemandModel;
+import edu.mit.sipg.core.social.population.ExponentialGrowthModel;
+import edu.mit.sipg.core.water.DefaultWaterElement;
+import edu.mit.sipg.core.water.LocalWaterSystem;
+import edu.mit.sipg.core.water.WaterElement;
+import edu.mit.sipg.scenario.DefaultScenario;
+import edu.mit.sipg.scenario.ElementTemplate;
+import edu.mit.sipg.scenario.GameScenario;
+import edu.mit.sipg.scenario.Scenario;
+import edu.mit.sipg.scenario.Sector;
+
+/**
+ * Scenarios and linear solvers used by the benchmarks.
+ */
+public final class BenchmarkScenarios {
+	public static final long START_TIME = 1950, PRESENT_TIME = 1980, END_TIME = 2010;
+	public static final String COMMONS_SOLVER = "commons", REVISED_SOLVER = "revised";
+	
+	/**
+	 * Creates a linear solver by name.
+	 *
+	 * @param name the solver name
+	 * @return the linear solver
+	 */
+	public static LinearSolver createLinearSolver(String name) {
+		if(COMMONS_SOLVER.equals(name)) {
+			return LinearProgram.DEFAULT_SOLVER;
+		} else if(REVISED_SOLVER.equals(name)) {
+			return new RevisedSimplexSolver();
+		}
+		throw new IllegalArgumentException("Unknown linear solver: " + name);
+	}
+	
+	/**
+	 * Creates the game scenario with all cities and sectors assigned.
+	 *
+	 * @return the scenario
+	 */
+	public static Scenario createGameScenario() {
+		return new GameScenario(
+				Arrays.asList(GameScenario.INDUSTRIAL, GameScenario.URBAN, GameScenario.RURAL), 
+				Arrays.asList(Sector.AGRICULTURE, Sector.WATER, Sector.ELECTRICITY, Sector.PETROLEUM), 
+				true);
+	}
+	
+	/**
+	 * Creates a synthetic water scenario. Each city has a growing 
+	 * population with a constant per-capita water demand. Half of the 
+	 * elements in each city are production elements and the other half
+	 * distribute to the neighboring cities in a ring. All elements are 
+	 * operational for the entire scenario.
+	 *
+	 * @param numberCities the number of cities
+	 * @param elementsPerCity the number of elements per city
+	 * @return the scenario
+	 */
+	public static Scenario createSyntheticScenario(int numberCities, int elementsPerCity) {
+		List<City> cities = new ArrayList<City>();
+		for(int j = 0; j < numberCities; j++) {
+			String name = "City " + j;
+			List<WaterElement> elements = new ArrayList<WaterElement>();
+			for(int i = 0; i < elementsPerCity; i++) {
+				if(i % 2 == 0) {
+					elements.add(DefaultWaterElement.createProductionElement(
+							"Well", name + " Well " + i, name, name,
+							createLifecycleModel(), 1, 1e6, 0, 0.1, 0.01, false));
+				} else {
+					// distribute to the next or previous city in a ring
+					String destination = "City " + ((j + (i % 4 == 1 ? 1 
+							: numberCities - 1)) % numberCities);
+					elements.add(DefaultWaterElement.createDistributionElement(
+							"Pipeline", name + " Pipeline " + i, name, destination,
+							createLifecycleModel(), 0.9, 1e6, 0, 0.01, 0.01));
+				}
+			}
+			cities.add(new City(name, 
+					new RecordedAgricultureSystem(),
+					new LocalWaterSystem(j % 2 == 0, 1e12, 1e12, 1e9, 1e-3, 1,
+							elements, new ConstantPriceModel(0.05),
+							new ConstantPriceModel(10)),
+					new RecordedPetroleumSystem(),
+					new RecordedElectricitySystem(),
+					new LocalSocialSystem(
+							new ExponentialGrowthModel(START_TIME, 
+									(long) (1e5 * (1 + j % 3)), 0.02),
+							new ConstantDemandModel(0), 
+							new ConstantDemandModel(0), 
+							new ConstantDemandModel(50), 
+							new ConstantDemandModel(0))));
+		}
+		return new DefaultScenario(
+				Country.buildCountry("Synthetic", 25e9, 4e9, cities), 
+				new ArrayList<ElementTemplate>(), 
+				START_TIME, PRESENT_TIME, END_TIME, true, false);
+	}
+	
+	/**
+	 * Creates a lifecycle model which is operational for the entire scenario.
+	 *
+	 * @return the lifecycle model
+	 */
+	private static DefaultSimpleLifecycleModel createLifecycleModel() {
+		return new DefaultSimpleLifecycleModel(START_TIME - 10, START_TIME - 10, 
+				1, 100, END_TIME + 10, 1, 0, 0, 0);
+	}
+	
+	/**
+	 * Solves a prepared optimization and applies the result.
+	 *
+	 * @param optimization the optimization
+	 * @param solver the linear solver
+	 */
+	public static void optimize(PreparedOptimization optimization, LinearSolver solver) {
+		optimization.solve(solver);
+		optimization.apply();
+	}
+	
+	/**
+	 * Instantiates a new benchmark scenarios.
+	 */
+	private BenchmarkScenarios() { }
+}
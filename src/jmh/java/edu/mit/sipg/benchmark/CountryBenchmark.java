@@ -0,0 +1,89 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.mit.sipg.core.Country;
+
+/**
+ * Benchmarks the country tick and tock state transitions of the 
+ * game scenario. Each transition starts from a new country; a batch 
+ * of new countries is created before each iteration and the batch 
+ * of transitions is measured as a single shot, so the score is the 
+ * time per batch of {@value #BATCH_SIZE} transitions.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = CountryBenchmark.BATCH_SIZE)
+@Measurement(iterations = 10, batchSize = CountryBenchmark.BATCH_SIZE)
+@Fork(1)
+@State(Scope.Thread)
+public class CountryBenchmark {
+	public static final int BATCH_SIZE = 100;
+	
+	private final Country[] countries = new Country[BATCH_SIZE];
+	private int next;
+	
+	/**
+	 * Creates a batch of new countries before each iteration.
+	 */
+	@Setup(Level.Iteration)
+	public void setUp() {
+		for(int i = 0; i < countries.length; i++) {
+			countries[i] = BenchmarkScenarios.createGameScenario().getCountry();
+			countries[i].initialize(BenchmarkScenarios.START_TIME);
+		}
+		next = 0;
+	}
+	
+	/**
+	 * Computes the next state of the next new country.
+	 *
+	 * @return the country
+	 */
+	@Benchmark
+	public Country tick() {
+		Country country = countries[next++];
+		country.tick();
+		return country;
+	}
+	
+	/**
+	 * Computes and advances to the next state of the next new country.
+	 *
+	 * @return the country
+	 */
+	@Benchmark
+	public Country tickTock() {
+		Country country = countries[next++];
+		country.tick();
+		country.tock();
+		return country;
+	}
+}
@@ -0,0 +1,161 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.mit.sipg.core.City;
+import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.base.NetworkIndex;
+import edu.mit.sipg.core.optim.PreparedOptimization;
+import edu.mit.sipg.core.water.WaterElement;
+import edu.mit.sipg.core.water.WaterSoS;
+
+/**
+ * Benchmarks the assembly of the water production and distribution 
+ * model for synthetic networks of increasing size (ten elements per 
+ * city). Only the network index and model assembly are measured; no 
+ * linear program is solved.
+ * 
+ * Assembling a new model (which also builds the network index) is 
+ * measured once per iteration on a new country. Re-preparing an 
+ * unchanged model and building a network index are measured as an 
+ * average time on a country created once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ModelAssemblyBenchmark {
+	private static final int ELEMENTS_PER_CITY = 10;
+	
+	/**
+	 * The size of the synthetic network.
+	 */
+	@State(Scope.Benchmark)
+	public static class Network {
+		@Param({"10", "100", "1000", "10000"})
+		public int numberElements;
+		
+		/**
+		 * Creates a new synthetic country initialized at the start time.
+		 *
+		 * @return the country
+		 */
+		public Country createCountry() {
+			Country country = BenchmarkScenarios.createSyntheticScenario(
+					Math.max(2, numberElements / ELEMENTS_PER_CITY), 
+					Math.min(numberElements, ELEMENTS_PER_CITY)).getCountry();
+			country.initialize(BenchmarkScenarios.START_TIME);
+			return country;
+		}
+	}
+	
+	/**
+	 * A new country without an assembled model.
+	 */
+	@State(Scope.Thread)
+	public static class NewCountry {
+		public WaterSoS.Local waterSystem;
+		
+		/**
+		 * Creates a new country before each single-shot iteration.
+		 *
+		 * @param network the network
+		 */
+		@Setup(Level.Iteration)
+		public void setUp(Network network) {
+			waterSystem = (WaterSoS.Local) network.createCountry().getWaterSystem();
+		}
+	}
+	
+	/**
+	 * A country whose model has already been assembled.
+	 */
+	@State(Scope.Thread)
+	public static class AssembledCountry {
+		public List<City> cities;
+		public List<? extends WaterElement> elements;
+		public WaterSoS.Local waterSystem;
+		
+		/**
+		 * Creates a country and assembles its model once per trial.
+		 *
+		 * @param network the network
+		 */
+		@Setup(Level.Trial)
+		public void setUp(Network network) {
+			Country country = network.createCountry();
+			cities = country.getCities();
+			waterSystem = (WaterSoS.Local) country.getWaterSystem();
+			elements = waterSystem.getInternalElements();
+			waterSystem.prepareWaterProductionAndDistribution();
+		}
+	}
+	
+	/**
+	 * Builds the network index of cities and elements.
+	 *
+	 * @param state the state
+	 * @return the network index
+	 */
+	@Benchmark
+	public NetworkIndex buildNetworkIndex(AssembledCountry state) {
+		return new NetworkIndex(state.cities, state.elements);
+	}
+	
+	/**
+	 * Assembles a new model, including the network index and the first 
+	 * evaluation of cached views (e.g. the external elements of each 
+	 * city, which scans all elements in the country).
+	 *
+	 * @param state the state
+	 * @return the prepared optimization
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 10)
+	@Measurement(iterations = 20)
+	public PreparedOptimization prepareNewModel(NewCountry state) {
+		return state.waterSystem.prepareWaterProductionAndDistribution();
+	}
+	
+	/**
+	 * Re-prepares an assembled model with unchanged topology.
+	 *
+	 * @param state the state
+	 * @return the prepared optimization
+	 */
+	@Benchmark
+	public PreparedOptimization prepareAssembledModel(AssembledCountry state) {
+		return state.waterSystem.prepareWaterProductionAndDistribution();
+	}
+}
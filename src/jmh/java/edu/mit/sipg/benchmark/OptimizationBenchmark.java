@@ -0,0 +1,265 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.agriculture.AgricultureSoS;
+import edu.mit.sipg.core.electricity.ElectricitySoS;
+import edu.mit.sipg.core.optim.LinearSolver;
+import edu.mit.sipg.core.petroleum.PetroleumSoS;
+import edu.mit.sipg.core.water.WaterSoS;
+
+/**
+ * Benchmarks the sector production and distribution optimizations of 
+ * the game scenario. The first optimization of a new country assembles 
+ * and solves each model; re-optimizing an unchanged country measures 
+ * the cost of a pass which does not change the model. Each benchmark 
+ * is run with each linear solver.
+ * 
+ * First optimizations consume a batch of new countries created before 
+ * each iteration and are measured as a single shot, so their score is 
+ * the time per batch of {@value #BATCH_SIZE} optimizations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class OptimizationBenchmark {
+	public static final int BATCH_SIZE = 100;
+	
+	/**
+	 * The linear solver used for all optimizations.
+	 */
+	@State(Scope.Benchmark)
+	public static class Solver {
+		@Param({BenchmarkScenarios.COMMONS_SOLVER, BenchmarkScenarios.REVISED_SOLVER})
+		public String name;
+		public LinearSolver solver;
+		
+		/**
+		 * Creates the linear solver once per trial.
+		 */
+		@Setup(Level.Trial)
+		public void setUp() {
+			solver = BenchmarkScenarios.createLinearSolver(name);
+		}
+	}
+	
+	/**
+	 * A batch of new countries initialized at the start time.
+	 */
+	@State(Scope.Thread)
+	public static class NewCountries {
+		private final Country[] countries = new Country[BATCH_SIZE];
+		private int next;
+		
+		/**
+		 * Creates a batch of new countries before each iteration.
+		 */
+		@Setup(Level.Iteration)
+		public void setUp() {
+			for(int i = 0; i < countries.length; i++) {
+				countries[i] = BenchmarkScenarios.createGameScenario().getCountry();
+				countries[i].initialize(BenchmarkScenarios.START_TIME);
+			}
+			next = 0;
+		}
+		
+		/**
+		 * Gets the next new country in this batch.
+		 *
+		 * @return the country
+		 */
+		public Country next() {
+			return countries[next++];
+		}
+	}
+	
+	/**
+	 * A country which has already been optimized at the start time.
+	 */
+	@State(Scope.Thread)
+	public static class OptimizedCountry {
+		public Country country;
+		
+		/**
+		 * Creates and optimizes a country once per trial.
+		 *
+		 * @param solver the solver
+		 */
+		@Setup(Level.Trial)
+		public void setUp(Solver solver) {
+			country = BenchmarkScenarios.createGameScenario().getCountry();
+			country.initialize(BenchmarkScenarios.START_TIME);
+			BenchmarkScenarios.optimize(((AgricultureSoS.Local) country.getAgricultureSystem())
+					.prepareFoodProductionAndDistribution(), solver.solver);
+			BenchmarkScenarios.optimize(((WaterSoS.Local) country.getWaterSystem())
+					.prepareWaterProductionAndDistribution(), solver.solver);
+			BenchmarkScenarios.optimize(((ElectricitySoS.Local) country.getElectricitySystem())
+					.prepareElectricityProductionAndDistribution(), solver.solver);
+			BenchmarkScenarios.optimize(((PetroleumSoS.Local) country.getPetroleumSystem())
+					.preparePetroleumProductionAndDistribution(), solver.solver);
+		}
+	}
+	
+	/**
+	 * Optimizes electricity production and distribution in the next new country.
+	 *
+	 * @param state the state
+	 * @param solver the solver
+	 * @return the country
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 5, batchSize = BATCH_SIZE)
+	@Measurement(iterations = 10, batchSize = BATCH_SIZE)
+	public Country optimizeElectricityProductionAndDistribution(NewCountries state, Solver solver) {
+		Country country = state.next();
+		BenchmarkScenarios.optimize(((ElectricitySoS.Local) country.getElectricitySystem())
+				.prepareElectricityProductionAndDistribution(), solver.solver);
+		return country;
+	}
+	
+	/**
+	 * Optimizes food production and distribution in the next new country.
+	 *
+	 * @param state the state
+	 * @param solver the solver
+	 * @return the country
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 5, batchSize = BATCH_SIZE)
+	@Measurement(iterations = 10, batchSize = BATCH_SIZE)
+	public Country optimizeFoodProductionAndDistribution(NewCountries state, Solver solver) {
+		Country country = state.next();
+		BenchmarkScenarios.optimize(((AgricultureSoS.Local) country.getAgricultureSystem())
+				.prepareFoodProductionAndDistribution(), solver.solver);
+		return country;
+	}
+	
+	/**
+	 * Optimizes petroleum production and distribution in the next new country.
+	 *
+	 * @param state the state
+	 * @param solver the solver
+	 * @return the country
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 5, batchSize = BATCH_SIZE)
+	@Measurement(iterations = 10, batchSize = BATCH_SIZE)
+	public Country optimizePetroleumProductionAndDistribution(NewCountries state, Solver solver) {
+		Country country = state.next();
+		BenchmarkScenarios.optimize(((PetroleumSoS.Local) country.getPetroleumSystem())
+				.preparePetroleumProductionAndDistribution(), solver.solver);
+		return country;
+	}
+	
+	/**
+	 * Optimizes water production and distribution in the next new country.
+	 *
+	 * @param state the state
+	 * @param solver the solver
+	 * @return the country
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 5, batchSize = BATCH_SIZE)
+	@Measurement(iterations = 10, batchSize = BATCH_SIZE)
+	public Country optimizeWaterProductionAndDistribution(NewCountries state, Solver solver) {
+		Country country = state.next();
+		BenchmarkScenarios.optimize(((WaterSoS.Local) country.getWaterSystem())
+				.prepareWaterProductionAndDistribution(), solver.solver);
+		return country;
+	}
+	
+	/**
+	 * Re-optimizes electricity production and distribution.
+	 *
+	 * @param state the state
+	 * @param solver the solver
+	 * @return the country
+	 */
+	@Benchmark
+	public Country reoptimizeElectricityProductionAndDistribution(OptimizedCountry state, Solver solver) {
+		BenchmarkScenarios.optimize(((ElectricitySoS.Local) state.country.getElectricitySystem())
+				.prepareElectricityProductionAndDistribution(), solver.solver);
+		return state.country;
+	}
+	
+	/**
+	 * Re-optimizes food production and distribution.
+	 *
+	 * @param state the state
+	 * @param solver the solver
+	 * @return the country
+	 */
+	@Benchmark
+	public Country reoptimizeFoodProductionAndDistribution(OptimizedCountry state, Solver solver) {
+		BenchmarkScenarios.optimize(((AgricultureSoS.Local) state.country.getAgricultureSystem())
+				.prepareFoodProductionAndDistribution(), solver.solver);
+		return state.country;
+	}
+	
+	/**
+	 * Re-optimizes petroleum production and distribution.
+	 *
+	 * @param state the state
+	 * @param solver the solver
+	 * @return the country
+	 */
+	@Benchmark
+	public Country reoptimizePetroleumProductionAndDistribution(OptimizedCountry state, Solver solver) {
+		BenchmarkScenarios.optimize(((PetroleumSoS.Local) state.country.getPetroleumSystem())
+				.preparePetroleumProductionAndDistribution(), solver.solver);
+		return state.country;
+	}
+	
+	/**
+	 * Re-optimizes water production and distribution.
+	 *
+	 * @param state the state
+	 * @param solver the solver
+	 * @return the country
+	 */
+	@Benchmark
+	public Country reoptimizeWaterProductionAndDistribution(OptimizedCountry state, Solver solver) {
+		BenchmarkScenarios.optimize(((WaterSoS.Local) state.country.getWaterSystem())
+				.prepareWaterProductionAndDistribution(), solver.solver);
+		return state.country;
+	}
+}
@@ -0,0 +1,179 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.mit.sipg.gui.event.SimulationControlEvent;
+import edu.mit.sipg.io.Serialization;
+import edu.mit.sipg.scenario.Scenario;
+import edu.mit.sipg.sim.DefaultSimulator;
+
+/**
+ * Benchmarks serialization and deserialization of the game scenario 
+ * after a full simulation to the end time in the JSON and binary 
+ * (uncompressed and compressed) formats, compared with an in-memory 
+ * deep copy of the scenario. JSON is read and written both as a 
+ * complete string and incrementally through a stream.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+	private Scenario scenario;
+	private String json;
+	private byte[] jsonBytes;
+	private byte[] binary;
+	private byte[] compressedBinary;
+	
+	/**
+	 * Simulates the game scenario once per trial.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		Logger.getRootLogger().setLevel(Level.WARN);
+		scenario = BenchmarkScenarios.createGameScenario();
+		DefaultSimulator simulator = new DefaultSimulator(scenario);
+		simulator.executeSimulation(new SimulationControlEvent.Execute(this, 
+				BenchmarkScenarios.START_TIME, BenchmarkScenarios.END_TIME));
+		json = Serialization.serialize(scenario);
+		jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+		binary = serializeBinary().toByteArray();
+		compressedBinary = serializeCompressedBinary().toByteArray();
+	}
+	
+	/**
+	 * Copies the scenario in memory.
+	 *
+	 * @return the scenario copy
+	 */
+	@Benchmark
+	public Scenario copy() {
+		return scenario.copy();
+	}
+	
+	/**
+	 * Deserializes the scenario.
+	 *
+	 * @return the scenario
+	 */
+	@Benchmark
+	public Scenario deserialize() {
+		return Serialization.deserialize(json);
+	}
+	
+	/**
+	 * Deserializes the scenario from the binary format.
+	 *
+	 * @return the scenario
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@Benchmark
+	public Scenario deserializeBinary() throws IOException {
+		return Serialization.deserialize(new ByteArrayInputStream(binary));
+	}
+	
+	/**
+	 * Deserializes the scenario from the compressed binary format.
+	 *
+	 * @return the scenario
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@Benchmark
+	public Scenario deserializeCompressedBinary() throws IOException {
+		return Serialization.deserialize(new ByteArrayInputStream(compressedBinary));
+	}
+	
+	/**
+	 * Deserializes the scenario from a JSON stream.
+	 *
+	 * @return the scenario
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@Benchmark
+	public Scenario deserializeStream() throws IOException {
+		return Serialization.deserialize(new ByteArrayInputStream(jsonBytes));
+	}
+	
+	/**
+	 * Serializes the scenario.
+	 *
+	 * @return the serialized scenario
+	 */
+	@Benchmark
+	public String serialize() {
+		return Serialization.serialize(scenario);
+	}
+	
+	/**
+	 * Serializes the scenario in the binary format.
+	 *
+	 * @return the serialized scenario
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@Benchmark
+	public ByteArrayOutputStream serializeBinary() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Serialization.serializeBinary(scenario, out, false);
+		return out;
+	}
+	
+	/**
+	 * Serializes the scenario in the compressed binary format.
+	 *
+	 * @return the serialized scenario
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@Benchmark
+	public ByteArrayOutputStream serializeCompressedBinary() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Serialization.serializeBinary(scenario, out, true);
+		return out;
+	}
+	
+	/**
+	 * Serializes the scenario to a JSON stream.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@Benchmark
+	public void serializeStream() throws IOException {
+		Serialization.serialize(scenario, NullOutputStream.INSTANCE);
+	}
+}
@@ -0,0 +1,78 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.mit.sipg.gui.event.SimulationControlEvent;
+import edu.mit.sipg.sim.DefaultSimulator;
+
+/**
+ * Benchmarks a full simulation of the game scenario from the start 
+ * time to the end time, including all optimization passes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SimulationBenchmark {
+	@Param({"false", "true"})
+	public boolean adaptiveOptimization;
+	
+	@Param({BenchmarkScenarios.COMMONS_SOLVER, BenchmarkScenarios.REVISED_SOLVER})
+	public String solver;
+	
+	private DefaultSimulator simulator;
+	
+	/**
+	 * Creates a new simulator before each simulation.
+	 */
+	@Setup(org.openjdk.jmh.annotations.Level.Invocation)
+	public void setUp() {
+		Logger.getRootLogger().setLevel(Level.WARN);
+		simulator = new DefaultSimulator(BenchmarkScenarios.createGameScenario());
+		simulator.setAdaptiveOptimization(adaptiveOptimization);
+		simulator.setLinearSolver(BenchmarkScenarios.createLinearSolver(solver));
+	}
+	
+	/**
+	 * Executes the game scenario.
+	 *
+	 * @return the simulator
+	 */
+	@Benchmark
+	public DefaultSimulator executeSimulation() {
+		simulator.executeSimulation(new SimulationControlEvent.Execute(this, 
+				BenchmarkScenarios.START_TIME, BenchmarkScenarios.END_TIME));
+		return simulator;
+	}
+}
@@ -0,0 +1,139 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.optim.LinearSolver;
+import edu.mit.sipg.core.water.WaterSoS;
+import edu.mit.sipg.gui.event.SimulationControlEvent;
+import edu.mit.sipg.scenario.Scenario;
+import edu.mit.sipg.sim.DefaultSimulator;
+
+/**
+ * Benchmarks a synthetic water scenario with a parameterized number 
+ * of cities and elements per city to measure how the simulation hot 
+ * paths scale with the size of the network for each linear solver.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SyntheticScenarioBenchmark {
+	@Param({"10", "50"})
+	public int numberCities;
+	
+	@Param({"10", "20"})
+	public int elementsPerCity;
+	
+	@Param({BenchmarkScenarios.COMMONS_SOLVER, BenchmarkScenarios.REVISED_SOLVER})
+	public String solver;
+	
+	private LinearSolver linearSolver;
+	private Scenario scenario;
+	private Scenario optimizedScenario;
+	
+	/**
+	 * Creates a new scenario before each invocation.
+	 */
+	@Setup(Level.Invocation)
+	public void setUp() {
+		scenario = BenchmarkScenarios.createSyntheticScenario(
+				numberCities, elementsPerCity);
+		scenario.getCountry().initialize(BenchmarkScenarios.START_TIME);
+	}
+	
+	/**
+	 * Creates and optimizes a scenario once per trial.
+	 */
+	@Setup(Level.Trial)
+	public void setUpOptimized() {
+		Logger.getRootLogger().setLevel(org.apache.log4j.Level.WARN);
+		linearSolver = BenchmarkScenarios.createLinearSolver(solver);
+		optimizedScenario = BenchmarkScenarios.createSyntheticScenario(
+				numberCities, elementsPerCity);
+		optimizedScenario.getCountry().initialize(BenchmarkScenarios.START_TIME);
+		BenchmarkScenarios.optimize(((WaterSoS.Local) optimizedScenario.getCountry().getWaterSystem())
+				.prepareWaterProductionAndDistribution(), linearSolver);
+	}
+	
+	/**
+	 * Executes the scenario from the start time to the end time.
+	 *
+	 * @return the simulator
+	 */
+	@Benchmark
+	public DefaultSimulator executeSimulation() {
+		DefaultSimulator simulator = new DefaultSimulator(scenario);
+		simulator.setLinearSolver(linearSolver);
+		simulator.executeSimulation(new SimulationControlEvent.Execute(this, 
+				BenchmarkScenarios.START_TIME, BenchmarkScenarios.END_TIME));
+		return simulator;
+	}
+	
+	/**
+	 * Optimizes water production and distribution in a new country.
+	 *
+	 * @return the country
+	 */
+	@Benchmark
+	public Country optimizeWaterProductionAndDistribution() {
+		BenchmarkScenarios.optimize(((WaterSoS.Local) scenario.getCountry().getWaterSystem())
+				.prepareWaterProductionAndDistribution(), linearSolver);
+		return scenario.getCountry();
+	}
+	
+	/**
+	 * Re-optimizes water production and distribution.
+	 *
+	 * @return the country
+	 */
+	@Benchmark
+	public Country reoptimizeWaterProductionAndDistribution() {
+		BenchmarkScenarios.optimize(((WaterSoS.Local) optimizedScenario.getCountry().getWaterSystem())
+				.prepareWaterProductionAndDistribution(), linearSolver);
+		return optimizedScenario.getCountry();
+	}
+	
+	/**
+	 * Computes and advances to the next state of the country.
+	 *
+	 * @return the country
+	 */
+	@Benchmark
+	public Country tickTock() {
+		scenario.getCountry().tick();
+		scenario.getCountry().tock();
+		return scenario.getCountry();
+	}
+}
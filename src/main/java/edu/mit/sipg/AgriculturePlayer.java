@@ -23,11 +23,12 @@ import javax.swing.SwingUtilities;
 import org.apache.log4j.BasicConfigurator;
 import org.apache.log4j.Logger;
 
+import edu.mit.sipg.core.optim.CachingLinearSolver;
+import edu.mit.sipg.core.optim.LinearProgram;
 import edu.mit.sipg.gui.ApplicationFrame;
 import edu.mit.sipg.scenario.GameScenario;
 import edu.mit.sipg.scenario.Scenario;
 import edu.mit.sipg.scenario.Sector;
-import edu.mit.sipg.sim.Simulator;
 import edu.mit.sipg.sim.hla.HlaConnection;
 import edu.mit.sipg.sim.hla.HlaSimulator;
 
@@ -55,7 +56,9 @@ public class AgriculturePlayer {
 				Arrays.asList(Sector.AGRICULTURE), false);
 
 		logger.debug("Creating simulator.");
-		final Simulator simulator = new HlaSimulator(scenario);
+		final HlaSimulator simulator = new HlaSimulator(scenario);
+		// re-use solutions when the simulation is reset and re-run
+		simulator.setLinearSolver(new CachingLinearSolver(LinearProgram.DEFAULT_SOLVER));
 		//simulator.addUpdateListener(new ConsoleLogger());
 
 		logger.debug("Launching graphical user interface.");
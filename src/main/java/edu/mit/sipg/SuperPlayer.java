@@ -23,12 +23,13 @@ import javax.swing.SwingUtilities;
 import org.apache.log4j.BasicConfigurator;
 import org.apache.log4j.Logger;
 
+import edu.mit.sipg.core.optim.CachingLinearSolver;
+import edu.mit.sipg.core.optim.LinearProgram;
 import edu.mit.sipg.gui.ApplicationFrame;
 import edu.mit.sipg.scenario.GameScenario;
 import edu.mit.sipg.scenario.Scenario;
 import edu.mit.sipg.scenario.Sector;
 import edu.mit.sipg.sim.DefaultSimulator;
-import edu.mit.sipg.sim.Simulator;
 
 /**
  * The application for a super player that controls all infrastructure.
@@ -57,7 +58,11 @@ public class SuperPlayer {
 						Sector.PETROLEUM), true);
 		
 		logger.debug("Creating simulator.");
-		final Simulator simulator = new DefaultSimulator(scenario);
+		final DefaultSimulator simulator = new DefaultSimulator(scenario);
+		// re-use solutions when the simulation is reset and re-run
+		simulator.setLinearSolver(new CachingLinearSolver(LinearProgram.DEFAULT_SOLVER));
+		// replay optimized flows before the first year affected by edits
+		simulator.setFlowReplay(true);
 		//simulator.addUpdateListener(new ConsoleLogger());
 
 		logger.debug("Launching graphical user interface.");
@@ -22,13 +22,18 @@ import java.util.List;
 
 import edu.mit.sipg.core.agriculture.AgricultureSystem;
 import edu.mit.sipg.core.agriculture.DefaultAgricultureSystem;
+import edu.mit.sipg.core.agriculture.LocalAgricultureSystem;
 import edu.mit.sipg.core.electricity.DefaultElectricitySystem;
 import edu.mit.sipg.core.electricity.ElectricitySystem;
+import edu.mit.sipg.core.electricity.LocalElectricitySystem;
 import edu.mit.sipg.core.petroleum.DefaultPetroleumSystem;
+import edu.mit.sipg.core.petroleum.LocalPetroleumSystem;
 import edu.mit.sipg.core.petroleum.PetroleumSystem;
 import edu.mit.sipg.core.social.DefaultSocialSystem;
+import edu.mit.sipg.core.social.LocalSocialSystem;
 import edu.mit.sipg.core.social.SocialSystem;
 import edu.mit.sipg.core.water.DefaultWaterSystem;
+import edu.mit.sipg.core.water.LocalWaterSystem;
 import edu.mit.sipg.core.water.WaterSystem;
 
 /**
@@ -86,6 +91,40 @@ public class City extends DefaultSociety {
 		this.socialSystem.setSociety(this);
 	}
 	
+	/**
+	 * Creates a copy of this city with copies of its local infrastructure 
+	 * systems. Remote systems are not simulated locally and are replaced 
+	 * by default systems, as when deserializing a scenario.
+	 *
+	 * @return the city copy
+	 */
+	public City copy() {
+		AgricultureSystem agricultureSystem = new DefaultAgricultureSystem();
+		if(this.agricultureSystem instanceof LocalAgricultureSystem) {
+			agricultureSystem = ((LocalAgricultureSystem) this.agricultureSystem).copy();
+		}
+		WaterSystem waterSystem = new DefaultWaterSystem();
+		if(this.waterSystem instanceof LocalWaterSystem) {
+			waterSystem = ((LocalWaterSystem) this.waterSystem).copy();
+		}
+		PetroleumSystem petroleumSystem = new DefaultPetroleumSystem();
+		if(this.petroleumSystem instanceof LocalPetroleumSystem) {
+			petroleumSystem = ((LocalPetroleumSystem) this.petroleumSystem).copy();
+		}
+		ElectricitySystem electricitySystem = new DefaultElectricitySystem();
+		if(this.electricitySystem instanceof LocalElectricitySystem) {
+			electricitySystem = ((LocalElectricitySystem) this.electricitySystem).copy();
+		}
+		SocialSystem socialSystem = new DefaultSocialSystem();
+		if(this.socialSystem instanceof LocalSocialSystem) {
+			socialSystem = ((LocalSocialSystem) this.socialSystem).copy();
+		}
+		City city = new City(getName(), agricultureSystem, waterSystem, 
+				petroleumSystem, electricitySystem, socialSystem);
+		city.copyCumulativeState(this);
+		return city;
+	}
+	
 	@Override
 	public AgricultureSystem getAgricultureSystem() {
 		return agricultureSystem;
@@ -132,6 +171,7 @@ public class City extends DefaultSociety {
 	public void setAgricultureSystem(AgricultureSystem agricultureSystem) {
 		agricultureSystem.setSociety(this);
 		this.agricultureSystem = agricultureSystem;
+		invalidateStructure();
 	}
 
 	/**
@@ -142,6 +182,7 @@ public class City extends DefaultSociety {
 	public void setElectricitySystem(ElectricitySystem electricitySystem) {
 		electricitySystem.setSociety(this);
 		this.electricitySystem = electricitySystem;
+		invalidateStructure();
 	}
 
 	/**
@@ -152,6 +193,7 @@ public class City extends DefaultSociety {
 	public void setPetroleumSystem(PetroleumSystem petroleumSystem) {
 		petroleumSystem.setSociety(this);
 		this.petroleumSystem = petroleumSystem;
+		invalidateStructure();
 	}
 
 	/**
@@ -162,6 +204,7 @@ public class City extends DefaultSociety {
 	public void setSocialSystem(SocialSystem socialSystem) {
 		socialSystem.setSociety(this);
 		this.socialSystem = socialSystem;
+		invalidateStructure();
 	}
 
 	/**
@@ -172,5 +215,6 @@ public class City extends DefaultSociety {
 	public void setWaterSystem(WaterSystem waterSystem) {
 		waterSystem.setSociety(this);
 		this.waterSystem = waterSystem;
+		invalidateStructure();
 	}
 }
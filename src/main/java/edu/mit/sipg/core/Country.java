@@ -17,11 +17,14 @@ package edu.mit.sipg.core;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import edu.mit.sipg.core.agriculture.AgricultureSoS;
 import edu.mit.sipg.core.agriculture.DefaultAgricultureSoS;
 import edu.mit.sipg.core.agriculture.LocalAgricultureSoS;
+import edu.mit.sipg.core.base.CachedView;
 import edu.mit.sipg.core.base.InfrastructureElement;
 import edu.mit.sipg.core.electricity.DefaultElectricitySoS;
 import edu.mit.sipg.core.electricity.ElectricitySoS;
@@ -93,6 +96,17 @@ public class Country extends DefaultSociety {
 	private SocialSoS socialSystem;
 	private final double initialFunds;
 	private final double budgetLimit;
+	private transient volatile Map<String, City> cityIndex;
+	private transient final CachedView<City> cities = new CachedView<City>(this) {
+		@Override
+		protected List<City> compute() {
+			List<City> cities = new ArrayList<City>();
+			for(Society nestedSociety : getNestedSocieties()) {
+				cities.addAll(nestedSociety.getCities());
+			}
+			return cities;
+		}
+	};
 	
 	/**
 	 * Instantiates a new country.
@@ -146,6 +160,29 @@ public class Country extends DefaultSociety {
 		this.budgetLimit = budgetLimit;
 	}
 	
+	/**
+	 * Creates a copy of this country with copies of its cities. The 
+	 * copy shares no mutable state with this country, so it can be 
+	 * simulated independently (e.g. for what-if analysis) or saved as 
+	 * a snapshot of the current state.
+	 *
+	 * @return the country copy
+	 */
+	public Country copy() {
+		List<City> cities = new ArrayList<City>();
+		for(City city : getCities()) {
+			cities.add(city.copy());
+		}
+		Country country = buildCountry(getName(), initialFunds, budgetLimit, cities);
+		country.copyCumulativeState(this);
+		country.agricultureSystem.copyState(agricultureSystem);
+		country.waterSystem.copyState(waterSystem);
+		country.electricitySystem.copyState(electricitySystem);
+		country.petroleumSystem.copyState(petroleumSystem);
+		country.socialSystem.copyState(socialSystem);
+		return country;
+	}
+	
 	/**
 	 * Gets the aggregated score.
 	 *
@@ -181,11 +218,7 @@ public class Country extends DefaultSociety {
 	
 	@Override
 	public List<City> getCities() {
-		List<City> cities = new ArrayList<City>();
-		for(Society nestedSociety : getNestedSocieties()) {
-			cities.addAll(nestedSociety.getCities());
-		}
-		return Collections.unmodifiableList(cities);
+		return cities.get();
 	}
 
 	/**
@@ -195,12 +228,18 @@ public class Country extends DefaultSociety {
 	 * @return the city
 	 */
 	public City getCity(String name) {
-		for(City city : getCities()) {
-			if(city.getName().equals(name)) {
-				return city;
+		Map<String, City> cityIndex = this.cityIndex;
+		if(cityIndex == null) {
+			// nested societies cannot change, so the index is built once
+			cityIndex = new HashMap<String, City>();
+			for(City city : getCities()) {
+				if(!cityIndex.containsKey(city.getName())) {
+					cityIndex.put(city.getName(), city);
+				}
 			}
+			this.cityIndex = cityIndex;
 		}
-		return null;
+		return cityIndex.get(name);
 	}
 
 	@Override
@@ -0,0 +1,744 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.math3.optim.linear.Relationship;
+
+import edu.mit.sipg.core.agriculture.AgricultureElement;
+import edu.mit.sipg.core.agriculture.AgricultureSoS;
+import edu.mit.sipg.core.agriculture.AgricultureSystem;
+import edu.mit.sipg.core.base.InfrastructureElement;
+import edu.mit.sipg.core.base.NetworkIndex;
+import edu.mit.sipg.core.electricity.ElectricityElement;
+import edu.mit.sipg.core.electricity.ElectricitySoS;
+import edu.mit.sipg.core.electricity.ElectricitySystem;
+import edu.mit.sipg.core.optim.LinearProgram;
+import edu.mit.sipg.core.optim.PreparedOptimization;
+import edu.mit.sipg.core.petroleum.PetroleumElement;
+import edu.mit.sipg.core.petroleum.PetroleumSoS;
+import edu.mit.sipg.core.petroleum.PetroleumSystem;
+import edu.mit.sipg.core.social.SocialSystem;
+import edu.mit.sipg.core.water.LocalWaterSystem;
+import edu.mit.sipg.core.water.WaterElement;
+import edu.mit.sipg.core.water.WaterSoS;
+import edu.mit.sipg.core.water.WaterSystem;
+import edu.mit.sipg.units.DefaultUnits;
+import edu.mit.sipg.units.ElectricityUnits;
+import edu.mit.sipg.units.OilUnits;
+import edu.mit.sipg.units.WaterUnits;
+
+/**
+ * An integrated production and distribution optimizer for the water,
+ * energy, and food sectors of a society. Rather than solving one linear
+ * program per sector with the other sectors' domestic prices as cost
+ * coefficients, a single linear program includes the production and
+ * distribution of all locally-controlled sectors and explicit resource
+ * flows between them: water consumed by agriculture and electricity
+ * production, electricity consumed by water production and distribution
+ * and by petroleum distribution, and petroleum consumed by electricity
+ * production. One solution satisfies all sectors simultaneously, so no
+ * iteration between sectors is required.
+ *
+ * The vector of decision variables includes, in order, the land area and
+ * food throughput of each agriculture element and the food import and
+ * export in each city; the production and throughput of each water
+ * element and the water supplied by private production or import to the
+ * society and to the other sectors in each city; the production and throughput of each electricity element and the
+ * private electricity production in each city; and the production and
+ * throughput of each petroleum element and the petroleum import and export
+ * in each city.
+ *
+ * A resource flow is only explicit if the consuming element's origin
+ * city has a locally-controlled system for the resource; otherwise the
+ * consumption is valued at the domestic price, as in the sector models.
+ * Water not supplied by public production is valued at the import price,
+ * as in the water sector model, except for the water consumed by the other
+ * sectors which they value at the domestic price, as in their sector
+ * models. It consumes electricity at the intensity of private production,
+ * which supplies it while the aquifer lasts. Private electricity
+ * production is valued at the domestic price so public production is
+ * preferred where it is cheaper.
+ *
+ * @author Paul T. Grogan
+ */
+public class CoupledOptimizer {
+	private final Society society;
+	private LinearProgram model;
+	private NetworkIndex agricultureIndex, waterIndex, electricityIndex, petroleumIndex;
+	private boolean[] agricultureLocal, waterLocal, electricityLocal, petroleumLocal;
+	private int[] landRows, laborRows, foodRows;
+	private int[] aquiferRows, waterRows, waterUseRows;
+	private int[] electricityRows;
+	private int[] reservoirRows, petroleumRows;
+	private int waterOffset, electricityOffset, petroleumOffset;
+
+	/**
+	 * Instantiates a new coupled optimizer.
+	 *
+	 * @param society the society
+	 */
+	public CoupledOptimizer(Society society) {
+		this.society = society;
+	}
+
+	/**
+	 * Checks if a society can be optimized by a coupled optimizer, i.e.
+	 * all of its agriculture, water, electricity, and petroleum systems
+	 * are locally controlled.
+	 *
+	 * @param society the society
+	 * @return true, if applicable
+	 */
+	public static boolean isApplicable(Society society) {
+		return society.getAgricultureSystem() instanceof AgricultureSoS.Local
+				&& society.getWaterSystem() instanceof WaterSoS.Local
+				&& society.getElectricitySystem() instanceof ElectricitySoS.Local
+				&& society.getPetroleumSystem() instanceof PetroleumSoS.Local;
+	}
+
+	/**
+	 * Creates the integrated production and distribution model.
+	 *
+	 * @param topology the model topology
+	 * @param agricultureElements the agriculture elements
+	 * @param waterElements the water elements
+	 * @param electricityElements the electricity elements
+	 * @param petroleumElements the petroleum elements
+	 * @param cities the cities
+	 * @return the linear program
+	 */
+	private LinearProgram createModel(List<Object> topology,
+			List<? extends AgricultureElement> agricultureElements,
+			List<? extends WaterElement> waterElements,
+			List<? extends ElectricityElement> electricityElements,
+			List<? extends PetroleumElement> petroleumElements,
+			List<City> cities) {
+		int numberCities = cities.size();
+		waterOffset = 2*agricultureElements.size() + 2*numberCities;
+		electricityOffset = waterOffset + 2*waterElements.size() + 2*numberCities;
+		petroleumOffset = electricityOffset + 2*electricityElements.size() + numberCities;
+
+		// NOTE: reduce epsilon from 1e-6 (default) to 1e-3 to cope with
+		// large magnitude differences between variables. Keep max ulps
+		// set at the default (10).
+		LinearProgram model = new LinearProgram(topology,
+				petroleumOffset + 2*petroleumElements.size() + 2*numberCities,
+				1e-3, 10);
+
+		agricultureIndex = new NetworkIndex(cities, agricultureElements);
+		waterIndex = new NetworkIndex(cities, waterElements);
+		electricityIndex = new NetworkIndex(cities, electricityElements);
+		petroleumIndex = new NetworkIndex(cities, petroleumElements);
+
+		agricultureLocal = new boolean[numberCities];
+		waterLocal = new boolean[numberCities];
+		electricityLocal = new boolean[numberCities];
+		petroleumLocal = new boolean[numberCities];
+		landRows = createRows(numberCities);
+		laborRows = createRows(numberCities);
+		foodRows = createRows(numberCities);
+		aquiferRows = createRows(numberCities);
+		waterRows = createRows(numberCities);
+		waterUseRows = createRows(numberCities);
+		electricityRows = createRows(numberCities);
+		reservoirRows = createRows(numberCities);
+		petroleumRows = createRows(numberCities);
+
+		for(int j = 0; j < numberCities; j++) {
+			City city = cities.get(j);
+			agricultureLocal[j] = city.getAgricultureSystem() instanceof AgricultureSystem.Local;
+			waterLocal[j] = city.getWaterSystem() instanceof WaterSystem.Local;
+			electricityLocal[j] = city.getElectricitySystem() instanceof ElectricitySystem.Local;
+			petroleumLocal[j] = city.getPetroleumSystem() instanceof PetroleumSystem.Local;
+
+			if(agricultureLocal[j]) {
+				// Constrain land and labor used in each city.
+				landRows[j] = model.addConstraint(Relationship.LEQ);
+				laborRows[j] = model.addConstraint(Relationship.LEQ);
+				for(int i : agricultureIndex.getOutgoingElements(j)) {
+					model.setCoefficient(landRows[j], i, 1.0);
+					model.setCoefficient(laborRows[j], i,
+							agricultureElements.get(i).getLaborIntensityOfLandUsed());
+				}
+
+				// Constrain food supply = demand in each city.
+				foodRows[j] = model.addConstraint(Relationship.EQ);
+				for(int i : agricultureIndex.getOutgoingElements(j)) {
+					// production flow
+					model.setCoefficient(foodRows[j], i,
+							agricultureElements.get(i).getFoodIntensityOfLandUsed());
+
+					// Set coefficient for in-flow to the distribution element.
+					// Self loops are only indexed here to never distribute in self loop.
+					model.setCoefficient(foodRows[j], agricultureElements.size() + i, -1);
+				}
+				for(int i : agricultureIndex.getIncomingElements(j)) {
+					// Set coefficient for out-flow from the distribution element.
+					model.setCoefficient(foodRows[j], agricultureElements.size() + i,
+							agricultureElements.get(i).getDistributionEfficiency());
+				}
+				// Allow import and export in this city.
+				model.setCoefficient(foodRows[j], 2*agricultureElements.size() + j, 1);
+				model.setCoefficient(foodRows[j],
+						2*agricultureElements.size() + numberCities + j, -1);
+			}
+
+			if(waterLocal[j]) {
+				// Constrain aquifer withdrawals in each city.
+				aquiferRows[j] = model.addConstraint(Relationship.LEQ);
+				for(int i : waterIndex.getOutgoingElements(j)) {
+					model.setCoefficient(aquiferRows[j], waterOffset + i,
+							waterElements.get(i).getAquiferIntensityOfWaterProduction());
+				}
+
+				// Constrain water supply = demand in each city.
+				waterRows[j] = model.addConstraint(Relationship.EQ);
+				for(int i : waterIndex.getOutgoingElements(j)) {
+					model.setCoefficient(waterRows[j], waterOffset + i, 1);
+
+					// Set coefficient for in-flow to the distribution element.
+					// Self loops are only indexed here to never distribute in self loop.
+					model.setCoefficient(waterRows[j],
+							waterOffset + waterElements.size() + i, -1);
+				}
+				for(int i : waterIndex.getIncomingElements(j)) {
+					// Set coefficient for out-flow from the distribution element.
+					model.setCoefficient(waterRows[j], waterOffset + waterElements.size() + i,
+							waterElements.get(i).getDistributionEfficiency());
+				}
+				// Allow private production or import in this city.
+				model.setCoefficient(waterRows[j],
+						waterOffset + 2*waterElements.size() + j, 1);
+				model.setCoefficient(waterRows[j],
+						waterOffset + 2*waterElements.size() + numberCities + j, 1);
+
+				// Constrain water supplied to the other sectors to their consumption.
+				waterUseRows[j] = model.addConstraint(Relationship.LEQ);
+				model.setCoefficient(waterUseRows[j],
+						waterOffset + 2*waterElements.size() + numberCities + j, 1);
+			}
+
+			if(electricityLocal[j]) {
+				// Constrain electricity supply = demand in each city.
+				electricityRows[j] = model.addConstraint(Relationship.EQ);
+				for(int i : electricityIndex.getOutgoingElements(j)) {
+					model.setCoefficient(electricityRows[j], electricityOffset + i, 1);
+
+					// Set coefficient for in-flow to the distribution element.
+					// Self loops are only indexed here to never distribute in self loop.
+					model.setCoefficient(electricityRows[j],
+							electricityOffset + electricityElements.size() + i, -1);
+				}
+				for(int i : electricityIndex.getIncomingElements(j)) {
+					// Set coefficient for out-flow from the distribution element.
+					model.setCoefficient(electricityRows[j],
+							electricityOffset + electricityElements.size() + i,
+							electricityElements.get(i).getDistributionEfficiency());
+				}
+				// Allow private production in this city.
+				model.setCoefficient(electricityRows[j],
+						electricityOffset + 2*electricityElements.size() + j, 1);
+			}
+
+			if(petroleumLocal[j]) {
+				// Constrain reservoir withdrawals in each city.
+				reservoirRows[j] = model.addConstraint(Relationship.LEQ);
+				for(int i : petroleumIndex.getOutgoingElements(j)) {
+					model.setCoefficient(reservoirRows[j], petroleumOffset + i,
+							petroleumElements.get(i).getReservoirIntensityOfPetroleumProduction());
+				}
+
+				// Constrain petroleum supply = demand in each city.
+				petroleumRows[j] = model.addConstraint(Relationship.EQ);
+				for(int i : petroleumIndex.getOutgoingElements(j)) {
+					model.setCoefficient(petroleumRows[j], petroleumOffset + i, 1);
+
+					// Set coefficient for in-flow to the distribution element.
+					// Self loops are only indexed here to never distribute in self loop.
+					model.setCoefficient(petroleumRows[j],
+							petroleumOffset + petroleumElements.size() + i, -1);
+				}
+				for(int i : petroleumIndex.getIncomingElements(j)) {
+					// Set coefficient for out-flow from the distribution element.
+					model.setCoefficient(petroleumRows[j],
+							petroleumOffset + petroleumElements.size() + i,
+							petroleumElements.get(i).getDistributionEfficiency());
+				}
+				// Allow import and export in this city.
+				model.setCoefficient(petroleumRows[j],
+						petroleumOffset + 2*petroleumElements.size() + j, 1);
+				model.setCoefficient(petroleumRows[j],
+						petroleumOffset + 2*petroleumElements.size() + numberCities + j, -1);
+			}
+		}
+
+		for(int j = 0; j < numberCities; j++) {
+			City city = cities.get(j);
+
+			// Water consumed by agriculture in the origin city.
+			if(waterLocal[j]) {
+				for(int i : agricultureIndex.getOutgoingElements(j)) {
+					AgricultureElement element = agricultureElements.get(i);
+					double intensity = WaterUnits.convertFlow(
+							element.getWaterIntensityOfLandUsed(), element, city);
+					model.setCoefficient(waterRows[j], i, -intensity);
+					model.setCoefficient(waterUseRows[j], i, -intensity);
+				}
+			}
+
+			// Water and petroleum consumed by electricity production.
+			for(int i : electricityIndex.getOutgoingElements(j)) {
+				ElectricityElement element = electricityElements.get(i);
+				if(waterLocal[j]) {
+					double intensity = WaterUnits.convertFlow(
+							element.getWaterIntensityOfElectricityProduction(), element, city);
+					model.setCoefficient(waterRows[j], electricityOffset + i, -intensity);
+					model.setCoefficient(waterUseRows[j], electricityOffset + i, -intensity);
+				}
+				if(petroleumLocal[j]) {
+					model.setCoefficient(petroleumRows[j], electricityOffset + i,
+							-OilUnits.convertFlow(element.getPetroleumIntensityOfElectricityProduction(),
+									element, city));
+				}
+			}
+
+			// Petroleum consumed by private electricity production.
+			if(electricityLocal[j] && petroleumLocal[j]) {
+				model.setCoefficient(petroleumRows[j],
+						electricityOffset + 2*electricityElements.size() + j,
+						-OilUnits.convertFlow(((ElectricitySystem.Local) city.getElectricitySystem())
+								.getPetroleumIntensityOfPrivateProduction(),
+								city.getElectricitySystem(), city));
+			}
+
+			if(electricityLocal[j]) {
+				// Electricity consumed by water production and distribution;
+				// elements which require coastal access do not operate in
+				// cities without it.
+				boolean coastalAccess = waterLocal[j] && ((WaterSystem.Local)
+						city.getWaterSystem()).isCoastalAccess();
+				for(int i : waterIndex.getOutgoingElements(j)) {
+					WaterElement element = waterElements.get(i);
+					if(!element.isCoastalAccessRequired() || coastalAccess) {
+						model.setCoefficient(electricityRows[j], waterOffset + i,
+								-ElectricityUnits.convertFlow(
+										element.getElectricalIntensityOfWaterProduction(),
+										element, city));
+						model.setCoefficient(electricityRows[j],
+								waterOffset + waterElements.size() + i,
+								-ElectricityUnits.convertFlow(
+										element.getElectricalIntensityOfWaterDistribution(),
+										element, city));
+					}
+				}
+
+				// Electricity consumed by private water production.
+				if(city.getWaterSystem() instanceof LocalWaterSystem) {
+					double intensity = ElectricityUnits.convertFlow(
+							((LocalWaterSystem) city.getWaterSystem())
+							.getElectricalIntensityOfPrivateProduction(),
+							city.getWaterSystem(), city);
+					model.setCoefficient(electricityRows[j],
+							waterOffset + 2*waterElements.size() + j, -intensity);
+					model.setCoefficient(electricityRows[j],
+							waterOffset + 2*waterElements.size() + numberCities + j, -intensity);
+				}
+
+				// Electricity consumed by petroleum distribution.
+				for(int i : petroleumIndex.getOutgoingElements(j)) {
+					PetroleumElement element = petroleumElements.get(i);
+					model.setCoefficient(electricityRows[j],
+							petroleumOffset + petroleumElements.size() + i,
+							-ElectricityUnits.convertFlow(
+									element.getElectricalIntensityOfPetroleumDistribution(),
+									element, city));
+				}
+			}
+		}
+		return model;
+	}
+
+	/**
+	 * Creates an array of constraint indices for each city. Cities
+	 * without a constraint have the index -1.
+	 *
+	 * @param numberCities the number cities
+	 * @return the constraint indices
+	 */
+	private static int[] createRows(int numberCities) {
+		int[] rows = new int[numberCities];
+		Arrays.fill(rows, -1);
+		return rows;
+	}
+
+	/**
+	 * Gets the topology of the integrated model, i.e. the elements and
+	 * their operational states of each sector, and the cities and their
+	 * infrastructure systems which determine the constraint structure.
+	 *
+	 * @param elements the elements of each sector
+	 * @param cities the cities
+	 * @return the model topology
+	 */
+	private static List<Object> getModelTopology(
+			List<List<? extends InfrastructureElement>> elements, List<City> cities) {
+		List<Object> topology = new ArrayList<Object>();
+		for(List<? extends InfrastructureElement> sectorElements : elements) {
+			topology.add(Integer.valueOf(sectorElements.size()));
+			for(InfrastructureElement element : sectorElements) {
+				// element coefficients are zero unless operational
+				topology.add(element);
+				topology.add(Boolean.valueOf(element.isOperational()));
+			}
+		}
+		for(City city : cities) {
+			topology.add(city);
+			topology.add(city.getAgricultureSystem());
+			topology.add(city.getWaterSystem());
+			topology.add(city.getElectricitySystem());
+			topology.add(city.getPetroleumSystem());
+		}
+		return topology;
+	}
+
+	/**
+	 * Gets the society.
+	 *
+	 * @return the society
+	 */
+	public Society getSociety() {
+		return society;
+	}
+
+	/**
+	 * Optimizes production and distribution in all sectors.
+	 */
+	public void optimizeProductionAndDistribution() {
+		PreparedOptimization optimization = prepareProductionAndDistribution();
+		optimization.solve();
+		optimization.apply();
+	}
+
+	/**
+	 * Prepares the integrated production and distribution optimization
+	 * from the current state.
+	 *
+	 * @return the prepared optimization
+	 */
+	public PreparedOptimization prepareProductionAndDistribution() {
+		if(!isApplicable(society)) {
+			throw new IllegalStateException(
+					"All sectors must be locally controlled.");
+		}
+		AgricultureSoS.Local agricultureSystem = (AgricultureSoS.Local) society.getAgricultureSystem();
+		WaterSoS.Local waterSystem = (WaterSoS.Local) society.getWaterSystem();
+		ElectricitySoS.Local electricitySystem = (ElectricitySoS.Local) society.getElectricitySystem();
+		PetroleumSoS.Local petroleumSystem = (PetroleumSoS.Local) society.getPetroleumSystem();
+
+		List<City> cities = society.getCities();
+		final List<? extends AgricultureElement> agricultureElements =
+				agricultureSystem.getInternalElements();
+		final List<? extends WaterElement> waterElements =
+				waterSystem.getInternalElements();
+		final List<? extends ElectricityElement> electricityElements =
+				electricitySystem.getInternalElements();
+		final List<? extends PetroleumElement> petroleumElements =
+				petroleumSystem.getInternalElements();
+
+		// Re-build the model only if the topology has changed.
+		List<Object> topology = getModelTopology(
+				Arrays.<List<? extends InfrastructureElement>>asList(agricultureElements,
+						waterElements, electricityElements, petroleumElements), cities);
+		if(model == null || !model.isTopology(topology)) {
+			model = createModel(topology, agricultureElements, waterElements,
+					electricityElements, petroleumElements, cities);
+		}
+
+		// Domestic prices value any consumption which is not explicit.
+		double waterPrice = DefaultUnits.convert(waterSystem.getWaterDomesticPrice(),
+				waterSystem.getCurrencyUnits(), waterSystem.getWaterUnits(),
+				society.getCurrencyUnits(), society.getWaterUnits());
+		double electricityPrice = DefaultUnits.convert(
+				electricitySystem.getElectricityDomesticPrice(),
+				electricitySystem.getCurrencyUnits(), electricitySystem.getElectricityUnits(),
+				society.getCurrencyUnits(), society.getElectricityUnits());
+		double petroleumPrice = DefaultUnits.convert(
+				petroleumSystem.getPetroleumDomesticPrice(),
+				petroleumSystem.getCurrencyUnits(), petroleumSystem.getOilUnits(),
+				society.getCurrencyUnits(), society.getOilUnits());
+
+		for(int i = 0; i < agricultureElements.size(); i++) {
+			AgricultureElement element = agricultureElements.get(i);
+			int origin = agricultureIndex.getCityIndex(element.getOrigin());
+
+			// production constraint and cost
+			model.setUpperBound(i, element.getMaxLandArea());
+			model.setCostCoefficient(i, element.getCostIntensityOfLandUsed()
+					+ (isLocal(waterLocal, origin) ? 0
+							: element.getWaterIntensityOfLandUsed() * waterPrice));
+			model.setInitialValue(i, element.getLandArea());
+
+			// distribution constraint and cost
+			model.setUpperBound(agricultureElements.size() + i, element.getMaxFoodInput());
+			model.setCostCoefficient(agricultureElements.size() + i,
+					element.getVariableOperationsCostOfFoodDistribution());
+			model.setInitialValue(agricultureElements.size() + i, element.getFoodInput());
+		}
+
+		for(int i = 0; i < waterElements.size(); i++) {
+			WaterElement element = waterElements.get(i);
+			int origin = waterIndex.getCityIndex(element.getOrigin());
+
+			// Constrain maximum production in each fixed element.
+			if(element.isCoastalAccessRequired()
+					&& !((WaterSystem.Local)waterIndex.getCity(
+							element.getOrigin()).getWaterSystem()).isCoastalAccess()) {
+				model.setUpperBound(waterOffset + i, 0);
+			} else {
+				model.setUpperBound(waterOffset + i, element.getMaxWaterProduction());
+			}
+			model.setCostCoefficient(waterOffset + i,
+					element.getVariableOperationsCostOfWaterProduction()
+					+ (isLocal(electricityLocal, origin) ? 0
+							: element.getElectricalIntensityOfWaterProduction() * electricityPrice));
+			model.setInitialValue(waterOffset + i, element.getWaterProduction());
+
+			// Constrain maximum throughput in each distribution element.
+			model.setUpperBound(waterOffset + waterElements.size() + i,
+					element.getMaxWaterInput());
+			model.setCostCoefficient(waterOffset + waterElements.size() + i,
+					element.getVariableOperationsCostOfWaterDistribution()
+					+ element.getAquiferIntensityOfWaterProduction()
+					+ (isLocal(electricityLocal, origin) ? 0
+							: element.getElectricalIntensityOfWaterDistribution() * electricityPrice));
+			model.setInitialValue(waterOffset + waterElements.size() + i,
+					element.getWaterInput());
+		}
+
+		for(int i = 0; i < electricityElements.size(); i++) {
+			ElectricityElement element = electricityElements.get(i);
+			int origin = electricityIndex.getCityIndex(element.getOrigin());
+
+			// Constrain maximum production in each fixed element.
+			model.setUpperBound(electricityOffset + i, element.getMaxElectricityProduction());
+			model.setCostCoefficient(electricityOffset + i,
+					element.getVariableOperationsCostOfElectricityProduction()
+					+ (isLocal(waterLocal, origin) ? 0
+							: element.getWaterIntensityOfElectricityProduction() * waterPrice)
+					+ (isLocal(petroleumLocal, origin) ? 0
+							: element.getPetroleumIntensityOfElectricityProduction() * petroleumPrice));
+			model.setInitialValue(electricityOffset + i, element.getElectricityProduction());
+
+			// Constrain maximum throughput in each distribution element.
+			model.setUpperBound(electricityOffset + electricityElements.size() + i,
+					element.getMaxElectricityInput());
+			model.setCostCoefficient(electricityOffset + electricityElements.size() + i,
+					element.getVariableOperationsCostOfElectricityDistribution());
+			model.setInitialValue(electricityOffset + electricityElements.size() + i,
+					element.getElectricityInput());
+		}
+
+		for(int i = 0; i < petroleumElements.size(); i++) {
+			PetroleumElement element = petroleumElements.get(i);
+			int origin = petroleumIndex.getCityIndex(element.getOrigin());
+
+			// Constrain maximum production in each fixed element.
+			model.setUpperBound(petroleumOffset + i, element.getMaxPetroleumProduction());
+			model.setCostCoefficient(petroleumOffset + i,
+					element.getVariableOperationsCostOfPetroleumProduction());
+			model.setInitialValue(petroleumOffset + i, element.getPetroleumProduction());
+
+			// Constrain maximum throughput in each distribution element.
+			model.setUpperBound(petroleumOffset + petroleumElements.size() + i,
+					element.getMaxPetroleumInput());
+			model.setCostCoefficient(petroleumOffset + petroleumElements.size() + i,
+					element.getVariableOperationsCostOfPetroleumDistribution()
+					+ element.getReservoirIntensityOfPetroleumProduction()
+					+ (isLocal(electricityLocal, origin) ? 0
+							: element.getElectricalIntensityOfPetroleumDistribution() * electricityPrice));
+			model.setInitialValue(petroleumOffset + petroleumElements.size() + i,
+					element.getPetroleumInput());
+		}
+
+		for(int j = 0; j < cities.size(); j++) {
+			City city = cities.get(j);
+			SocialSystem socialSystem = city.getSocialSystem();
+
+			if(agricultureLocal[j]) {
+				AgricultureSystem.Local system = (AgricultureSystem.Local) city.getAgricultureSystem();
+				model.setValue(landRows[j], system.getArableLandArea());
+				model.setValue(laborRows[j], socialSystem.getPopulation()
+						* system.getLaborParticipationRate());
+				model.setValue(foodRows[j], city.getTotalFoodDemand());
+
+				int importVariable = 2*agricultureElements.size() + j;
+				int exportVariable = 2*agricultureElements.size() + cities.size() + j;
+				model.setCostCoefficient(importVariable, system.getFoodImportPrice());
+				model.setInitialValue(importVariable, system.getFoodImport());
+				model.setCostCoefficient(exportVariable, -system.getFoodExportPrice());
+				model.setInitialValue(exportVariable, system.getFoodExport());
+			}
+
+			if(waterLocal[j]) {
+				WaterSystem.Local system = (WaterSystem.Local) city.getWaterSystem();
+				model.setValue(aquiferRows[j], system.getWaterReservoirVolume());
+
+				// Demand includes consumption by systems not in the model.
+				double demand = WaterUnits.convertFlow(
+						socialSystem.getWaterConsumption(), socialSystem, city);
+				if(!agricultureLocal[j]) {
+					demand += WaterUnits.convertFlow(
+							city.getAgricultureSystem().getWaterConsumption(),
+							city.getAgricultureSystem(), city);
+				}
+				if(!electricityLocal[j]) {
+					demand += WaterUnits.convertFlow(
+							city.getElectricitySystem().getWaterConsumption(),
+							city.getElectricitySystem(), city);
+				}
+				model.setValue(waterRows[j], demand);
+
+				// Split the current supply between the society and the other sectors.
+				double consumption = 0;
+				if(agricultureLocal[j]) {
+					consumption += WaterUnits.convertFlow(
+							city.getAgricultureSystem().getWaterConsumption(),
+							city.getAgricultureSystem(), city);
+				}
+				if(electricityLocal[j]) {
+					consumption += WaterUnits.convertFlow(
+							city.getElectricitySystem().getWaterConsumption(),
+							city.getElectricitySystem(), city);
+				}
+				double supply = system.getWaterFromPrivateProduction() + system.getWaterImport();
+
+				int supplyVariable = waterOffset + 2*waterElements.size() + j;
+				model.setCostCoefficient(supplyVariable, system.getWaterImportPrice());
+				model.setInitialValue(supplyVariable, supply - Math.min(supply, consumption));
+
+				int sectorVariable = waterOffset + 2*waterElements.size() + cities.size() + j;
+				model.setCostCoefficient(sectorVariable, waterPrice);
+				model.setInitialValue(sectorVariable, Math.min(supply, consumption));
+			}
+
+			if(electricityLocal[j]) {
+				ElectricitySystem.Local system = (ElectricitySystem.Local) city.getElectricitySystem();
+
+				// Demand includes consumption by systems not in the model.
+				double demand = ElectricityUnits.convertFlow(
+						socialSystem.getElectricityConsumption(), socialSystem, city);
+				if(!waterLocal[j]) {
+					demand += ElectricityUnits.convertFlow(
+							city.getWaterSystem().getElectricityConsumption(),
+							city.getWaterSystem(), city);
+				}
+				if(!petroleumLocal[j]) {
+					demand += ElectricityUnits.convertFlow(
+							city.getPetroleumSystem().getElectricityConsumption(),
+							city.getPetroleumSystem(), city);
+				}
+				model.setValue(electricityRows[j], demand);
+
+				int privateVariable = electricityOffset + 2*electricityElements.size() + j;
+				model.setCostCoefficient(privateVariable, system.getElectricityDomesticPrice()
+						+ (petroleumLocal[j] ? 0 : system.getPetroleumIntensityOfPrivateProduction()
+						* DefaultUnits.convert(city.getPetroleumSystem().getPetroleumDomesticPrice(),
+								city.getPetroleumSystem().getCurrencyUnits(),
+								city.getPetroleumSystem().getOilUnits(),
+								society.getCurrencyUnits(), society.getOilUnits())));
+				model.setInitialValue(privateVariable,
+						Math.max(0, system.getElectricityFromPrivateProduction()));
+			}
+
+			if(petroleumLocal[j]) {
+				PetroleumSystem.Local system = (PetroleumSystem.Local) city.getPetroleumSystem();
+				model.setValue(reservoirRows[j], system.getReservoirVolume());
+
+				// Demand includes consumption by systems not in the model.
+				double demand = OilUnits.convertFlow(
+						socialSystem.getPetroleumConsumption(), socialSystem, city);
+				if(!electricityLocal[j]) {
+					demand += OilUnits.convertFlow(
+							city.getElectricitySystem().getPetroleumConsumption(),
+							city.getElectricitySystem(), city);
+				}
+				model.setValue(petroleumRows[j], demand);
+
+				int importVariable = petroleumOffset + 2*petroleumElements.size() + j;
+				int exportVariable = petroleumOffset + 2*petroleumElements.size() + cities.size() + j;
+				model.setCostCoefficient(importVariable, system.getPetroleumImportPrice());
+				model.setInitialValue(importVariable, system.getPetroleumImport());
+				model.setCostCoefficient(exportVariable, -system.getPetroleumExportPrice());
+				model.setInitialValue(exportVariable, system.getPetroleumExport());
+			}
+		}
+
+		final int waterOffset = this.waterOffset;
+		final int electricityOffset = this.electricityOffset;
+		final int petroleumOffset = this.petroleumOffset;
+		return new PreparedOptimization(model) {
+			@Override
+			protected void apply(double[] point) {
+				// Add Math.min checks in case error exceeds bounds.
+				for(int i = 0; i < agricultureElements.size(); i++) {
+					AgricultureElement element = agricultureElements.get(i);
+					element.setLandArea(Math.min(point[i], element.getMaxLandArea()));
+					element.setFoodInput(Math.min(point[agricultureElements.size() + i],
+							element.getMaxFoodInput()));
+				}
+				for(int i = 0; i < waterElements.size(); i++) {
+					WaterElement element = waterElements.get(i);
+					element.setWaterProduction(Math.min(point[waterOffset + i],
+							element.getMaxWaterProduction()));
+					element.setWaterInput(Math.min(
+							point[waterOffset + waterElements.size() + i],
+							element.getMaxWaterInput()));
+				}
+				for(int i = 0; i < electricityElements.size(); i++) {
+					ElectricityElement element = electricityElements.get(i);
+					element.setElectricityProduction(Math.min(point[electricityOffset + i],
+							element.getMaxElectricityProduction()));
+					element.setElectricityInput(Math.min(
+							point[electricityOffset + electricityElements.size() + i],
+							element.getMaxElectricityInput()));
+				}
+				for(int i = 0; i < petroleumElements.size(); i++) {
+					PetroleumElement element = petroleumElements.get(i);
+					element.setPetroleumProduction(Math.min(point[petroleumOffset + i],
+							element.getMaxPetroleumProduction()));
+					element.setPetroleumInput(Math.min(
+							point[petroleumOffset + petroleumElements.size() + i],
+							element.getMaxPetroleumInput()));
+				}
+			}
+		};
+	}
+
+	/**
+	 * Checks if a city has a locally-controlled system for a sector.
+	 *
+	 * @param local the local flags for each city
+	 * @param city the city index (-1 if unknown)
+	 * @return true, if local
+	 */
+	private static boolean isLocal(boolean[] local, int city) {
+		return city >= 0 && local[city];
+	}
+}
\ No newline at end of file
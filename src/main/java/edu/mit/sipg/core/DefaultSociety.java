@@ -20,7 +20,9 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
+import edu.mit.sipg.core.base.CachedView;
 import edu.mit.sipg.core.base.InfrastructureElement;
 import edu.mit.sipg.core.base.InfrastructureSystem;
 import edu.mit.sipg.scenario.Sector;
@@ -56,6 +58,22 @@ public abstract class DefaultSociety implements Society {
 	private transient double nextTotalCashFlow;
 	private double cumulativeCapitalExpense;
 	private transient double nextTotalCapitalExpense;
+	private transient final AtomicLong structureVersion = new AtomicLong(0);
+	private transient final CachedView<InfrastructureElement> internalElements = 
+			new CachedView<InfrastructureElement>(this) {
+		@Override
+		protected List<InfrastructureElement> compute() {
+			List<InfrastructureElement> elements = 
+					new ArrayList<InfrastructureElement>();
+			for(InfrastructureSystem system : getInfrastructureSystems()) {
+				if(system instanceof InfrastructureSystem.Local) {
+					elements.addAll(((InfrastructureSystem.Local)system)
+							.getInternalElements());
+				}
+			}
+			return elements;
+		}
+	};
 
 	/**
 	 * Instantiates a new default society.
@@ -86,6 +104,17 @@ public abstract class DefaultSociety implements Society {
 		}
 	}
 
+	/**
+	 * Copies the cumulative capital expense and cash flow of another 
+	 * society into this society.
+	 *
+	 * @param society the society
+	 */
+	protected void copyCumulativeState(DefaultSociety society) {
+		cumulativeCapitalExpense = society.cumulativeCapitalExpense;
+		cumulativeCashFlow = society.cumulativeCashFlow;
+	}
+
 	@Override
 	public double getCumulativeCapitalExpense() {
 		return cumulativeCapitalExpense;
@@ -134,15 +163,7 @@ public abstract class DefaultSociety implements Society {
 
 	@Override
 	public List<InfrastructureElement> getInternalElements() {
-		List<InfrastructureElement> elements = 
-				new ArrayList<InfrastructureElement>();
-		for(InfrastructureSystem system : getInfrastructureSystems()) {
-			if(system instanceof InfrastructureSystem.Local) {
-				elements.addAll(((InfrastructureSystem.Local)system)
-						.getInternalElements());
-			}
-		}
-		return Collections.unmodifiableList(elements);
+		return internalElements.get();
 	}	
 	
 	@Override
@@ -203,6 +224,14 @@ public abstract class DefaultSociety implements Society {
 		return society;
 	}
 
+	@Override
+	public long getStructureVersion() {
+		if(society != null) {
+			return society.getStructureVersion();
+		}
+		return structureVersion.get();
+	}
+
 	@Override
 	public double getTotalCapitalExpense() {
 		double value = 0;
@@ -286,9 +315,20 @@ public abstract class DefaultSociety implements Society {
 		}
 	}
 
+	@Override
+	public void invalidateStructure() {
+		if(society != null) {
+			society.invalidateStructure();
+		} else {
+			structureVersion.incrementAndGet();
+		}
+	}
+
 	@Override
 	public void setSociety(Society society) {
+		invalidateStructure();
 		this.society = society;
+		invalidateStructure();
 	}
 
 	@Override
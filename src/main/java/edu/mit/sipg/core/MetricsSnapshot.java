@@ -0,0 +1,525 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.mit.sipg.core.agriculture.AgricultureSoS;
+import edu.mit.sipg.core.agriculture.AgricultureSystem;
+import edu.mit.sipg.core.base.InfrastructureSystem;
+import edu.mit.sipg.core.electricity.ElectricitySystem;
+import edu.mit.sipg.core.petroleum.PetroleumSoS;
+import edu.mit.sipg.core.petroleum.PetroleumSystem;
+import edu.mit.sipg.core.social.SocialSystem;
+import edu.mit.sipg.core.water.WaterSoS;
+import edu.mit.sipg.core.water.WaterSystem;
+
+/**
+ * An immutable snapshot of aggregate infrastructure system metrics for 
+ * all societies in a country. Each metric is evaluated once for each 
+ * system when the snapshot is captured so consumers can read values 
+ * without re-traversing the nested systems and elements.
+ * 
+ * Values are in the native units of each system. Metrics which are not 
+ * defined for a system (e.g. water production for a social system) 
+ * have the value {@link Double#NaN}.
+ * 
+ * @author Paul T. Grogan
+ */
+public final class MetricsSnapshot {
+	
+	/**
+	 * An aggregate metric of an infrastructure system.
+	 */
+	public static enum Metric {
+		CAPITAL_EXPENSE(InfrastructureSystem.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return system.getCapitalExpense();
+			}
+		},
+		CASH_FLOW(InfrastructureSystem.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return system.getCashFlow();
+			}
+		},
+		CONSUMPTION_EXPENSE(InfrastructureSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((InfrastructureSystem.Local) system).getConsumptionExpense();
+			}
+		},
+		CUMULATIVE_CASH_FLOW(InfrastructureSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((InfrastructureSystem.Local) system).getCumulativeCashFlow();
+			}
+		},
+		DECOMMISSION_EXPENSE(InfrastructureSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((InfrastructureSystem.Local) system).getDecommissionExpense();
+			}
+		},
+		DISTRIBUTION_EXPENSE(InfrastructureSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((InfrastructureSystem.Local) system).getDistributionExpense();
+			}
+		},
+		DISTRIBUTION_REVENUE(InfrastructureSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((InfrastructureSystem.Local) system).getDistributionRevenue();
+			}
+		},
+		EXPORT_REVENUE(InfrastructureSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((InfrastructureSystem.Local) system).getExportRevenue();
+			}
+		},
+		IMPORT_EXPENSE(InfrastructureSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((InfrastructureSystem.Local) system).getImportExpense();
+			}
+		},
+		LIFECYCLE_EXPENSE(InfrastructureSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((InfrastructureSystem.Local) system).getLifecycleExpense();
+			}
+		},
+		OPERATIONS_EXPENSE(InfrastructureSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((InfrastructureSystem.Local) system).getOperationsExpense();
+			}
+		},
+		SALES_REVENUE(InfrastructureSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((InfrastructureSystem.Local) system).getSalesRevenue();
+			}
+		},
+		TOTAL_EXPENSE(InfrastructureSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((InfrastructureSystem.Local) system).getTotalExpense();
+			}
+		},
+		TOTAL_REVENUE(InfrastructureSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((InfrastructureSystem.Local) system).getTotalRevenue();
+			}
+		},
+		ARABLE_LAND_AREA(AgricultureSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((AgricultureSystem.Local) system).getArableLandArea();
+			}
+		},
+		FOOD_EXPORT(AgricultureSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((AgricultureSystem.Local) system).getFoodExport();
+			}
+		},
+		FOOD_IMPORT(AgricultureSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((AgricultureSystem.Local) system).getFoodImport();
+			}
+		},
+		FOOD_IN_DISTRIBUTION(AgricultureSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((AgricultureSystem.Local) system).getFoodInDistribution();
+			}
+		},
+		FOOD_OUT_DISTRIBUTION(AgricultureSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((AgricultureSystem.Local) system).getFoodOutDistribution();
+			}
+		},
+		FOOD_PRODUCTION(AgricultureSystem.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((AgricultureSystem) system).getFoodProduction();
+			}
+		},
+		FOOD_SECURITY_SCORE(AgricultureSoS.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((AgricultureSoS) system).getFoodSecurityScore();
+			}
+		},
+		LABOR_USED(AgricultureSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((AgricultureSystem.Local) system).getLaborUsed();
+			}
+		},
+		LABOR_PARTICIPATION_RATE(AgricultureSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((AgricultureSystem.Local) system).getLaborParticipationRate();
+			}
+		},
+		LAND_AREA_USED(AgricultureSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((AgricultureSystem.Local) system).getLandAreaUsed();
+			}
+		},
+		TOTAL_FOOD_SUPPLY(AgricultureSystem.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((AgricultureSystem) system).getTotalFoodSupply();
+			}
+		},
+		AQUIFER_SECURITY_SCORE(WaterSoS.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((WaterSoS) system).getAquiferSecurityScore();
+			}
+		},
+		AQUIFER_WITHDRAWALS(WaterSystem.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((WaterSystem) system).getAquiferWithdrawals();
+			}
+		},
+		ELECTRICITY_CONSUMPTION_FROM_PRIVATE_PRODUCTION(WaterSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((WaterSystem.Local) system).getElectricityConsumptionFromPrivateProduction();
+			}
+		},
+		ELECTRICITY_CONSUMPTION_FROM_PUBLIC_PRODUCTION(WaterSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((WaterSystem.Local) system).getElectricityConsumptionFromPublicProduction();
+			}
+		},
+		TOTAL_WATER_SUPPLY(WaterSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((WaterSystem.Local) system).getTotalWaterSupply();
+			}
+		},
+		WATER_FROM_PRIVATE_PRODUCTION(WaterSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((WaterSystem.Local) system).getWaterFromPrivateProduction();
+			}
+		},
+		WATER_IMPORT(WaterSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((WaterSystem.Local) system).getWaterImport();
+			}
+		},
+		WATER_IN_DISTRIBUTION(WaterSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((WaterSystem.Local) system).getWaterInDistribution();
+			}
+		},
+		WATER_OUT_DISTRIBUTION(WaterSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((WaterSystem.Local) system).getWaterOutDistribution();
+			}
+		},
+		WATER_PRODUCTION(WaterSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((WaterSystem.Local) system).getWaterProduction();
+			}
+		},
+		WATER_RESERVOIR_VOLUME(WaterSystem.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((WaterSystem) system).getWaterReservoirVolume();
+			}
+		},
+		ELECTRICITY_FROM_PRIVATE_PRODUCTION(ElectricitySystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((ElectricitySystem.Local) system).getElectricityFromPrivateProduction();
+			}
+		},
+		ELECTRICITY_IN_DISTRIBUTION(ElectricitySystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((ElectricitySystem.Local) system).getElectricityInDistribution();
+			}
+		},
+		ELECTRICITY_OUT_DISTRIBUTION(ElectricitySystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((ElectricitySystem.Local) system).getElectricityOutDistribution();
+			}
+		},
+		ELECTRICITY_PRODUCTION(ElectricitySystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((ElectricitySystem.Local) system).getElectricityProduction();
+			}
+		},
+		ELECTRICITY_WASTED(ElectricitySystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((ElectricitySystem.Local) system).getElectricityWasted();
+			}
+		},
+		PETROLEUM_CONSUMPTION_FROM_PRIVATE_PRODUCTION(ElectricitySystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((ElectricitySystem.Local) system).getPetroleumConsumptionFromPrivateProduction();
+			}
+		},
+		PETROLEUM_CONSUMPTION_FROM_PUBLIC_PRODUCTION(ElectricitySystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((ElectricitySystem.Local) system).getPetroleumConsumptionFromPublicProduction();
+			}
+		},
+		TOTAL_ELECTRICITY_SUPPLY(ElectricitySystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((ElectricitySystem.Local) system).getTotalElectricitySupply();
+			}
+		},
+		PETROLEUM_EXPORT(PetroleumSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((PetroleumSystem.Local) system).getPetroleumExport();
+			}
+		},
+		PETROLEUM_IMPORT(PetroleumSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((PetroleumSystem.Local) system).getPetroleumImport();
+			}
+		},
+		PETROLEUM_IN_DISTRIBUTION(PetroleumSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((PetroleumSystem.Local) system).getPetroleumInDistribution();
+			}
+		},
+		PETROLEUM_OUT_DISTRIBUTION(PetroleumSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((PetroleumSystem.Local) system).getPetroleumOutDistribution();
+			}
+		},
+		PETROLEUM_PRODUCTION(PetroleumSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((PetroleumSystem.Local) system).getPetroleumProduction();
+			}
+		},
+		TOTAL_PETROLEUM_SUPPLY(PetroleumSystem.Local.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((PetroleumSystem.Local) system).getTotalPetroleumSupply();
+			}
+		},
+		RESERVOIR_SECURITY_SCORE(PetroleumSoS.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((PetroleumSoS) system).getReservoirSecurityScore();
+			}
+		},
+		RESERVOIR_VOLUME(PetroleumSystem.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((PetroleumSystem) system).getReservoirVolume();
+			}
+		},
+		RESERVOIR_WITHDRAWALS(PetroleumSystem.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((PetroleumSystem) system).getReservoirWithdrawals();
+			}
+		},
+		POPULATION(SocialSystem.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((SocialSystem) system).getPopulation();
+			}
+		},
+		FOOD_CONSUMPTION(SocialSystem.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				return ((SocialSystem) system).getFoodConsumption();
+			}
+		},
+		ELECTRICITY_CONSUMPTION(WaterSystem.class, PetroleumSystem.class, SocialSystem.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				if(system instanceof WaterSystem) {
+					return ((WaterSystem) system).getElectricityConsumption();
+				} else if(system instanceof PetroleumSystem) {
+					return ((PetroleumSystem) system).getElectricityConsumption();
+				}
+				return ((SocialSystem) system).getElectricityConsumption();
+			}
+		},
+		PETROLEUM_CONSUMPTION(ElectricitySystem.class, SocialSystem.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				if(system instanceof ElectricitySystem) {
+					return ((ElectricitySystem) system).getPetroleumConsumption();
+				}
+				return ((SocialSystem) system).getPetroleumConsumption();
+			}
+		},
+		WATER_CONSUMPTION(AgricultureSystem.class, ElectricitySystem.class, SocialSystem.class) {
+			@Override
+			protected double evaluate(InfrastructureSystem system) {
+				if(system instanceof AgricultureSystem) {
+					return ((AgricultureSystem) system).getWaterConsumption();
+				} else if(system instanceof ElectricitySystem) {
+					return ((ElectricitySystem) system).getWaterConsumption();
+				}
+				return ((SocialSystem) system).getWaterConsumption();
+			}
+		};
+		
+		private final Class<?>[] systemTypes;
+		
+		/**
+		 * Instantiates a new metric.
+		 *
+		 * @param systemTypes the system types for which this metric is defined
+		 */
+		private Metric(Class<?>... systemTypes) {
+			this.systemTypes = systemTypes;
+		}
+		
+		/**
+		 * Evaluates this metric for a system.
+		 *
+		 * @param system the system
+		 * @return the value
+		 */
+		protected abstract double evaluate(InfrastructureSystem system);
+		
+		/**
+		 * Checks if this metric is defined for a system.
+		 *
+		 * @param system the system
+		 * @return true, if is defined
+		 */
+		public boolean isDefined(InfrastructureSystem system) {
+			for(Class<?> systemType : systemTypes) {
+				if(systemType.isInstance(system)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+	
+	/**
+	 * Captures a snapshot of the metrics of all systems in a country.
+	 *
+	 * @param country the country
+	 * @return the metrics snapshot
+	 */
+	public static MetricsSnapshot capture(Country country) {
+		Metric[] metrics = Metric.values();
+		List<Society> societies = new ArrayList<Society>();
+		Map<InfrastructureSystem, double[]> values = 
+				new IdentityHashMap<InfrastructureSystem, double[]>();
+		for(Society society : country.getSocieties()) {
+			societies.add(society);
+			for(InfrastructureSystem system : society.getInfrastructureSystems()) {
+				if(system == null || values.containsKey(system)) {
+					continue;
+				}
+				double[] systemValues = new double[metrics.length];
+				for(Metric metric : metrics) {
+					systemValues[metric.ordinal()] = metric.isDefined(system) 
+							? metric.evaluate(system) : Double.NaN;
+				}
+				values.put(system, systemValues);
+			}
+		}
+		return new MetricsSnapshot(societies, values);
+	}
+	
+	private final List<Society> societies;
+	private final Map<InfrastructureSystem, double[]> values;
+	
+	/**
+	 * Instantiates a new metrics snapshot.
+	 *
+	 * @param societies the societies
+	 * @param values the values
+	 */
+	private MetricsSnapshot(List<Society> societies, 
+			Map<InfrastructureSystem, double[]> values) {
+		this.societies = Collections.unmodifiableList(societies);
+		this.values = values;
+	}
+	
+	/**
+	 * Gets the societies included in this snapshot.
+	 *
+	 * @return the societies
+	 */
+	public List<Society> getSocieties() {
+		return societies;
+	}
+	
+	/**
+	 * Gets the value of a metric for a system. Returns {@link Double#NaN} 
+	 * if the system is not included in this snapshot or the metric is not 
+	 * defined for the system.
+	 *
+	 * @param system the system
+	 * @param metric the metric
+	 * @return the value
+	 */
+	public double getValue(InfrastructureSystem system, Metric metric) {
+		double[] systemValues = values.get(system);
+		return systemValues == null ? Double.NaN 
+				: systemValues[metric.ordinal()];
+	}
+	
+	/**
+	 * Checks if a system is included in this snapshot.
+	 *
+	 * @param system the system
+	 * @return true, if is included
+	 */
+	public boolean isIncluded(InfrastructureSystem system) {
+		return values.containsKey(system);
+	}
+}
\ No newline at end of file
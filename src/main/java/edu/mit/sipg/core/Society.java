@@ -156,6 +156,14 @@ public interface Society extends SimEntity, CurrencyUnitsOutput,
 	 */
 	public Society getSociety();
 	
+	/**
+	 * Gets the structure version of the society tree containing this 
+	 * society, which changes after any structural change within the tree.
+	 *
+	 * @return the structure version
+	 */
+	public long getStructureVersion();
+	
 	/**
 	 * Gets the current capital expense incurred in this society.
 	 *
@@ -205,6 +213,12 @@ public interface Society extends SimEntity, CurrencyUnitsOutput,
 	 */
 	public WaterSystem getWaterSystem();
 	
+	/**
+	 * Invalidates cached structural views within the society tree 
+	 * containing this society following a structural change.
+	 */
+	public void invalidateStructure();
+	
 	/**
 	 * Sets the parent society.
 	 *
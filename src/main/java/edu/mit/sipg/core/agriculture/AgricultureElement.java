@@ -27,6 +27,9 @@ import edu.mit.sipg.units.WaterUnitsOutput;
 public interface AgricultureElement extends InfrastructureElement, 
 		FoodUnitsOutput, WaterUnitsOutput {
 	
+	@Override
+	public AgricultureElement copy();
+	
 	/**
 	 * Gets the cost intensity of land used.
 	 *
@@ -16,6 +16,7 @@
 package edu.mit.sipg.core.agriculture;
 
 import edu.mit.sipg.core.base.InfrastructureSoS;
+import edu.mit.sipg.core.optim.PreparedOptimization;
 
 /**
  * An interface to agriculture sector infrastructure system-of-systems.
@@ -64,8 +65,30 @@ public interface AgricultureSoS extends InfrastructureSoS, AgricultureSystem {
 		 * Optimize food production and distribution.
 		 */
 		public void optimizeFoodProductionAndDistribution();
+		
+		/**
+		 * Prepares the food distribution optimization from the current state.
+		 *
+		 * @return the prepared optimization
+		 */
+		public PreparedOptimization prepareFoodDistribution();
+		
+		/**
+		 * Prepares the food production and distribution optimization from 
+		 * the current state.
+		 *
+		 * @return the prepared optimization
+		 */
+		public PreparedOptimization prepareFoodProductionAndDistribution();
 	}
 	
+	/**
+	 * Gets the food security score for each time step.
+	 *
+	 * @return the food security history
+	 */
+	public double[] getFoodSecurityHistory();
+	
 	/**
 	 * Gets the food security score.
 	 *
@@ -219,6 +219,20 @@ public final class DefaultAgricultureElement extends DefaultInfrastructureElemen
 		this.variableOperationsCostOfFoodDistribution = variableOperationsCostOfFoodDistribution;
 	}
 
+	@Override
+	public DefaultAgricultureElement copy() {
+		DefaultAgricultureElement element = new DefaultAgricultureElement(
+				getTemplateName(), getName(), getOrigin(), getDestination(), 
+				getLifecycleModel().copy(), maxLandArea, initialLandArea, 
+				foodIntensityOfLandUsed, costIntensityOfLandUsed, 
+				waterIntensityOfLandUsed, laborIntensityOfLandUsed, 
+				distributionEfficiency, maxFoodInput, initialFoodInput, 
+				variableOperationsCostOfFoodDistribution);
+		element.landArea = landArea;
+		element.foodInput = foodInput;
+		return element;
+	}
+
 	@Override
 	public double getCostIntensityOfLandUsed() {
 		return costIntensityOfLandUsed;
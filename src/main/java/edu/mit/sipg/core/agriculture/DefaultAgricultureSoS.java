@@ -21,6 +21,8 @@ import java.util.List;
 
 import edu.mit.sipg.core.Society;
 import edu.mit.sipg.core.base.DefaultInfrastructureSoS;
+import edu.mit.sipg.core.base.InfrastructureSoS;
+import edu.mit.sipg.core.base.TimeSeries;
 import edu.mit.sipg.units.DefaultUnits;
 import edu.mit.sipg.units.FoodUnits;
 import edu.mit.sipg.units.TimeUnits;
@@ -36,7 +38,7 @@ public class DefaultAgricultureSoS extends DefaultInfrastructureSoS implements A
 	private static final TimeUnits waterTimeUnits = TimeUnits.year;
 	private static final FoodUnits foodUnits = FoodUnits.GJ;
 	private static final TimeUnits foodTimeUnits = TimeUnits.year;
-	private List<Double> foodSecurityHistory = new ArrayList<Double>();
+	private TimeSeries foodSecurityHistory = new TimeSeries();
 	
 	/**
 	 * Instantiates a new default agriculture so s.
@@ -54,6 +56,17 @@ public class DefaultAgricultureSoS extends DefaultInfrastructureSoS implements A
 		return 1000 / 0.75 * Math.max(Math.min(this.getFoodSecurity(), 0.75), 0);
 	}
 
+	@Override
+	public void copyState(InfrastructureSoS sos) {
+		super.copyState(sos);
+		if(sos instanceof AgricultureSoS) {
+			foodSecurityHistory.clear();
+			for(double value : ((AgricultureSoS) sos).getFoodSecurityHistory()) {
+				foodSecurityHistory.add(value);
+			}
+		}
+	}
+
 	@Override
 	public double getFoodDomesticPrice() {
 		if(!getNestedSystems().isEmpty()) {
@@ -111,13 +124,14 @@ public class DefaultAgricultureSoS extends DefaultInfrastructureSoS implements A
 				: (getFoodProduction() / getTotalFoodSupply());
 	}
 
+	@Override
+	public double[] getFoodSecurityHistory() {
+		return foodSecurityHistory.toArray();
+	}
+
 	@Override
 	public double getFoodSecurityScore() {
-		double value = 0;
-		for(double item : foodSecurityHistory) {
-			value += item;
-		}
-		return value / foodSecurityHistory.size();
+		return foodSecurityHistory.getMean();
 	}
 
 	@Override
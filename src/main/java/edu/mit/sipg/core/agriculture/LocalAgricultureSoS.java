@@ -16,26 +16,21 @@
 package edu.mit.sipg.core.agriculture;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
-import org.apache.commons.math3.exception.TooManyIterationsException;
-import org.apache.commons.math3.linear.ArrayRealVector;
-import org.apache.commons.math3.optim.InitialGuess;
-import org.apache.commons.math3.optim.MaxIter;
-import org.apache.commons.math3.optim.PointValuePair;
 import org.apache.commons.math3.optim.linear.LinearConstraint;
-import org.apache.commons.math3.optim.linear.LinearConstraintSet;
-import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
 import org.apache.commons.math3.optim.linear.NoFeasibleSolutionException;
-import org.apache.commons.math3.optim.linear.NonNegativeConstraint;
 import org.apache.commons.math3.optim.linear.Relationship;
-import org.apache.commons.math3.optim.linear.SimplexSolver;
-import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
 
 import edu.mit.sipg.core.City;
 import edu.mit.sipg.core.Society;
+import edu.mit.sipg.core.base.CachedView;
+import edu.mit.sipg.core.base.InfrastructureSoS;
 import edu.mit.sipg.core.base.LocalInfrastructureSoS;
+import edu.mit.sipg.core.base.NetworkIndex;
+import edu.mit.sipg.core.base.TimeSeries;
+import edu.mit.sipg.core.optim.LinearProgram;
+import edu.mit.sipg.core.optim.PreparedOptimization;
 import edu.mit.sipg.units.DefaultUnits;
 import edu.mit.sipg.units.FoodUnits;
 import edu.mit.sipg.units.TimeUnits;
@@ -51,7 +46,56 @@ public class LocalAgricultureSoS extends LocalInfrastructureSoS implements Agric
 	private static final TimeUnits waterTimeUnits = TimeUnits.year;
 	private static final FoodUnits foodUnits = FoodUnits.GJ;
 	private static final TimeUnits foodTimeUnits = TimeUnits.year;
-	private List<Double> foodSecurityHistory = new ArrayList<Double>();
+	private TimeSeries foodSecurityHistory = new TimeSeries();
+	private transient LinearProgram distributionModel, productionModel;
+	private transient final CachedView<AgricultureElement> elementsView = 
+			new CachedView<AgricultureElement>(this) {
+		@Override
+		protected List<AgricultureElement> compute() {
+			List<AgricultureElement> elements = new ArrayList<AgricultureElement>();
+			elements.addAll(getInternalElements());
+			elements.addAll(getExternalElements());
+			return elements;
+		}
+	};
+	private transient final CachedView<AgricultureElement> externalElements = 
+			new CachedView<AgricultureElement>(this) {
+		@Override
+		protected List<AgricultureElement> compute() {
+			List<AgricultureElement> elements = new ArrayList<AgricultureElement>();
+			if(!getSociety().equals(getSociety().getCountry())) {
+				for(AgricultureSystem.Local system : getNestedSystems()) {
+					elements.addAll(system.getExternalElements());
+				}
+				elements.removeAll(getInternalElements());
+			}
+			return elements;
+		}
+	};
+	private transient final CachedView<AgricultureElement> internalElements = 
+			new CachedView<AgricultureElement>(this) {
+		@Override
+		protected List<AgricultureElement> compute() {
+			List<AgricultureElement> elements = new ArrayList<AgricultureElement>();
+			for(AgricultureSystem.Local system : getNestedSystems()) {
+				elements.addAll(system.getInternalElements());
+			}
+			return elements;
+		}
+	};
+	private transient final CachedView<AgricultureSystem.Local> nestedSystems = 
+			new CachedView<AgricultureSystem.Local>(this) {
+		@Override
+		protected List<AgricultureSystem.Local> compute() {
+			List<AgricultureSystem.Local> systems = new ArrayList<AgricultureSystem.Local>();
+			for(Society society : getSociety().getNestedSocieties()) {
+				if(society.getAgricultureSystem() instanceof AgricultureSystem.Local){ 
+					systems.add((AgricultureSystem.Local) society.getAgricultureSystem());
+				}
+			}
+			return systems;
+		}
+	};
 	
 	/**
 	 * Instantiates a new local agriculture system-of-systems.
@@ -79,6 +123,123 @@ public class LocalAgricultureSoS extends LocalInfrastructureSoS implements Agric
 		return 1000 / 0.75 * Math.max(Math.min(this.getFoodSecurity(), 0.75), 0);
 	}
 
+	@Override
+	public void copyState(InfrastructureSoS sos) {
+		super.copyState(sos);
+		if(sos instanceof AgricultureSoS) {
+			foodSecurityHistory.clear();
+			for(double value : ((AgricultureSoS) sos).getFoodSecurityHistory()) {
+				foodSecurityHistory.add(value);
+			}
+		}
+	}
+
+	/**
+	 * Creates the food distribution model. The vector of decision 
+	 * variables includes the throughput of each distribution element 
+	 * and the import and export amounts in each city.
+	 *
+	 * @param topology the model topology
+	 * @param elements the elements
+	 * @param cities the cities
+	 * @return the linear program
+	 */
+	private LinearProgram createDistributionModel(List<Object> topology, 
+			List<? extends AgricultureElement> elements, List<City> cities) {
+		LinearProgram model = new LinearProgram(topology, 
+				elements.size() + 2*cities.size());
+		NetworkIndex index = getNetworkIndex(elements);
+
+		for(int j = 0; j < cities.size(); j++) {
+			City city = cities.get(j);
+			if(!(city.getAgricultureSystem() instanceof AgricultureSystem.Local)) {
+				continue;
+			}
+
+			// Add constraints for city supply/demand, i.e. the in-flow less
+			// out-flow (corrected for efficiency of distribution) must equal
+			// the total demand less any local production.
+			int flowConstraint = model.addConstraint(Relationship.EQ);
+			for(int i : index.getOutgoingElements(j)) {
+				// Set coefficient for in-flow to the distribution element.
+				// Self loops are only indexed here to never distribute in self loop.
+				model.setCoefficient(flowConstraint, i, -1);
+			}
+			for(int i : index.getIncomingElements(j)) {
+				// Set coefficient for out-flow from the distribution element.
+				model.setCoefficient(flowConstraint, i, 
+						elements.get(i).getDistributionEfficiency());
+			}
+			// Allow import in this city.
+			model.setCoefficient(flowConstraint, elements.size() + j, 1);
+			// Allow export from this city.
+			model.setCoefficient(flowConstraint, 
+					elements.size() + cities.size() + j, -1);
+		}
+		return model;
+	}
+
+	/**
+	 * Creates the food production and distribution model. The vector of 
+	 * decision variables includes the land area and throughput of each 
+	 * element and the import and export amounts in each city.
+	 *
+	 * @param topology the model topology
+	 * @param elements the elements
+	 * @param cities the cities
+	 * @return the linear program
+	 */
+	private LinearProgram createProductionModel(List<Object> topology, 
+			List<? extends AgricultureElement> elements, List<City> cities) {
+		// NOTE: reduce epsilon from 1e-6 (default) to 1e-3 to cope with 
+		// large magnitude differences between variables. Keep max ulps
+		// set at the default (10).
+		LinearProgram model = new LinearProgram(topology, 
+				2*elements.size() + 2*cities.size(), 1e-3, 10);
+		NetworkIndex index = getNetworkIndex(elements);
+
+		for(int j = 0; j < cities.size(); j++) {
+			City city = cities.get(j);
+			if(!(city.getAgricultureSystem() instanceof AgricultureSystem.Local)) {
+				continue;
+			}
+
+			// land constraint
+			int landConstraint = model.addConstraint(Relationship.LEQ);
+			for(int i : index.getOutgoingElements(j)) {
+				model.setCoefficient(landConstraint, i, 1.0);
+			}
+
+			// labor constraint
+			int laborConstraint = model.addConstraint(Relationship.LEQ);
+			for(int i : index.getOutgoingElements(j)) {
+				model.setCoefficient(laborConstraint, i, 
+						elements.get(i).getLaborIntensityOfLandUsed());
+			}
+
+			int flowConstraint = model.addConstraint(Relationship.EQ);
+			for(int i : index.getOutgoingElements(j)) {
+				// production flow
+				model.setCoefficient(flowConstraint, i, 
+						elements.get(i).getFoodIntensityOfLandUsed());
+
+				// distribution out-flow
+				model.setCoefficient(flowConstraint, elements.size() + i, -1);
+			}
+			for(int i : index.getIncomingElements(j)) {
+				// distribution in-flow
+				model.setCoefficient(flowConstraint, elements.size() + i, 
+						elements.get(i).getDistributionEfficiency());
+			}
+			// import
+			model.setCoefficient(flowConstraint, 2*elements.size() + j, 1);
+			// export
+			model.setCoefficient(flowConstraint, 
+					2*elements.size() + cities.size() + j, -1);
+		}
+		return model;
+	}
+
 	@Override
 	public double getAggregateScore(long year) {
 		return (getFoodSecurityScore() + getFinancialSecurityScore(year) + getPoliticalPowerScore(year))/3d;
@@ -95,22 +256,12 @@ public class LocalAgricultureSoS extends LocalInfrastructureSoS implements Agric
 
 	@Override
 	public List<? extends AgricultureElement> getElements() {
-		List<AgricultureElement> elements = new ArrayList<AgricultureElement>();
-		elements.addAll(getInternalElements());
-		elements.addAll(getExternalElements());
-		return Collections.unmodifiableList(elements);
+		return elementsView.get();
 	}
 
 	@Override
 	public List<? extends AgricultureElement> getExternalElements() {
-		List<AgricultureElement> elements = new ArrayList<AgricultureElement>();
-		if(!getSociety().equals(getSociety().getCountry())) {
-			for(AgricultureSystem.Local system : getNestedSystems()) {
-				elements.addAll(system.getExternalElements());
-			}
-			elements.removeAll(getInternalElements());
-		}
-		return Collections.unmodifiableList(elements);
+		return externalElements.get();
 	}
 
 	@Override
@@ -205,8 +356,9 @@ public class LocalAgricultureSoS extends LocalInfrastructureSoS implements Agric
 	@Override
 	public double getFoodOutDistribution() {
 		double value = 0;
+		List<City> cities = getSociety().getCities();
 		for(AgricultureElement e : getInternalElements()) {
-			if(!getSociety().getCities().contains(
+			if(!cities.contains(
 					getSociety().getCountry().getCity(e.getDestination()))) {
 				value += e.getFoodInput();
 			}
@@ -242,13 +394,14 @@ public class LocalAgricultureSoS extends LocalInfrastructureSoS implements Agric
 				: (getFoodProduction() / getTotalFoodSupply());
 	}
 
+	@Override
+	public double[] getFoodSecurityHistory() {
+		return foodSecurityHistory.toArray();
+	}
+
 	@Override
 	public double getFoodSecurityScore() {
-		double value = 0;
-		for(double item : foodSecurityHistory) {
-			value += item;
-		}
-		return value / foodSecurityHistory.size();
+		return foodSecurityHistory.getMean();
 	}
 
 	@Override
@@ -263,11 +416,7 @@ public class LocalAgricultureSoS extends LocalInfrastructureSoS implements Agric
 
 	@Override
 	public List<? extends AgricultureElement> getInternalElements() {
-		List<AgricultureElement> elements = new ArrayList<AgricultureElement>();
-		for(AgricultureSystem.Local system : getNestedSystems()) {
-			elements.addAll(system.getInternalElements());
-		}
-		return Collections.unmodifiableList(elements);
+		return internalElements.get();
 	}
 
 	@Override
@@ -321,13 +470,7 @@ public class LocalAgricultureSoS extends LocalInfrastructureSoS implements Agric
 
 	@Override
 	public List<AgricultureSystem.Local> getNestedSystems() {
-		List<AgricultureSystem.Local> systems = new ArrayList<AgricultureSystem.Local>();
-		for(Society society : getSociety().getNestedSocieties()) {
-			if(society.getAgricultureSystem() instanceof AgricultureSystem.Local){ 
-				systems.add((AgricultureSystem.Local) society.getAgricultureSystem());
-			}
-		}
-		return Collections.unmodifiableList(systems);
+		return nestedSystems.get();
 	}
 
 	@Override
@@ -403,37 +546,44 @@ public class LocalAgricultureSoS extends LocalInfrastructureSoS implements Agric
 	
 	@Override
 	public void optimizeFoodDistribution() {
-		// Make a list of cities and infrastructure elements. The vector
-		// of decision variables includes the throughput of each distribution
-		// element and the import and export amounts in each city.
-		List<City> cities = getSociety().getCities();
-		List<? extends AgricultureElement> elements = getInternalElements();
+		PreparedOptimization optimization = prepareFoodDistribution();
+		optimization.solve();
+		optimization.apply();
+	}
 
-		// Count number of variables.
-		int numVariables = elements.size() + 2*cities.size();
+	@Override
+	public void optimizeFoodProductionAndDistribution() {
+		PreparedOptimization optimization = prepareFoodProductionAndDistribution();
+		optimization.solve();
+		optimization.apply();
+	}
 
-		// Create a list to hold the linear constraints.
-		List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+	@Override
+	public PreparedOptimization prepareFoodDistribution() {
+		List<City> cities = getSociety().getCities();
+		final List<? extends AgricultureElement> elements = getInternalElements();
 
-		double[] costCoefficients = new double[numVariables];
-		double[] initialValues = new double[numVariables];
+		// Re-build the model only if the topology has changed.
+		List<Object> topology = getModelTopology(elements);
+		if(distributionModel == null || !distributionModel.isTopology(topology)) {
+			distributionModel = createDistributionModel(topology, elements, cities);
+		}
+		LinearProgram model = distributionModel;
+		int row = 0;
 
-		for(AgricultureElement element : elements) {
-			// Add constraints for distribution throughput, i.e. the
-			// throughput for each distribution element cannot exceed the maximum.
-			double[] distributionConstraint = new double[numVariables];
-			distributionConstraint[elements.indexOf(element)] = 1;
-			constraints.add(new LinearConstraint(distributionConstraint, 
-					Relationship.LEQ, element.getMaxFoodInput()));
+		for(int i = 0; i < elements.size(); i++) {
+			AgricultureElement element = elements.get(i);
+			// Set maximum distribution throughput.
+			model.setUpperBound(i, element.getMaxFoodInput());
 
 			// Set distribution cost.
-			costCoefficients[elements.indexOf(element)] 
-					= element.getVariableOperationsCostOfFoodDistribution();
-			initialValues[elements.indexOf(element)] 
-					= element.getFoodInput();
+			model.setCostCoefficient(i, 
+					element.getVariableOperationsCostOfFoodDistribution());
+			model.setInitialValue(i, element.getFoodInput());
 		}
 
-		for(City city : cities) {
+		for(int j = 0; j < cities.size(); j++) {
+			City city = cities.get(j);
 			if(!(city.getAgricultureSystem() instanceof AgricultureSystem.Local)) {
 				continue;
 			}
@@ -441,114 +591,76 @@ public class LocalAgricultureSoS extends LocalInfrastructureSoS implements Agric
 			AgricultureSystem.Local agricultureSystem = 
 					(AgricultureSystem.Local) city.getAgricultureSystem();
 
-			// Add constraints for city supply/demand, i.e. the in-flow less
-			// out-flow (corrected for efficiency of distribution) must equal
-			// the total demand less any local production.
-			double[] flowCoefficients = new double[numVariables];
-			for(AgricultureElement element : elements) {
-				if(city.getName().equals(element.getOrigin())) {
-					// Set coefficient for in-flow to the distribution element.
-					// Order origin first to never distribute in self loop.
-					flowCoefficients[elements.indexOf(element)] 
-							= -1;
-				} else if(city.getName().equals(element.getDestination())) {
-					// Set coefficient for out-flow from the distribution element.
-					flowCoefficients[elements.indexOf(element)] 
-							= element.getDistributionEfficiency();
-				}
-			}
-			// Allow import in this city.
-			flowCoefficients[elements.size() + cities.indexOf(city)] = 1;
-			// Allow export from this city.
-			flowCoefficients[elements.size() + cities.size() + cities.indexOf(city)] = -1;
 			// Constrain in-flow to meet net demand.
-			constraints.add(new LinearConstraint(flowCoefficients, Relationship.EQ, 
-					city.getTotalFoodDemand() 
-					- agricultureSystem.getFoodProduction()));
+			model.setValue(row++, city.getTotalFoodDemand() 
+					- agricultureSystem.getFoodProduction());
 
 			// Set import cost in each city.
-			costCoefficients[elements.size() + cities.indexOf(city)] = 
-					city.getAgricultureSystem().getFoodImportPrice();
-			initialValues[elements.size() + cities.indexOf(city)] = 
-					agricultureSystem.getFoodImport();
+			model.setCostCoefficient(elements.size() + j, 
+					city.getAgricultureSystem().getFoodImportPrice());
+			model.setInitialValue(elements.size() + j, 
+					agricultureSystem.getFoodImport());
 			// Set export price in each city.
-			costCoefficients[elements.size() + cities.size() + cities.indexOf(city)] = 
-					-city.getAgricultureSystem().getFoodExportPrice();
-			initialValues[elements.size() + cities.size() + cities.indexOf(city)] = 
-					agricultureSystem.getFoodExport();
-		}
-
-		try {
-			// Run optimization and get results.
-			PointValuePair output = new SimplexSolver().optimize(
-					GoalType.MINIMIZE,
-					new MaxIter(1000),
-					new NonNegativeConstraint(true), 
-					new LinearConstraintSet(constraints), 
-					new LinearObjectiveFunction(costCoefficients, 0d),
-					new InitialGuess(initialValues));
-
-			// For each flow variable, set the food input in the
-			// corresponding distribution element.
-			for(int i = 0; i < elements.size(); i++) {
-				// Add Math.min checks in case error exceeds bounds.
-				elements.get(i).setFoodInput(Math.min(output.getPoint()[i],
-						elements.get(i).getMaxFoodInput()));
+			model.setCostCoefficient(elements.size() + cities.size() + j, 
+					-city.getAgricultureSystem().getFoodExportPrice());
+			model.setInitialValue(elements.size() + cities.size() + j, 
+					agricultureSystem.getFoodExport());
+		}
+
+		return new PreparedOptimization(model) {
+			@Override
+			protected void apply(double[] point) {
+				// For each flow variable, set the food input in the
+				// corresponding distribution element.
+				for(int i = 0; i < elements.size(); i++) {
+					// Add Math.min checks in case error exceeds bounds.
+					elements.get(i).setFoodInput(Math.min(point[i],
+							elements.get(i).getMaxFoodInput()));
+				}
 			}
-		} catch(TooManyIterationsException ignore) { 
-			// Don't overwrite existing values.
-			ignore.printStackTrace();
-		} catch(NoFeasibleSolutionException ignore) {
-			// Don't overwrite existing values.
-			ignore.printStackTrace();
-		}
+		};
 	}
 
 	@Override
-	public void optimizeFoodProductionAndDistribution() {
+	public PreparedOptimization prepareFoodProductionAndDistribution() {
 		List<City> cities = getSociety().getCities();
-		List<? extends AgricultureElement> elements = getInternalElements();
+		final List<? extends AgricultureElement> elements = getInternalElements();
 
-		// Count number of variables.
-		int numVariables = 2*elements.size() + 2*cities.size();
-
-		List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+		// Re-build the model only if the topology has changed.
+		List<Object> topology = getModelTopology(elements);
+		if(productionModel == null || !productionModel.isTopology(topology)) {
+			productionModel = createProductionModel(topology, elements, cities);
+		}
+		LinearProgram model = productionModel;
+		int row = 0;
 
-		double[] costCoefficients = new double[numVariables];
-		double[] initialValues = new double[numVariables];
+		double waterPrice = DefaultUnits.convert(
+				getSociety().getWaterSystem().getWaterDomesticPrice(),
+				getSociety().getWaterSystem().getCurrencyUnits(), 
+				getSociety().getWaterSystem().getWaterUnits(),
+				getCurrencyUnits(), getWaterUnits());
 
-		for(AgricultureElement element : elements) {
+		for(int i = 0; i < elements.size(); i++) {
+			AgricultureElement element = elements.get(i);
 			// production constraint
-			double[] productionConstraint = new double[numVariables];
-			productionConstraint[elements.indexOf(element)] = 1;
-			constraints.add(new LinearConstraint(productionConstraint, 
-					Relationship.LEQ, element.getMaxLandArea()));
+			model.setUpperBound(i, element.getMaxLandArea());
 
 			// production cost
-			costCoefficients[elements.indexOf(element)] = 
-					element.getCostIntensityOfLandUsed() 
-					+ element.getWaterIntensityOfLandUsed()
-					* (DefaultUnits.convert(
-							getSociety().getWaterSystem().getWaterDomesticPrice(),
-							getSociety().getWaterSystem().getCurrencyUnits(), 
-							getSociety().getWaterSystem().getWaterUnits(),
-							getCurrencyUnits(), getWaterUnits()));
-			initialValues[elements.indexOf(element)] = element.getLandArea();
+			model.setCostCoefficient(i, element.getCostIntensityOfLandUsed() 
+					+ element.getWaterIntensityOfLandUsed() * waterPrice);
+			model.setInitialValue(i, element.getLandArea());
 
 			// distribution constraint
-			double[] distributionConstraint = new double[numVariables];
-			distributionConstraint[elements.size() + elements.indexOf(element)] = 1;
-			constraints.add(new LinearConstraint(distributionConstraint, 
-					Relationship.LEQ, element.getMaxFoodInput()));
+			model.setUpperBound(elements.size() + i, element.getMaxFoodInput());
 
 			// distribution cost
-			costCoefficients[elements.size() + elements.indexOf(element)] 
-					= element.getVariableOperationsCostOfFoodDistribution();
-			initialValues[elements.size() + elements.indexOf(element)] 
-					= element.getFoodInput();
+			model.setCostCoefficient(elements.size() + i, 
+					element.getVariableOperationsCostOfFoodDistribution());
+			model.setInitialValue(elements.size() + i, element.getFoodInput());
 		}
 
-		for(City city : cities) {
+		for(int j = 0; j < cities.size(); j++) {
+			City city = cities.get(j);
 			if(!(city.getAgricultureSystem() instanceof AgricultureSystem.Local)) {
 				continue;
 			}
@@ -557,142 +669,98 @@ public class LocalAgricultureSoS extends LocalInfrastructureSoS implements Agric
 					(AgricultureSystem.Local) city.getAgricultureSystem();
 
 			// land constraint
-			double[] landConstraint = new double[numVariables];
-			for(AgricultureElement element : elements) {
-				if(city.getName().equals(element.getOrigin())) {
-					landConstraint[elements.indexOf(element)] = 1.0;
-				}
-			}
-			constraints.add(new LinearConstraint(landConstraint, 
-					Relationship.LEQ, agricultureSystem.getArableLandArea()));
+			model.setValue(row++, agricultureSystem.getArableLandArea());
 
 			// labor constraint
-			double[] laborConstraint = new double[numVariables];
-			for(AgricultureElement element : elements) {
-				if(city.getName().equals(element.getOrigin())) {
-					laborConstraint[elements.indexOf(element)] = 
-							element.getLaborIntensityOfLandUsed();
-				}
-			}
-			constraints.add(new LinearConstraint(laborConstraint, 
-					Relationship.LEQ, city.getSocialSystem().getPopulation() 
-					* agricultureSystem.getLaborParticipationRate()));
-
-			double[] flowCoefficients = new double[numVariables];
-			for(AgricultureElement element : elements) {
-				if(city.getName().equals(element.getOrigin())) {
-					// production flow
-					flowCoefficients[elements.indexOf(element)] 
-							= element.getFoodIntensityOfLandUsed();
-				}
+			model.setValue(row++, city.getSocialSystem().getPopulation() 
+					* agricultureSystem.getLaborParticipationRate());
 
-				if(city.getName().equals(element.getOrigin())) {
-					// distribution out-flow
-					flowCoefficients[elements.size() + elements.indexOf(element)] = -1;
-				} else if(city.getName().equals(element.getDestination())) {
-					// distribution in-flow
-					flowCoefficients[elements.size() + elements.indexOf(element)] 
-							= element.getDistributionEfficiency();
-				}
-			}
 			// import
-			flowCoefficients[2*elements.size() + cities.indexOf(city)] = 1;
-			costCoefficients[2*elements.size() + cities.indexOf(city)] 
-					= city.getAgricultureSystem().getFoodImportPrice();
-			initialValues[2*elements.size() + cities.indexOf(city)] 
-					= agricultureSystem.getFoodImport();
+			model.setCostCoefficient(2*elements.size() + j, 
+					city.getAgricultureSystem().getFoodImportPrice());
+			model.setInitialValue(2*elements.size() + j, 
+					agricultureSystem.getFoodImport());
 
 			// export
-			flowCoefficients[2*elements.size() + cities.size() + cities.indexOf(city)] = -1;
-			costCoefficients[2*elements.size() + cities.size() + cities.indexOf(city)] 
-					= -city.getAgricultureSystem().getFoodExportPrice();
-			initialValues[2*elements.size() + cities.size() + cities.indexOf(city)] 
-					= agricultureSystem.getFoodExport();
+			model.setCostCoefficient(2*elements.size() + cities.size() + j, 
+					-city.getAgricultureSystem().getFoodExportPrice());
+			model.setInitialValue(2*elements.size() + cities.size() + j, 
+					agricultureSystem.getFoodExport());
 
 			// Constrain in-flow and production to meet demand.
-			constraints.add(new LinearConstraint(flowCoefficients, Relationship.EQ, 
-					city.getTotalFoodDemand()));
-		}
-
-		try {
-			// Run optimization and get results.
-
-			// NOTE: reduce epsilon from 1e-6 (default) to 1e-3 to cope with 
-			// large magnitude differences between variables. Keep max ulps
-			// set at the default (10).
-			PointValuePair output = new SimplexSolver(1e-3, 10).optimize(
-					GoalType.MINIMIZE,
-					new MaxIter(1000),
-					new NonNegativeConstraint(true), 
-					new LinearConstraintSet(constraints), 
-					new LinearObjectiveFunction(costCoefficients, 0d),
-					new InitialGuess(initialValues));
-
-			for(int i = 0; i < elements.size(); i++) {
-				// Add Math.min checks in case error exceeds bounds.
-				elements.get(i).setLandArea(Math.min(output.getPoint()[i],
-						elements.get(i).getMaxLandArea()));
-				elements.get(i).setFoodInput(Math.min(
-						output.getPoint()[elements.size() + i],
-						elements.get(i).getMaxFoodInput()));
+			model.setValue(row++, city.getTotalFoodDemand());
+		}
+
+		return new PreparedOptimization(model) {
+			@Override
+			protected void apply(double[] point) {
+				for(int i = 0; i < elements.size(); i++) {
+					// Add Math.min checks in case error exceeds bounds.
+					elements.get(i).setLandArea(Math.min(point[i],
+							elements.get(i).getMaxLandArea()));
+					elements.get(i).setFoodInput(Math.min(
+							point[elements.size() + i],
+							elements.get(i).getMaxFoodInput()));
+				}
 			}
-		} catch(TooManyIterationsException ignore) { 
-			// Don't overwrite existing values.
-			ignore.printStackTrace();
-		} catch(NoFeasibleSolutionException ignore) {
-			// Don't overwrite existing values.
-			ignore.printStackTrace();
-			System.out.print("A = [");
-			for(LinearConstraint constraint : constraints) {
-				if(constraint.getRelationship()==Relationship.LEQ) {
-					System.out.print("[");
-					for(double d : constraint.getCoefficients().toArray()) {
-						System.out.print(d + " ");
+
+			@Override
+			protected void noFeasibleSolution(NoFeasibleSolutionException e) {
+				// Don't overwrite existing values.
+				e.printStackTrace();
+				List<LinearConstraint> constraints = getModel().getConstraints();
+				System.out.print("A = [");
+				for(LinearConstraint constraint : constraints) {
+					if(constraint.getRelationship()==Relationship.LEQ) {
+						System.out.print("[");
+						for(double d : constraint.getCoefficients().toArray()) {
+							System.out.print(d + " ");
+						}
+						System.out.println("];");
 					}
-					System.out.println("];");
 				}
-			}
-			System.out.println("];");
+				System.out.println("];");
 
-			System.out.print("b = [");
-			for(LinearConstraint constraint : constraints) {
-				if(constraint.getRelationship()==Relationship.LEQ) {
-					System.out.print(constraint.getValue() + " ");
+				System.out.print("b = [");
+				for(LinearConstraint constraint : constraints) {
+					if(constraint.getRelationship()==Relationship.LEQ) {
+						System.out.print(constraint.getValue() + " ");
+					}
 				}
-			}
-			System.out.println("]';");
-			System.out.print("Aeq = [");
-			for(LinearConstraint constraint : constraints) {
-				if(constraint.getRelationship()==Relationship.EQ) {
-					System.out.print("[");
-					for(double d : constraint.getCoefficients().toArray()) {
-						System.out.print(d + " ");
+				System.out.println("]';");
+				System.out.print("Aeq = [");
+				for(LinearConstraint constraint : constraints) {
+					if(constraint.getRelationship()==Relationship.EQ) {
+						System.out.print("[");
+						for(double d : constraint.getCoefficients().toArray()) {
+							System.out.print(d + " ");
+						}
+						System.out.println("];");
 					}
-					System.out.println("];");
 				}
-			}
-			System.out.println("];");
+				System.out.println("];");
 
-			System.out.print("beq = [");
-			for(LinearConstraint constraint : constraints) {
-				if(constraint.getRelationship()==Relationship.EQ) {
-					System.out.print(constraint.getValue() + " ");
+				System.out.print("beq = [");
+				for(LinearConstraint constraint : constraints) {
+					if(constraint.getRelationship()==Relationship.EQ) {
+						System.out.print(constraint.getValue() + " ");
+					}
 				}
-			}
-			System.out.println("]';");
+				System.out.println("]';");
 
-			System.out.print("f = [");
-			for(double d : new ArrayRealVector(costCoefficients).toArray()) {
-				System.out.print(d + " ");
-			}
-			System.out.println("]';");
+				System.out.print("f = [");
+				for(double d : getModel().getCostCoefficients()) {
+					System.out.print(d + " ");
+				}
+				System.out.println("]';");
 
-			System.out.print("x0 = [");
-			for(double d : new ArrayRealVector(initialValues).toArray()) {
-				System.out.print(d + " ");
+				System.out.print("x0 = [");
+				for(double d : getModel().getInitialValues()) {
+					System.out.print(d + " ");
+				}
+				System.out.println("];");
 			}
-			System.out.println("];");
-		}
+		};
 	}
 
 	@Override
@@ -23,6 +23,8 @@ import java.util.List;
 import java.util.Map;
 
 import edu.mit.sipg.core.City;
+import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.base.CachedView;
 import edu.mit.sipg.core.base.LocalInfrastructureSystem;
 import edu.mit.sipg.core.price.DefaultPriceModel;
 import edu.mit.sipg.core.price.PriceModel;
@@ -47,6 +49,41 @@ public class LocalAgricultureSystem extends LocalInfrastructureSystem implements
 	private final double laborParticipationRate;
 	private final List<AgricultureElement> elements = 
 			Collections.synchronizedList(new ArrayList<AgricultureElement>());
+	private transient final CachedView<AgricultureElement> elementsView = 
+			new CachedView<AgricultureElement>(this) {
+		@Override
+		protected List<AgricultureElement> compute() {
+			List<AgricultureElement> elements = new ArrayList<AgricultureElement>();
+			elements.addAll(getInternalElements());
+			elements.addAll(getExternalElements());
+			return elements;
+		}
+	};
+	private transient final CachedView<AgricultureElement> externalElements = 
+			new CachedView<AgricultureElement>(this) {
+		@Override
+		protected List<AgricultureElement> compute() {
+			List<AgricultureElement> elements = new ArrayList<AgricultureElement>();
+
+			if(getSociety().getCountry().getAgricultureSystem() 
+					instanceof AgricultureSystem.Local) {
+				AgricultureSystem.Local system = (AgricultureSystem.Local)
+						getSociety().getCountry().getAgricultureSystem();
+				Country country = getSociety().getCountry();
+				List<City> cities = getSociety().getCities();
+				for(AgricultureElement element : system.getElements()) {
+					// add element if destination is within this society but 
+					// origin is outside this society
+					if(cities.contains(country.getCity(element.getDestination()))
+							&& !cities.contains(country.getCity(element.getOrigin()))) {
+						elements.add(element);
+					}
+				}
+			}
+
+			return elements;
+		}
+	};
 
 	private transient final Map<Long, Double> waterConsumptionLog = 
 			new HashMap<Long, Double>();
@@ -127,7 +164,27 @@ public class LocalAgricultureSystem extends LocalInfrastructureSystem implements
 	
 	@Override
 	public synchronized boolean addElement(AgricultureElement element) {
-		return elements.add(element);
+		boolean added = elements.add(element);
+		invalidateStructure();
+		return added;
+	}
+
+	/**
+	 * Creates a copy of this agriculture system with copies of its 
+	 * elements. Price models are immutable and shared with the copy.
+	 *
+	 * @return the agriculture system copy
+	 */
+	public synchronized LocalAgricultureSystem copy() {
+		List<AgricultureElement> elementCopies = new ArrayList<AgricultureElement>();
+		for(AgricultureElement element : elements) {
+			elementCopies.add(element.copy());
+		}
+		LocalAgricultureSystem system = new LocalAgricultureSystem(
+				arableLandArea, laborParticipationRate, elementCopies, 
+				domesticPriceModel, importPriceModel, exportPriceModel);
+		system.copyCumulativeState(this);
+		return system;
 	}
 
 	@Override
@@ -157,10 +214,7 @@ public class LocalAgricultureSystem extends LocalInfrastructureSystem implements
 
 	@Override
 	public List<AgricultureElement> getElements() {
-		List<AgricultureElement> elements = new ArrayList<AgricultureElement>();
-		elements.addAll(getInternalElements());
-		elements.addAll(getExternalElements());
-		return Collections.unmodifiableList(elements);
+		return elementsView.get();
 	}
 
 	@Override
@@ -170,27 +224,7 @@ public class LocalAgricultureSystem extends LocalInfrastructureSystem implements
 
 	@Override
 	public List<AgricultureElement> getExternalElements() {
-		List<AgricultureElement> elements = new ArrayList<AgricultureElement>();
-
-		if(getSociety().getCountry().getAgricultureSystem() 
-				instanceof AgricultureSystem.Local) {
-			AgricultureSystem.Local system = (AgricultureSystem.Local)
-					getSociety().getCountry().getAgricultureSystem();
-			for(AgricultureElement element : system.getElements()) {
-				City origin = getSociety().getCountry().getCity(
-						element.getOrigin());
-				City dest = getSociety().getCountry().getCity(
-						element.getDestination());
-				// add element if origin is outside this society but 
-				// destination is within this society
-				if(!getSociety().getCities().contains(origin)
-						&& getSociety().getCities().contains(dest)) {
-					elements.add(element);
-				}
-			}
-		}
-
-		return Collections.unmodifiableList(elements);
+		return externalElements.get();
 	}
 
 	@Override
@@ -263,8 +297,9 @@ public class LocalAgricultureSystem extends LocalInfrastructureSystem implements
 	@Override
 	public double getFoodOutDistribution() {
 		double distribution = 0;
+		List<City> cities = getSociety().getCities();
 		for(AgricultureElement e : getInternalElements()) {
-			if(!getSociety().getCities().contains(
+			if(!cities.contains(
 					getSociety().getCountry().getCity(e.getDestination()))) {
 				distribution += FoodUnits.convertFlow(e.getFoodInput(), e, this);
 			}
@@ -450,7 +485,9 @@ public class LocalAgricultureSystem extends LocalInfrastructureSystem implements
 
 	@Override
 	public synchronized boolean removeElement(AgricultureElement element) {
-		return elements.remove(element);
+		boolean removed = elements.remove(element);
+		invalidateStructure();
+		return removed;
 	}
 
 	@Override
@@ -0,0 +1,113 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.core.base;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import edu.mit.sipg.core.Society;
+
+/**
+ * A cached, unmodifiable view of a list which is derived from the 
+ * structure of societies and infrastructure systems (e.g. nested systems 
+ * or elements). Views are re-computed on the first call after any 
+ * structural change, i.e. adding or removing an element, replacing an 
+ * infrastructure system, or changing the society of a system or society.
+ * 
+ * Structural changes are tracked by a version held by the root society 
+ * (e.g. the country) of the view's owner, so a change only invalidates 
+ * views within the same society tree. Views of an owner which is not 
+ * (yet) attached to a society are not cached.
+ *
+ * @param <T> the element type
+ * @author Paul T. Grogan
+ */
+public abstract class CachedView<T> {
+	private final Society society;
+	private final InfrastructureSystem system;
+	
+	private List<T> view;
+	private Society scope;
+	private long version;
+	
+	/**
+	 * Instantiates a new cached view owned by a society.
+	 *
+	 * @param society the society
+	 */
+	public CachedView(Society society) {
+		if(society == null) {
+			throw new IllegalArgumentException("Society cannot be null.");
+		}
+		this.society = society;
+		this.system = null;
+	}
+	
+	/**
+	 * Instantiates a new cached view owned by an infrastructure system.
+	 *
+	 * @param system the system
+	 */
+	public CachedView(InfrastructureSystem system) {
+		if(system == null) {
+			throw new IllegalArgumentException("System cannot be null.");
+		}
+		this.society = null;
+		this.system = system;
+	}
+	
+	/**
+	 * Computes the contents of this view.
+	 *
+	 * @return the list
+	 */
+	protected abstract List<? extends T> compute();
+	
+	/**
+	 * Gets the root society of the owner of this view.
+	 *
+	 * @return the root society, or null if the owner is not attached
+	 */
+	private Society getScope() {
+		Society scope = system == null ? society : system.getSociety();
+		while(scope != null && scope.getSociety() != null) {
+			scope = scope.getSociety();
+		}
+		return scope;
+	}
+	
+	/**
+	 * Gets this view, re-computing it if the structure has changed.
+	 *
+	 * @return the unmodifiable list
+	 */
+	public synchronized List<T> get() {
+		Society currentScope = getScope();
+		if(currentScope == null) {
+			view = null;
+			scope = null;
+			return Collections.unmodifiableList(new ArrayList<T>(compute()));
+		}
+		long currentVersion = currentScope.getStructureVersion();
+		if(view == null || scope != currentScope || version != currentVersion) {
+			view = Collections.unmodifiableList(new ArrayList<T>(compute()));
+			scope = currentScope;
+			version = currentVersion;
+		}
+		return view;
+	}
+}
@@ -38,6 +38,11 @@ public abstract class DefaultInfrastructureSoS extends DefaultInfrastructureSyst
 		super(name);
 	}
 	
+	@Override
+	public void copyState(InfrastructureSoS sos) {
+		// remote systems-of-systems have no cumulative totals
+	}
+	
 	@Override
 	public double getCapitalExpense() {
 		double value = 0;
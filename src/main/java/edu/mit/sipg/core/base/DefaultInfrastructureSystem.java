@@ -83,6 +83,16 @@ public class DefaultInfrastructureSystem implements InfrastructureSystem {
 	@Override
 	public void initialize(long time) { }
 	
+	/**
+	 * Invalidates cached structural views within the society tree 
+	 * containing this system following a structural change.
+	 */
+	protected void invalidateStructure() {
+		if(society != null) {
+			society.invalidateStructure();
+		}
+	}
+	
 	@Override
 	public boolean isLocal() {
 		return false;
@@ -90,7 +100,9 @@ public class DefaultInfrastructureSystem implements InfrastructureSystem {
 
 	@Override
 	public void setSociety(Society society) {
+		invalidateStructure();
 		this.society = society;
+		invalidateStructure();
 	}
 
 	@Override
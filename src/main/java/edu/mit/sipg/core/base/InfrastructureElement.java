@@ -35,6 +35,15 @@ public interface InfrastructureElement extends SimEntity, CurrencyUnitsOutput {
 	 */
 	public void addElementChangeListener(ElementChangeListener listener);
 	
+	/**
+	 * Creates a copy of this infrastructure element with the same 
+	 * properties and current state. The copy has an independent 
+	 * lifecycle model and no element change listeners.
+	 *
+	 * @return the element copy
+	 */
+	public InfrastructureElement copy();
+	
 	/**
 	 * Fires an element change event to notify any element change 
 	 * listeners that a change occurred.
@@ -25,6 +25,14 @@ import java.util.List;
  */
 public interface InfrastructureSoS extends InfrastructureSystem {
 	
+	/**
+	 * Copies the cumulative state (cumulative totals and score histories) 
+	 * of another system-of-systems of the same sector into this one.
+	 *
+	 * @param sos the system-of-systems to copy from
+	 */
+	public void copyState(InfrastructureSoS sos);
+	
 	/**
 	 * Gets the list of nested infrastructure systems.
 	 *
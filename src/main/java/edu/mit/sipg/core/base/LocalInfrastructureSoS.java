@@ -15,8 +15,11 @@
  *****************************************************************************/
 package edu.mit.sipg.core.base;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import edu.mit.sipg.core.City;
+
 /**
  * A locally-controlled implementation of the infrastructure system-of-systems interface.
  * 
@@ -24,6 +27,7 @@ import java.util.List;
  */
 public abstract class LocalInfrastructureSoS extends LocalInfrastructureSystem 
 		implements InfrastructureSoS, InfrastructureSystem.Local {
+	private transient NetworkIndex networkIndex;
 
 	/**
 	 * Instantiates a new locally-controlled infrastructure system-of-systems.
@@ -41,6 +45,13 @@ public abstract class LocalInfrastructureSoS extends LocalInfrastructureSystem
 		super(name);
 	}
 	
+	@Override
+	public void copyState(InfrastructureSoS sos) {
+		if(sos instanceof LocalInfrastructureSystem) {
+			copyCumulativeState((LocalInfrastructureSystem) sos);
+		}
+	}
+	
 	@Override
 	public double getCapitalExpense() {
 		double value = 0;
@@ -122,9 +133,46 @@ public abstract class LocalInfrastructureSoS extends LocalInfrastructureSystem
 		return value;
 	}
 
+	/**
+	 * Gets the topology of an optimization model, i.e. the elements and 
+	 * their operational states, cities, and nested systems which determine 
+	 * the constraint structure. Cached models are re-built when the 
+	 * topology changes, e.g. when an element is commissioned.
+	 *
+	 * @param elements the elements
+	 * @return the model topology
+	 */
+	protected List<Object> getModelTopology(List<? extends InfrastructureElement> elements) {
+		List<Object> topology = new ArrayList<Object>();
+		for(InfrastructureElement element : elements) {
+			// element coefficients are zero unless operational
+			topology.add(element);
+			topology.add(Boolean.valueOf(element.isOperational()));
+		}
+		topology.addAll(getSociety().getCities());
+		topology.addAll(getNestedSystems());
+		return topology;
+	}
+
 	@Override
 	public abstract List<? extends InfrastructureSystem.Local> getNestedSystems();
 
+	/**
+	 * Gets the network index of cities and elements used to assemble
+	 * optimization models. The index is re-built if the cities or 
+	 * elements have changed.
+	 *
+	 * @param elements the elements
+	 * @return the network index
+	 */
+	protected NetworkIndex getNetworkIndex(List<? extends InfrastructureElement> elements) {
+		List<City> cities = getSociety().getCities();
+		if(networkIndex == null || !networkIndex.isIndexOf(cities, elements)) {
+			networkIndex = new NetworkIndex(cities, elements);
+		}
+		return networkIndex;
+	}
+
 	@Override
 	public double getOperationsExpense() {
 		double value = 0;
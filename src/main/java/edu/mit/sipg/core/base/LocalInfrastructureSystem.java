@@ -55,6 +55,17 @@ public abstract class LocalInfrastructureSystem extends DefaultInfrastructureSys
 		super(name);
 	}
 	
+	/**
+	 * Copies the cumulative capital expense and cash flow of another 
+	 * system into this system.
+	 *
+	 * @param system the system
+	 */
+	protected void copyCumulativeState(LocalInfrastructureSystem system) {
+		cumulativeCapitalExpense = system.cumulativeCapitalExpense;
+		cumulativeCashFlow = system.cumulativeCashFlow;
+	}
+	
 	@Override
 	public double getCapitalExpense() {
 		double value = 0;
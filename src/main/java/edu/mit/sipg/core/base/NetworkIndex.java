@@ -0,0 +1,163 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.core.base;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.mit.sipg.core.City;
+
+/**
+ * An index of cities and infrastructure elements used to assemble 
+ * optimization models. Cities are indexed by name and each city lists 
+ * the elements which originate in it (out-flow) and terminate in it 
+ * (in-flow), so model assembly is linear in the number of elements.
+ * 
+ * @author Paul T. Grogan
+ */
+public class NetworkIndex {
+	private static final int[] EMPTY = new int[0];
+	
+	private final List<City> cities;
+	private final List<? extends InfrastructureElement> elements;
+	private final Map<String, Integer> cityIndices = new HashMap<String, Integer>();
+	private final int[][] outgoingElements;
+	private final int[][] incomingElements;
+
+	/**
+	 * Instantiates a new network index.
+	 *
+	 * @param cities the cities
+	 * @param elements the elements
+	 */
+	public NetworkIndex(List<City> cities, 
+			List<? extends InfrastructureElement> elements) {
+		this.cities = new ArrayList<City>(cities);
+		this.elements = new ArrayList<InfrastructureElement>(elements);
+		for(int j = 0; j < cities.size(); j++) {
+			// keep the first city of a given name, as in a linear search
+			if(!cityIndices.containsKey(cities.get(j).getName())) {
+				cityIndices.put(cities.get(j).getName(), j);
+			}
+		}
+		
+		int[] numberOutgoing = new int[cities.size()];
+		int[] numberIncoming = new int[cities.size()];
+		int[] origins = new int[elements.size()];
+		int[] destinations = new int[elements.size()];
+		for(int i = 0; i < elements.size(); i++) {
+			origins[i] = getCityIndex(elements.get(i).getOrigin());
+			destinations[i] = getCityIndex(elements.get(i).getDestination());
+			if(origins[i] >= 0) {
+				numberOutgoing[origins[i]]++;
+			}
+			if(destinations[i] >= 0 && destinations[i] != origins[i]) {
+				numberIncoming[destinations[i]]++;
+			}
+		}
+		
+		outgoingElements = new int[cities.size()][];
+		incomingElements = new int[cities.size()][];
+		for(int j = 0; j < cities.size(); j++) {
+			outgoingElements[j] = numberOutgoing[j] == 0 ? EMPTY : new int[numberOutgoing[j]];
+			incomingElements[j] = numberIncoming[j] == 0 ? EMPTY : new int[numberIncoming[j]];
+			numberOutgoing[j] = 0;
+			numberIncoming[j] = 0;
+		}
+		for(int i = 0; i < elements.size(); i++) {
+			if(origins[i] >= 0) {
+				outgoingElements[origins[i]][numberOutgoing[origins[i]]++] = i;
+			}
+			if(destinations[i] >= 0 && destinations[i] != origins[i]) {
+				incomingElements[destinations[i]][numberIncoming[destinations[i]]++] = i;
+			}
+		}
+	}
+
+	/**
+	 * Gets the city with a given name.
+	 *
+	 * @param name the name
+	 * @return the city (null if not indexed)
+	 */
+	public City getCity(String name) {
+		int index = getCityIndex(name);
+		return index < 0 ? null : cities.get(index);
+	}
+
+	/**
+	 * Gets the index of the city with a given name.
+	 *
+	 * @param name the name
+	 * @return the city index (-1 if not indexed)
+	 */
+	public int getCityIndex(String name) {
+		Integer index = cityIndices.get(name);
+		return index == null ? -1 : index.intValue();
+	}
+
+	/**
+	 * Gets the indices of elements which terminate in a city, 
+	 * excluding self loops (which are treated as out-flows).
+	 * The returned array must not be modified.
+	 *
+	 * @param city the city index
+	 * @return the element indices in ascending order
+	 */
+	public int[] getIncomingElements(int city) {
+		return incomingElements[city];
+	}
+
+	/**
+	 * Gets the indices of elements which originate in a city.
+	 * The returned array must not be modified.
+	 *
+	 * @param city the city index
+	 * @return the element indices in ascending order
+	 */
+	public int[] getOutgoingElements(int city) {
+		return outgoingElements[city];
+	}
+
+	/**
+	 * Checks if this index was built for a set of cities and elements.
+	 * Lists are compared element-wise by identity.
+	 *
+	 * @param cities the cities
+	 * @param elements the elements
+	 * @return true, if this index matches
+	 */
+	public boolean isIndexOf(List<City> cities, 
+			List<? extends InfrastructureElement> elements) {
+		if(this.cities.size() != cities.size() 
+				|| this.elements.size() != elements.size()) {
+			return false;
+		}
+		for(int j = 0; j < cities.size(); j++) {
+			if(this.cities.get(j) != cities.get(j)) {
+				return false;
+			}
+		}
+		for(int i = 0; i < elements.size(); i++) {
+			if(this.elements.get(i) != elements.get(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,105 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.core.base;
+
+import java.util.Arrays;
+
+/**
+ * A growable series of primitive values with one value per time step. 
+ * A running sum is maintained as values are added so the mean is 
+ * available in constant time.
+ * 
+ * @author Paul T. Grogan
+ */
+public class TimeSeries {
+	private static final int INITIAL_CAPACITY = 64;
+	
+	private double[] values = new double[INITIAL_CAPACITY];
+	private int size;
+	private double sum;
+	
+	/**
+	 * Adds a value for the next time step.
+	 *
+	 * @param value the value
+	 */
+	public synchronized void add(double value) {
+		if(size == values.length) {
+			values = Arrays.copyOf(values, 2*values.length);
+		}
+		values[size++] = value;
+		sum += value;
+	}
+	
+	/**
+	 * Clears all values.
+	 */
+	public synchronized void clear() {
+		size = 0;
+		sum = 0;
+	}
+	
+	/**
+	 * Gets the value for a time step.
+	 *
+	 * @param index the time step index
+	 * @return the value
+	 */
+	public synchronized double get(int index) {
+		if(index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index 
+					+ ", Size: " + size);
+		}
+		return values[index];
+	}
+	
+	/**
+	 * Gets the mean of all values. Returns {@link Double#NaN} if 
+	 * no values have been added.
+	 *
+	 * @return the mean
+	 */
+	public synchronized double getMean() {
+		return sum / size;
+	}
+	
+	/**
+	 * Gets the sum of all values.
+	 *
+	 * @return the sum
+	 */
+	public synchronized double getSum() {
+		return sum;
+	}
+	
+	/**
+	 * Gets the number of values.
+	 *
+	 * @return the size
+	 */
+	public synchronized int size() {
+		return size;
+	}
+	
+	/**
+	 * Gets a copy of all values indexed by time step.
+	 *
+	 * @return the values
+	 */
+	public synchronized double[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+}
\ No newline at end of file
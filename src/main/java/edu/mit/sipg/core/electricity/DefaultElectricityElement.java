@@ -213,6 +213,21 @@ public class DefaultElectricityElement extends DefaultInfrastructureElement
 		this.variableOperationsCostOfElectricityDistribution = variableOperationsCostOfElectricityDistribution;
 	}
 	
+	@Override
+	public DefaultElectricityElement copy() {
+		DefaultElectricityElement element = new DefaultElectricityElement(
+				getTemplateName(), getName(), getOrigin(), getDestination(), 
+				getLifecycleModel().copy(), maxElectricityProduction, 
+				initialElectricityProduction, petroleumIntensityOfElectricityProduction, 
+				waterIntensityOfElectricityProduction, 
+				variableOperationsCostOfElectricityProduction, 
+				distributionEfficiency, maxElectricityInput, initialElectricityInput, 
+				variableOperationsCostOfElectricityDistribution);
+		element.electricityProduction = electricityProduction;
+		element.electricityInput = electricityInput;
+		return element;
+	}
+	
 	@Override
 	public double getDistributionEfficiency() {
 		if(isOperational()) {
@@ -28,6 +28,9 @@ import edu.mit.sipg.units.WaterUnitsOutput;
 public interface ElectricityElement extends InfrastructureElement, 
 		WaterUnitsOutput, ElectricityUnitsOutput, OilUnitsOutput {
 	
+	@Override
+	public ElectricityElement copy();
+	
 	/**
 	 * Gets the distribution efficiency.
 	 *
@@ -16,6 +16,7 @@
 package edu.mit.sipg.core.electricity;
 
 import edu.mit.sipg.core.base.InfrastructureSoS;
+import edu.mit.sipg.core.optim.PreparedOptimization;
 
 /**
  * An interface to electricity sector infrastructure system-of-systems.
@@ -41,5 +42,20 @@ public interface ElectricitySoS extends InfrastructureSoS, ElectricitySystem {
 		 * Optimize electricity production and distribution.
 		 */
 		public void optimizeElectricityProductionAndDistribution();
+		
+		/**
+		 * Prepares the electricity distribution optimization from the current state.
+		 *
+		 * @return the prepared optimization
+		 */
+		public PreparedOptimization prepareElectricityDistribution();
+		
+		/**
+		 * Prepares the electricity production and distribution optimization from 
+		 * the current state.
+		 *
+		 * @return the prepared optimization
+		 */
+		public PreparedOptimization prepareElectricityProductionAndDistribution();
 	}
 }
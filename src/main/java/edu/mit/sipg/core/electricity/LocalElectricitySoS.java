@@ -16,25 +16,17 @@
 package edu.mit.sipg.core.electricity;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
-import org.apache.commons.math3.exception.TooManyIterationsException;
-import org.apache.commons.math3.optim.InitialGuess;
-import org.apache.commons.math3.optim.MaxIter;
-import org.apache.commons.math3.optim.PointValuePair;
-import org.apache.commons.math3.optim.linear.LinearConstraint;
-import org.apache.commons.math3.optim.linear.LinearConstraintSet;
-import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
-import org.apache.commons.math3.optim.linear.NoFeasibleSolutionException;
-import org.apache.commons.math3.optim.linear.NonNegativeConstraint;
 import org.apache.commons.math3.optim.linear.Relationship;
-import org.apache.commons.math3.optim.linear.SimplexSolver;
-import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
 
 import edu.mit.sipg.core.City;
 import edu.mit.sipg.core.Society;
+import edu.mit.sipg.core.base.CachedView;
 import edu.mit.sipg.core.base.LocalInfrastructureSoS;
+import edu.mit.sipg.core.base.NetworkIndex;
+import edu.mit.sipg.core.optim.LinearProgram;
+import edu.mit.sipg.core.optim.PreparedOptimization;
 import edu.mit.sipg.units.DefaultUnits;
 import edu.mit.sipg.units.ElectricityUnits;
 import edu.mit.sipg.units.OilUnits;
@@ -53,6 +45,55 @@ public class LocalElectricitySoS  extends LocalInfrastructureSoS implements Elec
 	private static final TimeUnits oilTimeUnits = TimeUnits.year;
 	private static final WaterUnits waterUnits = WaterUnits.m3;
 	private static final TimeUnits waterTimeUnits = TimeUnits.year;
+	private transient LinearProgram distributionModel, productionModel;
+	private transient final CachedView<ElectricityElement> elementsView = 
+			new CachedView<ElectricityElement>(this) {
+		@Override
+		protected List<ElectricityElement> compute() {
+			List<ElectricityElement> elements = new ArrayList<ElectricityElement>();
+			elements.addAll(getInternalElements());
+			elements.addAll(getExternalElements());
+			return elements;
+		}
+	};
+	private transient final CachedView<ElectricityElement> externalElements = 
+			new CachedView<ElectricityElement>(this) {
+		@Override
+		protected List<ElectricityElement> compute() {
+			List<ElectricityElement> elements = new ArrayList<ElectricityElement>();
+			if(!getSociety().equals(getSociety().getCountry())) {
+				for(ElectricitySystem.Local system : getNestedSystems()) {
+					elements.addAll(system.getExternalElements());
+				}
+				elements.removeAll(getInternalElements());
+			}
+			return elements;
+		}
+	};
+	private transient final CachedView<ElectricityElement> internalElements = 
+			new CachedView<ElectricityElement>(this) {
+		@Override
+		protected List<ElectricityElement> compute() {
+			List<ElectricityElement> elements = new ArrayList<ElectricityElement>();
+			for(ElectricitySystem.Local system : getNestedSystems()) {
+				elements.addAll(system.getInternalElements());
+			}
+			return elements;
+		}
+	};
+	private transient final CachedView<ElectricitySystem.Local> nestedSystems = 
+			new CachedView<ElectricitySystem.Local>(this) {
+		@Override
+		protected List<ElectricitySystem.Local> compute() {
+			List<ElectricitySystem.Local> systems = new ArrayList<ElectricitySystem.Local>();
+			for(Society society : getSociety().getNestedSocieties()) {
+				if(society.getElectricitySystem() instanceof ElectricitySystem.Local){ 
+					systems.add((ElectricitySystem.Local)society.getElectricitySystem());
+				}
+			}
+			return systems;
+		}
+	};
 
 	/**
 	 * Instantiates a new local electricity system-of-systems.
@@ -71,6 +112,88 @@ public class LocalElectricitySoS  extends LocalInfrastructureSoS implements Elec
 		return false;
 	}
 
+	/**
+	 * Creates the electricity distribution model. The vector of decision 
+	 * variables includes the throughput of each distribution element 
+	 * and the petroleum burning amount in each city.
+	 *
+	 * @param topology the model topology
+	 * @param elements the elements
+	 * @param cities the cities
+	 * @return the linear program
+	 */
+	private LinearProgram createDistributionModel(List<Object> topology, 
+			List<? extends ElectricityElement> elements, List<City> cities) {
+		LinearProgram model = new LinearProgram(topology, 
+				elements.size() + cities.size());
+		NetworkIndex index = getNetworkIndex(elements);
+
+		for(int j = 0; j < cities.size(); j++) {
+			City city = cities.get(j);
+			if(!(city.getElectricitySystem() instanceof ElectricitySystem.Local)) {
+				continue;
+			}
+
+			// Add constraints for city supply/demand, i.e. the in-flow less
+			// out-flow (corrected for efficiency of distribution) must equal
+			// the total demand less any local production. The petroleum 
+			// burning coefficient is set with the other model inputs.
+			int flowConstraint = model.addConstraint(Relationship.EQ);
+			for(int i : index.getOutgoingElements(j)) {
+				// Set coefficient for in-flow to the distribution element.
+				// Self loops are only indexed here to never distribute in self loop.
+				model.setCoefficient(flowConstraint, i, -1);
+			}
+			for(int i : index.getIncomingElements(j)) {
+				// Set coefficient for out-flow from the distribution element.
+				model.setCoefficient(flowConstraint, i, 
+						elements.get(i).getDistributionEfficiency());
+			}
+		}
+		return model;
+	}
+
+	/**
+	 * Creates the electricity production and distribution model. The 
+	 * vector of decision variables includes the production and throughput 
+	 * of each element and the petroleum burning amount in each city.
+	 *
+	 * @param topology the model topology
+	 * @param elements the elements
+	 * @param cities the cities
+	 * @return the linear program
+	 */
+	private LinearProgram createProductionModel(List<Object> topology, 
+			List<? extends ElectricityElement> elements, List<City> cities) {
+		LinearProgram model = new LinearProgram(topology, 
+				2*elements.size() + cities.size());
+		NetworkIndex index = getNetworkIndex(elements);
+
+		for(int j = 0; j < cities.size(); j++) {
+			City city = cities.get(j);
+			if(!(city.getElectricitySystem() instanceof ElectricitySystem.Local)) {
+				continue;
+			}
+
+			// Constrain supply = demand in each city. The petroleum 
+			// burning coefficient is set with the other model inputs.
+			int flowConstraint = model.addConstraint(Relationship.EQ);
+			for(int i : index.getOutgoingElements(j)) {
+				model.setCoefficient(flowConstraint, i, 1);
+
+				// Set coefficient for in-flow to the distribution element.
+				// Self loops are only indexed here to never distribute in self loop.
+				model.setCoefficient(flowConstraint, elements.size() + i, -1);
+			}
+			for(int i : index.getIncomingElements(j)) {
+				// Set coefficient for out-flow from the distribution element.
+				model.setCoefficient(flowConstraint, elements.size() + i, 
+						elements.get(i).getDistributionEfficiency());
+			}
+		}
+		return model;
+	}
+
 	@Override
 	public double getElectricityDomesticPrice() {
 		if(!getNestedSystems().isEmpty()) {
@@ -97,8 +220,9 @@ public class LocalElectricitySoS  extends LocalInfrastructureSoS implements Elec
 	@Override
 	public double getElectricityInDistribution() {
 		double value = 0;
+		List<City> cities = getSociety().getCities();
 		for(ElectricityElement e : getInternalElements()) {
-			if(!getSociety().getCities().contains(
+			if(!cities.contains(
 					getSociety().getCountry().getCity(e.getDestination()))) {
 				value += e.getElectricityInput();
 			}
@@ -109,8 +233,9 @@ public class LocalElectricitySoS  extends LocalInfrastructureSoS implements Elec
 	@Override
 	public double getElectricityOutDistribution() {
 		double value = 0;
+		List<City> cities = getSociety().getCities();
 		for(ElectricityElement e : getInternalElements()) {
-			if(!getSociety().getCities().contains(
+			if(!cities.contains(
 					getSociety().getCountry().getCity(e.getDestination()))) {
 				value += e.getElectricityInput();
 			}
@@ -157,31 +282,17 @@ public class LocalElectricitySoS  extends LocalInfrastructureSoS implements Elec
 
 	@Override
 	public List<? extends ElectricityElement> getElements() {
-		List<ElectricityElement> elements = new ArrayList<ElectricityElement>();
-		elements.addAll(getInternalElements());
-		elements.addAll(getExternalElements());
-		return Collections.unmodifiableList(elements);
+		return elementsView.get();
 	}
 
 	@Override
 	public List<? extends ElectricityElement> getExternalElements() {
-		List<ElectricityElement> elements = new ArrayList<ElectricityElement>();
-		if(!getSociety().equals(getSociety().getCountry())) {
-			for(ElectricitySystem.Local system : getNestedSystems()) {
-				elements.addAll(system.getExternalElements());
-			}
-			elements.removeAll(getInternalElements());
-		}
-		return Collections.unmodifiableList(elements);
+		return externalElements.get();
 	}
 
 	@Override
 	public List<? extends ElectricityElement> getInternalElements() {
-		List<ElectricityElement> elements = new ArrayList<ElectricityElement>();
-		for(ElectricitySystem.Local system : getNestedSystems()) {
-			elements.addAll(system.getInternalElements());
-		}
-		return Collections.unmodifiableList(elements);
+		return internalElements.get();
 	}
 
 	@Override
@@ -196,13 +307,7 @@ public class LocalElectricitySoS  extends LocalInfrastructureSoS implements Elec
 
 	@Override
 	public List<ElectricitySystem.Local> getNestedSystems() {
-		List<ElectricitySystem.Local> systems = new ArrayList<ElectricitySystem.Local>();
-		for(Society society : getSociety().getNestedSocieties()) {
-			if(society.getElectricitySystem() instanceof ElectricitySystem.Local){ 
-				systems.add((ElectricitySystem.Local)society.getElectricitySystem());
-			}
-		}
-		return Collections.unmodifiableList(systems);
+		return nestedSystems.get();
 	}
 
 	@Override
@@ -320,37 +425,44 @@ public class LocalElectricitySoS  extends LocalInfrastructureSoS implements Elec
 
 	@Override
 	public void optimizeElectricityDistribution() {
-		// Make a list of cities and infrastructure elements. The vector
-		// of decision variables includes the throughput of each distribution
-		// element and the petroleum burning amounts in each city.
-		List<City> cities = getSociety().getCities();
-		List<? extends ElectricityElement> elements = getInternalElements();
+		PreparedOptimization optimization = prepareElectricityDistribution();
+		optimization.solve();
+		optimization.apply();
+	}
 
-		// Count number of variables.
-		int numVariables = elements.size() + cities.size();
+	@Override
+	public void optimizeElectricityProductionAndDistribution() {
+		PreparedOptimization optimization = prepareElectricityProductionAndDistribution();
+		optimization.solve();
+		optimization.apply();
+	}
 
-		// Create a list to hold the linear constraints.
-		List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+	@Override
+	public PreparedOptimization prepareElectricityDistribution() {
+		List<City> cities = getSociety().getCities();
+		final List<? extends ElectricityElement> elements = getInternalElements();
 
-		double[] costCoefficients = new double[numVariables];
-		double[] initialValues = new double[numVariables];
+		// Re-build the model only if the topology has changed.
+		List<Object> topology = getModelTopology(elements);
+		if(distributionModel == null || !distributionModel.isTopology(topology)) {
+			distributionModel = createDistributionModel(topology, elements, cities);
+		}
+		LinearProgram model = distributionModel;
+		int row = 0;
 
-		for(ElectricityElement element : elements) {
-			// Add constraints for distribution throughput, i.e. the
-			// throughput for each distribution element cannot exceed the maximum.
-			double[] distributionConstraint = new double[numVariables];
-			distributionConstraint[elements.indexOf(element)] = 1;
-			constraints.add(new LinearConstraint(distributionConstraint, 
-					Relationship.LEQ, element.getMaxElectricityInput()));
+		for(int i = 0; i < elements.size(); i++) {
+			ElectricityElement element = elements.get(i);
+			// Set maximum distribution throughput.
+			model.setUpperBound(i, element.getMaxElectricityInput());
 
 			// Set distribution cost.
-			costCoefficients[elements.indexOf(element)] 
-					= element.getVariableOperationsCostOfElectricityDistribution();
-			initialValues[elements.indexOf(element)] 
-					= element.getElectricityInput();
+			model.setCostCoefficient(i, 
+					element.getVariableOperationsCostOfElectricityDistribution());
+			model.setInitialValue(i, element.getElectricityInput());
 		}
 
-		for(City city : cities) {
+		for(int j = 0; j < cities.size(); j++) {
+			City city = cities.get(j);
 			if(!(city.getElectricitySystem() instanceof ElectricitySystem.Local)) {
 				continue;
 			}
@@ -358,117 +470,86 @@ public class LocalElectricitySoS  extends LocalInfrastructureSoS implements Elec
 			ElectricitySystem.Local electricitySystem = 
 					(ElectricitySystem.Local) city.getElectricitySystem();
 
-			// Add constraints for city supply/demand, i.e. the in-flow less
-			// out-flow (corrected for efficiency of distribution) must equal
-			// the total demand less any local production.
-			double[] flowCoefficients = new double[numVariables];
-			for(ElectricityElement element : elements) {
-				if(city.getName().equals(element.getOrigin())) {
-					// Set coefficient for in-flow to the distribution element.
-					// Order origin first to never distribute in self loop.
-					flowCoefficients[elements.indexOf(element)] = -1;
-				} else if(city.getName().equals(element.getDestination())) {
-					// Set coefficient for out-flow from the distribution element.
-					flowCoefficients[elements.indexOf(element)] 
-							= element.getDistributionEfficiency();
-				}
-			}
+			int flowConstraint = row++;
 			// Allow petroleum burning in this city.
-			flowCoefficients[elements.size() + cities.indexOf(city)] 
-					= electricitySystem.getPetroleumIntensityOfPrivateProduction();
+			model.setCoefficient(flowConstraint, elements.size() + j, 
+					electricitySystem.getPetroleumIntensityOfPrivateProduction());
 			// Constrain in-flow to meet net demand.
-			constraints.add(new LinearConstraint(flowCoefficients, Relationship.EQ, 
-					city.getTotalElectricityDemand() 
-					- electricitySystem.getElectricityProduction()));
+			model.setValue(flowConstraint, city.getTotalElectricityDemand() 
+					- electricitySystem.getElectricityProduction());
 
 			// Set petroleum burn cost in each city.
-			costCoefficients[elements.size() + cities.indexOf(city)] = 
+			model.setCostCoefficient(elements.size() + j, 
 					DefaultUnits.convert(city.getPetroleumSystem().getPetroleumDomesticPrice(),
 							city.getPetroleumSystem().getCurrencyUnits(),
 							city.getPetroleumSystem().getOilUnits(),
-							getCurrencyUnits(), getOilUnits());
-			initialValues[elements.size() + cities.indexOf(city)] = 
-					Math.max(0,electricitySystem.getPetroleumConsumptionFromPrivateProduction());
-		}
-
-		try {
-			// Run optimization and get results.
-			PointValuePair output = new SimplexSolver().optimize(
-					GoalType.MINIMIZE,
-					new MaxIter(1000),
-					new NonNegativeConstraint(true), 
-					new LinearConstraintSet(constraints), 
-					new LinearObjectiveFunction(costCoefficients, 0d),
-					new InitialGuess(initialValues));
-
-			// For each flow variable, set the input in the
-			// corresponding distribution element.
-			for(int i = 0; i < elements.size(); i++) {
-				// Add Math.min checks in case error exceeds bounds.
-				elements.get(i).setElectricityInput(Math.min(
-						output.getPoint()[i], 
-						elements.get(i).getMaxElectricityInput()));
-			}
-		} catch(TooManyIterationsException ignore) { 
-			// Don't overwrite existing values.
-			ignore.printStackTrace();
-		} catch(NoFeasibleSolutionException ignore) {
-			// Don't overwrite existing values.
-			ignore.printStackTrace();
+							getCurrencyUnits(), getOilUnits()));
+			model.setInitialValue(elements.size() + j, 
+					Math.max(0,electricitySystem.getPetroleumConsumptionFromPrivateProduction()));
 		}
+
+		return new PreparedOptimization(model) {
+			@Override
+			protected void apply(double[] point) {
+				// For each flow variable, set the input in the
+				// corresponding distribution element.
+				for(int i = 0; i < elements.size(); i++) {
+					// Add Math.min checks in case error exceeds bounds.
+					elements.get(i).setElectricityInput(Math.min(point[i], 
+							elements.get(i).getMaxElectricityInput()));
+				}
+			}
+		};
 	}
 
 	@Override
-	public void optimizeElectricityProductionAndDistribution() {
+	public PreparedOptimization prepareElectricityProductionAndDistribution() {
 		List<City> cities = getSociety().getCities();
-		List<? extends ElectricityElement> elements = getInternalElements();
-
-		// Count number of variables.
-		int numVariables = 2*elements.size() + cities.size();
-
-		List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
-
-		double[] costCoefficients = new double[numVariables];
-		double[] initialValues = new double[numVariables];
+		final List<? extends ElectricityElement> elements = getInternalElements();
 
-		for(ElectricityElement element : elements) {
+		// Re-build the model only if the topology has changed.
+		List<Object> topology = getModelTopology(elements);
+		if(productionModel == null || !productionModel.isTopology(topology)) {
+			productionModel = createProductionModel(topology, elements, cities);
+		}
+		LinearProgram model = productionModel;
+		int row = 0;
+
+		double waterPrice = DefaultUnits.convert(
+				getSociety().getWaterSystem().getWaterDomesticPrice(),
+				getSociety().getWaterSystem().getCurrencyUnits(),
+				getSociety().getWaterSystem().getWaterUnits(),
+				getCurrencyUnits(), getWaterUnits());
+		double petroleumPrice = DefaultUnits.convert(
+				getSociety().getPetroleumSystem().getPetroleumDomesticPrice(),
+				getSociety().getPetroleumSystem().getCurrencyUnits(),
+				getSociety().getPetroleumSystem().getOilUnits(),
+				getCurrencyUnits(), getOilUnits());
+
+		for(int i = 0; i < elements.size(); i++) {
+			ElectricityElement element = elements.get(i);
 			// Constrain maximum production in each fixed element.
-			double[] productionConstraint = new double[numVariables];
-			productionConstraint[elements.indexOf(element)] = 1;
-			constraints.add(new LinearConstraint(productionConstraint, 
-					Relationship.LEQ, element.getMaxElectricityProduction()));
+			model.setUpperBound(i, element.getMaxElectricityProduction());
 
 			// Constrain maximum throughput in each distribution element.
-			double[] throughputConstraint = new double[numVariables];
-			throughputConstraint[elements.size() + elements.indexOf(element)] = 1;
-			constraints.add(new LinearConstraint(throughputConstraint, 
-					Relationship.LEQ, element.getMaxElectricityInput()));
+			model.setUpperBound(elements.size() + i, element.getMaxElectricityInput());
 
 			// Minimize costs - most obvious cost is importing, though also 
 			// minimize transportation even if free.
-			costCoefficients[elements.indexOf(element)] 
-					= element.getVariableOperationsCostOfElectricityProduction()
-					+ element.getWaterIntensityOfElectricityProduction()
-					* (DefaultUnits.convert(getSociety().getWaterSystem().getWaterDomesticPrice(),
-							getSociety().getWaterSystem().getCurrencyUnits(),
-							getSociety().getWaterSystem().getWaterUnits(),
-							getCurrencyUnits(), getWaterUnits()))
-							+ element.getPetroleumIntensityOfElectricityProduction()
-							* (DefaultUnits.convert(getSociety().getPetroleumSystem().getPetroleumDomesticPrice(),
-									getSociety().getPetroleumSystem().getCurrencyUnits(),
-									getSociety().getPetroleumSystem().getOilUnits(),
-									getCurrencyUnits(), getOilUnits()));
-			initialValues[elements.indexOf(element)] 
-					= element.getElectricityProduction();
+			model.setCostCoefficient(i, 
+					element.getVariableOperationsCostOfElectricityProduction()
+					+ element.getWaterIntensityOfElectricityProduction() * waterPrice
+					+ element.getPetroleumIntensityOfElectricityProduction() * petroleumPrice);
+			model.setInitialValue(i, element.getElectricityProduction());
 
 			// Set distribution cost.
-			costCoefficients[elements.size() + elements.indexOf(element)] 
-					= element.getVariableOperationsCostOfElectricityDistribution();
-			initialValues[elements.size() + elements.indexOf(element)] 
-					= element.getElectricityInput();
+			model.setCostCoefficient(elements.size() + i, 
+					element.getVariableOperationsCostOfElectricityDistribution());
+			model.setInitialValue(elements.size() + i, element.getElectricityInput());
 		}
 
-		for(City city : cities) {
+		for(int j = 0; j < cities.size(); j++) {
+			City city = cities.get(j);
 			if(!(city.getElectricitySystem() instanceof ElectricitySystem.Local)) {
 				continue;
 			}
@@ -476,68 +557,37 @@ public class LocalElectricitySoS  extends LocalInfrastructureSoS implements Elec
 			ElectricitySystem.Local electricitySystem = 
 					(ElectricitySystem.Local) city.getElectricitySystem();
 
-			// Constrain supply = demand in each city.
-			double[] flowCoefficients = new double[numVariables];
-			for(ElectricityElement element : elements) {
-				if(city.getName().equals(element.getOrigin())) {
-					flowCoefficients[elements.indexOf(element)] = 1;
-				}
-
-				if(city.getName().equals(element.getOrigin())) {
-					// Set coefficient for in-flow to the distribution element.
-					// Order origin first to never distribute in self loop.
-					flowCoefficients[elements.size() + elements.indexOf(element)] 
-							= -1;
-				} else if(city.getName().equals(element.getDestination())) {
-					// Set coefficient for out-flow from the distribution element.
-					flowCoefficients[elements.size() + elements.indexOf(element)] 
-							= element.getDistributionEfficiency();
-				}
-			}
+			int flowConstraint = row++;
 			// Allow burning of petroleum in this city.
-			flowCoefficients[2*elements.size() + cities.indexOf(city)] 
-					= electricitySystem.getPetroleumIntensityOfPrivateProduction();
+			model.setCoefficient(flowConstraint, 2*elements.size() + j, 
+					electricitySystem.getPetroleumIntensityOfPrivateProduction());
 
 			// Constrain in-flow and production to meet demand.
-			constraints.add(new LinearConstraint(flowCoefficients, Relationship.EQ, 
-					city.getTotalElectricityDemand()));
+			model.setValue(flowConstraint, city.getTotalElectricityDemand());
 
 			// Set petroleum burn cost in each city.
-			costCoefficients[2*elements.size() + cities.indexOf(city)] = 
+			model.setCostCoefficient(2*elements.size() + j, 
 					DefaultUnits.convert(city.getPetroleumSystem().getPetroleumDomesticPrice(),
 							city.getPetroleumSystem().getCurrencyUnits(),
 							city.getPetroleumSystem().getOilUnits(),
-							getCurrencyUnits(), getOilUnits());
-			initialValues[2*elements.size() + cities.indexOf(city)] = 
-					Math.max(0,electricitySystem.getPetroleumConsumptionFromPrivateProduction());
-		}
-
-		try {
-			// Run optimization and get results.
-			PointValuePair output = new SimplexSolver().optimize(
-					GoalType.MINIMIZE,
-					new MaxIter(1000),
-					new NonNegativeConstraint(true), 
-					new LinearConstraintSet(constraints), 
-					new LinearObjectiveFunction(costCoefficients, 0d),
-					new InitialGuess(initialValues));
-
-			for(int i = 0; i < elements.size(); i++) {
-				// Add Math.min checks in case error exceeds bounds.
-				elements.get(i).setElectricityProduction(Math.min(
-						output.getPoint()[i],
-						elements.get(i).getMaxElectricityProduction()));
-				elements.get(i).setElectricityInput(Math.min(
-						output.getPoint()[elements.size() + i],
-						elements.get(i).getMaxElectricityInput()));
-			}
-		} catch(TooManyIterationsException ignore) { 
-			// Don't overwrite existing values.
-			ignore.printStackTrace();
-		} catch(NoFeasibleSolutionException ignore) {
-			// Don't overwrite existing values.
-			ignore.printStackTrace();
+							getCurrencyUnits(), getOilUnits()));
+			model.setInitialValue(2*elements.size() + j, 
+					Math.max(0,electricitySystem.getPetroleumConsumptionFromPrivateProduction()));
 		}
+
+		return new PreparedOptimization(model) {
+			@Override
+			protected void apply(double[] point) {
+				for(int i = 0; i < elements.size(); i++) {
+					// Add Math.min checks in case error exceeds bounds.
+					elements.get(i).setElectricityProduction(Math.min(point[i],
+							elements.get(i).getMaxElectricityProduction()));
+					elements.get(i).setElectricityInput(Math.min(
+							point[elements.size() + i],
+							elements.get(i).getMaxElectricityInput()));
+				}
+			}
+		};
 	}
 
 	@Override
@@ -23,6 +23,8 @@ import java.util.List;
 import java.util.Map;
 
 import edu.mit.sipg.core.City;
+import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.base.CachedView;
 import edu.mit.sipg.core.base.LocalInfrastructureSystem;
 import edu.mit.sipg.core.price.DefaultPriceModel;
 import edu.mit.sipg.core.price.PriceModel;
@@ -49,6 +51,41 @@ public class LocalElectricitySystem extends LocalInfrastructureSystem implements
 	private final PriceModel domesticPriceModel;
 	private final List<ElectricityElement> elements = 
 			Collections.synchronizedList(new ArrayList<ElectricityElement>());
+	private transient final CachedView<ElectricityElement> elementsView = 
+			new CachedView<ElectricityElement>(this) {
+		@Override
+		protected List<ElectricityElement> compute() {
+			List<ElectricityElement> elements = new ArrayList<ElectricityElement>();
+			elements.addAll(getInternalElements());
+			elements.addAll(getExternalElements());
+			return elements;
+		}
+	};
+	private transient final CachedView<ElectricityElement> externalElements = 
+			new CachedView<ElectricityElement>(this) {
+		@Override
+		protected List<ElectricityElement> compute() {
+			List<ElectricityElement> elements = new ArrayList<ElectricityElement>();
+
+			if(getSociety().getCountry().getElectricitySystem()
+					instanceof ElectricitySystem.Local) {
+				ElectricitySystem.Local system = (ElectricitySystem.Local)
+						getSociety().getCountry().getElectricitySystem();
+				Country country = getSociety().getCountry();
+				List<City> cities = getSociety().getCities();
+				for(ElectricityElement element : system.getElements()) {
+					// add element if destination is within this society but 
+					// origin is outside this society
+					if(cities.contains(country.getCity(element.getDestination()))
+							&& !cities.contains(country.getCity(element.getOrigin()))) {
+						elements.add(element);
+					}
+				}
+			}
+
+			return elements;
+		}
+	};
 	
 	private transient final Map<Long, Double> petroleumConsumptionLog = 
 			new HashMap<Long, Double>();
@@ -97,7 +134,27 @@ public class LocalElectricitySystem extends LocalInfrastructureSystem implements
 	
 	@Override
 	public synchronized boolean addElement(ElectricityElement element) {
-		return elements.add(element);
+		boolean added = elements.add(element);
+		invalidateStructure();
+		return added;
+	}
+
+	/**
+	 * Creates a copy of this electricity system with copies of its 
+	 * elements. The price model is immutable and shared with the copy.
+	 *
+	 * @return the electricity system copy
+	 */
+	public synchronized LocalElectricitySystem copy() {
+		List<ElectricityElement> elementCopies = new ArrayList<ElectricityElement>();
+		for(ElectricityElement element : elements) {
+			elementCopies.add(element.copy());
+		}
+		LocalElectricitySystem system = new LocalElectricitySystem(
+				petroleumIntensityOfPrivateProduction, elementCopies, 
+				domesticPriceModel);
+		system.copyCumulativeState(this);
+		return system;
 	}
 	
 	@Override
@@ -154,8 +211,9 @@ public class LocalElectricitySystem extends LocalInfrastructureSystem implements
 	@Override
 	public double getElectricityOutDistribution() {
 		double distribution = 0;
+		List<City> cities = getSociety().getCities();
 		for(ElectricityElement e : getInternalElements()) {
-			if(!getSociety().getCities().contains(
+			if(!cities.contains(
 					getSociety().getCountry().getCity(e.getDestination()))) {
 				distribution += ElectricityUnits.convertFlow(e.getElectricityInput(), e, this);
 			}
@@ -202,10 +260,7 @@ public class LocalElectricitySystem extends LocalInfrastructureSystem implements
 
 	@Override
 	public List<ElectricityElement> getElements() {
-		List<ElectricityElement> elements = new ArrayList<ElectricityElement>();
-		elements.addAll(getInternalElements());
-		elements.addAll(getExternalElements());
-		return Collections.unmodifiableList(elements);
+		return elementsView.get();
 	}
 
 	@Override
@@ -215,27 +270,7 @@ public class LocalElectricitySystem extends LocalInfrastructureSystem implements
 
 	@Override
 	public List<ElectricityElement> getExternalElements() {
-		List<ElectricityElement> elements = new ArrayList<ElectricityElement>();
-
-		if(getSociety().getCountry().getElectricitySystem()
-				instanceof ElectricitySystem.Local) {
-			ElectricitySystem.Local system = (ElectricitySystem.Local)
-					getSociety().getCountry().getElectricitySystem();
-			for(ElectricityElement element : system.getElements()) {
-				City origin = getSociety().getCountry().getCity(
-						element.getOrigin());
-				City dest = getSociety().getCountry().getCity(
-						element.getDestination());
-				// add element if origin is outside this society but 
-				// destination is within this society
-				if(!getSociety().getCities().contains(origin)
-						&& getSociety().getCities().contains(dest)) {
-					elements.add(element);
-				}
-			}
-		}
-
-		return Collections.unmodifiableList(elements);
+		return externalElements.get();
 	}
 
 	@Override
@@ -400,7 +435,9 @@ public class LocalElectricitySystem extends LocalInfrastructureSystem implements
 	
 	@Override
 	public synchronized boolean removeElement(ElectricityElement element) {
-		return elements.remove(element);
+		boolean removed = elements.remove(element);
+		invalidateStructure();
+		return removed;
 	}
 
 	@Override
@@ -27,6 +27,11 @@ public class DefaultLifecycleModel implements LifecycleModel, EditableLifecycleM
 	private static final CurrencyUnits currencyUnits = CurrencyUnits.sim;
 	private static final TimeUnits timeUnits = TimeUnits.year;
 
+	@Override
+	public LifecycleModel copy() {
+		return this;
+	}
+
 	@Override
 	public LifecycleModel createLifecycleModel() {
 		return new DefaultLifecycleModel();
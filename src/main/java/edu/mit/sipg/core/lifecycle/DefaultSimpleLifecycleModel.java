@@ -155,6 +155,17 @@ public class DefaultSimpleLifecycleModel implements SimpleLifecycleModel {
 		this.spreadCosts = spreadCosts;
 	}
 
+	@Override
+	public DefaultSimpleLifecycleModel copy() {
+		DefaultSimpleLifecycleModel model = new DefaultSimpleLifecycleModel(
+				minTimeCommissionStart, timeCommissionStart, commissionDuration, 
+				maxOperationDuration, operationDuration, decommissionDuration, 
+				totalCommissionCost, fixedOperationCost, totalDecommissionCost, 
+				spreadCosts);
+		model.time = time;
+		return model;
+	}
+
 	@Override
 	public double getTotalCommissionCost() {
 		return totalCommissionCost;
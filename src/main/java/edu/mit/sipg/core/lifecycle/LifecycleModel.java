@@ -26,6 +26,14 @@ import edu.mit.sipg.units.TimeUnitsOutput;
  */
 public interface LifecycleModel extends SimEntity, TimeUnitsOutput, CurrencyUnitsOutput {
 	
+	/**
+	 * Creates a copy of this lifecycle model with the same properties 
+	 * and current time. Stateless models may return themselves.
+	 *
+	 * @return the lifecycle model copy
+	 */
+	public LifecycleModel copy();
+	
 	/**
 	 * Gets the current capital expense.
 	 *
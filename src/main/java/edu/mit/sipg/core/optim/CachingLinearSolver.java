@@ -0,0 +1,227 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.core.optim;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.math3.optim.PointValuePair;
+
+import edu.mit.sipg.sim.SimulationMetrics;
+
+/**
+ * A linear solver which memoizes the solutions of another solver in a 
+ * bounded least-recently-used cache. Problems are keyed by a hash of 
+ * their costs, bounds, constraints, and right-hand side values; a 
+ * matching hash is confirmed by comparing the full problem so a hit 
+ * always returns the solution of an identical problem. Initial values 
+ * are only a hint to the solver and are not part of the key.
+ * 
+ * Failed solutions are not cached. The cache may be shared by several 
+ * threads and simulators. Hits and misses of all caches are also counted 
+ * by the solver.cache.hits and solver.cache.misses simulation metrics.
+ */
+public class CachingLinearSolver implements LinearSolver {
+	public static final int DEFAULT_CAPACITY = 1024;
+	private static final SimulationMetrics.Counter hitCounter = 
+			SimulationMetrics.getInstance().counter("solver.cache.hits");
+	private static final SimulationMetrics.Counter missCounter = 
+			SimulationMetrics.getInstance().counter("solver.cache.misses");
+	
+	/**
+	 * A cache key for a linear problem.
+	 */
+	private static final class Key {
+		private final LinearProblem problem;
+		private final int hash;
+		
+		/**
+		 * Instantiates a new key.
+		 *
+		 * @param problem the problem
+		 */
+		Key(LinearProblem problem) {
+			this.problem = problem;
+			int hash = Arrays.hashCode(problem.getCostCoefficients());
+			hash = 31*hash + Arrays.hashCode(problem.getUpperBounds());
+			for(int i = 0; i < problem.getNumberConstraints(); i++) {
+				hash = 31*hash + problem.getRelationship(i).hashCode();
+				hash = 31*hash + Double.hashCode(problem.getValue(i));
+				hash = 31*hash + Arrays.hashCode(problem.getRowIndices(i));
+				hash = 31*hash + Arrays.hashCode(problem.getRowCoefficients(i));
+			}
+			this.hash = hash;
+		}
+		
+		@Override
+		public boolean equals(Object object) {
+			if(this == object) {
+				return true;
+			}
+			if(!(object instanceof Key) || ((Key) object).hash != hash) {
+				return false;
+			}
+			LinearProblem other = ((Key) object).problem;
+			if(other.getNumberConstraints() != problem.getNumberConstraints()
+					|| other.getEpsilon() != problem.getEpsilon()
+					|| other.getMaxUlps() != problem.getMaxUlps()
+					|| !Arrays.equals(other.getCostCoefficients(), problem.getCostCoefficients())
+					|| !Arrays.equals(other.getUpperBounds(), problem.getUpperBounds())) {
+				return false;
+			}
+			for(int i = 0; i < problem.getNumberConstraints(); i++) {
+				if(other.getRelationship(i) != problem.getRelationship(i)
+						|| Double.compare(other.getValue(i), problem.getValue(i)) != 0
+						|| !Arrays.equals(other.getRowIndices(i), problem.getRowIndices(i))
+						|| !Arrays.equals(other.getRowCoefficients(i), problem.getRowCoefficients(i))) {
+					return false;
+				}
+			}
+			return true;
+		}
+		
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+	
+	private final LinearSolver solver;
+	private final int capacity;
+	private final Map<Key, PointValuePair> solutions;
+	private long hitCount, missCount;
+	
+	/**
+	 * Instantiates a new caching linear solver with the default capacity.
+	 *
+	 * @param solver the solver
+	 */
+	public CachingLinearSolver(LinearSolver solver) {
+		this(solver, DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Instantiates a new caching linear solver.
+	 *
+	 * @param solver the solver
+	 * @param capacity the maximum number of cached solutions
+	 */
+	public CachingLinearSolver(LinearSolver solver, final int capacity) {
+		if(solver == null) {
+			throw new IllegalArgumentException("Solver cannot be null.");
+		}
+		if(capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive.");
+		}
+		this.solver = solver;
+		this.capacity = capacity;
+		solutions = new LinkedHashMap<Key, PointValuePair>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, PointValuePair> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+	
+	/**
+	 * Removes all cached solutions and resets the hit and miss counts.
+	 */
+	public synchronized void clear() {
+		solutions.clear();
+		hitCount = 0;
+		missCount = 0;
+	}
+	
+	/**
+	 * Gets the maximum number of cached solutions.
+	 *
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	/**
+	 * Gets the number of problems solved from the cache.
+	 *
+	 * @return the hit count
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+	
+	/**
+	 * Gets the fraction of problems solved from the cache, or 
+	 * {@link Double#NaN} if no problems have been solved.
+	 *
+	 * @return the hit rate
+	 */
+	public synchronized double getHitRate() {
+		long count = hitCount + missCount;
+		return count == 0 ? Double.NaN : hitCount / (double) count;
+	}
+	
+	/**
+	 * Gets the number of problems passed to the underlying solver.
+	 *
+	 * @return the miss count
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+	
+	/**
+	 * Gets the number of cached solutions.
+	 *
+	 * @return the size
+	 */
+	public synchronized int getSize() {
+		return solutions.size();
+	}
+	
+	/**
+	 * Gets the underlying solver.
+	 *
+	 * @return the solver
+	 */
+	public LinearSolver getSolver() {
+		return solver;
+	}
+
+	@Override
+	public PointValuePair solve(LinearProblem problem) {
+		Key key = new Key(problem);
+		synchronized(this) {
+			PointValuePair solution = solutions.get(key);
+			if(solution != null) {
+				hitCount++;
+				hitCounter.increment();
+				return solution;
+			}
+			missCount++;
+		}
+		missCounter.increment();
+		// solve outside the lock so other threads are not blocked
+		PointValuePair solution = solver.solve(problem);
+		synchronized(this) {
+			solutions.put(key, solution);
+		}
+		return solution;
+	}
+}
@@ -0,0 +1,90 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.core.optim;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.math3.linear.OpenMapRealVector;
+import org.apache.commons.math3.optim.InitialGuess;
+import org.apache.commons.math3.optim.MaxIter;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.LinearConstraintSet;
+import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
+import org.apache.commons.math3.optim.linear.NonNegativeConstraint;
+import org.apache.commons.math3.optim.linear.Relationship;
+import org.apache.commons.math3.optim.linear.SimplexSolver;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+
+/**
+ * A linear solver which adapts the Apache Commons Math dense tableau 
+ * simplex solver. Each finite upper bound is added to the tableau as 
+ * a single-variable constraint. A new solver is created for each 
+ * problem with the tolerances suggested by the problem.
+ */
+public class CommonsSimplexSolver implements LinearSolver {
+	private final int maxIterations;
+	
+	/**
+	 * Instantiates a new commons simplex solver with the default
+	 * maximum number of iterations.
+	 */
+	public CommonsSimplexSolver() {
+		this(LinearProgram.DEFAULT_MAX_ITERATIONS);
+	}
+	
+	/**
+	 * Instantiates a new commons simplex solver.
+	 *
+	 * @param maxIterations the maximum number of iterations
+	 */
+	public CommonsSimplexSolver(int maxIterations) {
+		this.maxIterations = maxIterations;
+	}
+
+	@Override
+	public PointValuePair solve(LinearProblem problem) {
+		int numberVariables = problem.getNumberVariables();
+		double[] upperBounds = problem.getUpperBounds();
+		List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+		for(int j = 0; j < numberVariables; j++) {
+			if(upperBounds[j] < Double.POSITIVE_INFINITY) {
+				OpenMapRealVector vector = new OpenMapRealVector(numberVariables);
+				vector.setEntry(j, 1);
+				constraints.add(new LinearConstraint(vector, 
+						Relationship.LEQ, upperBounds[j]));
+			}
+		}
+		for(int i = 0; i < problem.getNumberConstraints(); i++) {
+			int[] indices = problem.getRowIndices(i);
+			double[] coefficients = problem.getRowCoefficients(i);
+			OpenMapRealVector vector = new OpenMapRealVector(numberVariables);
+			for(int k = 0; k < indices.length; k++) {
+				vector.setEntry(indices[k], coefficients[k]);
+			}
+			constraints.add(new LinearConstraint(vector, 
+					problem.getRelationship(i), problem.getValue(i)));
+		}
+		return new SimplexSolver(problem.getEpsilon(), problem.getMaxUlps()).optimize(
+				GoalType.MINIMIZE,
+				new MaxIter(maxIterations),
+				new NonNegativeConstraint(true),
+				new LinearConstraintSet(constraints),
+				new LinearObjectiveFunction(problem.getCostCoefficients(), 0d),
+				new InitialGuess(problem.getInitialValues()));
+	}
+}
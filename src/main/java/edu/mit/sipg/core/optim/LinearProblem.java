@@ -0,0 +1,174 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.core.optim;
+
+import java.util.List;
+
+import org.apache.commons.math3.optim.linear.Relationship;
+
+/**
+ * A linear program as seen by a {@link LinearSolver}: minimize the cost 
+ * c'x subject to sparse constraint rows and bounds 0 &lt;= x &lt;= u. 
+ * Problems are assembled by {@link LinearProgram} after pre-solve, so 
+ * every variable has a positive upper bound and every row has at least 
+ * one non-zero coefficient.
+ * 
+ * Arrays returned by this class are shared and must not be modified.
+ */
+public final class LinearProblem {
+	private final int numberVariables;
+	private final double[] costCoefficients;
+	private final double[] upperBounds;
+	private final double[] initialValues;
+	private final int[][] rowIndices;
+	private final double[][] rowCoefficients;
+	private final Relationship[] relationships;
+	private final double[] values;
+	private final double epsilon;
+	private final int maxUlps;
+	
+	/**
+	 * Instantiates a new linear problem.
+	 *
+	 * @param costCoefficients the cost coefficients
+	 * @param upperBounds the upper bounds
+	 * @param initialValues the initial values
+	 * @param rowIndices the variable indices of each row
+	 * @param rowCoefficients the coefficients of each row
+	 * @param relationships the relationships of each row
+	 * @param values the right-hand side values of each row
+	 * @param epsilon the solver epsilon
+	 * @param maxUlps the solver max ulps
+	 */
+	LinearProblem(double[] costCoefficients, double[] upperBounds,
+			double[] initialValues, List<int[]> rowIndices, 
+			List<double[]> rowCoefficients, List<Relationship> relationships, 
+			double[] values, double epsilon, int maxUlps) {
+		this.numberVariables = costCoefficients.length;
+		this.costCoefficients = costCoefficients;
+		this.upperBounds = upperBounds;
+		this.initialValues = initialValues;
+		this.rowIndices = rowIndices.toArray(new int[rowIndices.size()][]);
+		this.rowCoefficients = rowCoefficients.toArray(new double[rowCoefficients.size()][]);
+		this.relationships = relationships.toArray(new Relationship[relationships.size()]);
+		this.values = values;
+		this.epsilon = epsilon;
+		this.maxUlps = maxUlps;
+	}
+	
+	/**
+	 * Gets the cost coefficients.
+	 *
+	 * @return the cost coefficients
+	 */
+	public double[] getCostCoefficients() {
+		return costCoefficients;
+	}
+	
+	/**
+	 * Gets the tolerance suggested for the solver.
+	 *
+	 * @return the epsilon
+	 */
+	public double getEpsilon() {
+		return epsilon;
+	}
+	
+	/**
+	 * Gets the initial values. The initial values are advisory only.
+	 *
+	 * @return the initial values
+	 */
+	public double[] getInitialValues() {
+		return initialValues;
+	}
+	
+	/**
+	 * Gets the max ulps suggested for the solver.
+	 *
+	 * @return the max ulps
+	 */
+	public int getMaxUlps() {
+		return maxUlps;
+	}
+	
+	/**
+	 * Gets the number of constraint rows, excluding upper bounds.
+	 *
+	 * @return the number of constraints
+	 */
+	public int getNumberConstraints() {
+		return relationships.length;
+	}
+	
+	/**
+	 * Gets the number of variables.
+	 *
+	 * @return the number of variables
+	 */
+	public int getNumberVariables() {
+		return numberVariables;
+	}
+	
+	/**
+	 * Gets the relationship of a row.
+	 *
+	 * @param row the row index
+	 * @return the relationship
+	 */
+	public Relationship getRelationship(int row) {
+		return relationships[row];
+	}
+	
+	/**
+	 * Gets the non-zero coefficients of a row.
+	 *
+	 * @param row the row index
+	 * @return the coefficients
+	 */
+	public double[] getRowCoefficients(int row) {
+		return rowCoefficients[row];
+	}
+	
+	/**
+	 * Gets the variable indices of the non-zero coefficients of a row.
+	 *
+	 * @param row the row index
+	 * @return the variable indices
+	 */
+	public int[] getRowIndices(int row) {
+		return rowIndices[row];
+	}
+	
+	/**
+	 * Gets the upper bounds. Bounds may be positive infinity.
+	 *
+	 * @return the upper bounds
+	 */
+	public double[] getUpperBounds() {
+		return upperBounds;
+	}
+	
+	/**
+	 * Gets the right-hand side value of a row.
+	 *
+	 * @param row the row index
+	 * @return the value
+	 */
+	public double getValue(int row) {
+		return values[row];
+	}
+}
@@ -0,0 +1,431 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.core.optim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.math3.linear.OpenMapRealVector;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.NoFeasibleSolutionException;
+import org.apache.commons.math3.optim.linear.Relationship;
+
+/**
+ * A cached linear program which minimizes a linear cost over non-negative
+ * variables. The constraint structure is built once for a given topology
+ * (e.g. the elements and cities in a sector) and re-used between
+ * optimization passes; only the right-hand side values, cost coefficients,
+ * and any coefficients which depend on simulation state are updated.
+ *
+ * Constraints are stored as sparse rows and simple upper bounds on
+ * single variables are stored as bounds rather than rows. Before solving,
+ * variables with a zero upper bound (e.g. non-operational elements) are
+ * fixed at zero and removed along with any rows left empty, so the solver
+ * only sees the active part of the problem.
+ *
+ * The active part of the problem is solved by a {@link LinearSolver}, 
+ * by default the Apache Commons Math simplex solver. If nothing has 
+ * changed since the last successful solution by the same solver, the
+ * previous solution is returned without re-solving.
+ */
+public class LinearProgram {
+	public static final double DEFAULT_EPSILON = 1e-6;
+	public static final int DEFAULT_MAX_ULPS = 10;
+	public static final int DEFAULT_MAX_ITERATIONS = 1000;
+	public static final LinearSolver DEFAULT_SOLVER = new CommonsSimplexSolver();
+
+	/**
+	 * A sparse constraint row which stores only the non-zero coefficients
+	 * (and any coefficients which were later set to zero) in insertion order.
+	 */
+	private static class SparseRow {
+		private int[] indices = new int[4];
+		private double[] values = new double[4];
+		private int size = 0;
+
+		/**
+		 * Gets a coefficient.
+		 *
+		 * @param index the variable index
+		 * @return the coefficient
+		 */
+		public double get(int index) {
+			for(int k = 0; k < size; k++) {
+				if(indices[k] == index) {
+					return values[k];
+				}
+			}
+			return 0;
+		}
+
+		/**
+		 * Sets a coefficient.
+		 *
+		 * @param index the variable index
+		 * @param value the coefficient
+		 */
+		public void set(int index, double value) {
+			for(int k = 0; k < size; k++) {
+				if(indices[k] == index) {
+					values[k] = value;
+					return;
+				}
+			}
+			if(size == indices.length) {
+				indices = Arrays.copyOf(indices, 2*size);
+				values = Arrays.copyOf(values, 2*size);
+			}
+			indices[size] = index;
+			values[size] = value;
+			size++;
+		}
+	}
+
+	private final List<?> topology;
+	private final int numberVariables;
+	private final List<SparseRow> coefficients = new ArrayList<SparseRow>();
+	private final List<Relationship> relationships = new ArrayList<Relationship>();
+	private double[] values = new double[0];
+	private final double[] upperBounds;
+	private final double[] costCoefficients;
+	private final double[] initialValues;
+	private final double epsilon;
+	private final int maxUlps;
+	private boolean modified = true;
+	private PointValuePair solution;
+	private LinearSolver solutionSolver;
+
+	/**
+	 * Instantiates a new linear program with the default solver tolerances.
+	 *
+	 * @param topology the topology
+	 * @param numberVariables the number of variables
+	 */
+	public LinearProgram(List<?> topology, int numberVariables) {
+		this(topology, numberVariables, DEFAULT_EPSILON, DEFAULT_MAX_ULPS);
+	}
+
+	/**
+	 * Instantiates a new linear program.
+	 *
+	 * @param topology the topology
+	 * @param numberVariables the number of variables
+	 * @param epsilon the solver epsilon
+	 * @param maxUlps the solver max ulps
+	 */
+	public LinearProgram(List<?> topology, int numberVariables,
+			double epsilon, int maxUlps) {
+		this.topology = new ArrayList<Object>(topology);
+		this.numberVariables = numberVariables;
+		this.upperBounds = new double[numberVariables];
+		Arrays.fill(upperBounds, Double.POSITIVE_INFINITY);
+		this.costCoefficients = new double[numberVariables];
+		this.initialValues = new double[numberVariables];
+		this.epsilon = epsilon;
+		this.maxUlps = maxUlps;
+	}
+
+	/**
+	 * Adds a new constraint with all-zero coefficients and zero value.
+	 *
+	 * @param relationship the relationship
+	 * @return the index of the new constraint
+	 */
+	public int addConstraint(Relationship relationship) {
+		coefficients.add(new SparseRow());
+		relationships.add(relationship);
+		values = Arrays.copyOf(values, values.length + 1);
+		modified = true;
+		return coefficients.size() - 1;
+	}
+
+	/**
+	 * Gets the constraints over all variables, including a single-variable
+	 * constraint for each finite upper bound.
+	 *
+	 * @return the constraints
+	 */
+	public List<LinearConstraint> getConstraints() {
+		List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+		for(int j = 0; j < numberVariables; j++) {
+			if(upperBounds[j] < Double.POSITIVE_INFINITY) {
+				OpenMapRealVector vector = new OpenMapRealVector(numberVariables);
+				vector.setEntry(j, 1);
+				constraints.add(new LinearConstraint(vector, 
+						Relationship.LEQ, upperBounds[j]));
+			}
+		}
+		for(int i = 0; i < coefficients.size(); i++) {
+			SparseRow row = coefficients.get(i);
+			OpenMapRealVector vector = new OpenMapRealVector(numberVariables);
+			for(int k = 0; k < row.size; k++) {
+				vector.setEntry(row.indices[k], row.values[k]);
+			}
+			constraints.add(new LinearConstraint(vector,
+					relationships.get(i), values[i]));
+		}
+		return Collections.unmodifiableList(constraints);
+	}
+
+	/**
+	 * Gets a copy of the cost coefficients.
+	 *
+	 * @return the cost coefficients
+	 */
+	public double[] getCostCoefficients() {
+		return Arrays.copyOf(costCoefficients, costCoefficients.length);
+	}
+
+	/**
+	 * Gets a copy of the initial values.
+	 *
+	 * @return the initial values
+	 */
+	public double[] getInitialValues() {
+		return Arrays.copyOf(initialValues, initialValues.length);
+	}
+
+	/**
+	 * Gets the number of constraints, excluding upper bounds.
+	 *
+	 * @return the number of constraints
+	 */
+	public int getNumberConstraints() {
+		return coefficients.size();
+	}
+
+	/**
+	 * Gets the number of variables.
+	 *
+	 * @return the number of variables
+	 */
+	public int getNumberVariables() {
+		return numberVariables;
+	}
+
+	/**
+	 * Gets the upper bound of a variable.
+	 *
+	 * @param variable the variable index
+	 * @return the upper bound
+	 */
+	public double getUpperBound(int variable) {
+		return upperBounds[variable];
+	}
+
+	/**
+	 * Checks if an empty row (i.e. with a zero left-hand side) is satisfied.
+	 *
+	 * @param relationship the relationship
+	 * @param value the right-hand side value
+	 * @return true, if satisfied
+	 */
+	private static boolean isSatisfied(Relationship relationship, double value) {
+		switch(relationship) {
+		case EQ:
+			return value == 0;
+		case LEQ:
+			return value >= 0;
+		case GEQ:
+			return value <= 0;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Checks if this program was built for a topology. Topologies are
+	 * compared element-wise by identity.
+	 *
+	 * @param topology the topology
+	 * @return true, if the topology matches
+	 */
+	public boolean isTopology(List<?> topology) {
+		if(this.topology.size() != topology.size()) {
+			return false;
+		}
+		for(int i = 0; i < topology.size(); i++) {
+			if(this.topology.get(i) != topology.get(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sets a constraint coefficient.
+	 *
+	 * @param constraint the constraint index
+	 * @param variable the variable index
+	 * @param value the coefficient value
+	 */
+	public void setCoefficient(int constraint, int variable, double value) {
+		SparseRow row = coefficients.get(constraint);
+		if(row.get(variable) != value) {
+			row.set(variable, value);
+			modified = true;
+		}
+	}
+
+	/**
+	 * Sets a cost coefficient.
+	 *
+	 * @param variable the variable index
+	 * @param value the cost coefficient
+	 */
+	public void setCostCoefficient(int variable, double value) {
+		if(costCoefficients[variable] != value) {
+			costCoefficients[variable] = value;
+			modified = true;
+		}
+	}
+
+	/**
+	 * Sets an initial value. The initial values are advisory only
+	 * and do not affect the solution.
+	 *
+	 * @param variable the variable index
+	 * @param value the initial value
+	 */
+	public void setInitialValue(int variable, double value) {
+		initialValues[variable] = value;
+	}
+
+	/**
+	 * Sets the upper bound of a variable. The default upper bound is
+	 * positive infinity; variables with an upper bound of zero are
+	 * removed from the problem before solving.
+	 *
+	 * @param variable the variable index
+	 * @param value the upper bound
+	 */
+	public void setUpperBound(int variable, double value) {
+		if(upperBounds[variable] != value) {
+			upperBounds[variable] = value;
+			modified = true;
+		}
+	}
+
+	/**
+	 * Sets a constraint right-hand side value.
+	 *
+	 * @param constraint the constraint index
+	 * @param value the value
+	 */
+	public void setValue(int constraint, double value) {
+		if(values[constraint] != value) {
+			values[constraint] = value;
+			modified = true;
+		}
+	}
+
+	/**
+	 * Solves this linear program with the default solver.
+	 *
+	 * @return the solution
+	 */
+	public PointValuePair solve() {
+		return solve(DEFAULT_SOLVER);
+	}
+
+	/**
+	 * Solves this linear program. Exceptions raised by the solver
+	 * (e.g. no feasible solution or too many iterations) are propagated.
+	 *
+	 * @param solver the solver
+	 * @return the solution
+	 */
+	public PointValuePair solve(LinearSolver solver) {
+		if(!modified && solution != null && solutionSolver == solver) {
+			return solution;
+		}
+		solution = null;
+
+		// Map each free variable to a column in the reduced problem;
+		// variables with a zero upper bound are fixed at zero.
+		int[] columns = new int[numberVariables];
+		int numberColumns = 0;
+		for(int j = 0; j < numberVariables; j++) {
+			if(upperBounds[j] < 0) {
+				throw new NoFeasibleSolutionException();
+			}
+			columns[j] = upperBounds[j] == 0 ? -1 : numberColumns++;
+		}
+
+		List<int[]> rowIndices = new ArrayList<int[]>();
+		List<double[]> rowCoefficients = new ArrayList<double[]>();
+		List<Relationship> rowRelationships = new ArrayList<Relationship>();
+		double[] rowValues = new double[coefficients.size()];
+		for(int i = 0; i < coefficients.size(); i++) {
+			SparseRow row = coefficients.get(i);
+			int[] indices = new int[row.size];
+			double[] rowCoefficient = new double[row.size];
+			int size = 0;
+			for(int k = 0; k < row.size; k++) {
+				int column = columns[row.indices[k]];
+				if(column >= 0 && row.values[k] != 0) {
+					indices[size] = column;
+					rowCoefficient[size] = row.values[k];
+					size++;
+				}
+			}
+			if(size == 0) {
+				// An empty row is either trivially satisfied or infeasible.
+				if(!isSatisfied(relationships.get(i), values[i])) {
+					throw new NoFeasibleSolutionException();
+				}
+			} else {
+				rowValues[rowIndices.size()] = values[i];
+				rowIndices.add(Arrays.copyOf(indices, size));
+				rowCoefficients.add(Arrays.copyOf(rowCoefficient, size));
+				rowRelationships.add(relationships.get(i));
+			}
+		}
+
+		double[] point = new double[numberVariables];
+		double value = 0;
+		if(numberColumns > 0) {
+			double[] reducedCosts = new double[numberColumns];
+			double[] reducedBounds = new double[numberColumns];
+			double[] reducedValues = new double[numberColumns];
+			for(int j = 0; j < numberVariables; j++) {
+				if(columns[j] >= 0) {
+					reducedCosts[columns[j]] = costCoefficients[j];
+					reducedBounds[columns[j]] = upperBounds[j];
+					reducedValues[columns[j]] = initialValues[j];
+				}
+			}
+			PointValuePair output = solver.solve(new LinearProblem(
+					reducedCosts, reducedBounds, reducedValues, 
+					rowIndices, rowCoefficients, rowRelationships, 
+					Arrays.copyOf(rowValues, rowIndices.size()), 
+					epsilon, maxUlps));
+			for(int j = 0; j < numberVariables; j++) {
+				if(columns[j] >= 0) {
+					point[j] = output.getPoint()[columns[j]];
+				}
+			}
+			value = output.getValue();
+		}
+		solution = new PointValuePair(point, value);
+		solutionSolver = solver;
+		modified = false;
+		return solution;
+	}
+}
@@ -0,0 +1,42 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.core.optim;
+
+import org.apache.commons.math3.optim.PointValuePair;
+
+/**
+ * A solver for linear programs which minimize a linear cost over 
+ * non-negative, bounded variables. Solvers are called by each 
+ * {@link LinearProgram} with the active part of the problem after 
+ * pre-solve.
+ * 
+ * Implementations must be safe to use from several threads at once for 
+ * different problems, e.g. when sectors are optimized in parallel.
+ */
+public interface LinearSolver {
+	
+	/**
+	 * Solves a linear program.
+	 *
+	 * @param problem the problem
+	 * @return the optimal point and cost
+	 * @throws org.apache.commons.math3.optim.linear.NoFeasibleSolutionException 
+	 * if the problem has no feasible solution
+	 * @throws org.apache.commons.math3.exception.TooManyIterationsException 
+	 * if the solver exceeds its iteration limit
+	 */
+	public PointValuePair solve(LinearProblem problem);
+}
@@ -0,0 +1,117 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.core.optim;
+
+import org.apache.commons.math3.exception.TooManyIterationsException;
+import org.apache.commons.math3.optim.linear.NoFeasibleSolutionException;
+
+/**
+ * An optimization whose linear program has been assembled from the 
+ * current simulation state but not yet solved. Separating the three 
+ * phases allows several sectors to be assembled against the same state,
+ * solved concurrently, and applied together.
+ * 
+ * Solving does not touch the simulation state; it only updates the 
+ * cached solution (and modified flag) of this optimization's own linear 
+ * program, so optimizations with distinct linear programs may be solved 
+ * on different threads. Applying writes the
+ * solution to the simulation state and must not run concurrently with 
+ * assembly or application of other optimizations.
+ */
+public abstract class PreparedOptimization {
+	private final LinearProgram model;
+	private volatile double[] point;
+	
+	/**
+	 * Instantiates a new prepared optimization.
+	 *
+	 * @param model the assembled linear program
+	 */
+	public PreparedOptimization(LinearProgram model) {
+		this.model = model;
+	}
+	
+	/**
+	 * Applies the solution to the simulation state. Does nothing if 
+	 * the linear program has not been solved successfully.
+	 */
+	public void apply() {
+		if(point != null) {
+			apply(point);
+		}
+	}
+	
+	/**
+	 * Applies a solution to the simulation state.
+	 *
+	 * @param point the solution point
+	 */
+	protected abstract void apply(double[] point);
+	
+	/**
+	 * Gets the linear program.
+	 *
+	 * @return the linear program
+	 */
+	public LinearProgram getModel() {
+		return model;
+	}
+	
+	/**
+	 * Checks if the linear program has been solved successfully.
+	 *
+	 * @return true, if a solution is available to apply
+	 */
+	public boolean isSolved() {
+		return point != null;
+	}
+	
+	/**
+	 * Handles a linear program without a feasible solution. 
+	 * Existing values are not overwritten.
+	 *
+	 * @param e the exception
+	 */
+	protected void noFeasibleSolution(NoFeasibleSolutionException e) {
+		e.printStackTrace();
+	}
+	
+	/**
+	 * Solves the linear program with the default solver.
+	 */
+	public void solve() {
+		solve(LinearProgram.DEFAULT_SOLVER);
+	}
+	
+	/**
+	 * Solves the linear program. If the solver fails (e.g. no feasible
+	 * solution or too many iterations), the failure is reported and no 
+	 * solution is applied.
+	 *
+	 * @param solver the linear solver
+	 */
+	public void solve(LinearSolver solver) {
+		point = null;
+		try {
+			point = model.solve(solver).getPoint();
+		} catch(TooManyIterationsException ignore) { 
+			// Don't overwrite existing values.
+			ignore.printStackTrace();
+		} catch(NoFeasibleSolutionException ignore) {
+			noFeasibleSolution(ignore);
+		}
+	}
+}
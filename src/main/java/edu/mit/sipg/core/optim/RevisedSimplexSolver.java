@@ -0,0 +1,503 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.core.optim;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.exception.TooManyIterationsException;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.linear.NoFeasibleSolutionException;
+import org.apache.commons.math3.optim.linear.UnboundedSolutionException;
+
+/**
+ * A bounded-variable revised simplex solver on sparse columns. Upper 
+ * bounds are handled implicitly by the ratio test rather than as 
+ * constraint rows, so the basis only grows with the number of 
+ * constraint rows and not the number of bounded variables. 
+ * 
+ * Each row has a logical (slack) variable; artificial variables are only 
+ * added for rows where the all-logical basis is infeasible and are 
+ * driven to zero in a first phase. Rows and columns are equilibrated 
+ * by powers of two before solving. The basis inverse is kept as a 
+ * dense matrix updated at each pivot and periodically re-computed for 
+ * numerical stability. Pricing uses the largest reduced cost and falls 
+ * back to Bland's rule after a run of degenerate pivots to avoid cycling.
+ * 
+ * All state is local to each call, so one solver may be shared by 
+ * several threads.
+ */
+public class RevisedSimplexSolver implements LinearSolver {
+	public static final int DEFAULT_MAX_ITERATIONS = 100000;
+	private static final int REFACTOR_INTERVAL = 100;
+	private static final int DEGENERATE_LIMIT = 50;
+	private static final double PIVOT_TOLERANCE = 1e-9;
+	private static final double FEASIBILITY_TOLERANCE = 1e-9;
+	private static final double OPTIMALITY_TOLERANCE = 1e-9;
+	
+	/**
+	 * The working state of one solution.
+	 */
+	private static class Simplex {
+		private final int m, n, numberColumns;
+		private final int[] columnStart, columnRows;
+		private final double[] columnValues;
+		private final double[] sign;
+		private final double[] lower, upper, cost, x;
+		private final double[] b;
+		private final int[] basis, position;
+		private final double[][] inverse;
+		private final double[] duals, alpha;
+		private final int maxIterations;
+		private int iterations = 0;
+		
+		/**
+		 * Instantiates a new simplex with structural columns in 
+		 * compressed sparse column form. Logical and artificial columns 
+		 * are implicit.
+		 *
+		 * @param m the number of rows
+		 * @param n the number of structural variables
+		 * @param columnStart the start of each column
+		 * @param columnRows the row of each coefficient
+		 * @param columnValues the value of each coefficient
+		 * @param b the right-hand side values
+		 * @param maxIterations the maximum number of iterations
+		 */
+		Simplex(int m, int n, int[] columnStart, int[] columnRows, 
+				double[] columnValues, double[] b, int maxIterations) {
+			this.m = m;
+			this.n = n;
+			this.numberColumns = n + 2*m;
+			this.columnStart = columnStart;
+			this.columnRows = columnRows;
+			this.columnValues = columnValues;
+			this.b = b;
+			this.maxIterations = maxIterations;
+			sign = new double[m];
+			lower = new double[numberColumns];
+			upper = new double[numberColumns];
+			cost = new double[numberColumns];
+			x = new double[numberColumns];
+			basis = new int[m];
+			position = new int[numberColumns];
+			inverse = new double[m][m];
+			duals = new double[m];
+			alpha = new double[m];
+		}
+		
+		/**
+		 * Computes the basic variable values from the non-basic values.
+		 */
+		private void computeBasicValues() {
+			double[] residual = Arrays.copyOf(b, m);
+			for(int j = 0; j < numberColumns; j++) {
+				if(position[j] < 0 && x[j] != 0) {
+					if(j < n) {
+						for(int k = columnStart[j]; k < columnStart[j+1]; k++) {
+							residual[columnRows[k]] -= columnValues[k] * x[j];
+						}
+					} else if(j < n + m) {
+						residual[j - n] -= x[j];
+					} else {
+						residual[j - n - m] -= sign[j - n - m] * x[j];
+					}
+				}
+			}
+			for(int r = 0; r < m; r++) {
+				double value = 0;
+				for(int i = 0; i < m; i++) {
+					value += inverse[r][i] * residual[i];
+				}
+				x[basis[r]] = value;
+			}
+		}
+		
+		/**
+		 * Computes the simplex multipliers y = c_B' B^-1.
+		 */
+		private void computeDuals() {
+			Arrays.fill(duals, 0);
+			for(int r = 0; r < m; r++) {
+				double c = cost[basis[r]];
+				if(c != 0) {
+					double[] row = inverse[r];
+					for(int i = 0; i < m; i++) {
+						duals[i] += c * row[i];
+					}
+				}
+			}
+		}
+		
+		/**
+		 * Computes the pivot column B^-1 a_j.
+		 *
+		 * @param j the column
+		 */
+		private void computePivotColumn(int j) {
+			for(int r = 0; r < m; r++) {
+				double[] row = inverse[r];
+				double value;
+				if(j < n) {
+					value = 0;
+					for(int k = columnStart[j]; k < columnStart[j+1]; k++) {
+						value += row[columnRows[k]] * columnValues[k];
+					}
+				} else if(j < n + m) {
+					value = row[j - n];
+				} else {
+					value = sign[j - n - m] * row[j - n - m];
+				}
+				alpha[r] = value;
+			}
+		}
+		
+		/**
+		 * Gets the reduced cost of a column.
+		 *
+		 * @param j the column
+		 * @return the reduced cost
+		 */
+		private double getReducedCost(int j) {
+			if(j < n) {
+				double value = cost[j];
+				for(int k = columnStart[j]; k < columnStart[j+1]; k++) {
+					value -= duals[columnRows[k]] * columnValues[k];
+				}
+				return value;
+			} else if(j < n + m) {
+				return cost[j] - duals[j - n];
+			} else {
+				return cost[j] - sign[j - n - m] * duals[j - n - m];
+			}
+		}
+		
+		/**
+		 * Re-computes the basis inverse by Gauss-Jordan elimination with 
+		 * partial pivoting. The previous inverse is kept if the basis 
+		 * is numerically singular.
+		 */
+		private void refactor() {
+			double[][] matrix = new double[m][2*m];
+			for(int r = 0; r < m; r++) {
+				int j = basis[r];
+				if(j < n) {
+					for(int k = columnStart[j]; k < columnStart[j+1]; k++) {
+						matrix[columnRows[k]][r] = columnValues[k];
+					}
+				} else if(j < n + m) {
+					matrix[j - n][r] = 1;
+				} else {
+					matrix[j - n - m][r] = sign[j - n - m];
+				}
+				matrix[r][m + r] = 1;
+			}
+			for(int c = 0; c < m; c++) {
+				int pivot = c;
+				for(int i = c + 1; i < m; i++) {
+					if(Math.abs(matrix[i][c]) > Math.abs(matrix[pivot][c])) {
+						pivot = i;
+					}
+				}
+				if(Math.abs(matrix[pivot][c]) < PIVOT_TOLERANCE) {
+					return;
+				}
+				double[] swap = matrix[c];
+				matrix[c] = matrix[pivot];
+				matrix[pivot] = swap;
+				double scale = 1 / matrix[c][c];
+				for(int k = c; k < 2*m; k++) {
+					matrix[c][k] *= scale;
+				}
+				for(int i = 0; i < m; i++) {
+					double factor = matrix[i][c];
+					if(i != c && factor != 0) {
+						for(int k = c; k < 2*m; k++) {
+							matrix[i][k] -= factor * matrix[c][k];
+						}
+					}
+				}
+			}
+			for(int r = 0; r < m; r++) {
+				System.arraycopy(matrix[r], m, inverse[r], 0, m);
+			}
+			computeBasicValues();
+		}
+		
+		/**
+		 * Runs simplex iterations until the current costs are minimized.
+		 *
+		 * @param tolerance the optimality tolerance for reduced costs
+		 */
+		private void minimize(double tolerance) {
+			int degenerate = 0;
+			int sinceRefactor = 0;
+			while(true) {
+				if(++iterations > maxIterations) {
+					throw new TooManyIterationsException(maxIterations);
+				}
+				if(++sinceRefactor > REFACTOR_INTERVAL) {
+					refactor();
+					sinceRefactor = 0;
+				}
+				boolean bland = degenerate > DEGENERATE_LIMIT;
+				
+				// select an entering column with an improving reduced cost
+				computeDuals();
+				int entering = -1;
+				double best = 0;
+				for(int j = 0; j < numberColumns; j++) {
+					if(position[j] >= 0 || lower[j] == upper[j]) {
+						continue;
+					}
+					double d = getReducedCost(j);
+					boolean improving = (x[j] <= lower[j] && d < -tolerance)
+							|| (x[j] >= upper[j] && d > tolerance);
+					if(improving && (entering < 0 || (!bland && Math.abs(d) > best))) {
+						entering = j;
+						best = Math.abs(d);
+						if(bland) {
+							break;
+						}
+					}
+				}
+				if(entering < 0) {
+					return;
+				}
+				
+				// ratio test over the basic variables and the entering bounds
+				double direction = x[entering] <= lower[entering] ? 1 : -1;
+				computePivotColumn(entering);
+				double theta = upper[entering] - lower[entering];
+				int leaving = -1;
+				double leavingAlpha = 0;
+				for(int r = 0; r < m; r++) {
+					double a = direction * alpha[r];
+					int j = basis[r];
+					double limit;
+					if(a > PIVOT_TOLERANCE && lower[j] > Double.NEGATIVE_INFINITY) {
+						limit = Math.max(0, (x[j] - lower[j]) / a);
+					} else if(a < -PIVOT_TOLERANCE && upper[j] < Double.POSITIVE_INFINITY) {
+						limit = Math.max(0, (upper[j] - x[j]) / -a);
+					} else {
+						continue;
+					}
+					if(limit < theta || (limit == theta && leaving >= 0 
+							&& (bland ? j < basis[leaving] : Math.abs(a) > leavingAlpha))) {
+						theta = limit;
+						leaving = r;
+						leavingAlpha = Math.abs(a);
+					}
+				}
+				if(theta == Double.POSITIVE_INFINITY) {
+					throw new UnboundedSolutionException();
+				}
+				degenerate = theta == 0 ? degenerate + 1 : 0;
+				
+				// update the basic values and the entering value
+				for(int r = 0; r < m; r++) {
+					x[basis[r]] -= theta * direction * alpha[r];
+				}
+				if(leaving < 0) {
+					// the entering variable moves to its other bound
+					x[entering] = direction > 0 ? upper[entering] : lower[entering];
+					continue;
+				}
+				x[entering] += direction * theta;
+				int j = basis[leaving];
+				x[j] = direction * alpha[leaving] > 0 ? lower[j] : upper[j];
+				position[j] = -1;
+				basis[leaving] = entering;
+				position[entering] = leaving;
+				
+				// update the basis inverse by the product form
+				double[] pivotRow = inverse[leaving];
+				double scale = 1 / alpha[leaving];
+				for(int i = 0; i < m; i++) {
+					pivotRow[i] *= scale;
+				}
+				for(int r = 0; r < m; r++) {
+					double factor = alpha[r];
+					if(r != leaving && factor != 0) {
+						double[] row = inverse[r];
+						for(int i = 0; i < m; i++) {
+							row[i] -= factor * pivotRow[i];
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	private final int maxIterations;
+	
+	/**
+	 * Instantiates a new revised simplex solver with the default 
+	 * maximum number of iterations.
+	 */
+	public RevisedSimplexSolver() {
+		this(DEFAULT_MAX_ITERATIONS);
+	}
+	
+	/**
+	 * Instantiates a new revised simplex solver.
+	 *
+	 * @param maxIterations the maximum number of iterations
+	 */
+	public RevisedSimplexSolver(int maxIterations) {
+		this.maxIterations = maxIterations;
+	}
+	
+	/**
+	 * Gets a power of two near the reciprocal of the geometric mean 
+	 * of the smallest and largest magnitudes.
+	 *
+	 * @param min the smallest magnitude
+	 * @param max the largest magnitude
+	 * @return the scale factor
+	 */
+	private static double getScale(double min, double max) {
+		if(max == 0) {
+			return 1;
+		}
+		return Math.scalb(1.0, -(int) Math.round(
+				Math.log(Math.sqrt(min * max)) / Math.log(2)));
+	}
+
+	@Override
+	public PointValuePair solve(LinearProblem problem) {
+		int m = problem.getNumberConstraints();
+		int n = problem.getNumberVariables();
+		
+		// equilibrate rows and then columns by powers of two
+		double[] rowScales = new double[m];
+		double[] columnMin = new double[n];
+		double[] columnMax = new double[n];
+		Arrays.fill(columnMin, Double.POSITIVE_INFINITY);
+		int[] columnCounts = new int[n];
+		for(int i = 0; i < m; i++) {
+			double min = Double.POSITIVE_INFINITY, max = 0;
+			for(double value : problem.getRowCoefficients(i)) {
+				min = Math.min(min, Math.abs(value));
+				max = Math.max(max, Math.abs(value));
+			}
+			rowScales[i] = getScale(min, max);
+			int[] indices = problem.getRowIndices(i);
+			double[] values = problem.getRowCoefficients(i);
+			for(int k = 0; k < indices.length; k++) {
+				double value = Math.abs(values[k]) * rowScales[i];
+				columnMin[indices[k]] = Math.min(columnMin[indices[k]], value);
+				columnMax[indices[k]] = Math.max(columnMax[indices[k]], value);
+				columnCounts[indices[k]]++;
+			}
+		}
+		double[] columnScales = new double[n];
+		for(int j = 0; j < n; j++) {
+			columnScales[j] = getScale(columnMin[j], columnMax[j]);
+		}
+		
+		// transpose the scaled rows into compressed sparse columns
+		int[] columnStart = new int[n + 1];
+		for(int j = 0; j < n; j++) {
+			columnStart[j+1] = columnStart[j] + columnCounts[j];
+		}
+		int[] columnRows = new int[columnStart[n]];
+		double[] columnValues = new double[columnStart[n]];
+		int[] next = Arrays.copyOf(columnStart, n);
+		double[] b = new double[m];
+		for(int i = 0; i < m; i++) {
+			int[] indices = problem.getRowIndices(i);
+			double[] values = problem.getRowCoefficients(i);
+			for(int k = 0; k < indices.length; k++) {
+				int j = indices[k];
+				columnRows[next[j]] = i;
+				columnValues[next[j]] = values[k] * rowScales[i] * columnScales[j];
+				next[j]++;
+			}
+			b[i] = problem.getValue(i) * rowScales[i];
+		}
+		
+		Simplex simplex = new Simplex(m, n, columnStart, columnRows, 
+				columnValues, b, maxIterations);
+		double[] upperBounds = problem.getUpperBounds();
+		for(int j = 0; j < n; j++) {
+			simplex.upper[j] = upperBounds[j] / columnScales[j];
+			simplex.position[j] = -1;
+		}
+		
+		// start from the logical basis, adding an artificial variable 
+		// for each row where the logical variable would be infeasible
+		double maxValue = 1;
+		for(int i = 0; i < m; i++) {
+			int logical = n + i, artificial = n + m + i;
+			switch(problem.getRelationship(i)) {
+			case LEQ:
+				simplex.upper[logical] = Double.POSITIVE_INFINITY;
+				break;
+			case GEQ:
+				simplex.lower[logical] = Double.NEGATIVE_INFINITY;
+				break;
+			default:
+				break;
+			}
+			simplex.position[logical] = -1;
+			simplex.position[artificial] = -1;
+			if(b[i] >= simplex.lower[logical] && b[i] <= simplex.upper[logical]) {
+				simplex.basis[i] = logical;
+				simplex.sign[i] = 1;
+			} else {
+				simplex.basis[i] = artificial;
+				simplex.sign[i] = b[i] > 0 ? 1 : -1;
+				simplex.upper[artificial] = Double.POSITIVE_INFINITY;
+				simplex.cost[artificial] = 1;
+			}
+			simplex.position[simplex.basis[i]] = i;
+			simplex.inverse[i][i] = simplex.sign[i];
+			maxValue = Math.max(maxValue, Math.abs(b[i]));
+		}
+		simplex.computeBasicValues();
+		
+		// phase 1: minimize the sum of artificial variables
+		simplex.minimize(OPTIMALITY_TOLERANCE);
+		double infeasibility = 0;
+		for(int i = 0; i < m; i++) {
+			int artificial = n + m + i;
+			infeasibility += simplex.x[artificial];
+			simplex.cost[artificial] = 0;
+			simplex.upper[artificial] = 0;
+		}
+		if(infeasibility > FEASIBILITY_TOLERANCE * maxValue * m) {
+			throw new NoFeasibleSolutionException();
+		}
+		
+		// phase 2: minimize the scaled costs
+		double[] costs = problem.getCostCoefficients();
+		double maxCost = 1;
+		for(int j = 0; j < n; j++) {
+			simplex.cost[j] = costs[j] * columnScales[j];
+			maxCost = Math.max(maxCost, Math.abs(simplex.cost[j]));
+		}
+		simplex.minimize(OPTIMALITY_TOLERANCE * maxCost);
+		
+		double[] point = new double[n];
+		double value = 0;
+		for(int j = 0; j < n; j++) {
+			point[j] = Math.min(upperBounds[j], 
+					Math.max(0, simplex.x[j] * columnScales[j]));
+			value += costs[j] * point[j];
+		}
+		return new PointValuePair(point, value);
+	}
+}
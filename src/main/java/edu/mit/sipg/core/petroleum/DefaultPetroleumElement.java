@@ -206,6 +206,21 @@ public class DefaultPetroleumElement extends DefaultInfrastructureElement
 		this.variableOperationsCostOfPetroleumDistribution = variableOperationsCostOfPetroleumDistribution;
 	}
 	
+	@Override
+	public DefaultPetroleumElement copy() {
+		DefaultPetroleumElement element = new DefaultPetroleumElement(
+				getTemplateName(), getName(), getOrigin(), getDestination(), 
+				getLifecycleModel().copy(), reservoirIntensityOfPetroleumProduction, 
+				maxPetroleumProduction, initialPetroleumProduction, 
+				variableOperationsCostOfPetroleumProduction, 
+				distributionEfficiency, maxPetroleumInput, initialPetroleumInput, 
+				electricalIntensityOfPetroleumDistribution, 
+				variableOperationsCostOfPetroleumDistribution);
+		element.petroleumProduction = petroleumProduction;
+		element.petroleumInput = petroleumInput;
+		return element;
+	}
+	
 	@Override
 	public double getDistributionEfficiency() {
 		if(isOperational()) {
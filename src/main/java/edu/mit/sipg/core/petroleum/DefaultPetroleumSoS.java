@@ -21,6 +21,8 @@ import java.util.List;
 
 import edu.mit.sipg.core.Society;
 import edu.mit.sipg.core.base.DefaultInfrastructureSoS;
+import edu.mit.sipg.core.base.InfrastructureSoS;
+import edu.mit.sipg.core.base.TimeSeries;
 import edu.mit.sipg.units.DefaultUnits;
 import edu.mit.sipg.units.ElectricityUnits;
 import edu.mit.sipg.units.OilUnits;
@@ -36,7 +38,7 @@ public class DefaultPetroleumSoS extends DefaultInfrastructureSoS implements Pet
 	private static final TimeUnits electricityTimeUnits = TimeUnits.year;
 	private static final OilUnits oilUnits = OilUnits.toe;
 	private static final TimeUnits oilTimeUnits = TimeUnits.year;
-	private List<Double> reservoirSecurityHistory = new ArrayList<Double>();
+	private TimeSeries reservoirSecurityHistory = new TimeSeries();
 
 	/**
 	 * Instantiates a new default petroleum system-of-systems.
@@ -62,6 +64,17 @@ public class DefaultPetroleumSoS extends DefaultInfrastructureSoS implements Pet
 		}
 	}
 
+	@Override
+	public void copyState(InfrastructureSoS sos) {
+		super.copyState(sos);
+		if(sos instanceof PetroleumSoS) {
+			reservoirSecurityHistory.clear();
+			for(double value : ((PetroleumSoS) sos).getReservoirSecurityHistory()) {
+				reservoirSecurityHistory.add(value);
+			}
+		}
+	}
+
 	@Override
 	public double getElectricityConsumption() {
 		double value = 0;
@@ -148,13 +161,14 @@ public class DefaultPetroleumSoS extends DefaultInfrastructureSoS implements Pet
 				: (getReservoirVolume() / getReservoirWithdrawals());
 	}
 
+	@Override
+	public double[] getReservoirSecurityHistory() {
+		return reservoirSecurityHistory.toArray();
+	}
+
 	@Override
 	public double getReservoirSecurityScore() {
-		double value = 0;
-		for(double item : reservoirSecurityHistory) {
-			value += item;
-		}
-		return value / reservoirSecurityHistory.size();
+		return reservoirSecurityHistory.getMean();
 	}
 
 	@Override
@@ -16,26 +16,20 @@
 package edu.mit.sipg.core.petroleum;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
-import org.apache.commons.math3.exception.TooManyIterationsException;
-import org.apache.commons.math3.optim.InitialGuess;
-import org.apache.commons.math3.optim.MaxIter;
-import org.apache.commons.math3.optim.PointValuePair;
-import org.apache.commons.math3.optim.linear.LinearConstraint;
-import org.apache.commons.math3.optim.linear.LinearConstraintSet;
-import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
-import org.apache.commons.math3.optim.linear.NoFeasibleSolutionException;
-import org.apache.commons.math3.optim.linear.NonNegativeConstraint;
 import org.apache.commons.math3.optim.linear.Relationship;
-import org.apache.commons.math3.optim.linear.SimplexSolver;
-import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
 
 import edu.mit.sipg.core.City;
 import edu.mit.sipg.core.Society;
+import edu.mit.sipg.core.base.CachedView;
+import edu.mit.sipg.core.base.InfrastructureSoS;
 import edu.mit.sipg.core.base.LocalInfrastructureSoS;
+import edu.mit.sipg.core.base.NetworkIndex;
+import edu.mit.sipg.core.base.TimeSeries;
 import edu.mit.sipg.core.electricity.ElectricitySoS;
+import edu.mit.sipg.core.optim.LinearProgram;
+import edu.mit.sipg.core.optim.PreparedOptimization;
 import edu.mit.sipg.units.DefaultUnits;
 import edu.mit.sipg.units.ElectricityUnits;
 import edu.mit.sipg.units.OilUnits;
@@ -51,7 +45,56 @@ public class LocalPetroleumSoS extends LocalInfrastructureSoS implements Petrole
 	private static final TimeUnits electricityTimeUnits = TimeUnits.year;
 	private static final OilUnits oilUnits = OilUnits.toe;
 	private static final TimeUnits oilTimeUnits = TimeUnits.year;
-	private List<Double> reservoirSecurityHistory = new ArrayList<Double>();
+	private TimeSeries reservoirSecurityHistory = new TimeSeries();
+	private transient LinearProgram distributionModel, productionModel;
+	private transient final CachedView<PetroleumElement> elementsView = 
+			new CachedView<PetroleumElement>(this) {
+		@Override
+		protected List<PetroleumElement> compute() {
+			List<PetroleumElement> elements = new ArrayList<PetroleumElement>();
+			elements.addAll(getInternalElements());
+			elements.addAll(getExternalElements());
+			return elements;
+		}
+	};
+	private transient final CachedView<PetroleumElement> externalElements = 
+			new CachedView<PetroleumElement>(this) {
+		@Override
+		protected List<PetroleumElement> compute() {
+			List<PetroleumElement> elements = new ArrayList<PetroleumElement>();
+			if(!getSociety().equals(getSociety().getCountry())) {
+				for(PetroleumSystem.Local system : getNestedSystems()) {
+					elements.addAll(system.getExternalElements());
+				}
+				elements.removeAll(getInternalElements());
+			}
+			return elements;
+		}
+	};
+	private transient final CachedView<PetroleumElement> internalElements = 
+			new CachedView<PetroleumElement>(this) {
+		@Override
+		protected List<PetroleumElement> compute() {
+			List<PetroleumElement> elements = new ArrayList<PetroleumElement>();
+			for(PetroleumSystem.Local system : getNestedSystems()) {
+				elements.addAll(system.getInternalElements());
+			}
+			return elements;
+		}
+	};
+	private transient final CachedView<PetroleumSystem.Local> nestedSystems = 
+			new CachedView<PetroleumSystem.Local>(this) {
+		@Override
+		protected List<PetroleumSystem.Local> compute() {
+			List<PetroleumSystem.Local> systems = new ArrayList<PetroleumSystem.Local>();
+			for(Society society : getSociety().getNestedSocieties()) {
+				if(society.getPetroleumSystem() instanceof PetroleumSystem.Local){ 
+					systems.add((PetroleumSystem.Local) society.getPetroleumSystem());
+				}
+			}
+			return systems;
+		}
+	};
 
 	/**
 	 * Instantiates a new local petroleum system-of-systems.
@@ -87,6 +130,114 @@ public class LocalPetroleumSoS extends LocalInfrastructureSoS implements Petrole
 		}
 	}
 
+	@Override
+	public void copyState(InfrastructureSoS sos) {
+		super.copyState(sos);
+		if(sos instanceof PetroleumSoS) {
+			reservoirSecurityHistory.clear();
+			for(double value : ((PetroleumSoS) sos).getReservoirSecurityHistory()) {
+				reservoirSecurityHistory.add(value);
+			}
+		}
+	}
+
+	/**
+	 * Creates the petroleum distribution model. The vector of decision 
+	 * variables includes the throughput of each distribution element 
+	 * and the import and export amounts in each city.
+	 *
+	 * @param topology the model topology
+	 * @param elements the elements
+	 * @param cities the cities
+	 * @return the linear program
+	 */
+	private LinearProgram createDistributionModel(List<Object> topology, 
+			List<? extends PetroleumElement> elements, List<City> cities) {
+		LinearProgram model = new LinearProgram(topology, 
+				elements.size() + 2*cities.size());
+		NetworkIndex index = getNetworkIndex(elements);
+
+		for(int j = 0; j < cities.size(); j++) {
+			City city = cities.get(j);
+			if(!(city.getPetroleumSystem() instanceof PetroleumSystem.Local)) {
+				continue;
+			}
+
+			// Add constraints for city supply/demand, i.e. the in-flow less
+			// out-flow (corrected for efficiency of distribution) must equal
+			// the total demand less any local production.
+			int flowConstraint = model.addConstraint(Relationship.EQ);
+			for(int i : index.getOutgoingElements(j)) {
+				// Set coefficient for in-flow to the distribution element.
+				// Self loops are only indexed here to never distribute in self loop.
+				model.setCoefficient(flowConstraint, i, -1);
+			}
+			for(int i : index.getIncomingElements(j)) {
+				// Set coefficient for out-flow from the distribution element.
+				model.setCoefficient(flowConstraint, i, 
+						elements.get(i).getDistributionEfficiency());
+			}
+			// Allow import in this city.
+			model.setCoefficient(flowConstraint, elements.size() + j, 1);
+			// Allow export from this city.
+			model.setCoefficient(flowConstraint, 
+					elements.size() + cities.size() + j, -1);
+		}
+		return model;
+	}
+
+	/**
+	 * Creates the petroleum production and distribution model. The vector 
+	 * of decision variables includes the production and throughput of each 
+	 * element and the import and export amounts in each city.
+	 *
+	 * @param topology the model topology
+	 * @param elements the elements
+	 * @param cities the cities
+	 * @return the linear program
+	 */
+	private LinearProgram createProductionModel(List<Object> topology, 
+			List<? extends PetroleumElement> elements, List<City> cities) {
+		LinearProgram model = new LinearProgram(topology, 
+				2*elements.size() + 2*cities.size());
+		NetworkIndex index = getNetworkIndex(elements);
+
+		for(int j = 0; j < cities.size(); j++) {
+			City city = cities.get(j);
+			if(!(city.getPetroleumSystem() instanceof PetroleumSystem.Local)) {
+				continue;
+			}
+
+			// Constrain maximum resource in each city.
+			int resourceConstraint = model.addConstraint(Relationship.LEQ);
+			for(int i : index.getOutgoingElements(j)) {
+				model.setCoefficient(resourceConstraint, i, 
+						elements.get(i).getReservoirIntensityOfPetroleumProduction());
+			}
+
+			// Constrain supply = demand in each city.
+			int flowConstraint = model.addConstraint(Relationship.EQ);
+			for(int i : index.getOutgoingElements(j)) {
+				model.setCoefficient(flowConstraint, i, 1);
+
+				// Set coefficient for in-flow to the distribution element.
+				// Self loops are only indexed here to never distribute in self loop.
+				model.setCoefficient(flowConstraint, elements.size() + i, -1);
+			}
+			for(int i : index.getIncomingElements(j)) {
+				// Set coefficient for out-flow from the distribution element.
+				model.setCoefficient(flowConstraint, elements.size() + i, 
+						elements.get(i).getDistributionEfficiency());
+			}
+			// Allow import in this city.
+			model.setCoefficient(flowConstraint, 2*elements.size() + j, 1);
+			// Allow export from this city.
+			model.setCoefficient(flowConstraint, 
+					2*elements.size() + cities.size() + j, -1);
+		}
+		return model;
+	}
+
 	@Override
 	public double getAggregateScore(long year, ElectricitySoS.Local electricitySystem) {
 		return (getReservoirSecurityScore() + getFinancialSecurityScore(year, electricitySystem) + getPoliticalPowerScore(year, electricitySystem))/3d;
@@ -113,22 +264,12 @@ public class LocalPetroleumSoS extends LocalInfrastructureSoS implements Petrole
 
 	@Override
 	public List<? extends PetroleumElement> getElements() {
-		List<PetroleumElement> elements = new ArrayList<PetroleumElement>();
-		elements.addAll(getInternalElements());
-		elements.addAll(getExternalElements());
-		return Collections.unmodifiableList(elements);
+		return elementsView.get();
 	}
 
 	@Override
 	public List<? extends PetroleumElement> getExternalElements() {
-		List<PetroleumElement> elements = new ArrayList<PetroleumElement>();
-		if(!getSociety().equals(getSociety().getCountry())) {
-			for(PetroleumSystem.Local system : getNestedSystems()) {
-				elements.addAll(system.getExternalElements());
-			}
-			elements.removeAll(getInternalElements());
-		}
-		return Collections.unmodifiableList(elements);
+		return externalElements.get();
 	}
 
 	@Override
@@ -154,11 +295,7 @@ public class LocalPetroleumSoS extends LocalInfrastructureSoS implements Petrole
 
 	@Override
 	public List<? extends PetroleumElement> getInternalElements() {
-		List<PetroleumElement> elements = new ArrayList<PetroleumElement>();
-		for(PetroleumSystem.Local system : getNestedSystems()) {
-			elements.addAll(system.getInternalElements());
-		}
-		return Collections.unmodifiableList(elements);
+		return internalElements.get();
 	}
 
 	@Override
@@ -181,13 +318,7 @@ public class LocalPetroleumSoS extends LocalInfrastructureSoS implements Petrole
 
 	@Override
 	public List<PetroleumSystem.Local> getNestedSystems() {
-		List<PetroleumSystem.Local> systems = new ArrayList<PetroleumSystem.Local>();
-		for(Society society : getSociety().getNestedSocieties()) {
-			if(society.getPetroleumSystem() instanceof PetroleumSystem.Local){ 
-				systems.add((PetroleumSystem.Local) society.getPetroleumSystem());
-			}
-		}
-		return Collections.unmodifiableList(systems);
+		return nestedSystems.get();
 	}
 
 	@Override
@@ -272,8 +403,9 @@ public class LocalPetroleumSoS extends LocalInfrastructureSoS implements Petrole
 	@Override
 	public double getPetroleumOutDistribution() {
 		double value = 0;
+		List<City> cities = getSociety().getCities();
 		for(PetroleumElement e : getInternalElements()) {
-			if(!getSociety().getCities().contains(
+			if(!cities.contains(
 					getSociety().getCountry().getCity(e.getDestination()))) {
 				value += e.getPetroleumInput();
 			}
@@ -330,13 +462,14 @@ public class LocalPetroleumSoS extends LocalInfrastructureSoS implements Petrole
 				: (getReservoirVolume() / getReservoirWithdrawals());
 	}
 
+	@Override
+	public double[] getReservoirSecurityHistory() {
+		return reservoirSecurityHistory.toArray();
+	}
+
 	@Override
 	public double getReservoirSecurityScore() {
-		double value = 0;
-		for(double item : reservoirSecurityHistory) {
-			value += item;
-		}
-		return value / reservoirSecurityHistory.size();
+		return reservoirSecurityHistory.getMean();
 	}
 
 	@Override
@@ -391,159 +524,133 @@ public class LocalPetroleumSoS extends LocalInfrastructureSoS implements Petrole
 	
 	@Override
 	public void optimizePetroleumDistribution() {
-		// Make a list of cities and infrastructure elements. The vector
-		// of decision variables includes the throughput of each distribution
-		// element and the import and export amounts in each city.
-		List<City> cities = getSociety().getCities();
-		List<? extends PetroleumElement> elements = getInternalElements();
+		PreparedOptimization optimization = preparePetroleumDistribution();
+		optimization.solve();
+		optimization.apply();
+	}
+
+	@Override
+	public void optimizePetroleumProductionAndDistribution() {
+		PreparedOptimization optimization = preparePetroleumProductionAndDistribution();
+		optimization.solve();
+		optimization.apply();
+	}
 
-		// Count number of variables.
-		int numVariables = elements.size() + 2*cities.size();
+	@Override
+	public PreparedOptimization preparePetroleumDistribution() {
+		List<City> cities = getSociety().getCities();
+		final List<? extends PetroleumElement> elements = getInternalElements();
 
-		// Create a list to hold the linear constraints.
-		List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+		// Re-build the model only if the topology has changed.
+		List<Object> topology = getModelTopology(elements);
+		if(distributionModel == null || !distributionModel.isTopology(topology)) {
+			distributionModel = createDistributionModel(topology, elements, cities);
+		}
+		LinearProgram model = distributionModel;
+		int row = 0;
 
-		double[] costCoefficients = new double[numVariables];
-		double[] initialValues = new double[numVariables];
+		double electricityPrice = DefaultUnits.convert(
+				getSociety().getElectricitySystem().getElectricityDomesticPrice(),
+				getSociety().getElectricitySystem().getCurrencyUnits(),
+				getSociety().getElectricitySystem().getElectricityUnits(),
+				getCurrencyUnits(), getElectricityUnits());
 
-		for(PetroleumElement element : elements) {
-			// Add constraints for distribution throughput, i.e. the
-			// throughput for each distribution element cannot exceed the maximum.
-			double[] distributionConstraint = new double[numVariables];
-			distributionConstraint[elements.indexOf(element)] = 1;
-			constraints.add(new LinearConstraint(distributionConstraint, 
-					Relationship.LEQ, element.getMaxPetroleumInput()));
+		for(int i = 0; i < elements.size(); i++) {
+			PetroleumElement element = elements.get(i);
+			// Set maximum distribution throughput.
+			model.setUpperBound(i, element.getMaxPetroleumInput());
 
 			// Set distribution cost.
-			costCoefficients[elements.indexOf(element)] 
-					= element.getVariableOperationsCostOfPetroleumDistribution()
-					+ element.getElectricalIntensityOfPetroleumDistribution() * 
-					DefaultUnits.convert(
-							getSociety().getElectricitySystem().getElectricityDomesticPrice(),
-							getSociety().getElectricitySystem().getCurrencyUnits(),
-							getSociety().getElectricitySystem().getElectricityUnits(),
-							getCurrencyUnits(), getElectricityUnits());
-			initialValues[elements.indexOf(element)] 
-					= element.getPetroleumInput();
-		}
-
-		for(City city : cities) {
+			model.setCostCoefficient(i, 
+					element.getVariableOperationsCostOfPetroleumDistribution()
+					+ element.getElectricalIntensityOfPetroleumDistribution() 
+					* electricityPrice);
+			model.setInitialValue(i, element.getPetroleumInput());
+		}
+
+		for(int j = 0; j < cities.size(); j++) {
+			City city = cities.get(j);
 			if(!(city.getPetroleumSystem() instanceof PetroleumSystem.Local)) {
 				continue;
 			}
 
 			PetroleumSystem.Local energySystem = (PetroleumSystem.Local) city.getPetroleumSystem();
 
-			// Add constraints for city supply/demand, i.e. the in-flow less
-			// out-flow (corrected for efficiency of distribution) must equal
-			// the total demand less any local production.
-			double[] flowCoefficients = new double[numVariables];
-			for(PetroleumElement element : elements) {
-				if(city.getName().equals(element.getOrigin())) {
-					// Set coefficient for in-flow to the distribution element.
-					// Order origin first to never distribute in self loop.
-					flowCoefficients[elements.indexOf(element)] = -1;
-				} else if(city.getName().equals(element.getDestination())) {
-					// Set coefficient for out-flow from the distribution element.
-					flowCoefficients[elements.indexOf(element)] 
-							= element.getDistributionEfficiency();
-				}
-			}
-			// Allow import in this city.
-			flowCoefficients[elements.size() + cities.indexOf(city)] = 1;
-			// Allow export from this city.
-			flowCoefficients[elements.size() + cities.size() + cities.indexOf(city)] = -1;
 			// Constrain in-flow to meet net demand.
-			constraints.add(new LinearConstraint(flowCoefficients, Relationship.EQ, 
+			model.setValue(row++, 
 					energySystem.getSociety().getTotalPetroleumDemand() 
-					- energySystem.getPetroleumProduction()));
+					- energySystem.getPetroleumProduction());
 
 			// Set import cost in each city.
-			costCoefficients[elements.size() + cities.indexOf(city)] 
-					= city.getPetroleumSystem().getPetroleumImportPrice();
-			initialValues[elements.size() + cities.indexOf(city)] 
-					= energySystem.getPetroleumImport();
+			model.setCostCoefficient(elements.size() + j, 
+					city.getPetroleumSystem().getPetroleumImportPrice());
+			model.setInitialValue(elements.size() + j, 
+					energySystem.getPetroleumImport());
 			// Set export price in each city.
-			costCoefficients[elements.size() + cities.size() + cities.indexOf(city)] 
-					= -city.getPetroleumSystem().getPetroleumExportPrice();
-			initialValues[elements.size() + cities.size() + cities.indexOf(city)] 
-					= energySystem.getPetroleumExport();
-		}
-
-		try {
-			// Run optimization and get results.
-			PointValuePair output = new SimplexSolver().optimize(
-					GoalType.MINIMIZE,
-					new MaxIter(1000),
-					new NonNegativeConstraint(true), 
-					new LinearConstraintSet(constraints), 
-					new LinearObjectiveFunction(costCoefficients, 0d),
-					new InitialGuess(initialValues));
-
-			// For each flow variable, set the food input in the
-			// corresponding distribution element.
-			for(int i = 0; i < elements.size(); i++) {
-				// Add Math.min checks in case error exceeds bounds.
-				elements.get(i).setPetroleumInput(Math.min(output.getPoint()[i],
-						elements.get(i).getMaxPetroleumInput()));
+			model.setCostCoefficient(elements.size() + cities.size() + j, 
+					-city.getPetroleumSystem().getPetroleumExportPrice());
+			model.setInitialValue(elements.size() + cities.size() + j, 
+					energySystem.getPetroleumExport());
+		}
+
+		return new PreparedOptimization(model) {
+			@Override
+			protected void apply(double[] point) {
+				// For each flow variable, set the food input in the
+				// corresponding distribution element.
+				for(int i = 0; i < elements.size(); i++) {
+					// Add Math.min checks in case error exceeds bounds.
+					elements.get(i).setPetroleumInput(Math.min(point[i],
+							elements.get(i).getMaxPetroleumInput()));
+				}
 			}
-		} catch(TooManyIterationsException ignore) { 
-			// Don't overwrite existing values.
-			ignore.printStackTrace();
-		} catch(NoFeasibleSolutionException ignore) {
-			// Don't overwrite existing values.
-			ignore.printStackTrace();
-		}
+		};
 	}
 
 	@Override
-	public void optimizePetroleumProductionAndDistribution() {
+	public PreparedOptimization preparePetroleumProductionAndDistribution() {
 		List<City> cities = getSociety().getCities();
-		List<? extends PetroleumElement> elements = getInternalElements();
-
-		// Count number of variables.
-		int numVariables = 2*elements.size() + 2*cities.size();
+		final List<? extends PetroleumElement> elements = getInternalElements();
 
-		List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+		// Re-build the model only if the topology has changed.
+		List<Object> topology = getModelTopology(elements);
+		if(productionModel == null || !productionModel.isTopology(topology)) {
+			productionModel = createProductionModel(topology, elements, cities);
+		}
+		LinearProgram model = productionModel;
+		int row = 0;
 
-		double[] costCoefficients = new double[numVariables];
-		double[] initialValues = new double[numVariables];
+		double electricityPrice = DefaultUnits.convert(
+				getSociety().getElectricitySystem().getElectricityDomesticPrice(),
+				getSociety().getElectricitySystem().getCurrencyUnits(),
+				getSociety().getElectricitySystem().getElectricityUnits(),
+				getCurrencyUnits(), getElectricityUnits());
 
-		for(PetroleumElement element : elements) {
+		for(int i = 0; i < elements.size(); i++) {
+			PetroleumElement element = elements.get(i);
 			// Constrain maximum production in each fixed element.
-			double[] productionConstraint = new double[numVariables];
-			productionConstraint[elements.indexOf(element)] = 1;
-			constraints.add(new LinearConstraint(productionConstraint, 
-					Relationship.LEQ, element.getMaxPetroleumProduction()));
+			model.setUpperBound(i, element.getMaxPetroleumProduction());
 
 			// Constrain maximum throughput in each distribution element.
-			double[] throughputConstraint = new double[numVariables];
-			throughputConstraint[elements.size() + elements.indexOf(element)] = 1;
-			constraints.add(new LinearConstraint(throughputConstraint, 
-					Relationship.LEQ, element.getMaxPetroleumInput()));
+			model.setUpperBound(elements.size() + i, element.getMaxPetroleumInput());
 
 			// Minimize costs - most obvious cost is importing, though also 
 			// minimize transportation even if free.
-			costCoefficients[elements.indexOf(element)] 
-					= element.getVariableOperationsCostOfPetroleumProduction();
-			initialValues[elements.indexOf(element)] 
-					= element.getPetroleumProduction();
+			model.setCostCoefficient(i, 
+					element.getVariableOperationsCostOfPetroleumProduction());
+			model.setInitialValue(i, element.getPetroleumProduction());
 
 			// Set distribution cost.
-			costCoefficients[elements.size() + elements.indexOf(element)] 
-					= element.getVariableOperationsCostOfPetroleumDistribution()
+			model.setCostCoefficient(elements.size() + i, 
+					element.getVariableOperationsCostOfPetroleumDistribution()
 					+ element.getReservoirIntensityOfPetroleumProduction() 
 					+ element.getElectricalIntensityOfPetroleumDistribution()
-					* (DefaultUnits.convert(
-							getSociety().getElectricitySystem().getElectricityDomesticPrice(),
-							getSociety().getElectricitySystem().getCurrencyUnits(),
-							getSociety().getElectricitySystem().getElectricityUnits(),
-							getCurrencyUnits(), getElectricityUnits()));
-			initialValues[elements.size() + elements.indexOf(element)] 
-					= element.getPetroleumInput();
+					* electricityPrice);
+			model.setInitialValue(elements.size() + i, element.getPetroleumInput());
 		}
 
-		for(City city : cities) {
+		for(int j = 0; j < cities.size(); j++) {
+			City city = cities.get(j);
 			if(!(city.getPetroleumSystem() instanceof PetroleumSystem.Local)) {
 				continue;
 			}
@@ -551,81 +658,36 @@ public class LocalPetroleumSoS extends LocalInfrastructureSoS implements Petrole
 			PetroleumSystem.Local energySystem = (PetroleumSystem.Local) city.getPetroleumSystem();
 
 			// Constrain maximum resource in each city.
-			double[] resourceConstraint = new double[numVariables];
-			for(PetroleumElement element : elements) {
-				if(city.getName().equals(element.getOrigin())) {
-					resourceConstraint[elements.indexOf(element)] 
-							= element.getReservoirIntensityOfPetroleumProduction();
-				}
-			}
-			constraints.add(new LinearConstraint(resourceConstraint, 
-					Relationship.LEQ, energySystem.getReservoirVolume()));
-
-			// Constrain supply = demand in each city.
-			double[] flowCoefficients = new double[numVariables];
-			for(PetroleumElement element : elements) {
-				if(city.getName().equals(element.getOrigin())) {
-					flowCoefficients[elements.indexOf(element)] = 1;
-				}
-
-				if(city.getName().equals(element.getOrigin())) {
-					// Set coefficient for in-flow to the distribution element.
-					// Order origin first to never distribute in self loop.
-					flowCoefficients[elements.size() + elements.indexOf(element)] 
-							= -1;
-				} else if(city.getName().equals(element.getDestination())) {
-					// Set coefficient for out-flow from the distribution element.
-					flowCoefficients[elements.size() + elements.indexOf(element)] 
-							= element.getDistributionEfficiency();
-				}
-			}
-			// Allow import in this city.
-			flowCoefficients[2*elements.size() + cities.indexOf(city)] = 1;
-			// Allow export from this city.
-			flowCoefficients[2*elements.size() + cities.size() + cities.indexOf(city)] = -1;
+			model.setValue(row++, energySystem.getReservoirVolume());
 
 			// Constrain in-flow and production to meet demand.
-			constraints.add(new LinearConstraint(flowCoefficients, Relationship.EQ, 
-					city.getTotalPetroleumDemand()));
+			model.setValue(row++, city.getTotalPetroleumDemand());
 
 			// Set import cost in each city.
-			costCoefficients[2*elements.size() + cities.indexOf(city)] 
-					= city.getPetroleumSystem().getPetroleumImportPrice();
-			initialValues[2*elements.size() + cities.indexOf(city)] 
-					= energySystem.getPetroleumImport();
+			model.setCostCoefficient(2*elements.size() + j, 
+					city.getPetroleumSystem().getPetroleumImportPrice());
+			model.setInitialValue(2*elements.size() + j, 
+					energySystem.getPetroleumImport());
 			// Set export price in each city.
-			costCoefficients[2*elements.size() + cities.size() + cities.indexOf(city)] 
-					= -city.getPetroleumSystem().getPetroleumExportPrice();
-			initialValues[2*elements.size() + cities.size() + cities.indexOf(city)] 
-					= energySystem.getPetroleumExport();
-		}
-
-		try {
-			// Run optimization and get results.
-			PointValuePair output = new SimplexSolver().optimize(
-					GoalType.MINIMIZE,
-					new MaxIter(1000),
-					new NonNegativeConstraint(true), 
-					new LinearConstraintSet(constraints), 
-					new LinearObjectiveFunction(costCoefficients, 0d),
-					new InitialGuess(initialValues));
-
-			for(int i = 0; i < elements.size(); i++) {
-				// Add Math.min checks in case error exceeds bounds.
-				elements.get(i).setPetroleumProduction(Math.min(
-						output.getPoint()[i],
-						elements.get(i).getMaxPetroleumProduction()));
-				elements.get(i).setPetroleumInput(Math.min(
-						output.getPoint()[elements.size() + i],
-						elements.get(i).getMaxPetroleumInput()));
+			model.setCostCoefficient(2*elements.size() + cities.size() + j, 
+					-city.getPetroleumSystem().getPetroleumExportPrice());
+			model.setInitialValue(2*elements.size() + cities.size() + j, 
+					energySystem.getPetroleumExport());
+		}
+
+		return new PreparedOptimization(model) {
+			@Override
+			protected void apply(double[] point) {
+				for(int i = 0; i < elements.size(); i++) {
+					// Add Math.min checks in case error exceeds bounds.
+					elements.get(i).setPetroleumProduction(Math.min(point[i],
+							elements.get(i).getMaxPetroleumProduction()));
+					elements.get(i).setPetroleumInput(Math.min(
+							point[elements.size() + i],
+							elements.get(i).getMaxPetroleumInput()));
+				}
 			}
-		} catch(TooManyIterationsException ignore) { 
-			// Don't overwrite existing values.
-			ignore.printStackTrace();
-		} catch(NoFeasibleSolutionException ignore) {
-			// Don't overwrite existing values.
-			ignore.printStackTrace();
-		}
+		};
 	}
 
 	@Override
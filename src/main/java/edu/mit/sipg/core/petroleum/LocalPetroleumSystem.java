@@ -23,6 +23,8 @@ import java.util.List;
 import java.util.Map;
 
 import edu.mit.sipg.core.City;
+import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.base.CachedView;
 import edu.mit.sipg.core.base.LocalInfrastructureSystem;
 import edu.mit.sipg.core.price.DefaultPriceModel;
 import edu.mit.sipg.core.price.PriceModel;
@@ -45,6 +47,41 @@ public class LocalPetroleumSystem  extends LocalInfrastructureSystem implements
 	private final PriceModel domesticPriceModel, importPriceModel, exportPriceModel;
 	private final List<PetroleumElement> elements = 
 			Collections.synchronizedList(new ArrayList<PetroleumElement>());
+	private transient final CachedView<PetroleumElement> elementsView = 
+			new CachedView<PetroleumElement>(this) {
+		@Override
+		protected List<PetroleumElement> compute() {
+			List<PetroleumElement> elements = new ArrayList<PetroleumElement>();
+			elements.addAll(getInternalElements());
+			elements.addAll(getExternalElements());
+			return elements;
+		}
+	};
+	private transient final CachedView<PetroleumElement> externalElements = 
+			new CachedView<PetroleumElement>(this) {
+		@Override
+		protected List<PetroleumElement> compute() {
+			List<PetroleumElement> elements = new ArrayList<PetroleumElement>();
+
+			if(getSociety().getCountry().getPetroleumSystem()
+					instanceof PetroleumSystem.Local) {
+				PetroleumSystem.Local system = (PetroleumSystem.Local)
+						getSociety().getCountry().getPetroleumSystem();
+				Country country = getSociety().getCountry();
+				List<City> cities = getSociety().getCities();
+				for(PetroleumElement element : system.getElements()) {
+					// add element if destination is within this society but 
+					// origin is outside this society
+					if(cities.contains(country.getCity(element.getDestination()))
+							&& !cities.contains(country.getCity(element.getOrigin()))) {
+						elements.add(element);
+					}
+				}
+			}
+
+			return elements;
+		}
+	};
 	private final double maxPetroleumReservoirVolume;
 	private final double initialPetroleumReservoirVolume;
 	private double petroleumReservoirVolume;
@@ -135,7 +172,30 @@ public class LocalPetroleumSystem  extends LocalInfrastructureSystem implements
 	
 	@Override
 	public synchronized boolean addElement(PetroleumElement element) {
-		return elements.add(element);
+		boolean added = elements.add(element);
+		invalidateStructure();
+		return added;
+	}
+
+	/**
+	 * Creates a copy of this petroleum system with copies of its elements 
+	 * and the current reservoir volume. Price models are immutable and 
+	 * shared with the copy.
+	 *
+	 * @return the petroleum system copy
+	 */
+	public synchronized LocalPetroleumSystem copy() {
+		List<PetroleumElement> elementCopies = new ArrayList<PetroleumElement>();
+		for(PetroleumElement element : elements) {
+			elementCopies.add(element.copy());
+		}
+		LocalPetroleumSystem system = new LocalPetroleumSystem(
+				maxPetroleumReservoirVolume, initialPetroleumReservoirVolume, 
+				elementCopies, domesticPriceModel, importPriceModel, 
+				exportPriceModel);
+		system.copyCumulativeState(this);
+		system.petroleumReservoirVolume = petroleumReservoirVolume;
+		return system;
 	}
 	
 	@Override
@@ -188,10 +248,7 @@ public class LocalPetroleumSystem  extends LocalInfrastructureSystem implements
 
 	@Override
 	public List<PetroleumElement> getElements() {
-		List<PetroleumElement> elements = new ArrayList<PetroleumElement>();
-		elements.addAll(getInternalElements());
-		elements.addAll(getExternalElements());
-		return Collections.unmodifiableList(elements);
+		return elementsView.get();
 	}
 
 	@Override
@@ -201,27 +258,7 @@ public class LocalPetroleumSystem  extends LocalInfrastructureSystem implements
 
 	@Override
 	public List<PetroleumElement> getExternalElements() {
-		List<PetroleumElement> elements = new ArrayList<PetroleumElement>();
-
-		if(getSociety().getCountry().getPetroleumSystem()
-				instanceof PetroleumSystem.Local) {
-			PetroleumSystem.Local system = (PetroleumSystem.Local)
-					getSociety().getCountry().getPetroleumSystem();
-			for(PetroleumElement element : system.getElements()) {
-				City origin = getSociety().getCountry().getCity(
-						element.getOrigin());
-				City dest = getSociety().getCountry().getCity(
-						element.getDestination());
-				// add element if origin is outside this society but 
-				// destination is within this society
-				if(!getSociety().getCities().contains(origin)
-						&& getSociety().getCities().contains(dest)) {
-					elements.add(element);
-				}
-			}
-		}
-
-		return Collections.unmodifiableList(elements);
+		return externalElements.get();
 	}
 
 	@Override
@@ -328,8 +365,9 @@ public class LocalPetroleumSystem  extends LocalInfrastructureSystem implements
 	@Override
 	public double getPetroleumOutDistribution() {
 		double distribution = 0;
+		List<City> cities = getSociety().getCities();
 		for(PetroleumElement e : getInternalElements()) {
-			if(!getSociety().getCities().contains(
+			if(!cities.contains(
 					getSociety().getCountry().getCity(e.getDestination()))) {
 				distribution += OilUnits.convertFlow(e.getPetroleumInput(), e, this);
 			}
@@ -447,7 +485,9 @@ public class LocalPetroleumSystem  extends LocalInfrastructureSystem implements
 
 	@Override
 	public synchronized boolean removeElement(PetroleumElement element) {
-		return elements.remove(element);
+		boolean removed = elements.remove(element);
+		invalidateStructure();
+		return removed;
 	}
 
 	@Override
@@ -27,6 +27,9 @@ import edu.mit.sipg.units.OilUnitsOutput;
 public interface PetroleumElement extends InfrastructureElement, 
 		ElectricityUnitsOutput, OilUnitsOutput {
 
+	@Override
+	public PetroleumElement copy();
+	
 	/**
 	 * Gets the petroleum distribution efficiency.
 	 *
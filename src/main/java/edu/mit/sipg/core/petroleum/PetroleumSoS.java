@@ -17,6 +17,7 @@ package edu.mit.sipg.core.petroleum;
 
 import edu.mit.sipg.core.base.InfrastructureSoS;
 import edu.mit.sipg.core.electricity.ElectricitySoS;
+import edu.mit.sipg.core.optim.PreparedOptimization;
 
 /**
  * An interface to petroleum sector infrastructure system-of-systems.
@@ -69,8 +70,30 @@ public interface PetroleumSoS extends InfrastructureSoS, PetroleumSystem {
 		 * Optimize petroleum production and distribution.
 		 */
 		public void optimizePetroleumProductionAndDistribution();
+		
+		/**
+		 * Prepares the petroleum distribution optimization from the current state.
+		 *
+		 * @return the prepared optimization
+		 */
+		public PreparedOptimization preparePetroleumDistribution();
+		
+		/**
+		 * Prepares the petroleum production and distribution optimization from 
+		 * the current state.
+		 *
+		 * @return the prepared optimization
+		 */
+		public PreparedOptimization preparePetroleumProductionAndDistribution();
 	}
 	
+	/**
+	 * Gets the reservoir security score for each time step.
+	 *
+	 * @return the reservoir security history
+	 */
+	public double[] getReservoirSecurityHistory();
+	
 	/**
 	 * Gets the reservoir security score.
 	 *
@@ -20,7 +20,9 @@ import java.util.Collections;
 import java.util.List;
 
 import edu.mit.sipg.core.Society;
+import edu.mit.sipg.core.base.InfrastructureSoS;
 import edu.mit.sipg.core.base.InfrastructureSystem;
+import edu.mit.sipg.core.base.LocalInfrastructureSystem;
 import edu.mit.sipg.units.ElectricityUnits;
 import edu.mit.sipg.units.FoodUnits;
 import edu.mit.sipg.units.OilUnits;
@@ -49,6 +51,19 @@ public class DefaultSocialSoS extends LocalSocialSystem implements SocialSoS {
 		super();
 	}
 
+	@Override
+	public DefaultSocialSoS copy() {
+		// aggregates nested systems and has no models of its own
+		return new DefaultSocialSoS();
+	}
+
+	@Override
+	public void copyState(InfrastructureSoS sos) {
+		if(sos instanceof LocalInfrastructureSystem) {
+			copyCumulativeState((LocalInfrastructureSystem) sos);
+		}
+	}
+
 	@Override
 	public double getCapitalExpense() {
 		double value = 0;
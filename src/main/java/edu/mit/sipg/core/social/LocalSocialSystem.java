@@ -108,6 +108,20 @@ public class LocalSocialSystem extends LocalInfrastructureSystem implements Soci
 		this.petroleumDemandModel = petroleumDemandModel;
 	}
 
+	/**
+	 * Creates a copy of this social system with copies of its population 
+	 * and demand models.
+	 *
+	 * @return the social system copy
+	 */
+	public LocalSocialSystem copy() {
+		LocalSocialSystem system = new LocalSocialSystem(populationModel.copy(), 
+				electricityDemandModel.copy(), foodDemandModel.copy(), 
+				waterDemandModel.copy(), petroleumDemandModel.copy());
+		system.copyCumulativeState(this);
+		return system;
+	}
+
 	@Override
 	public double getConsumptionExpense() {
 		return 0;
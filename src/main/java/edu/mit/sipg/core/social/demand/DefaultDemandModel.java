@@ -29,6 +29,11 @@ public class DefaultDemandModel implements DemandModel {
 	 */
 	public DefaultDemandModel() { }
 
+	@Override
+	public DemandModel copy() {
+		return this;
+	}
+
 	@Override
 	public double getDemand(Society society) {
 		return 0;
@@ -25,6 +25,14 @@ import edu.mit.sipg.core.Society;
  */
 public interface DemandModel extends SimEntity {
 	
+	/**
+	 * Creates a copy of this demand model with the same parameters 
+	 * and current time. Stateless models may return themselves.
+	 *
+	 * @return the demand model copy
+	 */
+	public DemandModel copy();
+	
 	/**
 	 * Gets the demand.
 	 *
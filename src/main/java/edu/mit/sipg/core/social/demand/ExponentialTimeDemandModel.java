@@ -49,6 +49,14 @@ public class ExponentialTimeDemandModel implements DemandModel {
 		this.growthRate = growthRate;
 	}
 	
+	@Override
+	public ExponentialTimeDemandModel copy() {
+		ExponentialTimeDemandModel model = new ExponentialTimeDemandModel(baselineTime, 
+				baselineDemand, growthRate);
+		model.time = time;
+		return model;
+	}
+
 	@Override
 	public double getDemand(Society society) {
 		return baselineDemand * Math.exp(growthRate * (time - baselineTime)) 
@@ -49,6 +49,14 @@ public class LinearTimeDemandModel implements DemandModel {
 		this.demandSlope = demandSlope;
 	}
 	
+	@Override
+	public LinearTimeDemandModel copy() {
+		LinearTimeDemandModel model = new LinearTimeDemandModel(baselineTime, 
+				baselineDemand, demandSlope);
+		model.time = time;
+		return model;
+	}
+
 	@Override
 	public double getDemand(Society society) {
 		return baselineDemand + (time - baselineTime) * demandSlope 
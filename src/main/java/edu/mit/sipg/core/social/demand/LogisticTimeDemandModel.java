@@ -55,6 +55,14 @@ public class LogisticTimeDemandModel implements DemandModel {
 		this.maxDemand = maximumDemand;
 	}
 	
+	@Override
+	public LogisticTimeDemandModel copy() {
+		LogisticTimeDemandModel model = new LogisticTimeDemandModel(baselineTime, 
+				baselineDemand, growthRate, minDemand, maxDemand);
+		model.time = time;
+		return model;
+	}
+
 	@Override
 	public double getDemand(Society society) {
 		return (minDemand + (maxDemand-minDemand) 
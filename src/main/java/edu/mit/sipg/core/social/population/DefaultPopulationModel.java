@@ -27,6 +27,11 @@ public class DefaultPopulationModel implements PopulationModel {
 	 */
 	public DefaultPopulationModel() { }
 	
+	@Override
+	public PopulationModel copy() {
+		return this;
+	}
+
 	@Override
 	public void initialize(long time) { }
 
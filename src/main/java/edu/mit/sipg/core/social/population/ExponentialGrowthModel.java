@@ -57,6 +57,14 @@ public class ExponentialGrowthModel implements PopulationModel {
 		this.growthRate = growthRate;
 	}
 
+	@Override
+	public ExponentialGrowthModel copy() {
+		ExponentialGrowthModel model = new ExponentialGrowthModel(initialTime, initialPopulation, 
+				growthRate);
+		model.time = time;
+		return model;
+	}
+
 	@Override
 	public long getPopulation() {
 		return Math.round(initialPopulation 
@@ -59,6 +59,14 @@ public class LogisticGrowthModel implements PopulationModel {
 		this.carryingCapacity = carryingCapacity;
 	}
 	
+	@Override
+	public LogisticGrowthModel copy() {
+		LogisticGrowthModel model = new LogisticGrowthModel(initialTime, initialPopulation, 
+				growthRate, carryingCapacity);
+		model.time = time;
+		return model;
+	}
+
 	@Override
 	public long getPopulation() {
 		return Math.round(carryingCapacity * initialPopulation 
@@ -25,6 +25,14 @@ import edu.mit.sipg.core.SimEntity;
  */
 public interface PopulationModel extends SimEntity {
 	
+	/**
+	 * Creates a copy of this population model with the same parameters 
+	 * and current time. Stateless models may return themselves.
+	 *
+	 * @return the population model copy
+	 */
+	public PopulationModel copy();
+	
 	/**
 	 * Gets the population.
 	 *
@@ -61,6 +61,22 @@ public class TableLookupModel implements PopulationModel {
 				new TreeMap<Long, Long>(populationMap));
 	}
 	
+	/**
+	 * Instantiates a new table lookup model which shares the 
+	 * population values of another model.
+	 *
+	 * @param model the model
+	 */
+	private TableLookupModel(TableLookupModel model) {
+		this.populationMap = model.populationMap;
+		this.time = model.time;
+	}
+	
+	@Override
+	public TableLookupModel copy() {
+		return new TableLookupModel(this);
+	}
+	
 	@Override
 	public long getPopulation() {
 		Long populationValue = populationMap.get(time);
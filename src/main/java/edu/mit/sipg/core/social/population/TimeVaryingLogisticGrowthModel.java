@@ -85,6 +85,26 @@ public class TimeVaryingLogisticGrowthModel implements PopulationModel {
 		this.linearInterpolation = linearInterpolation;
 	}
 	
+	/**
+	 * Instantiates a new time varying logistic growth model which shares 
+	 * the growth rates of another model.
+	 *
+	 * @param model the model
+	 */
+	private TimeVaryingLogisticGrowthModel(TimeVaryingLogisticGrowthModel model) {
+		this.initialTime = model.initialTime;
+		this.initialPopulation = model.initialPopulation;
+		this.growthRateMap = model.growthRateMap;
+		this.carryingCapacity = model.carryingCapacity;
+		this.linearInterpolation = model.linearInterpolation;
+		this.time = model.time;
+	}
+	
+	@Override
+	public TimeVaryingLogisticGrowthModel copy() {
+		return new TimeVaryingLogisticGrowthModel(this);
+	}
+	
 	/**
 	 * Gets the growth rate.
 	 *
@@ -231,6 +231,22 @@ public final class DefaultWaterElement extends DefaultInfrastructureElement impl
 		this.variableOperationsCostOfWaterDistribution = variableOperationsCostOfWaterDistribution;
 	}
 
+	@Override
+	public DefaultWaterElement copy() {
+		DefaultWaterElement element = new DefaultWaterElement(
+				getTemplateName(), getName(), getOrigin(), getDestination(), 
+				getLifecycleModel().copy(), reservoirIntensityOfWaterProduction, 
+				maxWaterProduction, initialWaterProduction, 
+				electricalIntensityOfWaterProduction, 
+				variableOperationsCostOfWaterProduction, coastalAccessRequired, 
+				distributionEfficiency, maxWaterInput, initialWaterInput, 
+				electricalIntensityOfWaterDistribution, 
+				variableOperationsCostOfWaterDistribution);
+		element.waterProduction = waterProduction;
+		element.waterInput = waterInput;
+		return element;
+	}
+
 	@Override
 	public double getAquiferIntensityOfWaterProduction() {
 		if(isOperational()) {
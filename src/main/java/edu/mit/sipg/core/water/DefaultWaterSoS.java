@@ -21,6 +21,8 @@ import java.util.List;
 
 import edu.mit.sipg.core.Society;
 import edu.mit.sipg.core.base.DefaultInfrastructureSoS;
+import edu.mit.sipg.core.base.InfrastructureSoS;
+import edu.mit.sipg.core.base.TimeSeries;
 import edu.mit.sipg.units.CurrencyUnits;
 import edu.mit.sipg.units.ElectricityUnits;
 import edu.mit.sipg.units.TimeUnits;
@@ -36,7 +38,7 @@ public class DefaultWaterSoS extends DefaultInfrastructureSoS implements WaterSo
 	private static final TimeUnits waterTimeUnits = TimeUnits.year;
 	private static final ElectricityUnits electricityUnits = ElectricityUnits.MWh;
 	private static final TimeUnits electricityTimeUnits = TimeUnits.year;
-	private List<Double> aquiferSecurityHistory = new ArrayList<Double>();
+	private TimeSeries aquiferSecurityHistory = new TimeSeries();
 
 	/**
 	 * Instantiates a new default water system-of-systems.
@@ -62,19 +64,31 @@ public class DefaultWaterSoS extends DefaultInfrastructureSoS implements WaterSo
 		}
 	}
 
+	@Override
+	public void copyState(InfrastructureSoS sos) {
+		super.copyState(sos);
+		if(sos instanceof WaterSoS) {
+			aquiferSecurityHistory.clear();
+			for(double value : ((WaterSoS) sos).getAquiferSecurityHistory()) {
+				aquiferSecurityHistory.add(value);
+			}
+		}
+	}
+
 	@Override
 	public double getAquiferLifetime() {
 		return getAquiferWithdrawals() == 0 ? Double.MAX_VALUE 
 				: (getWaterReservoirVolume() / getAquiferWithdrawals());
 	}
 
+	@Override
+	public double[] getAquiferSecurityHistory() {
+		return aquiferSecurityHistory.toArray();
+	}
+
 	@Override
 	public double getAquiferSecurityScore() {
-		double value = 0;
-		for(double item : aquiferSecurityHistory) {
-			value += item;
-		}
-		return value / aquiferSecurityHistory.size();
+		return aquiferSecurityHistory.getMean();
 	}
 
 	@Override
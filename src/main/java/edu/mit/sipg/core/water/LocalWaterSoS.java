@@ -16,25 +16,19 @@
 package edu.mit.sipg.core.water;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
-import org.apache.commons.math3.exception.TooManyIterationsException;
-import org.apache.commons.math3.optim.InitialGuess;
-import org.apache.commons.math3.optim.MaxIter;
-import org.apache.commons.math3.optim.PointValuePair;
-import org.apache.commons.math3.optim.linear.LinearConstraint;
-import org.apache.commons.math3.optim.linear.LinearConstraintSet;
-import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
-import org.apache.commons.math3.optim.linear.NoFeasibleSolutionException;
-import org.apache.commons.math3.optim.linear.NonNegativeConstraint;
 import org.apache.commons.math3.optim.linear.Relationship;
-import org.apache.commons.math3.optim.linear.SimplexSolver;
-import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
 
 import edu.mit.sipg.core.City;
 import edu.mit.sipg.core.Society;
+import edu.mit.sipg.core.base.CachedView;
+import edu.mit.sipg.core.base.InfrastructureSoS;
 import edu.mit.sipg.core.base.LocalInfrastructureSoS;
+import edu.mit.sipg.core.base.NetworkIndex;
+import edu.mit.sipg.core.base.TimeSeries;
+import edu.mit.sipg.core.optim.LinearProgram;
+import edu.mit.sipg.core.optim.PreparedOptimization;
 import edu.mit.sipg.units.CurrencyUnits;
 import edu.mit.sipg.units.DefaultUnits;
 import edu.mit.sipg.units.ElectricityUnits;
@@ -51,7 +45,56 @@ public class LocalWaterSoS extends LocalInfrastructureSoS implements WaterSoS.Lo
 	private static final TimeUnits waterTimeUnits = TimeUnits.year;
 	private static final ElectricityUnits electricityUnits = ElectricityUnits.MWh;
 	private static final TimeUnits electricityTimeUnits = TimeUnits.year;
-	private List<Double> aquiferSecurityHistory = new ArrayList<Double>();
+	private TimeSeries aquiferSecurityHistory = new TimeSeries();
+	private transient LinearProgram distributionModel, productionModel;
+	private transient final CachedView<WaterElement> elementsView = 
+			new CachedView<WaterElement>(this) {
+		@Override
+		protected List<WaterElement> compute() {
+			List<WaterElement> elements = new ArrayList<WaterElement>();
+			elements.addAll(getInternalElements());
+			elements.addAll(getExternalElements());
+			return elements;
+		}
+	};
+	private transient final CachedView<WaterElement> externalElements = 
+			new CachedView<WaterElement>(this) {
+		@Override
+		protected List<WaterElement> compute() {
+			List<WaterElement> elements = new ArrayList<WaterElement>();
+			if(!getSociety().equals(getSociety().getCountry())) {
+				for(WaterSystem.Local system : getNestedSystems()) {
+					elements.addAll(system.getExternalElements());
+				}
+				elements.removeAll(getInternalElements());
+			}
+			return elements;
+		}
+	};
+	private transient final CachedView<WaterElement> internalElements = 
+			new CachedView<WaterElement>(this) {
+		@Override
+		protected List<WaterElement> compute() {
+			List<WaterElement> elements = new ArrayList<WaterElement>();
+			for(WaterSystem.Local system : getNestedSystems()) {
+				elements.addAll(system.getInternalElements());
+			}
+			return elements;
+		}
+	};
+	private transient final CachedView<WaterSystem.Local> nestedSystems = 
+			new CachedView<WaterSystem.Local>(this) {
+		@Override
+		protected List<WaterSystem.Local> compute() {
+			List<WaterSystem.Local> systems = new ArrayList<WaterSystem.Local>();
+			for(Society society : getSociety().getNestedSocieties()) {
+				if(society.getWaterSystem() instanceof WaterSystem.Local){ 
+					systems.add((WaterSystem.Local) society.getWaterSystem());
+				}
+			}
+			return systems;
+		}
+	};
 	
 	/**
 	 * Instantiates a new local water system-of-systems.
@@ -87,6 +130,111 @@ public class LocalWaterSoS extends LocalInfrastructureSoS implements WaterSoS.Lo
 		}
 	}
 
+	@Override
+	public void copyState(InfrastructureSoS sos) {
+		super.copyState(sos);
+		if(sos instanceof WaterSoS) {
+			aquiferSecurityHistory.clear();
+			for(double value : ((WaterSoS) sos).getAquiferSecurityHistory()) {
+				aquiferSecurityHistory.add(value);
+			}
+		}
+	}
+
+	/**
+	 * Creates the water distribution model. The vector of decision 
+	 * variables includes the throughput of each distribution element 
+	 * and the import amount in each city.
+	 *
+	 * @param topology the model topology
+	 * @param elements the elements
+	 * @param cities the cities
+	 * @return the linear program
+	 */
+	private LinearProgram createDistributionModel(List<Object> topology, 
+			List<? extends WaterElement> elements, List<City> cities) {
+		LinearProgram model = new LinearProgram(topology, 
+				elements.size() + cities.size());
+		NetworkIndex index = getNetworkIndex(elements);
+
+		for(int j = 0; j < cities.size(); j++) {
+			City city = cities.get(j);
+			if(!(city.getWaterSystem() instanceof WaterSystem.Local)) {
+				continue;
+			}
+
+			// Add constraints for city supply/demand, i.e. the in-flow less
+			// out-flow (corrected for efficiency of distribution) must equal
+			// the total demand less any local production.
+			int flowConstraint = model.addConstraint(Relationship.EQ);
+			for(int i : index.getOutgoingElements(j)) {
+				// Set coefficient for in-flow to the distribution element.
+				// Self loops are only indexed here to never distribute in self loop.
+				model.setCoefficient(flowConstraint, i, -1);
+			}
+			for(int i : index.getIncomingElements(j)) {
+				// Set coefficient for out-flow from the distribution element.
+				model.setCoefficient(flowConstraint, i, 
+						elements.get(i).getDistributionEfficiency());
+			}
+			// Allow import in this city.
+			model.setCoefficient(flowConstraint, elements.size() + j, 1);
+		}
+		return model;
+	}
+
+	/**
+	 * Creates the water production and distribution model. The vector of 
+	 * decision variables includes the production and throughput of each 
+	 * element and the import amount in each city.
+	 *
+	 * @param topology the model topology
+	 * @param elements the elements
+	 * @param cities the cities
+	 * @return the linear program
+	 */
+	private LinearProgram createProductionModel(List<Object> topology, 
+			List<? extends WaterElement> elements, List<City> cities) {
+		// NOTE: reduce epsilon from 1e-6 (default) to 1e-3 to cope with 
+		// large magnitude differences between variables. Keep max ulps
+		// set at the default (10).
+		LinearProgram model = new LinearProgram(topology, 
+				2*elements.size() + cities.size(), 1e-3, 10);
+		NetworkIndex index = getNetworkIndex(elements);
+
+		for(int j = 0; j < cities.size(); j++) {
+			City city = cities.get(j);
+			if(!(city.getWaterSystem() instanceof WaterSystem.Local)) {
+				continue;
+			}
+
+			// Constrain maximum resource in each city.
+			int resourceConstraint = model.addConstraint(Relationship.LEQ);
+			for(int i : index.getOutgoingElements(j)) {
+				model.setCoefficient(resourceConstraint, i, 
+						elements.get(i).getAquiferIntensityOfWaterProduction());
+			}
+
+			// Constrain supply = demand in each city.
+			int flowConstraint = model.addConstraint(Relationship.EQ);
+			for(int i : index.getOutgoingElements(j)) {
+				model.setCoefficient(flowConstraint, i, 1);
+
+				// Set coefficient for in-flow to the distribution element.
+				// Self loops are only indexed here to never distribute in self loop.
+				model.setCoefficient(flowConstraint, elements.size() + i, -1);
+			}
+			for(int i : index.getIncomingElements(j)) {
+				// Set coefficient for out-flow from the distribution element.
+				model.setCoefficient(flowConstraint, elements.size() + i, 
+						elements.get(i).getDistributionEfficiency());
+			}
+			// Allow import in this city.
+			model.setCoefficient(flowConstraint, 2*elements.size() + j, 1);
+		}
+		return model;
+	}
+
 	@Override
 	public double getAggregateScore(long year) {
 		return (getAquiferSecurityScore() + getFinancialSecurityScore(year) + getPoliticalPowerScore(year))/3d;
@@ -106,13 +254,14 @@ public class LocalWaterSoS extends LocalInfrastructureSoS implements WaterSoS.Lo
 		return value;
 	}
 
+	@Override
+	public double[] getAquiferSecurityHistory() {
+		return aquiferSecurityHistory.toArray();
+	}
+
 	@Override
 	public double getAquiferSecurityScore() {
-		double value = 0;
-		for(double item : aquiferSecurityHistory) {
-			value += item;
-		}
-		return value / aquiferSecurityHistory.size();
+		return aquiferSecurityHistory.getMean();
 	}
 
 	@Override
@@ -193,22 +342,12 @@ public class LocalWaterSoS extends LocalInfrastructureSoS implements WaterSoS.Lo
 
 	@Override
 	public List<? extends WaterElement> getElements() {
-		List<WaterElement> elements = new ArrayList<WaterElement>();
-		elements.addAll(getInternalElements());
-		elements.addAll(getExternalElements());
-		return Collections.unmodifiableList(elements);
+		return elementsView.get();
 	}
 
 	@Override
 	public List<? extends WaterElement> getExternalElements() {
-		List<WaterElement> elements = new ArrayList<WaterElement>();
-		if(!getSociety().equals(getSociety().getCountry())) {
-			for(WaterSystem.Local system : getNestedSystems()) {
-				elements.addAll(system.getExternalElements());
-			}
-			elements.removeAll(getInternalElements());
-		}
-		return Collections.unmodifiableList(elements);
+		return externalElements.get();
 	}
 
 	@Override
@@ -233,11 +372,7 @@ public class LocalWaterSoS extends LocalInfrastructureSoS implements WaterSoS.Lo
 
 	@Override
 	public List<? extends WaterElement> getInternalElements() {
-		List<WaterElement> elements = new ArrayList<WaterElement>();
-		for(WaterSystem.Local system : getNestedSystems()) {
-			elements.addAll(system.getInternalElements());
-		}
-		return Collections.unmodifiableList(elements);
+		return internalElements.get();
 	}
 
 	@Override
@@ -264,13 +399,7 @@ public class LocalWaterSoS extends LocalInfrastructureSoS implements WaterSoS.Lo
 
 	@Override
 	public List<WaterSystem.Local> getNestedSystems() {
-		List<WaterSystem.Local> systems = new ArrayList<WaterSystem.Local>();
-		for(Society society : getSociety().getNestedSocieties()) {
-			if(society.getWaterSystem() instanceof WaterSystem.Local){ 
-				systems.add((WaterSystem.Local) society.getWaterSystem());
-			}
-		}
-		return Collections.unmodifiableList(systems);
+		return nestedSystems.get();
 	}
 
 	@Override
@@ -403,8 +532,9 @@ public class LocalWaterSoS extends LocalInfrastructureSoS implements WaterSoS.Lo
 	@Override
 	public double getWaterOutDistribution() {
 		double value = 0;
+		List<City> cities = getSociety().getCities();
 		for(WaterElement e : getInternalElements()) {
-			if(!getSociety().getCities().contains(
+			if(!cities.contains(
 					getSociety().getCountry().getCity(e.getDestination()))) {
 				value += WaterUnits.convertFlow(e.getWaterInput(), e, this);
 			}
@@ -476,43 +606,52 @@ public class LocalWaterSoS extends LocalInfrastructureSoS implements WaterSoS.Lo
 	
 	@Override
 	public void optimizeWaterDistribution() {
-		// Make a list of cities and infrastructure elements. The vector
-		// of decision variables includes the throughput of each distribution
-		// element and the import and export amounts in each city.
-		List<City> cities = getSociety().getCities();
-		List<? extends WaterElement> elements = getInternalElements();
+		PreparedOptimization optimization = prepareWaterDistribution();
+		optimization.solve();
+		optimization.apply();
+	}
 
-		// Count number of variables.
-		int numVariables = elements.size() + cities.size();
+	@Override
+	public void optimizeWaterProductionAndDistribution() {
+		PreparedOptimization optimization = prepareWaterProductionAndDistribution();
+		optimization.solve();
+		optimization.apply();
+	}
 
-		// Create a list to hold the linear constraints.
-		List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+	@Override
+	public PreparedOptimization prepareWaterDistribution() {
+		List<City> cities = getSociety().getCities();
+		final List<? extends WaterElement> elements = getInternalElements();
 
-		double[] costCoefficients = new double[numVariables];
-		double[] initialValues = new double[numVariables];
+		// Re-build the model only if the topology has changed.
+		List<Object> topology = getModelTopology(elements);
+		if(distributionModel == null || !distributionModel.isTopology(topology)) {
+			distributionModel = createDistributionModel(topology, elements, cities);
+		}
+		LinearProgram model = distributionModel;
+		int row = 0;
 
-		for(WaterElement element : elements) {
-			// Add constraints for distribution throughput, i.e. the
-			// throughput for each distribution element cannot exceed the maximum.
-			double[] distributionConstraint = new double[numVariables];
-			distributionConstraint[elements.indexOf(element)] = 1;
-			constraints.add(new LinearConstraint(distributionConstraint, 
-					Relationship.LEQ, element.getMaxWaterInput()));
+		double electricityPrice = DefaultUnits.convert(
+				getSociety().getElectricitySystem().getElectricityDomesticPrice(),
+				getSociety().getElectricitySystem().getCurrencyUnits(), 
+				getSociety().getElectricitySystem().getElectricityUnits(),
+				getCurrencyUnits(), getElectricityUnits());
+
+		for(int i = 0; i < elements.size(); i++) {
+			WaterElement element = elements.get(i);
+			// Set maximum distribution throughput.
+			model.setUpperBound(i, element.getMaxWaterInput());
 
 			// Set the distribution cost.
-			costCoefficients[elements.indexOf(element)] 
-					= element.getVariableOperationsCostOfWaterDistribution()
+			model.setCostCoefficient(i, 
+					element.getVariableOperationsCostOfWaterDistribution()
 					+ element.getElectricalIntensityOfWaterDistribution()
-					* DefaultUnits.convert(
-							getSociety().getElectricitySystem().getElectricityDomesticPrice(),
-							getSociety().getElectricitySystem().getCurrencyUnits(), 
-							getSociety().getElectricitySystem().getElectricityUnits(),
-							getCurrencyUnits(), getElectricityUnits());
-			initialValues[elements.indexOf(element)] 
-					= element.getWaterInput();
+					* electricityPrice);
+			model.setInitialValue(i, element.getWaterInput());
 		}
 
-		for(City city : cities) {
+		for(int j = 0; j < cities.size(); j++) {
+			City city = cities.get(j);
 			if(!(city.getWaterSystem() instanceof WaterSystem.Local)) {
 				continue;
 			}
@@ -520,122 +659,84 @@ public class LocalWaterSoS extends LocalInfrastructureSoS implements WaterSoS.Lo
 			WaterSystem.Local waterSystem = 
 					(WaterSystem.Local) city.getWaterSystem();
 
-			// Add constraints for city supply/demand, i.e. the in-flow less
-			// out-flow (corrected for efficiency of distribution) must equal
-			// the total demand less any local production.
-			double[] flowCoefficients = new double[numVariables];
-			for(WaterElement element : elements) {
-				if(city.getName().equals(element.getOrigin())) {
-					// Set coefficient for in-flow to the distribution element.
-					// Order origin first to never distribute in self loop.
-					flowCoefficients[elements.indexOf(element)] = -1;
-				} else if(city.getName().equals(element.getDestination())) {
-					// Set coefficient for out-flow from the distribution element.
-					flowCoefficients[elements.indexOf(element)] 
-							= element.getDistributionEfficiency();
-				}
-			}
-			// Allow import in this city.
-			flowCoefficients[elements.size() + cities.indexOf(city)] = 1;
 			// Constrain in-flow to meet net demand.
-			constraints.add(new LinearConstraint(flowCoefficients, Relationship.EQ, 
-					city.getTotalWaterDemand() 
-					- waterSystem.getWaterProduction()));
+			model.setValue(row++, city.getTotalWaterDemand() 
+					- waterSystem.getWaterProduction());
 
 			// Set import cost in each city.
-			costCoefficients[elements.size() + cities.indexOf(city)] = 
-					city.getWaterSystem().getWaterImportPrice();
-			initialValues[elements.size() + cities.indexOf(city)] = 
-					Math.max(0, waterSystem.getWaterImport());
-		}
-
-		try {
-			// Run optimization and get results.
-			PointValuePair output = new SimplexSolver().optimize(
-					GoalType.MINIMIZE,
-					new MaxIter(1000),
-					new NonNegativeConstraint(true), 
-					new LinearConstraintSet(constraints), 
-					new LinearObjectiveFunction(costCoefficients, 0d),
-					new InitialGuess(initialValues));
-
-			// For each flow variable, set the food input in the
-			// corresponding distribution element.
-			for(int i = 0; i < elements.size(); i++) {
-				// Add Math.min checks in case error exceeds bounds.
-				elements.get(i).setWaterInput(Math.min(output.getPoint()[i],
-						elements.get(i).getMaxWaterInput()));
+			model.setCostCoefficient(elements.size() + j, 
+					city.getWaterSystem().getWaterImportPrice());
+			model.setInitialValue(elements.size() + j, 
+					Math.max(0, waterSystem.getWaterImport()));
+		}
+
+		return new PreparedOptimization(model) {
+			@Override
+			protected void apply(double[] point) {
+				// For each flow variable, set the food input in the
+				// corresponding distribution element.
+				for(int i = 0; i < elements.size(); i++) {
+					// Add Math.min checks in case error exceeds bounds.
+					elements.get(i).setWaterInput(Math.min(point[i],
+							elements.get(i).getMaxWaterInput()));
+				}
 			}
-		} catch(TooManyIterationsException ignore) { 
-			// Don't overwrite existing values.
-			ignore.printStackTrace();
-		} catch(NoFeasibleSolutionException ignore) {
-			// Don't overwrite existing values.
-			ignore.printStackTrace();
-		}
+		};
 	}
 
 	@Override
-	public void optimizeWaterProductionAndDistribution() {
+	public PreparedOptimization prepareWaterProductionAndDistribution() {
 		List<City> cities = getSociety().getCities();
-		List<? extends WaterElement> elements = getInternalElements();
-
-		// Count number of variables.
-		int numVariables = 2*elements.size() + cities.size();
+		final List<? extends WaterElement> elements = getInternalElements();
 
-		List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+		// Re-build the model only if the topology has changed.
+		List<Object> topology = getModelTopology(elements);
+		if(productionModel == null || !productionModel.isTopology(topology)) {
+			productionModel = createProductionModel(topology, elements, cities);
+		}
+		LinearProgram model = productionModel;
+		NetworkIndex index = getNetworkIndex(elements);
+		int row = 0;
 
-		double[] costCoefficients = new double[numVariables];
-		double[] initialValues = new double[numVariables];
+		double electricityPrice = DefaultUnits.convert(
+				getSociety().getElectricitySystem().getElectricityDomesticPrice(),
+				getSociety().getElectricitySystem().getCurrencyUnits(), 
+				getSociety().getElectricitySystem().getElectricityUnits(),
+				getCurrencyUnits(), getElectricityUnits());
 
-		for(WaterElement element : elements) {
+		for(int i = 0; i < elements.size(); i++) {
+			WaterElement element = elements.get(i);
 			// Constrain maximum production in each fixed element.
-			double[] productionConstraint = new double[numVariables];
-			productionConstraint[elements.indexOf(element)] = 1;
 			if(element.isCoastalAccessRequired() 
-					&& !((WaterSystem.Local)getSociety().getCountry().getCity(
+					&& !((WaterSystem.Local)index.getCity(
 							element.getOrigin()).getWaterSystem()).isCoastalAccess()) {
-				constraints.add(new LinearConstraint(productionConstraint, 
-						Relationship.LEQ, 0));
+				model.setUpperBound(i, 0);
 			} else {
-				constraints.add(new LinearConstraint(productionConstraint, 
-						Relationship.LEQ, element.getMaxWaterProduction()));
+				model.setUpperBound(i, element.getMaxWaterProduction());
 			}
 
 			// Constrain maximum throughput in each distribution element.
-			double[] throughputConstraint = new double[numVariables];
-			throughputConstraint[elements.size() + elements.indexOf(element)] = 1;
-			constraints.add(new LinearConstraint(throughputConstraint, 
-					Relationship.LEQ, element.getMaxWaterInput()));
+			model.setUpperBound(elements.size() + i, element.getMaxWaterInput());
 
 			// Minimize costs - most obvious cost is importing, though also 
 			// minimize transportation even if free.
-			costCoefficients[elements.indexOf(element)] 
-					= element.getVariableOperationsCostOfWaterProduction() 
+			model.setCostCoefficient(i, 
+					element.getVariableOperationsCostOfWaterProduction() 
 					+ element.getElectricalIntensityOfWaterProduction()
-					* (DefaultUnits.convert(
-							getSociety().getElectricitySystem().getElectricityDomesticPrice(),
-							getSociety().getElectricitySystem().getCurrencyUnits(), 
-							getSociety().getElectricitySystem().getElectricityUnits(),
-							getCurrencyUnits(), getElectricityUnits()));
-			initialValues[elements.indexOf(element)] 
-					= element.getWaterProduction();
+					* electricityPrice);
+			model.setInitialValue(i, element.getWaterProduction());
 
 			// Set a distribution cost using variable operations expense.
-			costCoefficients[elements.size() + elements.indexOf(element)] 
-					= element.getVariableOperationsCostOfWaterDistribution()
+			model.setCostCoefficient(elements.size() + i, 
+					element.getVariableOperationsCostOfWaterDistribution()
 					+ element.getAquiferIntensityOfWaterProduction()
 					+ element.getElectricalIntensityOfWaterDistribution()
-					* (DefaultUnits.convert(
-							getSociety().getElectricitySystem().getElectricityDomesticPrice(),
-							getSociety().getElectricitySystem().getCurrencyUnits(), 
-							getSociety().getElectricitySystem().getElectricityUnits(),
-							getCurrencyUnits(), getElectricityUnits()));
-			initialValues[elements.size() + elements.indexOf(element)] 
-					= element.getWaterInput();
+					* electricityPrice);
+			model.setInitialValue(elements.size() + i, element.getWaterInput());
 		}
 
-		for(City city : cities) {
+		for(int j = 0; j < cities.size(); j++) {
+			City city = cities.get(j);
 			if(!(city.getWaterSystem() instanceof WaterSystem.Local)) {
 				continue;
 			}
@@ -644,94 +745,31 @@ public class LocalWaterSoS extends LocalInfrastructureSoS implements WaterSoS.Lo
 					(WaterSystem.Local) city.getWaterSystem();
 
 			// Constrain maximum resource in each city.
-			double[] resourceConstraint = new double[numVariables];
-			for(WaterElement element : elements) {
-				if(city.getName().equals(element.getOrigin())) {
-					resourceConstraint[elements.indexOf(element)] 
-							= element.getAquiferIntensityOfWaterProduction();
-				}
-			}
-			//resourceConstraint[2*elements.size() + cities.size() + cities.indexOf(city)] = 1;
-			constraints.add(new LinearConstraint(resourceConstraint, 
-					Relationship.LEQ, waterSystem.getWaterReservoirVolume()));
-
-			// Constrain supply = demand in each city.
-			double[] flowCoefficients = new double[numVariables];
-			for(WaterElement element : elements) {
-				if(city.getName().equals(element.getOrigin())) {
-					flowCoefficients[elements.indexOf(element)] = 1;
-				}
-
-				if(city.getName().equals(element.getOrigin())) {
-					// Set coefficient for in-flow to the distribution element.
-					// Order origin first to never distribute in self loop.
-					flowCoefficients[elements.size() + elements.indexOf(element)] 
-							= -1;
-				} else if(city.getName().equals(element.getDestination())) {
-					// Set coefficient for out-flow from the distribution element.
-					flowCoefficients[elements.size() + elements.indexOf(element)] 
-							= element.getDistributionEfficiency();
-				}
-			}
-			// Allow import in this city.
-			flowCoefficients[2*elements.size() + cities.indexOf(city)] = 1;
-
-			// Allow artesian well in this city.
-			//flowCoefficients[2*elements.size() + cities.size() + cities.indexOf(city)] = 1;
+			model.setValue(row++, waterSystem.getWaterReservoirVolume());
 
 			// Constrain in-flow and production to meet demand.
-			constraints.add(new LinearConstraint(flowCoefficients, Relationship.EQ, 
-					city.getTotalWaterDemand()));
+			model.setValue(row++, city.getTotalWaterDemand());
 
 			// Set import cost in each city.
-			costCoefficients[2*elements.size() + cities.indexOf(city)] 
-					= city.getWaterSystem().getWaterImportPrice();
-			initialValues[2*elements.size() + cities.indexOf(city)] 
-					= waterSystem.getWaterImport();
-
-			// Set artesian well cost in each city.
-			//costCoefficients[2*elements.size() + cities.size() + cities.indexOf(city)] 
-			//		= optimizationOptions.getDeltaAquiferWaterPrice();
-			//initialValues[2*elements.size() + cities.size() + cities.indexOf(city)] 
-			//		= waterSystem.getWaterFromArtesianWell();
-
-		}
-
-		try {
-			// Run optimization and get results.
-
-			// NOTE: reduce epsilon from 1e-6 (default) to 1e-3 to cope with 
-			// large magnitude differences between variables. Keep max ulps
-			// set at the default (10).
-			PointValuePair output = new SimplexSolver(1e-3, 10).optimize(
-					GoalType.MINIMIZE,
-					new MaxIter(1000),
-					new NonNegativeConstraint(true), 
-					new LinearConstraintSet(constraints), 
-					new LinearObjectiveFunction(costCoefficients, 0d),
-					new InitialGuess(initialValues));
-
-			for(int i = 0; i < elements.size(); i++) {
-				// Add Math.min checks in case error exceeds bounds.
-				elements.get(i).setWaterProduction(Math.min(output.getPoint()[i],
-						elements.get(i).getMaxWaterProduction()));
-				elements.get(i).setWaterInput(Math.min(
-						output.getPoint()[elements.size() + i],
-						elements.get(i).getMaxWaterInput()));
+			model.setCostCoefficient(2*elements.size() + j, 
+					city.getWaterSystem().getWaterImportPrice());
+			model.setInitialValue(2*elements.size() + j, 
+					waterSystem.getWaterImport());
+		}
+
+		return new PreparedOptimization(model) {
+			@Override
+			protected void apply(double[] point) {
+				for(int i = 0; i < elements.size(); i++) {
+					// Add Math.min checks in case error exceeds bounds.
+					elements.get(i).setWaterProduction(Math.min(point[i],
+							elements.get(i).getMaxWaterProduction()));
+					elements.get(i).setWaterInput(Math.min(
+							point[elements.size() + i],
+							elements.get(i).getMaxWaterInput()));
+				}
 			}
-			//for(int i = 0; i < cities.size(); i++) {
-			//	if(cities.get(i).getWaterSystem() instanceof WaterSystem.Local) { 
-			//		((WaterSystem.Local) cities.get(i).getWaterSystem()).setWaterFromArtesianWell(
-			//				output.getPoint()[2*elements.size() + cities.size() + i]);
-			//	}
-			//}
-		} catch(TooManyIterationsException ignore) { 
-			// Don't overwrite existing values.
-			ignore.printStackTrace();
-		} catch(NoFeasibleSolutionException ignore) {
-			// Don't overwrite existing values.
-			ignore.printStackTrace();
-		}
+		};
 	}
 
 	/* (non-Javadoc)
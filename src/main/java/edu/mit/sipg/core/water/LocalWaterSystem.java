@@ -23,6 +23,8 @@ import java.util.List;
 import java.util.Map;
 
 import edu.mit.sipg.core.City;
+import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.base.CachedView;
 import edu.mit.sipg.core.base.LocalInfrastructureSystem;
 import edu.mit.sipg.core.price.DefaultPriceModel;
 import edu.mit.sipg.core.price.PriceModel;
@@ -45,6 +47,41 @@ public class LocalWaterSystem extends LocalInfrastructureSystem implements Water
 
 	private final List<WaterElement> elements = 
 			Collections.synchronizedList(new ArrayList<WaterElement>());
+	private transient final CachedView<WaterElement> elementsView = 
+			new CachedView<WaterElement>(this) {
+		@Override
+		protected List<WaterElement> compute() {
+			List<WaterElement> elements = new ArrayList<WaterElement>();
+			elements.addAll(getInternalElements());
+			elements.addAll(getExternalElements());
+			return elements;
+		}
+	};
+	private transient final CachedView<WaterElement> externalElements = 
+			new CachedView<WaterElement>(this) {
+		@Override
+		protected List<WaterElement> compute() {
+			List<WaterElement> elements = new ArrayList<WaterElement>();
+
+			if(getSociety().getCountry().getWaterSystem() 
+					instanceof WaterSystem.Local) {
+				WaterSystem.Local system = (WaterSystem.Local)
+						getSociety().getCountry().getWaterSystem();
+				Country country = getSociety().getCountry();
+				List<City> cities = getSociety().getCities();
+				for(WaterElement element : system.getElements()) {
+					// add element if destination is within this society but 
+					// origin is outside this society
+					if(cities.contains(country.getCity(element.getDestination()))
+							&& !cities.contains(country.getCity(element.getOrigin()))) {
+						elements.add(element);
+					}
+				}
+			}
+
+			return elements;
+		}
+	};
 	private final PriceModel domesticPriceModel, importPriceModel;
 	private final double maxWaterReservoirVolume;
 	private final double initialWaterReservoirVolume;
@@ -155,7 +192,31 @@ public class LocalWaterSystem extends LocalInfrastructureSystem implements Water
 	
 	@Override
 	public synchronized boolean addElement(WaterElement element) {
-		return elements.add(element);
+		boolean added = elements.add(element);
+		invalidateStructure();
+		return added;
+	}
+
+	/**
+	 * Creates a copy of this water system with copies of its elements 
+	 * and the current reservoir volume. Price models are immutable and 
+	 * shared with the copy.
+	 *
+	 * @return the water system copy
+	 */
+	public synchronized LocalWaterSystem copy() {
+		List<WaterElement> elementCopies = new ArrayList<WaterElement>();
+		for(WaterElement element : elements) {
+			elementCopies.add(element.copy());
+		}
+		LocalWaterSystem system = new LocalWaterSystem(coastalAccess, 
+				maxWaterReservoirVolume, initialWaterReservoirVolume, 
+				waterReservoirRechargeRate, electricalIntensityOfPrivateProduction, 
+				reservoirIntensityOfPrivateProduction, elementCopies, 
+				domesticPriceModel, importPriceModel);
+		system.copyCumulativeState(this);
+		system.waterReservoirVolume = waterReservoirVolume;
+		return system;
 	}
 	
 	@Override
@@ -210,6 +271,15 @@ public class LocalWaterSystem extends LocalInfrastructureSystem implements Water
 				- getWaterOutDistributionLosses());
 	}
 
+	/**
+	 * Gets the electrical intensity of private production.
+	 *
+	 * @return the electrical intensity of private production
+	 */
+	public double getElectricalIntensityOfPrivateProduction() {
+		return electricalIntensityOfPrivateProduction;
+	}
+
 	@Override
 	public double getElectricityConsumption() {
 		return getElectricityConsumptionFromPrivateProduction() + 
@@ -256,10 +326,7 @@ public class LocalWaterSystem extends LocalInfrastructureSystem implements Water
 
 	@Override
 	public List<WaterElement> getElements() {
-		List<WaterElement> elements = new ArrayList<WaterElement>();
-		elements.addAll(getInternalElements());
-		elements.addAll(getExternalElements());
-		return Collections.unmodifiableList(elements);
+		return elementsView.get();
 	}
 
 	@Override
@@ -269,27 +336,7 @@ public class LocalWaterSystem extends LocalInfrastructureSystem implements Water
 
 	@Override
 	public List<WaterElement> getExternalElements() {
-		List<WaterElement> elements = new ArrayList<WaterElement>();
-
-		if(getSociety().getCountry().getWaterSystem() 
-				instanceof WaterSystem.Local) {
-			WaterSystem.Local system = (WaterSystem.Local)
-					getSociety().getCountry().getWaterSystem();
-			for(WaterElement element : system.getElements()) {
-				City origin = getSociety().getCountry().getCity(
-						element.getOrigin());
-				City dest = getSociety().getCountry().getCity(
-						element.getDestination());
-				// add element if origin is outside this society but 
-				// destination is within this society
-				if(!getSociety().getCities().contains(origin)
-						&& getSociety().getCities().contains(dest)) {
-					elements.add(element);
-				}
-			}
-		}
-
-		return Collections.unmodifiableList(elements);
+		return externalElements.get();
 	}
 
 	@Override
@@ -459,8 +506,9 @@ public class LocalWaterSystem extends LocalInfrastructureSystem implements Water
 	@Override
 	public double getWaterOutDistribution() {
 		double distribution = 0;
+		List<City> cities = getSociety().getCities();
 		for(WaterElement e : getInternalElements()) {
-			if(!getSociety().getCities().contains(
+			if(!cities.contains(
 					getSociety().getCountry().getCity(e.getDestination()))) {
 				distribution += WaterUnits.convertFlow(e.getWaterInput(), e, this);
 			}
@@ -541,7 +589,9 @@ public class LocalWaterSystem extends LocalInfrastructureSystem implements Water
 
 	@Override
 	public synchronized boolean removeElement(WaterElement element) {
-		return elements.remove(element);
+		boolean removed = elements.remove(element);
+		invalidateStructure();
+		return removed;
 	}
 
 	@Override
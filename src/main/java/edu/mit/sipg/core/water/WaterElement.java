@@ -27,6 +27,9 @@ import edu.mit.sipg.units.WaterUnitsOutput;
 public interface WaterElement extends InfrastructureElement, 
 		WaterUnitsOutput, ElectricityUnitsOutput {
 
+	@Override
+	public WaterElement copy();
+	
 	/**
 	 * Gets the water distribution efficiency.
 	 *
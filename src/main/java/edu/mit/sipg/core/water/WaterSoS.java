@@ -16,6 +16,7 @@
 package edu.mit.sipg.core.water;
 
 import edu.mit.sipg.core.base.InfrastructureSoS;
+import edu.mit.sipg.core.optim.PreparedOptimization;
 
 /**
  * An interface to water sector infrastructure system-of-systems.
@@ -65,8 +66,30 @@ public interface WaterSoS extends InfrastructureSoS, WaterSystem {
 		 * Optimize water production and distribution.
 		 */
 		public void optimizeWaterProductionAndDistribution();
+		
+		/**
+		 * Prepares the water distribution optimization from the current state.
+		 *
+		 * @return the prepared optimization
+		 */
+		public PreparedOptimization prepareWaterDistribution();
+		
+		/**
+		 * Prepares the water production and distribution optimization from 
+		 * the current state.
+		 *
+		 * @return the prepared optimization
+		 */
+		public PreparedOptimization prepareWaterProductionAndDistribution();
 	}
 	
+	/**
+	 * Gets the aquifer security score for each time step.
+	 *
+	 * @return the aquifer security history
+	 */
+	public double[] getAquiferSecurityHistory();
+	
 	/**
 	 * Gets the aquifer security score.
 	 *
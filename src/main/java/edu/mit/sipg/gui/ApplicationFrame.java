@@ -29,8 +29,6 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.lang.reflect.InvocationTargetException;
-import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -50,7 +48,6 @@ import javax.swing.KeyStroke;
 import javax.swing.SwingUtilities;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.log4j.Logger;
 
 import edu.mit.sipg.core.City;
@@ -65,8 +62,10 @@ import edu.mit.sipg.core.water.RecordedWaterSystem;
 import edu.mit.sipg.gui.base.InfrastructurePanel;
 import edu.mit.sipg.gui.event.UpdateEvent;
 import edu.mit.sipg.gui.event.UpdateListener;
+import edu.mit.sipg.io.AutoSaveService;
 import edu.mit.sipg.io.Icons;
 import edu.mit.sipg.io.Serialization;
+import edu.mit.sipg.log.MetricsRecorder;
 import edu.mit.sipg.log.ScoreFileLogger;
 import edu.mit.sipg.scenario.DefaultScenario;
 import edu.mit.sipg.scenario.Scenario;
@@ -92,8 +91,11 @@ public class ApplicationFrame extends JFrame implements UpdateListener {
 	private InfrastructurePanel elementsPane;
 	private SocietyPane societyPane;
 	private ScoreFileLogger scoreLogger;
+	private MetricsRecorder metricsRecorder;
+	private final AutoSaveService autoSaveService = new AutoSaveService();
 	private final JFileChooser scenarioFileChooser;
 	private final JFileChooser recordedDataChooser;
+	private final JFileChooser metricsFileChooser;
 	
 	private final Action newScenario = new AbstractAction("New") {
 		private static final long serialVersionUID = 7259597700641022096L;
@@ -184,10 +186,13 @@ public class ApplicationFrame extends JFrame implements UpdateListener {
 
 			if(JFileChooser.APPROVE_OPTION == scenarioFileChooser.showOpenDialog(null)) {
 				try {
-					initialize(Serialization.deserialize(
-							FileUtils.readFileToString(
-									scenarioFileChooser.getSelectedFile(), 
-									StandardCharsets.UTF_8)));
+					FileInputStream fileIn = new FileInputStream(
+							scenarioFileChooser.getSelectedFile());
+					try {
+						initialize(Serialization.deserialize(fileIn));
+					} finally {
+						fileIn.close();
+					}
 				} catch (IOException ex) {
 					JOptionPane.showMessageDialog(contentPane.getTopLevelAncestor(), 
 							ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
@@ -207,6 +212,16 @@ public class ApplicationFrame extends JFrame implements UpdateListener {
 			}
 		}
 	};
+	private final Action exportMetrics = new AbstractAction("Export Metrics...") {
+		private static final long serialVersionUID = 7259597700641022096L;
+
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			if(JFileChooser.APPROVE_OPTION == metricsFileChooser.showSaveDialog(null)) {
+				exportMetrics(metricsFileChooser.getSelectedFile());
+			}
+		}
+	};
 	private final Action closeScenario = new AbstractAction("Close") {
 		private static final long serialVersionUID = 4589751151727368209L;
 
@@ -262,6 +277,9 @@ public class ApplicationFrame extends JFrame implements UpdateListener {
 		recordedDataChooser = new JFileChooser();
 		recordedDataChooser.setFileFilter(new FileNameExtensionFilter("Data files", "dat"));
 
+		metricsFileChooser = new JFileChooser(logOutputDir);
+		metricsFileChooser.setFileFilter(new FileNameExtensionFilter("CSV files", "csv"));
+
 		JMenuBar menuBar = new JMenuBar();
 		JMenu fileMenu = new JMenu("File");
 		menuBar.add(fileMenu);
@@ -287,6 +305,7 @@ public class ApplicationFrame extends JFrame implements UpdateListener {
 				KeyEvent.VK_S, KeyEvent.CTRL_DOWN_MASK));
 		saveItem.setMnemonic(KeyEvent.VK_S);
 		fileMenu.add(saveItem);
+		fileMenu.add(new JMenuItem(exportMetrics));
 		fileMenu.add(new JSeparator());
 		JMenuItem exitItem = new JMenuItem(exitAction);
 		exitItem.setAccelerator(KeyStroke.getKeyStroke(
@@ -333,17 +352,12 @@ public class ApplicationFrame extends JFrame implements UpdateListener {
 	}
 
 	/**
-	 * Auto save.
+	 * Auto save (in the background).
 	 */
 	private void autoSave() {
 		File file = new File(userOutputDir, "autosave.json");
-		try {
-			file.createNewFile();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
 		logger.info("auto-saving: " + file);
-		save(file);
+		autoSaveService.save(simulator.getScenario(), file);
 	}
 	
 	/**
@@ -477,13 +491,7 @@ public class ApplicationFrame extends JFrame implements UpdateListener {
 			File userState = new File(logOutputDir, 
 					System.getProperty("user.name") + "-export-" + 
 							new Date().getTime() + ".json");
-			try {
-				userState.createNewFile();
-			} catch (IOException e) {
-				logger.error(e);
-				return false;
-			}
-			save(userState);
+			autoSaveService.save(simulator.getScenario(), userState);
 			
 			return true;
 		}
@@ -528,6 +536,21 @@ public class ApplicationFrame extends JFrame implements UpdateListener {
 		}
 	}
 
+	/**
+	 * Export the recorded metrics to a comma-delimited file.
+	 *
+	 * @param file the file
+	 */
+	private void exportMetrics(File file) {
+		try {
+			metricsRecorder.exportCsv(file);
+		} catch (IOException e) {
+			JOptionPane.showMessageDialog(contentPane.getTopLevelAncestor(), 
+					e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+			logger.error(e);
+		}
+	}
+
 	/**
 	 * Export water data.
 	 */
@@ -705,10 +728,17 @@ public class ApplicationFrame extends JFrame implements UpdateListener {
 			simulator.removeUpdateListener(this);
 			simulator.removeUpdateListener(simulationPane);
 			simulator.removeUpdateListener(societyPane);
+			// removing the asynchronous score logger waits for its queued
+			// events (including the completed record) before it is closed
 			simulator.removeUpdateListener(scoreLogger);
+			simulator.removeUpdateListener(metricsRecorder);
+			if(scoreLogger != null) {
+				scoreLogger.close();
+			}
 			if(contentPane.getComponentCount() > 0) {
 				contentPane.removeAll();
 			}
+			metricsRecorder = null;
 			societyPane = null;
 			elementsPane = null;
 			nationalPane = null;
@@ -727,7 +757,11 @@ public class ApplicationFrame extends JFrame implements UpdateListener {
 			societyPane = new SocietyPane(simulator.getScenario());
 			simulator.addUpdateListener(societyPane);
 			scoreLogger = new ScoreFileLogger();
+			// scores read remote systems, which snapshots for asynchronous 
+			// listeners replace with default systems
 			simulator.addUpdateListener(scoreLogger);
+			metricsRecorder = new MetricsRecorder();
+			simulator.addUpdateListener(metricsRecorder);
 			elementsPane = new InfrastructurePanel(simulator);
 			elementsPane.initialize();
 			simulationPane = new SimulationControlPanel(simulator);
@@ -750,6 +784,7 @@ public class ApplicationFrame extends JFrame implements UpdateListener {
 
 		newScenario.setEnabled(scenario == null);
 		saveScenario.setEnabled(scenario != null);
+		exportMetrics.setEnabled(scenario != null);
 		closeScenario.setEnabled(scenario != null);
 		editConnection.setEnabled(scenario != null);
 
@@ -779,15 +814,13 @@ public class ApplicationFrame extends JFrame implements UpdateListener {
 	}
 
 	/**
-	 * Save the scenario to file.
+	 * Save a snapshot of the scenario to file.
 	 *
 	 * @param file the file
 	 */
 	private void save(File file) {
 		try {
-			FileUtils.writeStringToFile(file, 
-					Serialization.serialize(simulator.getScenario()), 
-					StandardCharsets.UTF_8);
+			Serialization.serialize(simulator.getScenario().copy(), file);
 		} catch (IOException e) {
 			JOptionPane.showMessageDialog(contentPane.getTopLevelAncestor(), 
 					e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
@@ -808,61 +841,33 @@ public class ApplicationFrame extends JFrame implements UpdateListener {
 	public void simulationCompleted(UpdateEvent event) {
 		File finalState = new File(logOutputDir, System.getProperty("user.name") 
 				+ "-" + new Date().getTime() + ".json");
-		try {
-			finalState.createNewFile();
-		} catch (IOException e) {
-			logger.error(e);
-		}
-		save(finalState);
+		autoSaveService.save(simulator.getScenario(), finalState);
 
 		File userFinalState = new File(userOutputDir, 
 				new Date().getTime() + "-scenario.json");
-		try {
-			userFinalState.createNewFile();
-		} catch (IOException e) {
-			logger.error(e);
-		}
-		save(userFinalState);
+		autoSaveService.save(simulator.getScenario(), userFinalState);
 	}
 
 	@Override
 	public void simulationInitialized(final UpdateEvent event) {
-		// Note: must use SwingUtilities.invokeAndWait method here because
-		// the UpdateEvent passes the "active" Country instance. If we don't
-		// wait for the GUI to update, the simulation will race ahead, causing
-		// it to display data for future time periods!
-		try {
-			SwingUtilities.invokeAndWait(new Runnable() {
-				@Override
-				public void run() {
-					autoSave();
-					setTitle("SIPG | " + event.getTime());
-				}
-			});
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		} catch (InvocationTargetException e) {
-			e.printStackTrace();
-		}
+		// the auto-save snapshot is taken on the simulation thread, so only
+		// the title (which does not read the model) is set on the EDT
+		autoSave();
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				setTitle("SIPG | " + event.getTime());
+			}
+		});
 	}
 
 	@Override
 	public void simulationUpdated(final UpdateEvent event) {
-		// Note: must use SwingUtilities.invokeAndWait method here because
-		// the UpdateEvent passes the "active" Country instance. If we don't
-		// wait for the GUI to update, the simulation will race ahead, causing
-		// it to display data for future time periods!
-		try {
-			SwingUtilities.invokeAndWait(new Runnable() {
-				@Override
-				public void run() {
-					setTitle("SIPG | " + event.getTime());
-				}
-			});
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		} catch (InvocationTargetException e) {
-			e.printStackTrace();
-		}
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				setTitle("SIPG | " + event.getTime());
+			}
+		});
 	}
 }
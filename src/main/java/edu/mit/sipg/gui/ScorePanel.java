@@ -38,6 +38,8 @@ import org.jfree.chart.ChartPanel;
 import org.jfree.data.xy.DefaultTableXYDataset;
 
 import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.MetricsSnapshot;
+import edu.mit.sipg.core.MetricsSnapshot.Metric;
 import edu.mit.sipg.core.agriculture.AgricultureSoS;
 import edu.mit.sipg.core.electricity.ElectricitySoS;
 import edu.mit.sipg.core.petroleum.PetroleumSoS;
@@ -297,11 +299,12 @@ public class ScorePanel extends InfrastructureSystemPanel {
 			return;
 		}
 		
-		scoreLabel.setText("");
+		String combinedText = "";
 		
-		double foodScore = country.getAgricultureSystem().getFoodSecurityScore();
-		double aquiferScore = country.getWaterSystem().getAquiferSecurityScore();
-		double reservoirScore = country.getPetroleumSystem().getReservoirSecurityScore();
+		MetricsSnapshot metrics = event.getMetrics();
+		double foodScore = metrics.getValue(country.getAgricultureSystem(), Metric.FOOD_SECURITY_SCORE);
+		double aquiferScore = metrics.getValue(country.getWaterSystem(), Metric.AQUIFER_SECURITY_SCORE);
+		double reservoirScore = metrics.getValue(country.getPetroleumSystem(), Metric.RESERVOIR_SECURITY_SCORE);
 
 		if(country.getAgricultureSystem() instanceof AgricultureSoS.Local) {
 			double politicalScore = ((AgricultureSoS.Local) country.getAgricultureSystem()).getPoliticalPowerScore(year);
@@ -314,9 +317,9 @@ public class ScorePanel extends InfrastructureSystemPanel {
 			updateSeries(agriculturePlayerScore, "Total Score", year, aggregateScore);
 			String scoreText = "Round " + roundNumber + " Agriculture Score: " 
 					+ NumberFormat.getIntegerInstance().format(aggregateScore);
-			agricultureScoreLabel.setText(scoreText);
-			scoreLabel.setText((scoreLabel.getText().isEmpty()?"":
-				scoreLabel.getText() + ", ") + scoreText);
+			updateLabel(agricultureScoreLabel, scoreText);
+			combinedText = (combinedText.isEmpty()?"":
+				combinedText + ", ") + scoreText;
 		}
 		if(country.getWaterSystem() instanceof WaterSoS.Local) {
 			double politicalScore = ((WaterSoS.Local) country.getWaterSystem()).getPoliticalPowerScore(year);
@@ -329,9 +332,9 @@ public class ScorePanel extends InfrastructureSystemPanel {
 			updateSeries(waterPlayerScore, "Total Score", year, aggregateScore);
 			String scoreText = "Round " + roundNumber + " Water Score: " 
 					+ NumberFormat.getIntegerInstance().format(aggregateScore);
-			waterScoreLabel.setText(scoreText);
-			scoreLabel.setText((scoreLabel.getText().isEmpty()?"":
-				scoreLabel.getText() + ", ") + scoreText);
+			updateLabel(waterScoreLabel, scoreText);
+			combinedText = (combinedText.isEmpty()?"":
+				combinedText + ", ") + scoreText;
 		}
 		if(country.getPetroleumSystem() instanceof PetroleumSoS.Local 
 				&& country.getElectricitySystem() instanceof ElectricitySoS.Local) {
@@ -349,9 +352,9 @@ public class ScorePanel extends InfrastructureSystemPanel {
 			updateSeries(energyPlayerScore, "Total Score", year, aggregateScore);
 			String scoreText = "Round " + roundNumber + " Energy Score: " 
 					+ NumberFormat.getIntegerInstance().format(aggregateScore);
-			energyScoreLabel.setText(scoreText);
-			scoreLabel.setText((scoreLabel.getText().isEmpty()?"":
-				scoreLabel.getText() + ", ") + scoreText);
+			updateLabel(energyScoreLabel, scoreText);
+			combinedText = (combinedText.isEmpty()?"":
+				combinedText + ", ") + scoreText;
 		}
 		
 		if(country.getTotalCapitalExpense() > country.getCapitalBudgetLimit()) {
@@ -372,10 +375,11 @@ public class ScorePanel extends InfrastructureSystemPanel {
 		String scoreText = "Round " + roundNumber + " Team Score: " 
 				+ NumberFormat.getIntegerInstance().format(aggregateScore)
 				+ (overBudgetYear>0?"* (Over budget in " + overBudgetYear + ")":"");
-		teamScoreLabel.setText(scoreText);
+		updateLabel(teamScoreLabel, scoreText);
 		if(scenario.isTeamScoreDisplayed()) {
-			scoreLabel.setText((scoreLabel.getText().isEmpty()?"":
-				scoreLabel.getText() + ", ") + scoreText);
+			combinedText = (combinedText.isEmpty()?"":
+				combinedText + ", ") + scoreText;
 		}
+		updateLabel(scoreLabel, combinedText);
 	}
 }
\ No newline at end of file
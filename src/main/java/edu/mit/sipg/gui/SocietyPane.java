@@ -31,6 +31,8 @@ import edu.mit.sipg.core.water.WaterSystem;
 import edu.mit.sipg.gui.agriculture.AgricultureSystemPanel;
 import edu.mit.sipg.gui.agriculture.BasicAgricultureSystemPanel;
 import edu.mit.sipg.gui.agriculture.LocalAgricultureSystemPanel;
+import edu.mit.sipg.gui.base.InfrastructureSystemPanel;
+import edu.mit.sipg.gui.base.PanelUpdate;
 import edu.mit.sipg.gui.electricity.BasicElectricitySystemPanel;
 import edu.mit.sipg.gui.electricity.ElectricitySystemPanel;
 import edu.mit.sipg.gui.electricity.LocalElectricitySystemPanel;
@@ -49,7 +51,10 @@ import edu.mit.sipg.scenario.Scenario;
 /**
  * The society pane composes key information for a unit of society. It includes
  * infrastructure system panels for each locally-controlled sector and a 
- * score tab for a top-level country society.
+ * score tab for a top-level country society. Panels are updated in a single
+ * batch for each simulation event so each chart is redrawn at most once. 
+ * Panel updates for each simulation time step are computed on the 
+ * simulation thread and applied on the event dispatch thread.
  * 
  * @author Paul T. Grogan
  */
@@ -142,23 +147,29 @@ public class SocietyPane extends JPanel implements UpdateListener {
 			SwingUtilities.invokeAndWait(new Runnable() {
 				@Override
 				public void run() {
-					if(scoreTab != null) {
-						scoreTab.simulationCompleted(event);
-					}
-					if(waterTab != null) {
-						waterTab.simulationCompleted(event);
-					}
-					if(agricultureTab != null) {
-						agricultureTab.simulationCompleted(event);
-					}
-					if(electricityTab != null) {
-						electricityTab.simulationCompleted(event);
-					}
-					if(petroleumTab != null) {
-						petroleumTab.simulationCompleted(event);
-					}
-					if(socialTab != null) {
-						socialTab.simulationCompleted(event);
+					InfrastructureSystemPanel.beginBatchUpdate();
+					try {
+						if(scoreTab != null) {
+							scoreTab.simulationCompleted(event);
+						}
+						if(waterTab != null) {
+							waterTab.simulationCompleted(event);
+						}
+						if(agricultureTab != null) {
+							agricultureTab.simulationCompleted(event);
+						}
+						if(electricityTab != null) {
+							electricityTab.simulationCompleted(event);
+						}
+						if(petroleumTab != null) {
+							petroleumTab.simulationCompleted(event);
+						}
+						if(socialTab != null) {
+							socialTab.simulationCompleted(event);
+						}
+					} finally {
+						InfrastructureSystemPanel.endBatchUpdate();
+						InfrastructureSystemPanel.flushBatchUpdates();
 					}
 				}
 			});
@@ -179,23 +190,28 @@ public class SocietyPane extends JPanel implements UpdateListener {
 			SwingUtilities.invokeAndWait(new Runnable() {
 				@Override
 				public void run() {
-					if(scoreTab != null) {
-						scoreTab.simulationInitialized(event);
-					}
-					if(waterTab != null) {
-						waterTab.simulationInitialized(event);
-					}
-					if(agricultureTab != null) {
-						agricultureTab.simulationInitialized(event);
-					}
-					if(electricityTab != null) {
-						electricityTab.simulationInitialized(event);
-					}
-					if(petroleumTab != null) {
-						petroleumTab.simulationInitialized(event);
-					}
-					if(socialTab != null) {
-						socialTab.simulationInitialized(event);
+					InfrastructureSystemPanel.beginBatchUpdate();
+					try {
+						if(scoreTab != null) {
+							scoreTab.simulationInitialized(event);
+						}
+						if(waterTab != null) {
+							waterTab.simulationInitialized(event);
+						}
+						if(agricultureTab != null) {
+							agricultureTab.simulationInitialized(event);
+						}
+						if(electricityTab != null) {
+							electricityTab.simulationInitialized(event);
+						}
+						if(petroleumTab != null) {
+							petroleumTab.simulationInitialized(event);
+						}
+						if(socialTab != null) {
+							socialTab.simulationInitialized(event);
+						}
+					} finally {
+						InfrastructureSystemPanel.endBatchUpdate();
 					}
 				}
 			});
@@ -208,38 +224,40 @@ public class SocietyPane extends JPanel implements UpdateListener {
 
 	@Override
 	public void simulationUpdated(final UpdateEvent event) {
-		// Note: must use SwingUtilities.invokeAndWait method here because
-		// the UpdateEvent passes the "active" Country instance. If we don't
-		// wait for the GUI to update, the simulation will race ahead, causing
-		// it to display data for future time periods!
+		// Note: the UpdateEvent passes the "active" Country instance, so the
+		// panel update is computed here on the simulation thread (which 
+		// waits for listeners) and recorded with precomputed values. The 
+		// event dispatch thread only applies the recorded update, so the
+		// simulation does not need to wait for the GUI to redraw.
+		final PanelUpdate update;
+		InfrastructureSystemPanel.beginPanelUpdate();
 		try {
-			SwingUtilities.invokeAndWait(new Runnable() {
-				@Override
-				public void run() {
-					if(scoreTab != null) {
-						scoreTab.simulationUpdated(event);
-					}
-					if(waterTab != null) {
-						waterTab.simulationUpdated(event);
-					}
-					if(agricultureTab != null) {
-						agricultureTab.simulationUpdated(event);
-					}
-					if(electricityTab != null) {
-						electricityTab.simulationUpdated(event);
-					}
-					if(petroleumTab != null) {
-						petroleumTab.simulationUpdated(event);
-					}
-					if(socialTab != null) {
-						socialTab.simulationUpdated(event);
-					}
-				}
-			});
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		} catch (InvocationTargetException e) {
-			e.printStackTrace();
+			if(scoreTab != null) {
+				scoreTab.simulationUpdated(event);
+			}
+			if(waterTab != null) {
+				waterTab.simulationUpdated(event);
+			}
+			if(agricultureTab != null) {
+				agricultureTab.simulationUpdated(event);
+			}
+			if(electricityTab != null) {
+				electricityTab.simulationUpdated(event);
+			}
+			if(petroleumTab != null) {
+				petroleumTab.simulationUpdated(event);
+			}
+			if(socialTab != null) {
+				socialTab.simulationUpdated(event);
+			}
+		} finally {
+			update = InfrastructureSystemPanel.endPanelUpdate();
 		}
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				update.apply();
+			}
+		});
 	}
 }
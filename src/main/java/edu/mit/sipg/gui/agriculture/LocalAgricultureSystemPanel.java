@@ -28,6 +28,8 @@ import org.jfree.data.xy.DefaultTableXYDataset;
 import org.jfree.data.xy.XYSeries;
 
 import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.MetricsSnapshot;
+import edu.mit.sipg.core.MetricsSnapshot.Metric;
 import edu.mit.sipg.core.Society;
 import edu.mit.sipg.core.agriculture.AgricultureSystem;
 import edu.mit.sipg.core.agriculture.LocalAgricultureSoS;
@@ -349,131 +351,132 @@ implements FoodUnitsOutput, CurrencyUnitsOutput, WaterUnitsOutput {
 		for(LocalAgricultureSystemPanel nestedPanel : nestedPanels) {
 			nestedPanel.simulationInitialized(event);
 		}
-		agricultureStatePanel.repaint();
+		agricultureStatePanel.update();
 	}
 
 	@Override
 	public void simulationUpdated(UpdateEvent event) {
-		update((int)event.getTime());
+		update(event.getMetrics(), (int)event.getTime());
 		for(LocalAgricultureSystemPanel nestedPanel : nestedPanels) {
 			nestedPanel.simulationUpdated(event);
 		}
-		agricultureStatePanel.repaint();
+		agricultureStatePanel.update();
 	}
 
 	/**
 	 * Update.
 	 *
+	 * @param metrics the metrics snapshot
 	 * @param year the year
 	 */
-	private void update(int year) {		
+	private void update(MetricsSnapshot metrics, int year) {		
 		if(agricultureSystem instanceof LocalAgricultureSoS) {
 			for(AgricultureSystem.Local nestedSystem : getNestedAgricultureSystems()) {
 				updateSeries(landAvailableDisaggregatedDataset, nestedSystem.getSociety().getName() + " Land Available", 
-						year, nestedSystem.getArableLandArea() - nestedSystem.getLandAreaUsed());
+						year, metrics.getValue(nestedSystem, Metric.ARABLE_LAND_AREA) - metrics.getValue(nestedSystem, Metric.LAND_AREA_USED));
 				updateSeries(landAvailableDisaggregatedDataset, nestedSystem.getSociety().getName() + " Land Used", 
-						year, nestedSystem.getLandAreaUsed());
+						year, metrics.getValue(nestedSystem, Metric.LAND_AREA_USED));
 			}
 			for(AgricultureSystem.Local nestedSystem : getNestedAgricultureSystems()) {
 				updateSeries(laborAvailableDisaggregatedDataset, nestedSystem.getSociety().getName() + " Labor Available", 
-						year, nestedSystem.getLaborParticipationRate() 
-						* nestedSystem.getSociety().getSocialSystem().getPopulation()
-						- nestedSystem.getLaborUsed());
+						year, metrics.getValue(nestedSystem, Metric.LABOR_PARTICIPATION_RATE) 
+						* metrics.getValue(nestedSystem.getSociety().getSocialSystem(), Metric.POPULATION)
+						- metrics.getValue(nestedSystem, Metric.LABOR_USED));
 				updateSeries(laborAvailableDisaggregatedDataset, nestedSystem.getSociety().getName() + " Labor Used", 
-						year, nestedSystem.getLaborUsed());
+						year, metrics.getValue(nestedSystem, Metric.LABOR_USED));
 			}
 		}
 		updateSeries(landAvailableAggregatedDataset, "Available", year, 
-				agricultureSystem.getArableLandArea() - agricultureSystem.getLandAreaUsed());
+				metrics.getValue(agricultureSystem, Metric.ARABLE_LAND_AREA) - metrics.getValue(agricultureSystem, Metric.LAND_AREA_USED));
 		updateSeries(landAvailableAggregatedDataset, "Used", year, 
-				agricultureSystem.getLandAreaUsed());
+				metrics.getValue(agricultureSystem, Metric.LAND_AREA_USED));
 		
 		updateSeries(laborAvailableAggregatedDataset, "Available", year, 
-				agricultureSystem.getLaborParticipationRate() 
-				* getSociety().getSocialSystem().getPopulation()
-				- agricultureSystem.getLaborUsed());
+				metrics.getValue(agricultureSystem, Metric.LABOR_PARTICIPATION_RATE) 
+				* metrics.getValue(getSociety().getSocialSystem(), Metric.POPULATION)
+				- metrics.getValue(agricultureSystem, Metric.LABOR_USED));
 		updateSeries(laborAvailableAggregatedDataset, "Used", year, 
-				agricultureSystem.getLaborUsed());
+				metrics.getValue(agricultureSystem, Metric.LABOR_USED));
 		
 		updateSeries(cashFlow, "Capital Expense", year, 
-				CurrencyUnits.convertFlow(-agricultureSystem.getCapitalExpense(),
+				CurrencyUnits.convertFlow(-metrics.getValue(agricultureSystem, Metric.CAPITAL_EXPENSE),
 						agricultureSystem, this));
 		updateSeries(cashFlow, "Operations Expense", year, 
-				CurrencyUnits.convertFlow(-agricultureSystem.getOperationsExpense()
-						-agricultureSystem.getConsumptionExpense(),
+				CurrencyUnits.convertFlow(-metrics.getValue(agricultureSystem, Metric.OPERATIONS_EXPENSE)
+						-metrics.getValue(agricultureSystem, Metric.CONSUMPTION_EXPENSE),
 						agricultureSystem, this));
 		updateSeries(cashFlow, "Decommission Expense", year, 
-				CurrencyUnits.convertFlow(-agricultureSystem.getDecommissionExpense(),
+				CurrencyUnits.convertFlow(-metrics.getValue(agricultureSystem, Metric.DECOMMISSION_EXPENSE),
 						agricultureSystem, this));
 		if(!(getSociety() instanceof Country)) {
 			updateSeries(cashFlow, "Distribution Expense", year, 
-					CurrencyUnits.convertFlow(-agricultureSystem.getDistributionExpense(),
+					CurrencyUnits.convertFlow(-metrics.getValue(agricultureSystem, Metric.DISTRIBUTION_EXPENSE),
 							agricultureSystem, this));
 		}
 		updateSeries(cashFlow, "Import Expense", year, 
-				CurrencyUnits.convertFlow(-agricultureSystem.getImportExpense(),
+				CurrencyUnits.convertFlow(-metrics.getValue(agricultureSystem, Metric.IMPORT_EXPENSE),
 						agricultureSystem, this));
 		if(!(getSociety() instanceof Country)) {
 			updateSeries(cashFlow, "Distribution Revenue", year, 
-					CurrencyUnits.convertFlow(agricultureSystem.getDistributionRevenue(),
+					CurrencyUnits.convertFlow(metrics.getValue(agricultureSystem, Metric.DISTRIBUTION_REVENUE),
 							agricultureSystem, this));
 		}
 		updateSeries(cashFlow, "Export Revenue", year, 
-				CurrencyUnits.convertFlow(agricultureSystem.getExportRevenue(),
+				CurrencyUnits.convertFlow(metrics.getValue(agricultureSystem, Metric.EXPORT_REVENUE),
 						agricultureSystem, this));
 		updateSeries(cashFlow, "Domestic Revenue", year, 
-				CurrencyUnits.convertFlow(agricultureSystem.getSalesRevenue(),
+				CurrencyUnits.convertFlow(metrics.getValue(agricultureSystem, Metric.SALES_REVENUE),
 						agricultureSystem, this));
 		updateSeries(netCashFlow, "Net Revenue", year, 
-				CurrencyUnits.convertFlow(agricultureSystem.getCashFlow(),
+				CurrencyUnits.convertFlow(metrics.getValue(agricultureSystem, Metric.CASH_FLOW),
 						agricultureSystem, this));
 		updateSeries(cumulativeBalance, "Cumulative Net Revenue", year, 
-				CurrencyUnits.convertFlow(agricultureSystem.getCumulativeCashFlow(),
+				CurrencyUnits.convertFlow(metrics.getValue(agricultureSystem, Metric.CUMULATIVE_CASH_FLOW),
 						agricultureSystem, this));
 
 		updateSeries(foodSourceAggregatedData, "Production", year, 
-				FoodUnits.convertFlow(agricultureSystem.getFoodProduction(),
+				FoodUnits.convertFlow(metrics.getValue(agricultureSystem, Metric.FOOD_PRODUCTION),
 						agricultureSystem, this));
 		updateSeries(foodUseAggregatedData, "Society", year, 
-				FoodUnits.convertFlow(getSociety().getSocialSystem().getFoodConsumption(),
+				FoodUnits.convertFlow(metrics.getValue(getSociety().getSocialSystem(), Metric.FOOD_CONSUMPTION),
 						getSociety().getSocialSystem(), this));
 		if(agricultureSystem instanceof LocalAgricultureSoS) {
 			for(AgricultureSystem.Local nestedSystem : getNestedAgricultureSystems()) {
 				updateSeries(foodSourceDisaggregatedData, nestedSystem.getSociety().getName(), year,
-						FoodUnits.convertFlow(nestedSystem.getTotalFoodSupply()
-								+ nestedSystem.getFoodOutDistribution()
-								- nestedSystem.getFoodInDistribution()
-								+ nestedSystem.getFoodExport()
-								- nestedSystem.getFoodImport(), nestedSystem, this));
+						FoodUnits.convertFlow(metrics.getValue(nestedSystem, Metric.TOTAL_FOOD_SUPPLY)
+								+ metrics.getValue(nestedSystem, Metric.FOOD_OUT_DISTRIBUTION)
+								- metrics.getValue(nestedSystem, Metric.FOOD_IN_DISTRIBUTION)
+								+ metrics.getValue(nestedSystem, Metric.FOOD_EXPORT)
+								- metrics.getValue(nestedSystem, Metric.FOOD_IMPORT), nestedSystem, this));
 				updateSeries(foodUseDisaggregatedData, nestedSystem.getSociety().getName(), year,
 						FoodUnits.convertFlow(nestedSystem.getSociety().getTotalFoodDemand(), 
 								nestedSystem.getSociety(), this));
 				updateSeries(waterUseDisaggregatedData, nestedSystem.getSociety().getName(), year, 
-						WaterUnits.convertFlow(nestedSystem.getWaterConsumption(),
+						WaterUnits.convertFlow(metrics.getValue(nestedSystem, Metric.WATER_CONSUMPTION),
 								nestedSystem, this));
 			}
 		} else {
 			updateSeries(foodSourceAggregatedData, "Distribution", year, 
-					FoodUnits.convertFlow(agricultureSystem.getFoodInDistribution(),
+					FoodUnits.convertFlow(metrics.getValue(agricultureSystem, Metric.FOOD_IN_DISTRIBUTION),
 							agricultureSystem, this));
 			updateSeries(foodUseAggregatedData, "Distribution", year, 
-					FoodUnits.convertFlow(agricultureSystem.getFoodOutDistribution(), 
+					FoodUnits.convertFlow(metrics.getValue(agricultureSystem, Metric.FOOD_OUT_DISTRIBUTION), 
 							agricultureSystem, this));
 		}
 		updateSeries(waterUseAggregatedData, "Operations", year, 
-				WaterUnits.convertFlow(agricultureSystem.getWaterConsumption(),
+				WaterUnits.convertFlow(metrics.getValue(agricultureSystem, Metric.WATER_CONSUMPTION),
 						agricultureSystem, this));
 		updateSeries(foodSourceAggregatedData, "Import", year, 
-				FoodUnits.convertFlow(agricultureSystem.getFoodImport(),
+				FoodUnits.convertFlow(metrics.getValue(agricultureSystem, Metric.FOOD_IMPORT),
 						agricultureSystem, this));
 		updateSeries(foodSourceDisaggregatedData, "Import", year, 
-				FoodUnits.convertFlow(agricultureSystem.getFoodImport(),
+				FoodUnits.convertFlow(metrics.getValue(agricultureSystem, Metric.FOOD_IMPORT),
 						agricultureSystem, this));
 		updateSeries(foodUseAggregatedData, "Export", year, 
-				FoodUnits.convertFlow(agricultureSystem.getFoodExport(),
+				FoodUnits.convertFlow(metrics.getValue(agricultureSystem, Metric.FOOD_EXPORT),
 						agricultureSystem, this));
 		updateSeries(foodUseDisaggregatedData, "Export", year, 
-				FoodUnits.convertFlow(agricultureSystem.getFoodExport(),
+				FoodUnits.convertFlow(metrics.getValue(agricultureSystem, Metric.FOOD_EXPORT),
 						agricultureSystem, this));
 	}
 }
@@ -28,14 +28,20 @@ import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
 import javax.swing.AbstractAction;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
 import javax.swing.JFileChooser;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JTabbedPane;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
 import org.apache.log4j.Logger;
 import org.jfree.chart.ChartFactory;
@@ -53,6 +59,7 @@ import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
 import org.jfree.chart.title.LegendTitle;
 import org.jfree.chart.ui.RectangleEdge;
 import org.jfree.data.UnknownKeyException;
+import org.jfree.data.general.AbstractDataset;
 import org.jfree.data.time.TimeSeries;
 import org.jfree.data.time.TimeSeriesCollection;
 import org.jfree.data.time.Year;
@@ -68,12 +75,166 @@ import edu.mit.sipg.gui.event.UpdateListener;
 /**
  * A generic panel to investigate infrastructure system outputs.
  * 
+ * Dataset updates can be grouped in a batch (e.g. all panel updates for
+ * one simulation time step) using {@link #beginBatchUpdate()} and 
+ * {@link #endBatchUpdate()}. Change notifications of datasets updated
+ * within a batch are suspended until the batch ends, so each chart is 
+ * redrawn once per batch rather than once per value. Chart refreshes are 
+ * further limited to a maximum rate so fast-forwarding the simulation
+ * does not saturate the event dispatch thread; the latest values are 
+ * always displayed after the last batch. Batches are confined to the 
+ * event dispatch thread.
+ * 
+ * Alternatively, panel updates can be computed on the simulation thread
+ * between {@link #beginPanelUpdate()} and {@link #endPanelUpdate()}.
+ * Dataset and label updates are then recorded in a {@link PanelUpdate}
+ * view model with precomputed values, which is applied later on the
+ * event dispatch thread without reading the (changing) model.
+ * 
  * @author Paul T. Grogan
  */
 public abstract class InfrastructureSystemPanel extends JTabbedPane implements UpdateListener {
 	private static final long serialVersionUID = -5223317851664526305L;
 	private static Logger logger = Logger.getLogger(InfrastructureSystemPanel.class);
 	
+	public static final int DEFAULT_REFRESH_RATE = 10;
+	
+	private static final Set<AbstractDataset> suspendedDatasets = 
+			Collections.newSetFromMap(new IdentityHashMap<AbstractDataset, Boolean>());
+	private static int batchDepth = 0;
+	private static int maximumRefreshRate = DEFAULT_REFRESH_RATE;
+	private static long lastRefreshTime = 0;
+	private static final Timer refreshTimer = new Timer(0, new ActionListener() {
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			refreshDatasets();
+		}
+	});
+	static {
+		refreshTimer.setRepeats(false);
+	}
+	private static final ThreadLocal<PanelUpdate> panelUpdate = new ThreadLocal<PanelUpdate>();
+	
+	/**
+	 * Begins a batch of dataset updates. Batches may be nested; change 
+	 * notifications are suspended until the outermost batch ends.
+	 */
+	public static void beginBatchUpdate() {
+		batchDepth++;
+	}
+	
+	/**
+	 * Begins recording a panel update on the current thread. Until 
+	 * {@link #endPanelUpdate()} is called, panel updates on this thread are
+	 * recorded rather than applied to the datasets and labels.
+	 */
+	public static void beginPanelUpdate() {
+		if(SwingUtilities.isEventDispatchThread()) {
+			throw new IllegalStateException(
+					"Panel updates cannot be recorded on the event dispatch thread.");
+		}
+		if(panelUpdate.get() != null) {
+			throw new IllegalStateException("Panel update already in progress.");
+		}
+		panelUpdate.set(new PanelUpdate());
+	}
+	
+	/**
+	 * Ends a batch of dataset updates. Fires a single change for each
+	 * dataset updated within the batch, or schedules it if the charts
+	 * were refreshed more recently than the maximum refresh rate allows.
+	 */
+	public static void endBatchUpdate() {
+		if(batchDepth <= 0) {
+			throw new IllegalStateException("No batch update in progress.");
+		}
+		batchDepth--;
+		if(batchDepth > 0 || suspendedDatasets.isEmpty()) {
+			return;
+		}
+		long delay = lastRefreshTime + 1000/maximumRefreshRate 
+				- System.currentTimeMillis();
+		if(delay <= 0) {
+			refreshTimer.stop();
+			refreshDatasets();
+		} else if(!refreshTimer.isRunning()) {
+			refreshTimer.setInitialDelay((int) delay);
+			refreshTimer.start();
+		}
+	}
+	
+	/**
+	 * Ends recording a panel update on the current thread.
+	 *
+	 * @return the recorded panel update
+	 */
+	public static PanelUpdate endPanelUpdate() {
+		PanelUpdate update = panelUpdate.get();
+		if(update == null) {
+			throw new IllegalStateException("No panel update in progress.");
+		}
+		panelUpdate.remove();
+		return update;
+	}
+	
+	/**
+	 * Immediately fires any change notifications deferred by the maximum
+	 * refresh rate (e.g. before saving chart images at the end of a 
+	 * simulation). Has no effect while a batch update is in progress.
+	 */
+	public static void flushBatchUpdates() {
+		if(batchDepth == 0) {
+			refreshTimer.stop();
+			refreshDatasets();
+		}
+	}
+	
+	/**
+	 * Gets the maximum number of chart refreshes per second.
+	 *
+	 * @return the maximum refresh rate
+	 */
+	public static int getMaximumRefreshRate() {
+		return maximumRefreshRate;
+	}
+	
+	/**
+	 * Resumes change notifications for all suspended datasets.
+	 */
+	private static void refreshDatasets() {
+		lastRefreshTime = System.currentTimeMillis();
+		for(AbstractDataset dataset : suspendedDatasets) {
+			// re-enabling notification fires a single dataset change
+			dataset.setNotify(true);
+		}
+		suspendedDatasets.clear();
+	}
+	
+	/**
+	 * Sets the maximum number of chart refreshes per second.
+	 *
+	 * @param maximumRefreshRate the new maximum refresh rate
+	 */
+	public static void setMaximumRefreshRate(int maximumRefreshRate) {
+		if(maximumRefreshRate < 1) {
+			throw new IllegalArgumentException("Maximum refresh rate must be positive.");
+		}
+		InfrastructureSystemPanel.maximumRefreshRate = maximumRefreshRate;
+	}
+	
+	/**
+	 * Suspends change notifications for a dataset if a batch update is 
+	 * in progress or a refresh is pending.
+	 *
+	 * @param dataset the dataset
+	 */
+	private static void suspendNotify(AbstractDataset dataset) {
+		if((batchDepth > 0 || refreshTimer.isRunning()) 
+				&& suspendedDatasets.add(dataset)) {
+			dataset.setNotify(false);
+		}
+	}
+	
 	private final InfrastructureSystem infrastructureSystem;
 	private final JFileChooser fileChooser = new JFileChooser();
 	
@@ -467,6 +628,26 @@ public abstract class InfrastructureSystemPanel extends JTabbedPane implements U
 		return infrastructureSystem.getSociety();
 	}
 
+	/**
+	 * Update a label.
+	 *
+	 * @param label the label
+	 * @param text the text
+	 */
+	protected void updateLabel(final JLabel label, final String text) {
+		PanelUpdate update = panelUpdate.get();
+		if(update != null) {
+			update.add(new Runnable() {
+				@Override
+				public void run() {
+					label.setText(text);
+				}
+			});
+			return;
+		}
+		label.setText(text);
+	}
+
 	/**
 	 * Update series.
 	 *
@@ -475,7 +656,19 @@ public abstract class InfrastructureSystemPanel extends JTabbedPane implements U
 	 * @param year the year
 	 * @param value the value
 	 */
-	protected void updateSeries(DefaultTableXYDataset dataset, Comparable<?> key, int year, double value) {
+	protected void updateSeries(final DefaultTableXYDataset dataset, 
+			final Comparable<?> key, final int year, final double value) {
+		PanelUpdate update = panelUpdate.get();
+		if(update != null) {
+			update.add(new Runnable() {
+				@Override
+				public void run() {
+					updateSeries(dataset, key, year, value);
+				}
+			});
+			return;
+		}
+		suspendNotify(dataset);
 		int index = dataset.indexOf(key);
 		if(index < 0) {
 			dataset.addSeries(new XYSeries(key, true, false));
@@ -492,12 +685,23 @@ public abstract class InfrastructureSystemPanel extends JTabbedPane implements U
 	 * @param year the year
 	 * @param value the value
 	 */
-	protected void updateSeriesCollection(TimeSeriesCollection seriesCollection, 
-			Comparable<?> key, int year, double value) {
+	protected void updateSeriesCollection(final TimeSeriesCollection seriesCollection, 
+			final Comparable<?> key, final int year, final double value) {
+		PanelUpdate update = panelUpdate.get();
+		if(update != null) {
+			update.add(new Runnable() {
+				@Override
+				public void run() {
+					updateSeriesCollection(seriesCollection, key, year, value);
+				}
+			});
+			return;
+		}
 		// Note: TimeSeriesCollection.getSeries returns a null TimeSeries
 		// if the key does not exist, however XYSeriesCollection.getSeries
 		// actually throws an UnknownKeyException which must be handled 
 		// differently. Both are included here for good programming practice.
+		suspendNotify(seriesCollection);
 		TimeSeries series;
 		try {
 			series = seriesCollection.getSeries(key);
@@ -0,0 +1,75 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.gui.base;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * The view model of a panel update for one simulation event. A panel 
+ * update is built on the simulation thread (where the model can be read
+ * safely) by recording the precomputed values written by panels, and is 
+ * then applied on the event dispatch thread without reading the model.
+ * 
+ * @see InfrastructureSystemPanel#beginPanelUpdate()
+ */
+public final class PanelUpdate {
+	private final List<Runnable> changes = new ArrayList<Runnable>();
+	
+	/**
+	 * Instantiates a new panel update.
+	 */
+	PanelUpdate() { }
+	
+	/**
+	 * Adds a change to this panel update.
+	 *
+	 * @param change the change
+	 */
+	void add(Runnable change) {
+		changes.add(change);
+	}
+	
+	/**
+	 * Applies this panel update in a single batch update. Must be called
+	 * on the event dispatch thread.
+	 */
+	public void apply() {
+		if(!SwingUtilities.isEventDispatchThread()) {
+			throw new IllegalStateException(
+					"Panel updates must be applied on the event dispatch thread.");
+		}
+		InfrastructureSystemPanel.beginBatchUpdate();
+		try {
+			for(Runnable change : changes) {
+				change.run();
+			}
+		} finally {
+			InfrastructureSystemPanel.endBatchUpdate();
+		}
+	}
+	
+	/**
+	 * Gets the number of changes in this panel update.
+	 *
+	 * @return the number of changes
+	 */
+	public int size() {
+		return changes.size();
+	}
+}
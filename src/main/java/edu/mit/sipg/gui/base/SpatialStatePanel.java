@@ -26,7 +26,9 @@ import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -42,23 +44,101 @@ import edu.mit.sipg.gui.PlottingUtils;
 
 /**
  * A generic panel to visualize spatial state of an infrastructure system.
- * 
+ *
+ * The panel is rendered in two layers. The static layer (boundaries,
+ * names, connections, and legend) is cached in an image which is only
+ * re-drawn when the panel size or the network topology changes. The
+ * dynamic layer (flow magnitudes and labels) is drawn from a frame of
+ * values captured from the state provider by {@link #update()}, so
+ * repainting does not query the state provider or read the model.
+ *
  * @author Paul T. Grogan
  */
 public class SpatialStatePanel extends JPanel {
 	private static final long serialVersionUID = -8936760551671238274L;
 	private static final double eps = 1e-9;
-	
+
+	/**
+	 * A flow value and its formatted label.
+	 */
+	private static final class Flow {
+		private final double value;
+		private final String label;
+
+		/**
+		 * Instantiates a new flow.
+		 *
+		 * @param value the value
+		 * @param label the label
+		 */
+		private Flow(double value, String label) {
+			this.value = value;
+			this.label = label;
+		}
+	}
+
+	/**
+	 * The state of a society captured in a frame.
+	 */
+	private static final class SocietyState {
+		private Flow consumption, netFlow, importFlow, exportFlow,
+				otherProduction, otherDistributionIn, otherDistributionOut;
+		private final Map<Society,Flow> distributionIn = new HashMap<Society,Flow>();
+		private final Map<Society,Flow> distributionOut = new HashMap<Society,Flow>();
+	}
+
+	/**
+	 * The state of an element captured in a frame.
+	 */
+	private static final class ElementState {
+		private Flow production, distributionIn, distributionOut;
+		private boolean distribution;
+	}
+
+	/**
+	 * The state provider values captured at one time.
+	 */
+	private static final class Frame {
+		private final List<Society> societies;
+		private final List<InfrastructureElement> elements;
+		private final Map<Society,SocietyState> societyStates =
+				new HashMap<Society,SocietyState>();
+		private final Map<InfrastructureElement,ElementState> elementStates =
+				new HashMap<InfrastructureElement,ElementState>();
+
+		/**
+		 * Instantiates a new frame.
+		 *
+		 * @param societies the nested societies
+		 * @param elements the elements
+		 */
+		private Frame(List<Society> societies, List<InfrastructureElement> elements) {
+			this.societies = societies;
+			this.elements = elements;
+		}
+	}
+
 	private final Society society;
 	private final SpatialStateProvider stateProvider;
 	private final Map<Society,Point> societyLocations = new HashMap<Society,Point>();
-	private final Map<InfrastructureElement,Point> elementLocations = 
+	private final Map<InfrastructureElement,Point> elementLocations =
 			new HashMap<InfrastructureElement,Point>();
-	
+	private volatile Frame frame;
+
+	// layout (only accessed on the event dispatch thread)
+	private int layoutWidth = -1, layoutHeight = -1;
+	private List<Society> layoutSocieties;
+	private List<InfrastructureElement> layoutElements;
+	private int centerX, centerY, maxRadius, countryBoundaryRadius,
+			societyBoundaryRadius, societyRadius, elementRadius;
+	private Point otherProductionLocation;
+	private BufferedImage staticLayer;
+	private double staticLayerScale;
+
 	private static final Image backgroundMap = new ImageIcon(
 			SpatialStatePanel.class.getClassLoader()
 			.getResource("resources/idas-abara-map.png")).getImage();
-	
+
 	private static final int MIN_ELEMENT_RADIUS = 30;
 	private static final int MIN_SOCIETY_RADIUS = 40;
 
@@ -71,10 +151,130 @@ public class SpatialStatePanel extends JPanel {
 	public SpatialStatePanel(Society society, SpatialStateProvider stateProvider) {
 		this.society = society;
 		this.stateProvider = stateProvider;
-		layoutSocieties();
 		setBackground(new Color(0xdd,0xdd,0xdd));
 	}
-	
+
+	/**
+	 * Captures a frame of values from the state provider.
+	 *
+	 * @param previous the previous frame (may be null)
+	 * @return the frame
+	 */
+	private Frame captureFrame(Frame previous) {
+		List<Society> societies = new ArrayList<Society>(society.getNestedSocieties());
+		List<InfrastructureElement> elements = new ArrayList<InfrastructureElement>(
+				stateProvider.getElements(society));
+		// re-use the previous lists if the topology is unchanged
+		if(previous != null && previous.societies.equals(societies)) {
+			societies = previous.societies;
+		}
+		if(previous != null && previous.elements.equals(elements)) {
+			elements = previous.elements;
+		}
+		Frame frame = new Frame(societies, elements);
+
+		if(society instanceof City) {
+			City city = (City) society;
+			SocietyState state = new SocietyState();
+			state.consumption = getFlow(stateProvider.getConsumption(city));
+			if(stateProvider.isImportAllowed()) {
+				state.importFlow = getFlow(stateProvider.getImport(city));
+			}
+			if(stateProvider.isExportAllowed()) {
+				state.exportFlow = getFlow(stateProvider.getExport(city));
+			}
+			if(stateProvider.isOtherProductionAllowed()) {
+				state.otherProduction = getFlow(stateProvider.getOtherProduction(city));
+			}
+			frame.societyStates.put(city, state);
+
+			for(InfrastructureElement element : elements) {
+				ElementState elementState = new ElementState();
+				elementState.production = getFlow(stateProvider.getProduction(element));
+				elementState.distribution = stateProvider.isDistribution(element);
+				if(elementState.distribution) {
+					elementState.distributionIn = getFlow(
+							city.getName().equals(element.getDestination())
+							? stateProvider.getOutput(element) : 0);
+					elementState.distributionOut = getFlow(
+							city.getName().equals(element.getOrigin())
+							? stateProvider.getInput(element) : 0);
+				}
+				frame.elementStates.put(element, elementState);
+			}
+		} else {
+			for(Society society : societies) {
+				SocietyState state = new SocietyState();
+				double netFlowValue = stateProvider.getNetFlow(society);
+				state.netFlow = new Flow(netFlowValue, formatValue(Math.abs(netFlowValue)));
+				if(!society.getCountry().equals(society.getSociety())) {
+					state.otherDistributionOut = getFlow(stateProvider.getOtherDistributionOut(society));
+					state.otherDistributionIn = getFlow(stateProvider.getOtherDistributionIn(society));
+				}
+				if(stateProvider.isExportAllowed()) {
+					state.exportFlow = getFlow(stateProvider.getExport(society));
+				}
+				if(stateProvider.isImportAllowed()) {
+					state.importFlow = getFlow(stateProvider.getImport(society));
+				}
+				for(Society dest : societies) {
+					if(society != dest) {
+						state.distributionOut.put(dest, getFlow(
+								stateProvider.getDistributionOut(society, dest)));
+						state.distributionIn.put(dest, getFlow(
+								stateProvider.getDistributionIn(society, dest)));
+					}
+				}
+				frame.societyStates.put(society, state);
+			}
+		}
+		return frame;
+	}
+
+	/**
+	 * Creates the static layer image.
+	 *
+	 * @param scale the device scale
+	 * @return the image
+	 */
+	private BufferedImage createStaticLayer(double scale) {
+		BufferedImage image = new BufferedImage(
+				Math.max(1, (int) Math.ceil(scale*getWidth())),
+				Math.max(1, (int) Math.ceil(scale*getHeight())),
+				BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		g.scale(scale, scale);
+		g.setFont(getFont());
+		g.setColor(getForeground());
+		g.setRenderingHint(
+		        RenderingHints.KEY_ANTIALIASING,
+		        RenderingHints.VALUE_ANTIALIAS_ON);
+
+		drawBoundaries(g);
+
+		if(society instanceof City) {
+			City city = (City) society;
+			drawCityLabels(g, city);
+			for(InfrastructureElement element : layoutElements) {
+				drawElementLabel(g, element);
+			}
+		} else {
+			for(Society society : layoutSocieties) {
+				drawSocietyLabel(g, society);
+
+				for(Society dest : layoutSocieties) {
+					if(society != dest) {
+						drawConnection(g, society, dest);
+					}
+				}
+			}
+		}
+
+		drawLegend(g);
+		g.dispose();
+		return image;
+	}
+
 	/**
 	 * Draw arrow line.
 	 *
@@ -83,18 +283,18 @@ public class SpatialStatePanel extends JPanel {
 	 */
 	private void drawArrowLine(Graphics2D g2d, Line2D.Float line) {
 		Graphics2D g = (Graphics2D) g2d.create();
-		
-		g.drawLine(Math.round(line.x1), 
-				Math.round(line.y1), 
-				Math.round(line.x2), 
+
+		g.drawLine(Math.round(line.x1),
+				Math.round(line.y1),
+				Math.round(line.x2),
 				Math.round(line.y2));
-		
+
 		AffineTransform tx = new AffineTransform();
 	    tx.setToIdentity();
 	    double angle = Math.atan2(line.y2-line.y1, line.x2-line.x1);
 		tx.translate(line.x2, line.y2);
 	    tx.rotate((angle-Math.PI/2d));
-	    Polygon arrowHead = new Polygon();  
+	    Polygon arrowHead = new Polygon();
 	    arrowHead.addPoint( 0,0);
 	    arrowHead.addPoint( -5, -10);
 	    arrowHead.addPoint( 5,-10);
@@ -102,7 +302,7 @@ public class SpatialStatePanel extends JPanel {
 		g.fill(arrowHead);
 	    g.dispose();
 	}
-	
+
 	/**
 	 * Draw arrow line with head label.
 	 *
@@ -117,14 +317,14 @@ public class SpatialStatePanel extends JPanel {
 		double theta = Math.atan2(line.y2 - line.y1, line.x2 - line.x1);
 		int margin = 5;
 		g.setColor(Color.BLACK);
-		g.drawString(label, 
+		g.drawString(label,
 				(int) Math.round(line.x2 + margin*Math.cos(theta)
-						+ (Math.abs(Math.sin(theta))>.9?-g.getFontMetrics().stringWidth(label)/2:(line.x2 < line.x1?-g.getFontMetrics().stringWidth(label):0))), 
-						(int) Math.round(line.y2 + margin*Math.sin(theta) 
+						+ (Math.abs(Math.sin(theta))>.9?-g.getFontMetrics().stringWidth(label)/2:(line.x2 < line.x1?-g.getFontMetrics().stringWidth(label):0))),
+						(int) Math.round(line.y2 + margin*Math.sin(theta)
 								+ g.getFontMetrics().getHeight()/2));
 		g.dispose();
 	}
-	
+
 	/**
 	 * Draw arrow line with tail label.
 	 *
@@ -139,14 +339,14 @@ public class SpatialStatePanel extends JPanel {
 		double theta = Math.atan2(line.y2 - line.y1, line.x2 - line.x1);
 		int margin = 5;
 		g.setColor(Color.BLACK);
-		g.drawString(label, 
+		g.drawString(label,
 				(int) Math.round(line.x1 - margin*Math.cos(theta)
-						+ (Math.abs(Math.sin(theta))>.9?-g.getFontMetrics().stringWidth(label)/2:(line.x2 > line.x1?-g.getFontMetrics().stringWidth(label):0))), 
-						(int) Math.round(line.y1 - margin*Math.sin(theta) 
+						+ (Math.abs(Math.sin(theta))>.9?-g.getFontMetrics().stringWidth(label)/2:(line.x2 > line.x1?-g.getFontMetrics().stringWidth(label):0))),
+						(int) Math.round(line.y1 - margin*Math.sin(theta)
 								+ g.getFontMetrics().getHeight()/2));
 		g.dispose();
 	}
-	
+
 	/**
 	 * Draw boundaries.
 	 *
@@ -156,27 +356,27 @@ public class SpatialStatePanel extends JPanel {
 		Graphics2D g = (Graphics2D)g2d.create();
 
 		g.setStroke(new BasicStroke(
-				1f, 
-				BasicStroke.CAP_SQUARE, 
-				BasicStroke.JOIN_BEVEL, 
-				1f, 
-				new float[]{10f,10f}, 
+				1f,
+				BasicStroke.CAP_SQUARE,
+				BasicStroke.JOIN_BEVEL,
+				1f,
+				new float[]{10f,10f},
 				0f));
 		if(!society.equals(society.getCountry())) {
 			Ellipse2D countryEllipse = new Ellipse2D.Float(
-					getCenterX() - getCountryBoundaryRadius(), 
-					getCenterY() - getCountryBoundaryRadius(), 
+					getCenterX() - getCountryBoundaryRadius(),
+					getCenterY() - getCountryBoundaryRadius(),
 					2*getCountryBoundaryRadius(), 2*getCountryBoundaryRadius());
 			g.setColor(new Color(0xff,0xff,0x99));
 			g.fill(countryEllipse);
 			g.setColor(getNeutralColor());
 			g.draw(countryEllipse);
-			g.drawString(society.getCountry().getName(), 
-					getCenterX() + (int)Math.round((getSocietyBoundaryRadius() 
-							+ 0.1*getMaxRadius() 
+			g.drawString(society.getCountry().getName(),
+					getCenterX() + (int)Math.round((getSocietyBoundaryRadius()
+							+ 0.1*getMaxRadius()
 							- g.getFontMetrics().stringWidth(society.getCountry().getName()))
-							*Math.cos(Math.PI/4)), 
-							getCenterY() + (int)Math.round((getSocietyBoundaryRadius() 
+							*Math.cos(Math.PI/4)),
+							getCenterY() + (int)Math.round((getSocietyBoundaryRadius()
 									+ 0.1*getMaxRadius()
 									+ g.getFontMetrics().getHeight())
 									*Math.sin(Math.PI/4)));
@@ -185,27 +385,27 @@ public class SpatialStatePanel extends JPanel {
 			g.setColor(new Color(0xff,0xff,0x99));
 		}
 		Ellipse2D societyEllipse = new Ellipse2D.Float(
-				getCenterX() - getSocietyBoundaryRadius(), 
-				getCenterY() - getSocietyBoundaryRadius(), 
-				2*getSocietyBoundaryRadius(), 
+				getCenterX() - getSocietyBoundaryRadius(),
+				getCenterY() - getSocietyBoundaryRadius(),
+				2*getSocietyBoundaryRadius(),
 				2*getSocietyBoundaryRadius());
 		g.fill(societyEllipse);
 		g.setColor(getNeutralColor());
 		g.draw(societyEllipse);
-		
+
 		if(society instanceof Country) {
 			g.drawImage(backgroundMap, 0, 0, getWidth(), getHeight(), null);
 			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,RenderingHints.VALUE_INTERPOLATION_BILINEAR);
 			g.setRenderingHint(RenderingHints.KEY_RENDERING,RenderingHints.VALUE_RENDER_QUALITY);
 			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,RenderingHints.VALUE_ANTIALIAS_ON);
-			g.drawString(society.getName(), 
-					getCenterX() - (int)Math.round(g.getFontMetrics().stringWidth(society.getName())/2), 
+			g.drawString(society.getName(),
+					getCenterX() - (int)Math.round(g.getFontMetrics().stringWidth(society.getName())/2),
 					getCenterY() + g.getFontMetrics().getHeight()/2);
 		}
-		
+
 		g.dispose();
 	}
-	
+
 	/**
 	 * Gets the surplus color.
 	 *
@@ -214,7 +414,7 @@ public class SpatialStatePanel extends JPanel {
 	private Color getSurplusColor() {
 		return PlottingUtils.YELLOW_GREEN;
 	}
-	
+
 	/**
 	 * Gets the deficit color.
 	 *
@@ -223,7 +423,7 @@ public class SpatialStatePanel extends JPanel {
 	private Color getDeficitColor() {
 		return PlottingUtils.CRIMSON;
 	}
-	
+
 	/**
 	 * Gets the neutral color.
 	 *
@@ -232,245 +432,276 @@ public class SpatialStatePanel extends JPanel {
 	private Color getNeutralColor() {
 		return PlottingUtils.GRAY;
 	}
-	
+
 	/**
 	 * Draw city.
 	 *
 	 * @param g2d the graphics
 	 * @param city the city
+	 * @param state the city state
 	 */
-	private void drawCity(Graphics2D g2d, City city) {
+	private void drawCity(Graphics2D g2d, City city, SocietyState state) {
 		Graphics2D g = (Graphics2D)g2d.create();
-		
+
 		Point p = societyLocations.get(city);
-		
-		double consumptionValue = stateProvider.getConsumption(city);
-		if(consumptionValue > eps) {
+
+		if(state.consumption.value > eps) {
 			g.setColor(getDeficitColor());
 		} else {
 			g.setColor(Color.WHITE);
 		}
 		g.fillOval(p.x - getElementRadius(), p.y - getElementRadius(),
 				2*getElementRadius(), 2*getElementRadius());
-		g.setColor(Color.BLACK);
-		g.drawString(city.getSocialSystem().getName(),
-				p.x + (int)Math.round((getElementRadius() + 5)*Math.cos(Math.PI/4)), 
-				p.y + (int)Math.round((getElementRadius() + 5 + g.getFontMetrics().getHeight())*Math.cos(Math.PI/4)));
-		
+
 		g.setColor(Color.BLACK);
 		g.drawOval(p.x - getElementRadius(), p.y - getElementRadius(),
 				2*getElementRadius(), 2*getElementRadius());
-		g.drawString(formatValue(consumptionValue), 
-				p.x - g.getFontMetrics().stringWidth(formatValue(consumptionValue))/2, 
+		g.drawString(state.consumption.label,
+				p.x - g.getFontMetrics().stringWidth(state.consumption.label)/2,
 				p.y + g.getFontMetrics().getHeight()/2);
 
 		if(stateProvider.isImportAllowed()) {
-			double importValue = stateProvider.getImport(city);
-			if(importValue > 0) {
+			if(state.importFlow.value > 0) {
 				g.setColor(getSurplusColor());
 			} else {
 				g.setColor(getNeutralColor());
 			}
 			Line2D.Float importLine = new Line2D.Float(
-					getCenterX() + getCountryBoundaryRadius() + getElementRadius(), 
-					getCenterY() + 10, 
-					getCenterX() + getElementRingRadius(),  
+					getCenterX() + getCountryBoundaryRadius() + getElementRadius(),
+					getCenterY() + 10,
+					getCenterX() + getElementRingRadius(),
 					getCenterY() + 10);
-			drawArrowLineWithTailLabel(g, importLine, formatValue(importValue));
+			drawArrowLineWithTailLabel(g, importLine, state.importFlow.label);
 			g.setColor(Color.BLACK);
 		}
-		
+
 		if(stateProvider.isExportAllowed()) {
-			double exportValue = stateProvider.getExport(city);
-			if(exportValue > eps) {
+			if(state.exportFlow.value > eps) {
 				g.setColor(getDeficitColor());
 			} else {
 				g.setColor(getNeutralColor());
 			}
 			Line2D.Float exportLine = new Line2D.Float(
-					getCenterX() + getElementRingRadius(),  
+					getCenterX() + getElementRingRadius(),
 					getCenterY() - 10,
-					getCenterX() + getCountryBoundaryRadius() + getElementRadius(), 
+					getCenterX() + getCountryBoundaryRadius() + getElementRadius(),
 					getCenterY() - 10);
-			drawArrowLineWithHeadLabel(g, exportLine, formatValue(exportValue));
+			drawArrowLineWithHeadLabel(g, exportLine, state.exportFlow.label);
 			g.setColor(Color.BLACK);
 		}
-		
+
 		if(stateProvider.isOtherProductionAllowed()) {
-			double theta = 2*Math.PI*(getNumberPseudoElements()-1) 
-					/ (stateProvider.getElements(city).size() 
-							+ getNumberPseudoElements());
-			Point loc = new Point(getCenterX() 
-					+ (int)Math.round(getElementRingRadius()*Math.cos(theta)),
-					getCenterY() 
-					+ (int)Math.round(getElementRingRadius()*Math.sin(theta)));
-			g.setColor(Color.WHITE);
-			g.fillOval(loc.x - getElementRadius(), 
-					loc.y - getElementRadius(), 
-					2*getElementRadius(), 
-					2*getElementRadius());
-			double labelTheta = theta + ((theta > 0 && theta < Math.PI/2) || (theta < -Math.PI/2)?-1:1)*Math.PI/12;
-			g.setColor(Color.BLACK);
-			g.drawString(stateProvider.getOtherProductionLabel(), 
-					loc.x + (int)Math.round(1.25*getElementRadius()*Math.cos(labelTheta) + 5*Math.cos(labelTheta))
-					- (Math.cos(labelTheta) < 0?g.getFontMetrics().stringWidth(stateProvider.getOtherProductionLabel()):0), 
-					loc.y + (int)Math.round(1.25*getElementRadius()*Math.sin(labelTheta) + 5*Math.sin(labelTheta))
-					+ g.getFontMetrics().getHeight()/2);
-			
-			double productionValue = stateProvider.getOtherProduction(city);
+			Point loc = otherProductionLocation;
 			int fillDiameter = 2*getElementRadius();
 			g.setColor(getSurplusColor());
-			g.fillOval(loc.x - fillDiameter/2, loc.y - fillDiameter/2, 
+			g.fillOval(loc.x - fillDiameter/2, loc.y - fillDiameter/2,
 					fillDiameter, fillDiameter);
 			g.setColor(Color.BLACK);
-			g.drawString(formatValue(productionValue), 
-					loc.x - g.getFontMetrics().stringWidth(formatValue(productionValue))/2, 
+			g.drawString(state.otherProduction.label,
+					loc.x - g.getFontMetrics().stringWidth(state.otherProduction.label)/2,
 					loc.y + g.getFontMetrics().getHeight()/2);
 			g.setColor(Color.BLACK);
-			g.drawOval(loc.x - getElementRadius(), 
-					loc.y - getElementRadius(), 
-					2*getElementRadius(), 
+			g.drawOval(loc.x - getElementRadius(),
+					loc.y - getElementRadius(),
+					2*getElementRadius(),
 					2*getElementRadius());
 		}
 		g.dispose();
 	}
-	
+
+	/**
+	 * Draw the static city labels.
+	 *
+	 * @param g2d the graphics
+	 * @param city the city
+	 */
+	private void drawCityLabels(Graphics2D g2d, City city) {
+		Graphics2D g = (Graphics2D)g2d.create();
+
+		Point p = societyLocations.get(city);
+		g.setColor(Color.BLACK);
+		g.drawString(city.getSocialSystem().getName(),
+				p.x + (int)Math.round((getElementRadius() + 5)*Math.cos(Math.PI/4)),
+				p.y + (int)Math.round((getElementRadius() + 5 + g.getFontMetrics().getHeight())*Math.cos(Math.PI/4)));
+
+		if(stateProvider.isOtherProductionAllowed()) {
+			Point loc = otherProductionLocation;
+			double theta = Math.atan2(loc.y - getCenterY(), loc.x - getCenterX());
+			double labelTheta = theta + ((theta > 0 && theta < Math.PI/2) || (theta < -Math.PI/2)?-1:1)*Math.PI/12;
+			g.drawString(stateProvider.getOtherProductionLabel(),
+					loc.x + (int)Math.round(1.25*getElementRadius()*Math.cos(labelTheta) + 5*Math.cos(labelTheta))
+					- (Math.cos(labelTheta) < 0?g.getFontMetrics().stringWidth(stateProvider.getOtherProductionLabel()):0),
+					loc.y + (int)Math.round(1.25*getElementRadius()*Math.sin(labelTheta) + 5*Math.sin(labelTheta))
+					+ g.getFontMetrics().getHeight()/2);
+		}
+		g.dispose();
+	}
+
+	/**
+	 * Draw the static connection between two societies.
+	 *
+	 * @param g2d the graphics
+	 * @param society the society
+	 * @param dest the destination
+	 */
+	private void drawConnection(Graphics2D g2d, Society society, Society dest) {
+		Graphics2D g = (Graphics2D)g2d.create();
+
+		Point p1 = societyLocations.get(society);
+		Point p2 = societyLocations.get(dest);
+		double theta = Math.atan2(p2.y - p1.y, p2.x - p1.x);
+		g.setColor(getNeutralColor());
+		g.drawLine(p1.x + (int) Math.round(getSocietyRadius() * Math.cos(theta)),
+				p1.y + (int) Math.round(getSocietyRadius() * Math.sin(theta)),
+				p2.x - (int) Math.round(getSocietyRadius() * Math.cos(theta)),
+				p2.y - (int) Math.round(getSocietyRadius() * Math.sin(theta)));
+		g.dispose();
+	}
+
 	/**
 	 * Draw distribution.
 	 *
 	 * @param g2d the graphics
 	 * @param society the society
 	 * @param dest the destination
+	 * @param state the society state
 	 */
-	private void drawDistribution(Graphics2D g2d, Society society, Society dest) {
+	private void drawDistribution(Graphics2D g2d, Society society, Society dest,
+			SocietyState state) {
 		Graphics2D g = (Graphics2D)g2d.create();
 
 		Point p1 = societyLocations.get(society);
 		Point p2 = societyLocations.get(dest);
 		double theta = Math.atan2(p2.y - p1.y, p2.x - p1.x);
 		double dist = Math.sqrt(Math.pow(p2.x - p1.x,2) + Math.pow(p2.y - p1.y,2));
-		double distribOutValue = stateProvider.getDistributionOut(society, dest);
-		if(distribOutValue > eps) {
+		Flow distribOut = state.distributionOut.get(dest);
+		if(distribOut.value > eps) {
 			g.setColor(getDeficitColor());
 		} else {
 			g.setColor(getNeutralColor());
 		}
 		Line2D.Double distribOutLine = new Line2D.Double(
-				p1.x + getSocietyRadius()*Math.cos(theta)+5*Math.sin(theta), 
-				p1.y + getSocietyRadius()*Math.sin(theta)-5*Math.cos(theta), 
-				p1.x + Math.min(dist/2, 2*getSocietyRadius())*Math.cos(theta)+5*Math.sin(theta), 
+				p1.x + getSocietyRadius()*Math.cos(theta)+5*Math.sin(theta),
+				p1.y + getSocietyRadius()*Math.sin(theta)-5*Math.cos(theta),
+				p1.x + Math.min(dist/2, 2*getSocietyRadius())*Math.cos(theta)+5*Math.sin(theta),
 				p1.y + Math.min(dist/2, 2*getSocietyRadius())*Math.sin(theta)-5*Math.cos(theta));
 		drawArrowLine(g, new Line2D.Float(distribOutLine.getP1(), distribOutLine.getP2()));
 		g.setColor(Color.BLACK);
-		g.drawString(formatValue(distribOutValue), 
+		g.drawString(distribOut.label,
 				(int) Math.round(distribOutLine.x2 + 5*Math.cos(theta)
-						- (Math.sin(theta)<0?g.getFontMetrics().stringWidth(formatValue(distribOutValue)):0)), 
+						- (Math.sin(theta)<0?g.getFontMetrics().stringWidth(distribOut.label):0)),
 						(int) Math.round(distribOutLine.y2 + 5*Math.sin(theta)
 								+ g.getFontMetrics().getHeight()/2));
 
-		
-		double distribInValue = stateProvider.getDistributionIn(society, dest);
-		if(distribInValue > eps) {
+
+		Flow distribIn = state.distributionIn.get(dest);
+		if(distribIn.value > eps) {
 			g.setColor(getSurplusColor());
 		} else {
 			g.setColor(getNeutralColor());
 		}
 		Line2D.Double distribInLine = new Line2D.Double(
-				p1.x + Math.min(dist/2, 2*getSocietyRadius())*Math.cos(theta)-5*Math.sin(theta), 
+				p1.x + Math.min(dist/2, 2*getSocietyRadius())*Math.cos(theta)-5*Math.sin(theta),
 				p1.y + Math.min(dist/2, 2*getSocietyRadius())*Math.sin(theta)+5*Math.cos(theta),
-				p1.x + getSocietyRadius()*Math.cos(theta)-5*Math.sin(theta), 
+				p1.x + getSocietyRadius()*Math.cos(theta)-5*Math.sin(theta),
 				p1.y + getSocietyRadius()*Math.sin(theta)+5*Math.cos(theta));
 		drawArrowLine(g, new Line2D.Float(distribInLine.getP1(), distribInLine.getP2()));
 		g.setColor(Color.BLACK);
-		g.drawString(formatValue(distribInValue), 
+		g.drawString(distribIn.label,
 				(int) Math.round(distribInLine.x1 - 5*Math.cos(theta)
-						- (Math.sin(theta)>0?g.getFontMetrics().stringWidth(formatValue(distribInValue)):0)), 
+						- (Math.sin(theta)>0?g.getFontMetrics().stringWidth(distribIn.label):0)),
 						(int) Math.round(distribInLine.y1 + 5*Math.sin(theta)
 								+ g.getFontMetrics().getHeight()/2));
-		
-		g.setColor(getNeutralColor());
-		g.drawLine(p1.x + (int) Math.round(getSocietyRadius() * Math.cos(theta)), 
-				p1.y + (int) Math.round(getSocietyRadius() * Math.sin(theta)), 
-				p2.x - (int) Math.round(getSocietyRadius() * Math.cos(theta)), 
-				p2.y - (int) Math.round(getSocietyRadius() * Math.sin(theta)));
 		g.dispose();
 	}
-	
+
 	/**
 	 * Draw element.
 	 *
 	 * @param g2d the graphics
 	 * @param element the element
-	 * @param city the city
+	 * @param state the element state
 	 */
-	private void drawElement(Graphics2D g2d, InfrastructureElement element, City city) {
+	private void drawElement(Graphics2D g2d, InfrastructureElement element,
+			ElementState state) {
 		Point p = elementLocations.get(element);
 
 		Graphics2D g = (Graphics2D)g2d.create();
 		double theta = Math.atan2(p.y - getCenterY(), p.x - getCenterX());
-		double labelTheta = theta + ((theta > 0 && theta < Math.PI/2) || (theta < -Math.PI/2)?-1:1)*Math.PI/12;
-		g.setColor(Color.BLACK);
-		g.drawString(element.getName(), 
-				p.x + (int)Math.round(1.25*getElementRadius()*Math.cos(labelTheta) + 5*Math.cos(labelTheta))
-				- (Math.cos(labelTheta) < 0?g.getFontMetrics().stringWidth(element.getName()):0), 
-				p.y + (int)Math.round(1.25*getElementRadius()*Math.sin(labelTheta) + 5*Math.sin(labelTheta))
-				+ g.getFontMetrics().getHeight()/2);
-		
-		double productionValue = stateProvider.getProduction(element);
-		if(productionValue > eps) {
+
+		if(state.production.value > eps) {
 			g.setColor(getSurplusColor());
 		} else {
 			g.setColor(Color.WHITE);
 		}
-		g.fillOval(p.x - getElementRadius(), 
-				p.y - getElementRadius(), 
-				2*getElementRadius(), 
+		g.fillOval(p.x - getElementRadius(),
+				p.y - getElementRadius(),
+				2*getElementRadius(),
 				2*getElementRadius());
-		
+
 		g.setColor(Color.BLACK);
-		g.drawString(formatValue(productionValue), 
-				p.x - g.getFontMetrics().stringWidth(formatValue(productionValue))/2, 
+		g.drawString(state.production.label,
+				p.x - g.getFontMetrics().stringWidth(state.production.label)/2,
 				p.y + g.getFontMetrics().getHeight()/2);
 		g.setColor(Color.BLACK);
-		g.drawOval(p.x - getElementRadius(), 
-				p.y - getElementRadius(), 
-				2*getElementRadius(), 
+		g.drawOval(p.x - getElementRadius(),
+				p.y - getElementRadius(),
+				2*getElementRadius(),
 				2*getElementRadius());
 
-		if(stateProvider.isDistribution(element)) {
-			double distribInValue = city.getName().equals(element.getDestination()) ? stateProvider.getOutput(element) : 0;
-			if(distribInValue > eps) {
+		if(state.distribution) {
+			if(state.distributionIn.value > eps) {
 				g.setColor(getSurplusColor());
 			} else {
 				g.setColor(getNeutralColor());
 			}
 			Line2D.Double distribInLine = new Line2D.Double(
-					p.x - getElementRadius()*Math.cos(theta), 
-					p.y - getElementRadius()*Math.sin(theta), 
-					p.x - Math.min(1.5*getElementRadius(), getElementRingRadius()/2)*Math.cos(theta), 
+					p.x - getElementRadius()*Math.cos(theta),
+					p.y - getElementRadius()*Math.sin(theta),
+					p.x - Math.min(1.5*getElementRadius(), getElementRingRadius()/2)*Math.cos(theta),
 					p.y - Math.min(1.5*getElementRadius(), getElementRingRadius()/2)*Math.sin(theta));
-			drawArrowLineWithHeadLabel(g, 
+			drawArrowLineWithHeadLabel(g,
 					new Line2D.Float(distribInLine.getP1(), distribInLine.getP2()),
-					formatValue(distribInValue));
-	
-			double distribOutValue = city.getName().equals(element.getOrigin()) ? stateProvider.getInput(element) : 0;
-			if(distribOutValue > eps) {
+					state.distributionIn.label);
+
+			if(state.distributionOut.value > eps) {
 				g.setColor(getDeficitColor());
 			} else {
 				g.setColor(getNeutralColor());
 			}
 			Line2D.Double distribOutLine = new Line2D.Double(
-					p.x + getElementRadius()*Math.cos(theta), 
-					p.y + getElementRadius()*Math.sin(theta), 
-					p.x + Math.min(1.5*getElementRadius(), getElementRingRadius()/2)*Math.cos(theta), 
+					p.x + getElementRadius()*Math.cos(theta),
+					p.y + getElementRadius()*Math.sin(theta),
+					p.x + Math.min(1.5*getElementRadius(), getElementRingRadius()/2)*Math.cos(theta),
 					p.y + Math.min(1.5*getElementRadius(), getElementRingRadius()/2)*Math.sin(theta));
-			drawArrowLineWithHeadLabel(g, 
-					new Line2D.Float(distribOutLine.getP1(), distribOutLine.getP2()), 
-					formatValue(distribOutValue));
+			drawArrowLineWithHeadLabel(g,
+					new Line2D.Float(distribOutLine.getP1(), distribOutLine.getP2()),
+					state.distributionOut.label);
 		}
 		g.dispose();
 	}
-	
+
+	/**
+	 * Draw the static element label.
+	 *
+	 * @param g2d the graphics
+	 * @param element the element
+	 */
+	private void drawElementLabel(Graphics2D g2d, InfrastructureElement element) {
+		Point p = elementLocations.get(element);
+
+		Graphics2D g = (Graphics2D)g2d.create();
+		double theta = Math.atan2(p.y - getCenterY(), p.x - getCenterX());
+		double labelTheta = theta + ((theta > 0 && theta < Math.PI/2) || (theta < -Math.PI/2)?-1:1)*Math.PI/12;
+		g.setColor(Color.BLACK);
+		g.drawString(element.getName(),
+				p.x + (int)Math.round(1.25*getElementRadius()*Math.cos(labelTheta) + 5*Math.cos(labelTheta))
+				- (Math.cos(labelTheta) < 0?g.getFontMetrics().stringWidth(element.getName()):0),
+				p.y + (int)Math.round(1.25*getElementRadius()*Math.sin(labelTheta) + 5*Math.sin(labelTheta))
+				+ g.getFontMetrics().getHeight()/2);
+		g.dispose();
+	}
+
 	/**
 	 * Draw legend.
 	 *
@@ -478,14 +709,14 @@ public class SpatialStatePanel extends JPanel {
 	 */
 	private void drawLegend(Graphics2D g2d) {
 		Graphics2D g = (Graphics2D)g2d.create();
-		
+
 		g.setColor(getSurplusColor());
 		this.drawArrowLineWithHeadLabel(g, new Line2D.Float(
-				5, g.getFontMetrics().getHeight()/2 + 2, 
+				5, g.getFontMetrics().getHeight()/2 + 2,
 				25, g.getFontMetrics().getHeight()/2 + 2), "In-flow");
 		g.setColor(getDeficitColor());
 		this.drawArrowLineWithHeadLabel(g, new Line2D.Float(
-				5, 3*g.getFontMetrics().getHeight()/2 + 2, 
+				5, 3*g.getFontMetrics().getHeight()/2 + 2,
 				25, 3*g.getFontMetrics().getHeight()/2 + 2), "Out-flow");
 		g.setColor(getSurplusColor());
 		g.fillOval(10, 5*g.getFontMetrics().getHeight()/2 + 2, 10, 10);
@@ -499,159 +730,173 @@ public class SpatialStatePanel extends JPanel {
 		g.drawOval(10, 7*g.getFontMetrics().getHeight()/2 + 2, 10, 10);
 		g.dispose();
 	}
-	
+
 	/**
 	 * Draw society.
 	 *
 	 * @param g2d the graphics
 	 * @param society the society
+	 * @param state the society state
 	 */
-	private void drawSociety(Graphics2D g2d, Society society) {
+	private void drawSociety(Graphics2D g2d, Society society, SocietyState state) {
 		Graphics2D g = (Graphics2D)g2d.create();
-		
+
 		Point p = societyLocations.get(society);
 		boolean isCenterSociety = p.equals(new Point(getCenterX(), getCenterY()));
-		
+
 		double theta = 0;
-		g.setColor(Color.BLACK);
-		if(isCenterSociety) {
-			g.drawString(society.getName(), 
-					getCenterX() + (int)Math.round((getSocietyRadius() + 5)
-							*Math.cos(Math.PI/4)), 
-					getCenterY() + (int)Math.round((getSocietyRadius() + 5
-							+ g.getFontMetrics().getHeight())*Math.sin(Math.PI/4)));
-		} else {
+		if(!isCenterSociety) {
 			theta = Math.atan2(p.y - getCenterY(), p.x - getCenterX());
-			double labelTheta = theta + ((theta > 0 && theta < Math.PI/2) || (theta < -Math.PI/2)?-1:1)*Math.PI/4;
-			g.drawString(society.getName(), 
-					p.x + (int)Math.round(1.25*getSocietyRadius()*Math.cos(labelTheta) + 5*Math.cos(labelTheta))
-					- (Math.cos(labelTheta) < 0?g.getFontMetrics().stringWidth(society.getName()):0), 
-					p.y + (int)Math.round(1.25*getSocietyRadius()*Math.sin(labelTheta) + 5*Math.sin(labelTheta))
-					+ g.getFontMetrics().getHeight()/2);
 		}
-		double netFlowValue = stateProvider.getNetFlow(society);
-		
-		if(netFlowValue > eps) {
+
+		if(state.netFlow.value > eps) {
 			g.setColor(getSurplusColor());
-		} else if(netFlowValue < -eps) {
+		} else if(state.netFlow.value < -eps) {
 			g.setColor(getDeficitColor());
 		} else {
 			g.setColor(Color.WHITE);
 		}
-		g.fillOval(p.x - getSocietyRadius(), p.y - getSocietyRadius(), 
+		g.fillOval(p.x - getSocietyRadius(), p.y - getSocietyRadius(),
 				2*getSocietyRadius(), 2*getSocietyRadius());
-		
+
 		g.setColor(Color.BLACK);
-		g.drawString(formatValue(Math.abs(netFlowValue)), 
-				p.x - g.getFontMetrics().stringWidth(formatValue(Math.abs(netFlowValue)))/2, 
+		g.drawString(state.netFlow.label,
+				p.x - g.getFontMetrics().stringWidth(state.netFlow.label)/2,
 				p.y + g.getFontMetrics().getHeight()/2);
 		g.setColor(Color.BLACK);
-		g.drawOval(p.x - getSocietyRadius(), p.y - getSocietyRadius(), 
+		g.drawOval(p.x - getSocietyRadius(), p.y - getSocietyRadius(),
 				2*getSocietyRadius(), 2*getSocietyRadius());
-		
+
 		if(!society.getCountry().equals(society.getSociety())) {
-			double domesticExport = stateProvider.getOtherDistributionOut(society);
-			if(domesticExport > 0) {
+			if(state.otherDistributionOut.value > 0) {
 				g.setColor(getDeficitColor());
 			} else {
 				g.setColor(getNeutralColor());
 			}
 			double length = 0;
 			if(isCenterSociety) {
-				length = Math.min(getSocietyBoundaryRadius() + MIN_SOCIETY_RADIUS/2, 
+				length = Math.min(getSocietyBoundaryRadius() + MIN_SOCIETY_RADIUS/2,
 						getMaxRadius() + MIN_SOCIETY_RADIUS/2);
 			} else {
-				length = Math.min(getSocietyBoundaryRadius() - getSocietyRingRadius() + getSocietyRadius()/2, 
+				length = Math.min(getSocietyBoundaryRadius() - getSocietyRingRadius() + getSocietyRadius()/2,
 						getMaxRadius() - getSocietyRingRadius() + getSocietyRadius()/2);
 			}
 			Line2D.Double exportLine = new Line2D.Double(
-					p.x + getSocietyRadius()*Math.cos(theta+Math.PI/18), 
-					p.y + getSocietyRadius()*Math.sin(theta+Math.PI/18), 
-					p.x + length*Math.cos(theta+Math.PI/18), 
+					p.x + getSocietyRadius()*Math.cos(theta+Math.PI/18),
+					p.y + getSocietyRadius()*Math.sin(theta+Math.PI/18),
+					p.x + length*Math.cos(theta+Math.PI/18),
 					p.y + length*Math.sin(theta+Math.PI/18));
-			drawArrowLineWithHeadLabel(g, 
+			drawArrowLineWithHeadLabel(g,
 					new Line2D.Float(exportLine.getP1(), exportLine.getP2()),
-					formatValue(domesticExport));
+					state.otherDistributionOut.label);
 		}
-		
+
 		if(stateProvider.isExportAllowed()) {
-			double exportValue = stateProvider.getExport(society);
-			if(exportValue > eps) {
+			if(state.exportFlow.value > eps) {
 				g.setColor(getDeficitColor());
 			} else {
 				g.setColor(getNeutralColor());
 			}
 			double length = 0;
 			if(isCenterSociety) {
-				length = Math.min(getCountryBoundaryRadius() + getSocietyRadius(), 
+				length = Math.min(getCountryBoundaryRadius() + getSocietyRadius(),
 						getMaxRadius() + MIN_SOCIETY_RADIUS/2);
 			} else {
-				length = Math.min(getCountryBoundaryRadius() - getSocietyRingRadius() + getSocietyRadius(), 
+				length = Math.min(getCountryBoundaryRadius() - getSocietyRingRadius() + getSocietyRadius(),
 						getMaxRadius() - getSocietyRingRadius() + getSocietyRadius()/2);
 			}
 			Line2D.Double exportLine = new Line2D.Double(
-					p.x + getSocietyRadius()*Math.cos(theta+Math.PI/12), 
-					p.y + getSocietyRadius()*Math.sin(theta+Math.PI/12), 
-					p.x + length*Math.cos(theta+Math.PI/12), 
+					p.x + getSocietyRadius()*Math.cos(theta+Math.PI/12),
+					p.y + getSocietyRadius()*Math.sin(theta+Math.PI/12),
+					p.x + length*Math.cos(theta+Math.PI/12),
 					p.y + length*Math.sin(theta+Math.PI/12));
-			drawArrowLineWithHeadLabel(g, 
+			drawArrowLineWithHeadLabel(g,
 					new Line2D.Float(exportLine.getP1(), exportLine.getP2()),
-					formatValue(exportValue));
+					state.exportFlow.label);
 		}
 
 		if(stateProvider.isImportAllowed()) {
-			double importValue = stateProvider.getImport(society);
-			if(importValue > eps) {
+			if(state.importFlow.value > eps) {
 				g.setColor(getSurplusColor());
 			} else {
 				g.setColor(getNeutralColor());
 			}
 			double length = 0;
 			if(isCenterSociety) {
-				length = Math.min(getCountryBoundaryRadius() + getSocietyRadius(), 
+				length = Math.min(getCountryBoundaryRadius() + getSocietyRadius(),
 						getMaxRadius() + MIN_SOCIETY_RADIUS/2);
 			} else {
-				length = Math.min(getCountryBoundaryRadius() - getSocietyRingRadius() + getSocietyRadius(), 
+				length = Math.min(getCountryBoundaryRadius() - getSocietyRingRadius() + getSocietyRadius(),
 						getMaxRadius() - getSocietyRingRadius() + getSocietyRadius()/2);
 			}
 			Line2D.Double importLine = new Line2D.Double(
-					p.x + length*Math.cos(theta-Math.PI/18), 
+					p.x + length*Math.cos(theta-Math.PI/18),
 					p.y + length*Math.sin(theta-Math.PI/18),
-					p.x + getSocietyRadius()*Math.cos(theta-Math.PI/18), 
+					p.x + getSocietyRadius()*Math.cos(theta-Math.PI/18),
 					p.y + getSocietyRadius()*Math.sin(theta-Math.PI/18));
-			drawArrowLineWithTailLabel(g, 
+			drawArrowLineWithTailLabel(g,
 					new Line2D.Float(importLine.getP1(), importLine.getP2()),
-					formatValue(importValue));
+					state.importFlow.label);
 		}
 
 		if(!society.getCountry().equals(society.getSociety())) {
-			double domesticImport = stateProvider.getOtherDistributionIn(society);
-			if(domesticImport > eps) {
+			if(state.otherDistributionIn.value > eps) {
 				g.setColor(getSurplusColor());
 			} else {
 				g.setColor(getNeutralColor());
 			}
 			double length = 0;
 			if(isCenterSociety) {
-				length = Math.min(getSocietyBoundaryRadius() + MIN_SOCIETY_RADIUS/2, 
+				length = Math.min(getSocietyBoundaryRadius() + MIN_SOCIETY_RADIUS/2,
 						getMaxRadius() + MIN_SOCIETY_RADIUS/2);
 			} else {
-				length = Math.min(getSocietyBoundaryRadius() - getSocietyRingRadius() + getSocietyRadius()/2, 
+				length = Math.min(getSocietyBoundaryRadius() - getSocietyRingRadius() + getSocietyRadius()/2,
 						getMaxRadius() - getSocietyRingRadius() + getSocietyRadius()/2);
 			}
 			Line2D.Double importLine = new Line2D.Double(
-					p.x + length*Math.cos(theta-Math.PI/12), 
+					p.x + length*Math.cos(theta-Math.PI/12),
 					p.y + length*Math.sin(theta-Math.PI/12),
-					p.x + getSocietyRadius()*Math.cos(theta-Math.PI/12), 
+					p.x + getSocietyRadius()*Math.cos(theta-Math.PI/12),
 					p.y + getSocietyRadius()*Math.sin(theta-Math.PI/12));
-			drawArrowLineWithTailLabel(g, 
+			drawArrowLineWithTailLabel(g,
 					new Line2D.Float(importLine.getP1(), importLine.getP2()),
-					formatValue(domesticImport));
+					state.otherDistributionIn.label);
 		}
-		
+
 		g.dispose();
 	}
-	
+
+	/**
+	 * Draw the static society label.
+	 *
+	 * @param g2d the graphics
+	 * @param society the society
+	 */
+	private void drawSocietyLabel(Graphics2D g2d, Society society) {
+		Graphics2D g = (Graphics2D)g2d.create();
+
+		Point p = societyLocations.get(society);
+		boolean isCenterSociety = p.equals(new Point(getCenterX(), getCenterY()));
+
+		g.setColor(Color.BLACK);
+		if(isCenterSociety) {
+			g.drawString(society.getName(),
+					getCenterX() + (int)Math.round((getSocietyRadius() + 5)
+							*Math.cos(Math.PI/4)),
+					getCenterY() + (int)Math.round((getSocietyRadius() + 5
+							+ g.getFontMetrics().getHeight())*Math.sin(Math.PI/4)));
+		} else {
+			double theta = Math.atan2(p.y - getCenterY(), p.x - getCenterX());
+			double labelTheta = theta + ((theta > 0 && theta < Math.PI/2) || (theta < -Math.PI/2)?-1:1)*Math.PI/4;
+			g.drawString(society.getName(),
+					p.x + (int)Math.round(1.25*getSocietyRadius()*Math.cos(labelTheta) + 5*Math.cos(labelTheta))
+					- (Math.cos(labelTheta) < 0?g.getFontMetrics().stringWidth(society.getName()):0),
+					p.y + (int)Math.round(1.25*getSocietyRadius()*Math.sin(labelTheta) + 5*Math.sin(labelTheta))
+					+ g.getFontMetrics().getHeight()/2);
+		}
+		g.dispose();
+	}
+
 	/**
 	 * Format value.
 	 *
@@ -675,50 +920,43 @@ public class SpatialStatePanel extends JPanel {
 			return format.format(value)+ " " + stateProvider.getUnits();
 		}
 	}
-	
+
 	/**
 	 * Gets the center x.
 	 *
 	 * @return the center x
 	 */
 	private int getCenterX() {
-		return (int) (getWidth() - (getInsets().left + getInsets().right)) / 2;
+		return centerX;
 	}
-	
+
 	/**
 	 * Gets the center y.
 	 *
 	 * @return the center y
 	 */
 	private int getCenterY() {
-		return (int) (getHeight() - (getInsets().top + getInsets().bottom)) / 2;
+		return centerY;
 	}
-	
+
 	/**
 	 * Gets the country radius.
 	 *
 	 * @return the country radius
 	 */
 	private int getCountryBoundaryRadius() {
-		if(society.equals(society.getCountry())) {
-			return (int)Math.round(0.9*getMaxRadius());
-		} else {
-			return getMaxRadius();
-		}
+		return countryBoundaryRadius;
 	}
-	
+
 	/**
 	 * Gets the element radius.
 	 *
 	 * @return the element radius
 	 */
 	private int getElementRadius() {
-		return (int) Math.round(Math.min(getSocietyBoundaryRadius()/5, 
-				Math.max(MIN_ELEMENT_RADIUS, 
-				Math.PI / 6 * getSocietyBoundaryRadius()
-				/ (stateProvider.getElements(society).size() + getNumberPseudoElements()))));
+		return elementRadius;
 	}
-	
+
 	/**
 	 * Gets the element ring radius.
 	 *
@@ -727,20 +965,26 @@ public class SpatialStatePanel extends JPanel {
 	private int getElementRingRadius() {
 		return getSocietyBoundaryRadius() - getElementRadius();
 	}
-	
+
+	/**
+	 * Gets a flow with a formatted label.
+	 *
+	 * @param value the value
+	 * @return the flow
+	 */
+	private Flow getFlow(double value) {
+		return new Flow(value, formatValue(value));
+	}
+
 	/**
 	 * Gets the max radius.
 	 *
 	 * @return the max radius
 	 */
 	private int getMaxRadius() {
-		return (int)Math.round(0.5*(
-				Math.min(getWidth() - (getInsets().left + getInsets().right 
-						+ 2*5 + 2*getFontMetrics(getFont()).stringWidth(formatValue(1e6))), 
-						getHeight() - (getInsets().top + getInsets().bottom 
-								+ 2*5 + 2*getFontMetrics(getFont()).getHeight()))));
+		return maxRadius;
 	}
-	
+
 	/**
 	 * Gets the number pseudo elements.
 	 *
@@ -756,32 +1000,25 @@ public class SpatialStatePanel extends JPanel {
 		}
 		return numberPseudoElements;
 	}
-	
+
 	/**
 	 * Gets the country radius.
 	 *
 	 * @return the country radius
 	 */
 	private int getSocietyBoundaryRadius() {
-		if(society.equals(society.getCountry())) {
-			return getCountryBoundaryRadius();
-		} else if(society instanceof City) {
-			return (int)Math.round(0.8*getCountryBoundaryRadius());
-		} else {
-			return (int)Math.round(0.8*getCountryBoundaryRadius());
-		}
+		return societyBoundaryRadius;
 	}
-	
+
 	/**
 	 * Gets the city radius.
 	 *
 	 * @return the city radius
 	 */
 	private int getSocietyRadius() {
-		return (int) Math.round(Math.max(MIN_SOCIETY_RADIUS, 
-				Math.PI / 6 * getSocietyBoundaryRadius() / society.getNestedSocieties().size()));
+		return societyRadius;
 	}
-	
+
 	/**
 	 * Gets the city ring radius.
 	 *
@@ -790,7 +1027,43 @@ public class SpatialStatePanel extends JPanel {
 	private int getSocietyRingRadius() {
 		return getSocietyBoundaryRadius() - getSocietyRadius();
 	}
-	
+
+	/**
+	 * Lays out the panel for its current size and the topology of a frame.
+	 *
+	 * @param frame the frame
+	 */
+	private void layout(Frame frame) {
+		layoutWidth = getWidth();
+		layoutHeight = getHeight();
+		layoutSocieties = frame.societies;
+		layoutElements = frame.elements;
+
+		centerX = (int) (getWidth() - (getInsets().left + getInsets().right)) / 2;
+		centerY = (int) (getHeight() - (getInsets().top + getInsets().bottom)) / 2;
+		maxRadius = (int)Math.round(0.5*(
+				Math.min(getWidth() - (getInsets().left + getInsets().right
+						+ 2*5 + 2*getFontMetrics(getFont()).stringWidth(formatValue(1e6))),
+						getHeight() - (getInsets().top + getInsets().bottom
+								+ 2*5 + 2*getFontMetrics(getFont()).getHeight()))));
+		if(society.equals(society.getCountry())) {
+			countryBoundaryRadius = (int)Math.round(0.9*maxRadius);
+			societyBoundaryRadius = countryBoundaryRadius;
+		} else {
+			countryBoundaryRadius = maxRadius;
+			societyBoundaryRadius = (int)Math.round(0.8*countryBoundaryRadius);
+		}
+		elementRadius = (int) Math.round(Math.min(societyBoundaryRadius/5,
+				Math.max(MIN_ELEMENT_RADIUS,
+				Math.PI / 6 * societyBoundaryRadius
+				/ (layoutElements.size() + getNumberPseudoElements()))));
+		societyRadius = (int) Math.round(Math.max(MIN_SOCIETY_RADIUS,
+				Math.PI / 6 * societyBoundaryRadius / layoutSocieties.size()));
+
+		layoutSocieties();
+		staticLayer = null;
+	}
+
 	/**
 	 * Layout elements.
 	 *
@@ -798,19 +1071,26 @@ public class SpatialStatePanel extends JPanel {
 	 */
 	private void layoutElements(City city) {
 		elementLocations.clear();
-		
-		List<? extends InfrastructureElement> elements = stateProvider.getElements(city);
-		for(InfrastructureElement element : elements) {
-			double theta = 2*Math.PI*(elements.indexOf(element)+getNumberPseudoElements()) 
+
+		List<InfrastructureElement> elements = layoutElements;
+		for(int i = 0; i < elements.size(); i++) {
+			double theta = 2*Math.PI*(i+getNumberPseudoElements())
 					/ (elements.size()+getNumberPseudoElements());
-			elementLocations.put(element, new Point(
-					societyLocations.get(city).x 
+			elementLocations.put(elements.get(i), new Point(
+					societyLocations.get(city).x
 					+ (int) Math.round(getElementRingRadius() * Math.cos(theta)),
-					societyLocations.get(city).y 
+					societyLocations.get(city).y
 					+ (int) Math.round(getElementRingRadius() * Math.sin(theta))));
 		}
+
+		double theta = 2*Math.PI*(getNumberPseudoElements()-1)
+				/ (elements.size() + getNumberPseudoElements());
+		otherProductionLocation = new Point(getCenterX()
+				+ (int)Math.round(getElementRingRadius()*Math.cos(theta)),
+				getCenterY()
+				+ (int)Math.round(getElementRingRadius()*Math.sin(theta)));
 	}
-	
+
 	/**
 	 * Layout societies.
 	 */
@@ -822,58 +1102,78 @@ public class SpatialStatePanel extends JPanel {
 			City city = (City) society;
 			societyLocations.put(city, new Point(getCenterX(), getCenterY()));
 			layoutElements(city);
-		} else if(society.getNestedSocieties().size()==1) {
+		} else if(layoutSocieties.size()==1) {
 			// only one nested society, lay out in center
-			societyLocations.put(society.getNestedSocieties().get(0), 
+			societyLocations.put(layoutSocieties.get(0),
 					new Point(getCenterX(), getCenterY()));
 		} else {
 			// lay out nested societies in a circle
-			for(Society society : this.society.getNestedSocieties()) {
-				double theta = 2*Math.PI*this.society.getNestedSocieties().indexOf(society) 
-						/ this.society.getNestedSocieties().size();
-				societyLocations.put(society, new Point(
+			for(int i = 0; i < layoutSocieties.size(); i++) {
+				double theta = 2*Math.PI*i / layoutSocieties.size();
+				societyLocations.put(layoutSocieties.get(i), new Point(
 						getCenterX() + (int) (getSocietyRingRadius() * Math.cos(theta)),
 						getCenterY() + (int) (getSocietyRingRadius() * Math.sin(theta))));
 			}
 		}
 	}
-	
+
 	@Override
 	public void paintComponent(Graphics g) {
 		super.paintComponent(g);
+		if(getWidth() <= 0 || getHeight() <= 0) {
+			return;
+		}
+
+		Frame frame = this.frame;
+		if(frame == null) {
+			frame = captureFrame(null);
+			this.frame = frame;
+		}
+		if(getWidth() != layoutWidth || getHeight() != layoutHeight
+				|| frame.societies != layoutSocieties
+				|| frame.elements != layoutElements) {
+			layout(frame);
+		}
 
 		Graphics2D g2d = (Graphics2D) g;
+		double scale = g2d.getTransform().getScaleX();
+		if(staticLayer == null || staticLayerScale != scale) {
+			staticLayer = createStaticLayer(scale);
+			staticLayerScale = scale;
+		}
+		g2d.drawImage(staticLayer, 0, 0, getWidth(), getHeight(), null);
+
 		g2d.setRenderingHint(
 		        RenderingHints.KEY_ANTIALIASING,
 		        RenderingHints.VALUE_ANTIALIAS_ON);
 
-		drawBoundaries(g2d);
-		
 		if(society instanceof City) {
 			City city = (City) society;
-			drawCity(g2d, city);
-			layoutElements(city);
-			for(InfrastructureElement element : stateProvider.getElements(city)) {
-				drawElement(g2d, element, city);
+			drawCity(g2d, city, frame.societyStates.get(city));
+			for(InfrastructureElement element : frame.elements) {
+				drawElement(g2d, element, frame.elementStates.get(element));
 			}
 		} else {
-			for(Society society : this.society.getNestedSocieties()) {
-				drawSociety(g2d, society);
-				
-				for(Society dest : this.society.getNestedSocieties()) {
+			for(Society society : frame.societies) {
+				SocietyState state = frame.societyStates.get(society);
+				drawSociety(g2d, society, state);
+
+				for(Society dest : frame.societies) {
 					if(society != dest) {
-						drawDistribution(g2d, society, dest);
+						drawDistribution(g2d, society, dest, state);
 					}
 				}
 			}
 		}
-		
-		drawLegend(g2d);
 	}
-	
-	@Override
-	public void setBounds(int x, int y, int width, int height) {
-		super.setBounds(x, y, width, height);
-		layoutSocieties();
+
+	/**
+	 * Captures the current values of the state provider and repaints this
+	 * panel. The values are read on the calling thread (e.g. the simulation
+	 * thread between time steps), so painting does not read the model.
+	 */
+	public void update() {
+		frame = captureFrame(frame);
+		repaint();
 	}
 }
@@ -27,6 +27,8 @@ import org.jfree.data.xy.DefaultTableXYDataset;
 import org.jfree.data.xy.XYSeries;
 
 import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.MetricsSnapshot;
+import edu.mit.sipg.core.MetricsSnapshot.Metric;
 import edu.mit.sipg.core.Society;
 import edu.mit.sipg.core.electricity.ElectricitySystem;
 import edu.mit.sipg.core.electricity.LocalElectricitySoS;
@@ -318,118 +320,119 @@ public class LocalElectricitySystemPanel extends ElectricitySystemPanel
 		for(LocalElectricitySystemPanel nestedPanel : nestedPanels) {
 			nestedPanel.simulationInitialized(event);
 		}
-		electricityStatePanel.repaint();
+		electricityStatePanel.update();
 	}
 
 	@Override
 	public void simulationUpdated(UpdateEvent event) {
-		update((int)event.getTime());
+		update(event.getMetrics(), (int)event.getTime());
 		for(LocalElectricitySystemPanel nestedPanel : nestedPanels) {
 			nestedPanel.simulationUpdated(event);
 		}
-		electricityStatePanel.repaint();
+		electricityStatePanel.update();
 	}
 
 	/**
 	 * Update.
 	 *
+	 * @param metrics the metrics snapshot
 	 * @param year the year
 	 */
-	private void update(int year) {
+	private void update(MetricsSnapshot metrics, int year) {
 		updateSeries(electricitySourceAggregatedData, "Production", year, 
 				ElectricityUnits.convertFlow(
-						electricitySystem.getElectricityProduction(), 
+						metrics.getValue(electricitySystem, Metric.ELECTRICITY_PRODUCTION), 
 						electricitySystem, this));
 		updateSeries(electricitySourceAggregatedData, "Private Operations", year, 
 				ElectricityUnits.convertFlow(
-						electricitySystem.getElectricityFromPrivateProduction(),
+						metrics.getValue(electricitySystem, Metric.ELECTRICITY_FROM_PRIVATE_PRODUCTION),
 						electricitySystem, this));
 		updateSeries(electricityUseAggregatedData, "Society", year, 
-				ElectricityUnits.convertFlow(getSociety().getSocialSystem().getElectricityConsumption(),
+				ElectricityUnits.convertFlow(metrics.getValue(getSociety().getSocialSystem(), Metric.ELECTRICITY_CONSUMPTION),
 						getSociety().getSocialSystem(), this));
 		updateSeries(electricityUseAggregatedData, "Water Operations", year,  
 				ElectricityUnits.convertFlow(
-						getSociety().getWaterSystem().getElectricityConsumption(),
+						metrics.getValue(getSociety().getWaterSystem(), Metric.ELECTRICITY_CONSUMPTION),
 						getSociety().getWaterSystem(), this));
 		updateSeries(electricityUseAggregatedData, "Petroleum Operations", year,  
 				ElectricityUnits.convertFlow(
-						getSociety().getPetroleumSystem().getElectricityConsumption(),
+						metrics.getValue(getSociety().getPetroleumSystem(), Metric.ELECTRICITY_CONSUMPTION),
 						getSociety().getPetroleumSystem(), this));
 		if(electricitySystem instanceof LocalElectricitySoS) {
 			for(ElectricitySystem.Local nestedSystem : getNestedElectricitySystems()) {
 				updateSeries(electricitySourceDisaggregatedData, nestedSystem.getSociety().getName(), year,
-						ElectricityUnits.convertFlow(nestedSystem.getTotalElectricitySupply()
-								+ nestedSystem.getElectricityFromPrivateProduction()
-								+ nestedSystem.getElectricityOutDistribution()
-								- nestedSystem.getElectricityInDistribution()
-								- nestedSystem.getElectricityWasted(), 
+						ElectricityUnits.convertFlow(metrics.getValue(nestedSystem, Metric.TOTAL_ELECTRICITY_SUPPLY)
+								+ metrics.getValue(nestedSystem, Metric.ELECTRICITY_FROM_PRIVATE_PRODUCTION)
+								+ metrics.getValue(nestedSystem, Metric.ELECTRICITY_OUT_DISTRIBUTION)
+								- metrics.getValue(nestedSystem, Metric.ELECTRICITY_IN_DISTRIBUTION)
+								- metrics.getValue(nestedSystem, Metric.ELECTRICITY_WASTED), 
 								nestedSystem, this));
 				updateSeries(electricityUseDisaggregatedData, nestedSystem.getSociety().getName(), year,
 						ElectricityUnits.convertFlow(
 								nestedSystem.getSociety().getTotalElectricityDemand(), 
 								nestedSystem.getSociety(), this));
 				updateSeries(petroleumUseDisaggregatedData, nestedSystem.getSociety().getName(), year, 
-						OilUnits.convertFlow(electricitySystem.getPetroleumConsumption(),
+						OilUnits.convertFlow(metrics.getValue(electricitySystem, Metric.PETROLEUM_CONSUMPTION),
 								electricitySystem, this));
 			}
 		} else {
 			updateSeries(electricitySourceAggregatedData,  "Distribution", year, 
 					ElectricityUnits.convertFlow(
-							electricitySystem.getElectricityInDistribution(), 
+							metrics.getValue(electricitySystem, Metric.ELECTRICITY_IN_DISTRIBUTION), 
 							electricitySystem, this));
 			updateSeries(electricityUseAggregatedData, "Distribution", year, 
 					ElectricityUnits.convertFlow(
-							electricitySystem.getElectricityOutDistribution(), 
+							metrics.getValue(electricitySystem, Metric.ELECTRICITY_OUT_DISTRIBUTION), 
 							electricitySystem, this));
 		}
 		updateSeries(electricityUseAggregatedData, "Wasted", year,  
 				ElectricityUnits.convertFlow(
-						electricitySystem.getElectricityWasted(),
+						metrics.getValue(electricitySystem, Metric.ELECTRICITY_WASTED),
 						electricitySystem, this));
 		updateSeries(electricityUseDisaggregatedData, "Wasted", year,  
 				ElectricityUnits.convertFlow(
-						electricitySystem.getElectricityWasted(),
+						metrics.getValue(electricitySystem, Metric.ELECTRICITY_WASTED),
 						electricitySystem, this));
 		updateSeries(petroleumUseAggregatedData, "Operations", year, 
-				OilUnits.convertFlow(electricitySystem.getPetroleumConsumptionFromPublicProduction(),
+				OilUnits.convertFlow(metrics.getValue(electricitySystem, Metric.PETROLEUM_CONSUMPTION_FROM_PUBLIC_PRODUCTION),
 						electricitySystem, this));
 		updateSeries(petroleumUseAggregatedData, "Private Operations", year, 
-				OilUnits.convertFlow(electricitySystem.getPetroleumConsumptionFromPrivateProduction(),
+				OilUnits.convertFlow(metrics.getValue(electricitySystem, Metric.PETROLEUM_CONSUMPTION_FROM_PRIVATE_PRODUCTION),
 						electricitySystem, this));
 		
 		updateSeries(cashFlow, "Capital Expense", year, 
 				CurrencyUnits.convertFlow(
-						-electricitySystem.getCapitalExpense(), 
+						-metrics.getValue(electricitySystem, Metric.CAPITAL_EXPENSE), 
 						electricitySystem, this));
 		updateSeries(cashFlow, "Operations Expense", year, 
 				CurrencyUnits.convertFlow(
-						-electricitySystem.getOperationsExpense()
-						-electricitySystem.getConsumptionExpense(), 
+						-metrics.getValue(electricitySystem, Metric.OPERATIONS_EXPENSE)
+						-metrics.getValue(electricitySystem, Metric.CONSUMPTION_EXPENSE), 
 						electricitySystem, this));
 		updateSeries(cashFlow, "Decommission Expense", year, 
 				CurrencyUnits.convertFlow(
-						-electricitySystem.getDecommissionExpense(), 
+						-metrics.getValue(electricitySystem, Metric.DECOMMISSION_EXPENSE), 
 						electricitySystem, this));
 		if(!(electricitySystem.getSociety() instanceof Country)) {
 			updateSeries(cashFlow, "Distribution Expense", year, 
 					CurrencyUnits.convertFlow(
-							-electricitySystem.getDistributionExpense(), 
+							-metrics.getValue(electricitySystem, Metric.DISTRIBUTION_EXPENSE), 
 							electricitySystem, this));
 			updateSeries(cashFlow, "Distribution Revenue", year, 
 					CurrencyUnits.convertFlow(
-							electricitySystem.getDistributionRevenue(), 
+							metrics.getValue(electricitySystem, Metric.DISTRIBUTION_REVENUE), 
 							electricitySystem, this));
 		}
 		updateSeries(cashFlow, "Domestic Revenue", year, 
 				CurrencyUnits.convertFlow(
-						electricitySystem.getSalesRevenue(), 
+						metrics.getValue(electricitySystem, Metric.SALES_REVENUE), 
 						electricitySystem, this));
 		updateSeries(netCashFlow, "Net Revenue", year, 
 				CurrencyUnits.convertFlow(
-						electricitySystem.getCashFlow(), 
+						metrics.getValue(electricitySystem, Metric.CASH_FLOW), 
 						electricitySystem, this));
 		updateSeries(cumulativeBalance, "Cumulative Net Revenue", year, 
-				CurrencyUnits.convertFlow(electricitySystem.getCumulativeCashFlow(),
+				CurrencyUnits.convertFlow(metrics.getValue(electricitySystem, Metric.CUMULATIVE_CASH_FLOW),
 						electricitySystem, this));
 	}
 }
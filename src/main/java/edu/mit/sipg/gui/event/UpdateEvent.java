@@ -18,6 +18,7 @@ package edu.mit.sipg.gui.event;
 import java.util.EventObject;
 
 import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.MetricsSnapshot;
 
 /**
  * The update event object is a change triggered by a simulation event.
@@ -29,18 +30,34 @@ public class UpdateEvent extends EventObject {
 	
 	private final long time;
 	private final Country country;
+	private transient MetricsSnapshot metrics;
 	
 	/**
-	 * Instantiates a new update event.
+	 * Instantiates a new update event. The metrics snapshot is 
+	 * captured on demand.
 	 *
 	 * @param source the source
 	 * @param time the time
 	 * @param country the country
 	 */
 	public UpdateEvent(Object source, long time, Country country) {
+		this(source, time, country, null);
+	}
+	
+	/**
+	 * Instantiates a new update event.
+	 *
+	 * @param source the source
+	 * @param time the time
+	 * @param country the country
+	 * @param metrics the metrics snapshot
+	 */
+	public UpdateEvent(Object source, long time, Country country, 
+			MetricsSnapshot metrics) {
 		super(source);
 		this.time = time;
 		this.country = country;
+		this.metrics = metrics;
 	}
 	
 	/**
@@ -60,4 +77,16 @@ public class UpdateEvent extends EventObject {
 	public Country getCountry() {
 		return country;
 	}
+	
+	/**
+	 * Gets the metrics snapshot of the country at the time of this event.
+	 *
+	 * @return the metrics snapshot
+	 */
+	public synchronized MetricsSnapshot getMetrics() {
+		if(metrics == null) {
+			metrics = MetricsSnapshot.capture(country);
+		}
+		return metrics;
+	}
 }
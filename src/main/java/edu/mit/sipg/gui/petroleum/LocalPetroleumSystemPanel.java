@@ -28,6 +28,8 @@ import org.jfree.data.xy.DefaultTableXYDataset;
 import org.jfree.data.xy.XYSeries;
 
 import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.MetricsSnapshot;
+import edu.mit.sipg.core.MetricsSnapshot.Metric;
 import edu.mit.sipg.core.Society;
 import edu.mit.sipg.core.petroleum.LocalPetroleumSoS;
 import edu.mit.sipg.core.petroleum.PetroleumSystem;
@@ -316,94 +318,95 @@ public class LocalPetroleumSystemPanel extends PetroleumSystemPanel
 		for(LocalPetroleumSystemPanel nestedPanel : nestedPanels) {
 			nestedPanel.simulationInitialized(event);
 		}
-		petroleumStatePanel.repaint();
+		petroleumStatePanel.update();
 	}
 	
 	@Override
 	public void simulationUpdated(UpdateEvent event) {
-		update((int)event.getTime());
+		update(event.getMetrics(), (int)event.getTime());
 		for(LocalPetroleumSystemPanel nestedPanel : nestedPanels) {
 			nestedPanel.simulationUpdated(event);
 		}
-		petroleumStatePanel.repaint();
+		petroleumStatePanel.update();
 	}
 
 	/**
 	 * Update.
 	 *
+	 * @param metrics the metrics snapshot
 	 * @param year the year
 	 */
-	private void update(int year) {
+	private void update(MetricsSnapshot metrics, int year) {
 		updateSeries(cashFlow, "Capital Expense", year, 
 				CurrencyUnits.convertFlow(
-						-petroleumSystem.getCapitalExpense(),
+						-metrics.getValue(petroleumSystem, Metric.CAPITAL_EXPENSE),
 						petroleumSystem, this));
 		updateSeries(cashFlow, "Operations Expense", year,  
 				CurrencyUnits.convertFlow(
-						-petroleumSystem.getOperationsExpense()
-						- petroleumSystem.getConsumptionExpense(),
+						-metrics.getValue(petroleumSystem, Metric.OPERATIONS_EXPENSE)
+						- metrics.getValue(petroleumSystem, Metric.CONSUMPTION_EXPENSE),
 						petroleumSystem, this));
 		updateSeries(cashFlow, "Decommission Expense", year,  
 				CurrencyUnits.convertFlow(
-						-petroleumSystem.getDecommissionExpense(),
+						-metrics.getValue(petroleumSystem, Metric.DECOMMISSION_EXPENSE),
 						petroleumSystem, this));
 		if(!(petroleumSystem.getSociety() instanceof Country)) {
 			updateSeries(cashFlow, "Distribution Expense", year,  
 					CurrencyUnits.convertFlow(
-							-petroleumSystem.getDistributionExpense(),
+							-metrics.getValue(petroleumSystem, Metric.DISTRIBUTION_EXPENSE),
 							petroleumSystem, this));
 		}
 		updateSeries(cashFlow, "Import Expense", year,  
 				CurrencyUnits.convertFlow(
-						-petroleumSystem.getImportExpense(),
+						-metrics.getValue(petroleumSystem, Metric.IMPORT_EXPENSE),
 						petroleumSystem, this));
 		if(!(petroleumSystem.getSociety() instanceof Country)) {
 			updateSeries(cashFlow, "Distribution Revenue", year, 
 					CurrencyUnits.convertFlow( 
-							petroleumSystem.getDistributionRevenue(),
+							metrics.getValue(petroleumSystem, Metric.DISTRIBUTION_REVENUE),
 							petroleumSystem, this));
 		}
 		updateSeries(cashFlow, "Export Revenue", year, 
 				CurrencyUnits.convertFlow(
-						petroleumSystem.getExportRevenue(),
+						metrics.getValue(petroleumSystem, Metric.EXPORT_REVENUE),
 						petroleumSystem, this));
 		updateSeries(cashFlow, "Domestic Revenue", year,  
 				CurrencyUnits.convertFlow(
-						petroleumSystem.getSalesRevenue(),
+						metrics.getValue(petroleumSystem, Metric.SALES_REVENUE),
 						petroleumSystem, this));
 		updateSeries(netCashFlow, "Net Revenue", year, 
-				CurrencyUnits.convertFlow(petroleumSystem.getCashFlow(),
+				CurrencyUnits.convertFlow(metrics.getValue(petroleumSystem, Metric.CASH_FLOW),
 						petroleumSystem, this));
 		updateSeries(cumulativeBalance, "Cumulative Net Revenue", year, 
-				CurrencyUnits.convertFlow(petroleumSystem.getCumulativeCashFlow(),
+				CurrencyUnits.convertFlow(metrics.getValue(petroleumSystem, Metric.CUMULATIVE_CASH_FLOW),
 						petroleumSystem, this));
 
 		updateSeries(petroleumSourceAggregatedData, "Production", year, 
-				OilUnits.convertFlow(petroleumSystem.getPetroleumProduction(), 
+				OilUnits.convertFlow(metrics.getValue(petroleumSystem, Metric.PETROLEUM_PRODUCTION), 
 						petroleumSystem, this));
 		updateSeries(petroleumUseAggregatedData, "Society", year, 
-				OilUnits.convertFlow(getSociety().getSocialSystem().getPetroleumConsumption(),
+				OilUnits.convertFlow(metrics.getValue(getSociety().getSocialSystem(), Metric.PETROLEUM_CONSUMPTION),
 						getSociety().getSocialSystem(), this));
 		updateSeries(petroleumUseAggregatedData, "Electricity Operations", year, 
 				OilUnits.convertFlow(
-						getSociety().getElectricitySystem().getPetroleumConsumption(),
+						metrics.getValue(getSociety().getElectricitySystem(), Metric.PETROLEUM_CONSUMPTION),
 						getSociety().getElectricitySystem(), this));
 		updateSeries(electricityUseAggregatedData, "Operations", year, 
-				ElectricityUnits.convertFlow(petroleumSystem.getElectricityConsumption(),
+				ElectricityUnits.convertFlow(metrics.getValue(petroleumSystem, Metric.ELECTRICITY_CONSUMPTION),
 						petroleumSystem, this));
 		if(petroleumSystem instanceof LocalPetroleumSoS) {
 			for(PetroleumSystem.Local nestedSystem : getNestedPetroleumSystems()) {
 				updateSeries(petroleumSourceDisaggregatedData, nestedSystem.getSociety().getName(), year,
-						OilUnits.convertFlow(nestedSystem.getTotalPetroleumSupply()
-								+ nestedSystem.getPetroleumOutDistribution()
-								- nestedSystem.getPetroleumInDistribution()
-								- nestedSystem.getPetroleumImport()
-								+ nestedSystem.getPetroleumExport(), nestedSystem, this));
+						OilUnits.convertFlow(metrics.getValue(nestedSystem, Metric.TOTAL_PETROLEUM_SUPPLY)
+								+ metrics.getValue(nestedSystem, Metric.PETROLEUM_OUT_DISTRIBUTION)
+								- metrics.getValue(nestedSystem, Metric.PETROLEUM_IN_DISTRIBUTION)
+								- metrics.getValue(nestedSystem, Metric.PETROLEUM_IMPORT)
+								+ metrics.getValue(nestedSystem, Metric.PETROLEUM_EXPORT), nestedSystem, this));
 				updateSeries(petroleumUseDisaggregatedData, nestedSystem.getSociety().getName(), year,
 						OilUnits.convertFlow(nestedSystem.getSociety().getTotalPetroleumDemand(), 
 								nestedSystem.getSociety(), this));
 				updateSeries(electricityUseDisaggregatedData, nestedSystem.getSociety().getName(), year, 
-						ElectricityUnits.convertFlow(nestedSystem.getElectricityConsumption(),
+						ElectricityUnits.convertFlow(metrics.getValue(nestedSystem, Metric.ELECTRICITY_CONSUMPTION),
 								nestedSystem, this));
 			}
 			for(Society nestedSociety : getSociety().getNestedSocieties()) {
@@ -414,31 +417,31 @@ public class LocalPetroleumSystemPanel extends PetroleumSystemPanel
 		} else {
 			updateSeries(petroleumReservoirDataset, "Reservoir", year, 
 					OilUnits.convertStock(
-							petroleumSystem.getReservoirVolume(), 
+							metrics.getValue(petroleumSystem, Metric.RESERVOIR_VOLUME), 
 							petroleumSystem, this));
 			updateSeries(petroleumSourceAggregatedData, "Distribution", year, 
-					OilUnits.convertFlow(petroleumSystem.getPetroleumInDistribution(),
+					OilUnits.convertFlow(metrics.getValue(petroleumSystem, Metric.PETROLEUM_IN_DISTRIBUTION),
 							petroleumSystem, this));
 			updateSeries(petroleumUseAggregatedData, "Distribution", year, 
-					OilUnits.convertFlow(petroleumSystem.getPetroleumOutDistribution(),
+					OilUnits.convertFlow(metrics.getValue(petroleumSystem, Metric.PETROLEUM_OUT_DISTRIBUTION),
 							petroleumSystem, this));
 		}
 		
 		updateSeries(petroleumSourceAggregatedData, "Import", year, 
 				OilUnits.convertFlow(
-						petroleumSystem.getPetroleumImport(),
+						metrics.getValue(petroleumSystem, Metric.PETROLEUM_IMPORT),
 						petroleumSystem, this));
 		updateSeries(petroleumSourceDisaggregatedData, "Import", year, 
 				OilUnits.convertFlow(
-						petroleumSystem.getPetroleumImport(),
+						metrics.getValue(petroleumSystem, Metric.PETROLEUM_IMPORT),
 						petroleumSystem, this));
 		updateSeries(petroleumUseAggregatedData, "Export", year, 
 				OilUnits.convertFlow(
-						petroleumSystem.getPetroleumExport(),
+						metrics.getValue(petroleumSystem, Metric.PETROLEUM_EXPORT),
 						petroleumSystem, this));
 		updateSeries(petroleumUseDisaggregatedData, "Export", year, 
 				OilUnits.convertFlow(
-						petroleumSystem.getPetroleumExport(),
+						metrics.getValue(petroleumSystem, Metric.PETROLEUM_EXPORT),
 						petroleumSystem, this));
 	}
 }
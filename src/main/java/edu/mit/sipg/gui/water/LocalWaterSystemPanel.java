@@ -28,6 +28,8 @@ import org.jfree.data.xy.DefaultTableXYDataset;
 import org.jfree.data.xy.XYSeries;
 
 import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.MetricsSnapshot;
+import edu.mit.sipg.core.MetricsSnapshot.Metric;
 import edu.mit.sipg.core.Society;
 import edu.mit.sipg.core.water.LocalWaterSoS;
 import edu.mit.sipg.core.water.WaterSystem;
@@ -329,118 +331,119 @@ implements CurrencyUnitsOutput, WaterUnitsOutput, ElectricityUnitsOutput {
 		for(LocalWaterSystemPanel nestedPanel : nestedPanels) {
 			nestedPanel.simulationInitialized(event);
 		}
-		waterStatePanel.repaint();
+		waterStatePanel.update();
 	}
 
 	@Override
 	public void simulationUpdated(UpdateEvent event) {
-		update((int)event.getTime());
+		update(event.getMetrics(), (int)event.getTime());
 		for(LocalWaterSystemPanel nestedPanel : nestedPanels) {
 			nestedPanel.simulationUpdated(event);
 		}
-		waterStatePanel.repaint();
+		waterStatePanel.update();
 	}
 
 	/**
 	 * Update.
 	 *
+	 * @param metrics the metrics snapshot
 	 * @param year the year
 	 */
-	private void update(int year) {
+	private void update(MetricsSnapshot metrics, int year) {
 		updateSeries(cashFlow, "Capital Expense", year, 
 				CurrencyUnits.convertFlow(
-						-waterSystem.getCapitalExpense(), 
+						-metrics.getValue(waterSystem, Metric.CAPITAL_EXPENSE), 
 						waterSystem, this));
 		updateSeries(cashFlow, "Operations Expense", year, 
 				CurrencyUnits.convertFlow(
-						-waterSystem.getOperationsExpense()
-						-waterSystem.getConsumptionExpense(), 
+						-metrics.getValue(waterSystem, Metric.OPERATIONS_EXPENSE)
+						-metrics.getValue(waterSystem, Metric.CONSUMPTION_EXPENSE), 
 						waterSystem, this));
 		updateSeries(cashFlow, "Decommission Expense", year, 
 				CurrencyUnits.convertFlow(
-						-waterSystem.getDecommissionExpense(), 
+						-metrics.getValue(waterSystem, Metric.DECOMMISSION_EXPENSE), 
 						waterSystem, this));
 		if(!(waterSystem.getSociety() instanceof Country)) {
 			updateSeries(cashFlow, "Distribution Expense", year, 
 					CurrencyUnits.convertFlow(
-							-waterSystem.getDistributionExpense(), 
+							-metrics.getValue(waterSystem, Metric.DISTRIBUTION_EXPENSE), 
 							waterSystem, this));
 		}
 		updateSeries(cashFlow, "Import Expense", year, 
 				CurrencyUnits.convertFlow(
-						-waterSystem.getImportExpense(), 
+						-metrics.getValue(waterSystem, Metric.IMPORT_EXPENSE), 
 						waterSystem, this));
 		if(!(waterSystem.getSociety() instanceof Country)) {
 			updateSeries(cashFlow, "Distribution Revenue", year, 
 					CurrencyUnits.convertFlow(
-							-waterSystem.getDistributionExpense(), 
+							-metrics.getValue(waterSystem, Metric.DISTRIBUTION_EXPENSE), 
 							waterSystem, this));
 		}
 		updateSeries(cashFlow, "Domestic Revenue", year, 
 				CurrencyUnits.convertFlow(
-						waterSystem.getSalesRevenue(), 
+						metrics.getValue(waterSystem, Metric.SALES_REVENUE), 
 						waterSystem, this));
 		updateSeries(netCashFlow, "Net Revenue", year, 
-				CurrencyUnits.convertFlow(waterSystem.getCashFlow(),
+				CurrencyUnits.convertFlow(metrics.getValue(waterSystem, Metric.CASH_FLOW),
 						waterSystem, this));
 		updateSeries(cumulativeBalance, "Cumulative Net Revenue", year, 
-				CurrencyUnits.convertFlow(waterSystem.getCumulativeCashFlow(),
+				CurrencyUnits.convertFlow(metrics.getValue(waterSystem, Metric.CUMULATIVE_CASH_FLOW),
 						waterSystem, this));
 		
 		updateSeries(waterSourceAggregatedData, "Production", year, 
-				WaterUnits.convertFlow(waterSystem.getWaterProduction(), 
+				WaterUnits.convertFlow(metrics.getValue(waterSystem, Metric.WATER_PRODUCTION), 
 						waterSystem, this));
 		updateSeries(waterSourceAggregatedData, "Private Operations", year, 
-				WaterUnits.convertFlow(waterSystem.getWaterFromPrivateProduction(), 
+				WaterUnits.convertFlow(metrics.getValue(waterSystem, Metric.WATER_FROM_PRIVATE_PRODUCTION), 
 						waterSystem, this));
 		updateSeries(waterUseAggregatedData, "Society", year, 
-				WaterUnits.convertFlow(getSociety().getSocialSystem().getWaterConsumption(),
+				WaterUnits.convertFlow(metrics.getValue(getSociety().getSocialSystem(), Metric.WATER_CONSUMPTION),
 						getSociety().getSocialSystem(), this));
 		updateSeries(waterUseAggregatedData, "Agriculture Operations", year, 
-				WaterUnits.convertFlow(getSociety().getAgricultureSystem().getWaterConsumption(), 
+				WaterUnits.convertFlow(metrics.getValue(getSociety().getAgricultureSystem(), Metric.WATER_CONSUMPTION), 
 						getSociety().getAgricultureSystem(), this));
 		if(waterSystem instanceof LocalWaterSoS) {
 			for(WaterSystem.Local nestedSystem : getNestedWaterSystems()) {
 				updateSeries(waterAquiferDataset, nestedSystem.getSociety().getName(), year, 
-						WaterUnits.convertFlow(nestedSystem.getWaterReservoirVolume(), 
+						WaterUnits.convertFlow(metrics.getValue(nestedSystem, Metric.WATER_RESERVOIR_VOLUME), 
 								waterSystem, this));
 			}
 		} else {
 			updateSeries(waterSourceAggregatedData, "Distribution", year, 
-					WaterUnits.convertFlow(waterSystem.getWaterInDistribution(), 
+					WaterUnits.convertFlow(metrics.getValue(waterSystem, Metric.WATER_IN_DISTRIBUTION), 
 							waterSystem, this));
 			updateSeries(waterUseAggregatedData, "Distribution", year,
-					WaterUnits.convertFlow(waterSystem.getWaterOutDistribution(), 
+					WaterUnits.convertFlow(metrics.getValue(waterSystem, Metric.WATER_OUT_DISTRIBUTION), 
 							waterSystem, this));
 			updateSeries(waterAquiferDataset, "Aquifer", year, 
-					WaterUnits.convertStock(waterSystem.getWaterReservoirVolume(), 
+					WaterUnits.convertStock(metrics.getValue(waterSystem, Metric.WATER_RESERVOIR_VOLUME), 
 							waterSystem, this));
 		}
 		updateSeries(electricityUseAggregatedData, "Operations", year, 
-				ElectricityUnits.convertFlow(waterSystem.getElectricityConsumptionFromPublicProduction(),
+				ElectricityUnits.convertFlow(metrics.getValue(waterSystem, Metric.ELECTRICITY_CONSUMPTION_FROM_PUBLIC_PRODUCTION),
 						waterSystem, this));
 		updateSeries(electricityUseAggregatedData, "Private Operations", year, 
-				ElectricityUnits.convertFlow(waterSystem.getElectricityConsumptionFromPrivateProduction(),
+				ElectricityUnits.convertFlow(metrics.getValue(waterSystem, Metric.ELECTRICITY_CONSUMPTION_FROM_PRIVATE_PRODUCTION),
 						waterSystem, this));
 		for(WaterSystem.Local nestedSystem : getNestedWaterSystems()) {
 				updateSeries(waterSourceDisaggregatedData, nestedSystem.getSociety().getName(), year,
-						WaterUnits.convertFlow(nestedSystem.getTotalWaterSupply()
-								+ nestedSystem.getWaterOutDistribution()
-								- nestedSystem.getWaterInDistribution()
-								+ nestedSystem.getWaterFromPrivateProduction()
-								- nestedSystem.getWaterImport(), nestedSystem, this));
+						WaterUnits.convertFlow(metrics.getValue(nestedSystem, Metric.TOTAL_WATER_SUPPLY)
+								+ metrics.getValue(nestedSystem, Metric.WATER_OUT_DISTRIBUTION)
+								- metrics.getValue(nestedSystem, Metric.WATER_IN_DISTRIBUTION)
+								+ metrics.getValue(nestedSystem, Metric.WATER_FROM_PRIVATE_PRODUCTION)
+								- metrics.getValue(nestedSystem, Metric.WATER_IMPORT), nestedSystem, this));
 				updateSeries(waterUseDisaggregatedData, nestedSystem.getSociety().getName(), year,
 						WaterUnits.convertFlow(nestedSystem.getSociety().getTotalWaterDemand(), 
 								nestedSystem.getSociety(), this));
 				updateSeries(electricityUseDisaggregatedData, nestedSystem.getSociety().getName(), year, 
-						ElectricityUnits.convertFlow(nestedSystem.getElectricityConsumption(),
+						ElectricityUnits.convertFlow(metrics.getValue(nestedSystem, Metric.ELECTRICITY_CONSUMPTION),
 								nestedSystem, this));
 		}
 		updateSeries(waterSourceAggregatedData, "Import", year, 
-				WaterUnits.convertFlow(waterSystem.getWaterImport(), 
+				WaterUnits.convertFlow(metrics.getValue(waterSystem, Metric.WATER_IMPORT), 
 						waterSystem, this));
 		updateSeries(waterSourceDisaggregatedData, "Import", year, 
-				WaterUnits.convertFlow(waterSystem.getWaterImport(), 
+				WaterUnits.convertFlow(metrics.getValue(waterSystem, Metric.WATER_IMPORT), 
 						waterSystem, this));
 	}
 }
@@ -0,0 +1,150 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+import edu.mit.sipg.scenario.Scenario;
+
+/**
+ * A service which saves scenarios to file on a background thread.
+ * Each request takes an in-memory snapshot of the scenario on the
+ * calling thread and serializes the snapshot off-thread, so the caller
+ * (e.g. a simulation listener or the event dispatch thread) is not
+ * blocked by serialization or file I/O. Requests to save the same file
+ * which arrive while earlier ones are still pending are coalesced into
+ * a single write of the latest snapshot. Files are replaced atomically.
+ * Snapshots are taken with {@link Scenario#copy()}, which retains the
+ * concrete scenario type, so saved files restore scenario-specific
+ * behavior such as the templates offered by a game scenario.
+ *
+ * The worker thread exits when idle and is not a daemon thread, so
+ * pending saves are completed before the application exits.
+ */
+public class AutoSaveService {
+	private static Logger logger = Logger.getLogger(AutoSaveService.class);
+
+	private final Map<File, Scenario> pendingSaves = new LinkedHashMap<File, Scenario>();
+	private boolean writerScheduled;
+	private final ExecutorService executor = new ThreadPoolExecutor(
+			0, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+			new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			return new Thread(runnable, "autosave-writer");
+		}
+	});
+	private final Runnable writer = new Runnable() {
+		@Override
+		public void run() {
+			while(true) {
+				File file;
+				Scenario snapshot;
+				synchronized(pendingSaves) {
+					Iterator<Map.Entry<File, Scenario>> iterator =
+							pendingSaves.entrySet().iterator();
+					if(!iterator.hasNext()) {
+						writerScheduled = false;
+						pendingSaves.notifyAll();
+						return;
+					}
+					Map.Entry<File, Scenario> entry = iterator.next();
+					iterator.remove();
+					file = entry.getKey();
+					snapshot = entry.getValue();
+				}
+				write(snapshot, file);
+			}
+		}
+	};
+
+	/**
+	 * Waits until all requested saves have been written.
+	 *
+	 * @param timeout the timeout
+	 * @param unit the time unit of the timeout
+	 * @return true, if all saves were written before the timeout
+	 * @throws InterruptedException the interrupted exception
+	 */
+	public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		synchronized(pendingSaves) {
+			while(writerScheduled) {
+				long remaining = deadline - System.nanoTime();
+				if(remaining <= 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(pendingSaves, remaining);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Requests a scenario to be saved to a file. A snapshot of the
+	 * scenario is taken before this method returns, so later changes to
+	 * the scenario are not included in the saved file.
+	 *
+	 * @param scenario the scenario
+	 * @param file the file
+	 */
+	public void save(Scenario scenario, File file) {
+		if(scenario == null) {
+			throw new IllegalArgumentException("Scenario cannot be null.");
+		}
+		if(file == null) {
+			throw new IllegalArgumentException("File cannot be null.");
+		}
+		Scenario snapshot = scenario.copy();
+		synchronized(pendingSaves) {
+			if(pendingSaves.put(file, snapshot) != null) {
+				logger.debug("Coalesced pending save to " + file + ".");
+			}
+			if(!writerScheduled) {
+				writerScheduled = true;
+				executor.execute(writer);
+			}
+		}
+	}
+
+	/**
+	 * Writes a scenario snapshot to file.
+	 *
+	 * @param snapshot the snapshot
+	 * @param file the file
+	 */
+	private void write(Scenario snapshot, File file) {
+		long start = System.currentTimeMillis();
+		try {
+			Serialization.serialize(snapshot, file);
+			logger.debug("Saved " + file + " in "
+					+ (System.currentTimeMillis() - start) + " ms.");
+		} catch(IOException | RuntimeException e) {
+			logger.error("Failed to save " + file + ": " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,530 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.io;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import edu.mit.sipg.core.City;
+import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.Region;
+import edu.mit.sipg.core.agriculture.DefaultAgricultureElement;
+import edu.mit.sipg.core.agriculture.DefaultAgricultureSoS;
+import edu.mit.sipg.core.agriculture.DefaultAgricultureSystem;
+import edu.mit.sipg.core.agriculture.LocalAgricultureSoS;
+import edu.mit.sipg.core.agriculture.LocalAgricultureSystem;
+import edu.mit.sipg.core.agriculture.RecordedAgricultureSystem;
+import edu.mit.sipg.core.electricity.DefaultElectricityElement;
+import edu.mit.sipg.core.electricity.DefaultElectricitySoS;
+import edu.mit.sipg.core.electricity.DefaultElectricitySystem;
+import edu.mit.sipg.core.electricity.LocalElectricitySoS;
+import edu.mit.sipg.core.electricity.LocalElectricitySystem;
+import edu.mit.sipg.core.electricity.RecordedElectricitySystem;
+import edu.mit.sipg.core.lifecycle.DefaultLifecycleModel;
+import edu.mit.sipg.core.lifecycle.DefaultSimpleLifecycleModel;
+import edu.mit.sipg.core.petroleum.DefaultPetroleumElement;
+import edu.mit.sipg.core.petroleum.DefaultPetroleumSoS;
+import edu.mit.sipg.core.petroleum.DefaultPetroleumSystem;
+import edu.mit.sipg.core.petroleum.LocalPetroleumSoS;
+import edu.mit.sipg.core.petroleum.LocalPetroleumSystem;
+import edu.mit.sipg.core.petroleum.RecordedPetroleumSystem;
+import edu.mit.sipg.core.price.ConstantPriceModel;
+import edu.mit.sipg.core.price.DefaultPriceModel;
+import edu.mit.sipg.core.social.DefaultSocialSoS;
+import edu.mit.sipg.core.social.DefaultSocialSystem;
+import edu.mit.sipg.core.social.LocalSocialSystem;
+import edu.mit.sipg.core.social.demand.ConstantDemandModel;
+import edu.mit.sipg.core.social.demand.DefaultDemandModel;
+import edu.mit.sipg.core.social.demand.ExponentialTimeDemandModel;
+import edu.mit.sipg.core.social.demand.LinearTimeDemandModel;
+import edu.mit.sipg.core.social.demand.LogisticTimeDemandModel;
+import edu.mit.sipg.core.social.population.DefaultPopulationModel;
+import edu.mit.sipg.core.social.population.ExponentialGrowthModel;
+import edu.mit.sipg.core.social.population.LogisticGrowthModel;
+import edu.mit.sipg.core.social.population.TableLookupModel;
+import edu.mit.sipg.core.social.population.TimeVaryingLogisticGrowthModel;
+import edu.mit.sipg.core.water.DefaultWaterElement;
+import edu.mit.sipg.core.water.DefaultWaterSoS;
+import edu.mit.sipg.core.water.DefaultWaterSystem;
+import edu.mit.sipg.core.water.LocalWaterSoS;
+import edu.mit.sipg.core.water.LocalWaterSystem;
+import edu.mit.sipg.core.water.RecordedWaterSystem;
+import edu.mit.sipg.scenario.DefaultScenario;
+import edu.mit.sipg.scenario.GameElementTemplate;
+import edu.mit.sipg.scenario.GameScenario;
+import edu.mit.sipg.scenario.GameScenarioComplete;
+import edu.mit.sipg.sim.hla.HlaAgricultureSystem;
+import edu.mit.sipg.sim.hla.HlaElectricitySystem;
+import edu.mit.sipg.sim.hla.HlaPetroleumSystem;
+import edu.mit.sipg.sim.hla.HlaSocialSystem;
+import edu.mit.sipg.sim.hla.HlaWaterSystem;
+
+/**
+ * A compact binary encoding of the JSON tree produced by the scenario
+ * serializer. The encoding starts with a magic number and a version
+ * followed by a single tagged node. Compared to JSON text it:
+ * <ul>
+ * <li>replaces the class names of interface-typed nodes with indices
+ * into a fixed type registry,</li>
+ * <li>writes each distinct string (member names, names and template
+ * names) once and refers to it by index thereafter,</li>
+ * <li>writes numbers in binary and arrays of real numbers (e.g. time
+ * series) as primitive arrays.</li>
+ * </ul>
+ *
+ * The type registry is append-only: new types must be added to the end
+ * of the list so previously-written files remain readable. Types which
+ * are not registered are written with their class names.
+ */
+final class BinaryCodec {
+	static final byte[] MAGIC = {'S', 'I', 'P', 'G'};
+	static final int VERSION = 1;
+
+	private static final int NULL = 0, TRUE = 1, FALSE = 2, INTEGER = 3,
+			REAL = 4, STRING = 5, ARRAY = 6, REAL_ARRAY = 7, OBJECT = 8,
+			TYPED_OBJECT = 9;
+	private static final String TYPE = "type", DATA = "data";
+
+	private static final List<String> TYPES = Collections.unmodifiableList(
+			Arrays.asList(
+					DefaultScenario.class.getName(),
+					GameScenario.class.getName(),
+					GameScenarioComplete.class.getName(),
+					GameElementTemplate.class.getName(),
+					Country.class.getName(),
+					Region.class.getName(),
+					City.class.getName(),
+					DefaultAgricultureElement.class.getName(),
+					DefaultWaterElement.class.getName(),
+					DefaultPetroleumElement.class.getName(),
+					DefaultElectricityElement.class.getName(),
+					DefaultLifecycleModel.class.getName(),
+					DefaultSimpleLifecycleModel.class.getName(),
+					DefaultPriceModel.class.getName(),
+					ConstantPriceModel.class.getName(),
+					DefaultPopulationModel.class.getName(),
+					ExponentialGrowthModel.class.getName(),
+					LogisticGrowthModel.class.getName(),
+					TableLookupModel.class.getName(),
+					TimeVaryingLogisticGrowthModel.class.getName(),
+					DefaultDemandModel.class.getName(),
+					ConstantDemandModel.class.getName(),
+					ExponentialTimeDemandModel.class.getName(),
+					LinearTimeDemandModel.class.getName(),
+					LogisticTimeDemandModel.class.getName(),
+					LocalAgricultureSystem.class.getName(),
+					DefaultAgricultureSystem.class.getName(),
+					RecordedAgricultureSystem.class.getName(),
+					HlaAgricultureSystem.class.getName(),
+					LocalAgricultureSoS.class.getName(),
+					DefaultAgricultureSoS.class.getName(),
+					LocalWaterSystem.class.getName(),
+					DefaultWaterSystem.class.getName(),
+					RecordedWaterSystem.class.getName(),
+					HlaWaterSystem.class.getName(),
+					LocalWaterSoS.class.getName(),
+					DefaultWaterSoS.class.getName(),
+					LocalPetroleumSystem.class.getName(),
+					DefaultPetroleumSystem.class.getName(),
+					RecordedPetroleumSystem.class.getName(),
+					HlaPetroleumSystem.class.getName(),
+					LocalPetroleumSoS.class.getName(),
+					DefaultPetroleumSoS.class.getName(),
+					LocalElectricitySystem.class.getName(),
+					DefaultElectricitySystem.class.getName(),
+					RecordedElectricitySystem.class.getName(),
+					HlaElectricitySystem.class.getName(),
+					LocalElectricitySoS.class.getName(),
+					DefaultElectricitySoS.class.getName(),
+					LocalSocialSystem.class.getName(),
+					DefaultSocialSystem.class.getName(),
+					HlaSocialSystem.class.getName(),
+					DefaultSocialSoS.class.getName()));
+	private static final Map<String, Integer> TYPE_INDEX = new HashMap<String, Integer>();
+
+	static {
+		for(int i = 0; i < TYPES.size(); i++) {
+			TYPE_INDEX.put(TYPES.get(i), i);
+		}
+	}
+
+	/**
+	 * Writes a JSON tree to an output stream, including the magic
+	 * number and version. The stream is flushed but not closed.
+	 *
+	 * @param element the element
+	 * @param out the output stream
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	static void write(JsonElement element, OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.write(MAGIC);
+		data.writeByte(VERSION);
+		new Encoder(data).write(element);
+		data.flush();
+	}
+
+	/**
+	 * Reads a JSON tree from an input stream, starting with the magic
+	 * number and version.
+	 *
+	 * @param in the input stream
+	 * @return the element
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	static JsonElement read(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		byte[] magic = new byte[MAGIC.length];
+		data.readFully(magic);
+		if(!Arrays.equals(magic, MAGIC)) {
+			throw new IOException("Not a binary scenario.");
+		}
+		int version = data.readUnsignedByte();
+		if(version != VERSION) {
+			throw new IOException("Unsupported binary scenario version "
+					+ version + ".");
+		}
+		return new Decoder(data).read();
+	}
+
+	/**
+	 * Checks if a number is an integer and can be written as one.
+	 *
+	 * @param number the number
+	 * @return true, if is integer
+	 */
+	private static boolean isInteger(Number number) {
+		if(number instanceof Double || number instanceof Float
+				|| number instanceof BigDecimal) {
+			return false;
+		} else if(number instanceof Long || number instanceof Integer
+				|| number instanceof Short || number instanceof Byte) {
+			return true;
+		} else if(number instanceof BigInteger) {
+			return ((BigInteger) number).bitLength() < Long.SIZE;
+		}
+		// lazily-parsed numbers from JSON text
+		String text = number.toString();
+		if(text.indexOf('.') >= 0 || text.indexOf('e') >= 0
+				|| text.indexOf('E') >= 0) {
+			return false;
+		}
+		try {
+			Long.parseLong(text);
+			return true;
+		} catch(NumberFormatException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Checks if an array only contains real (non-integer) numbers.
+	 *
+	 * @param array the array
+	 * @return true, if is real array
+	 */
+	private static boolean isRealArray(JsonArray array) {
+		if(array.size() == 0) {
+			return false;
+		}
+		for(JsonElement element : array) {
+			if(!element.isJsonPrimitive()
+					|| !element.getAsJsonPrimitive().isNumber()
+					|| isInteger(element.getAsNumber())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the registry index of an interface wrapper object, or -1 if
+	 * the object is not a wrapper of a registered type.
+	 *
+	 * @param object the object
+	 * @return the type index
+	 */
+	private static int getTypeIndex(JsonObject object) {
+		if(object.size() != 2 || !object.has(DATA)) {
+			return -1;
+		}
+		JsonElement type = object.get(TYPE);
+		if(type == null || !type.isJsonPrimitive()
+				|| !type.getAsJsonPrimitive().isString()) {
+			return -1;
+		}
+		Integer index = TYPE_INDEX.get(type.getAsString());
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Writes tagged nodes to a data output stream.
+	 */
+	private static final class Encoder {
+		private final DataOutputStream out;
+		private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+		/**
+		 * Instantiates a new encoder.
+		 *
+		 * @param out the output stream
+		 */
+		Encoder(DataOutputStream out) {
+			this.out = out;
+		}
+
+		/**
+		 * Writes a node.
+		 *
+		 * @param element the element
+		 * @throws IOException Signals that an I/O exception has occurred.
+		 */
+		void write(JsonElement element) throws IOException {
+			if(element == null || element.isJsonNull()) {
+				out.writeByte(NULL);
+			} else if(element.isJsonPrimitive()) {
+				JsonPrimitive primitive = element.getAsJsonPrimitive();
+				if(primitive.isBoolean()) {
+					out.writeByte(primitive.getAsBoolean() ? TRUE : FALSE);
+				} else if(primitive.isNumber()) {
+					Number number = primitive.getAsNumber();
+					if(isInteger(number)) {
+						out.writeByte(INTEGER);
+						writeVarLong((number.longValue() << 1) ^ (number.longValue() >> 63));
+					} else {
+						out.writeByte(REAL);
+						out.writeDouble(number.doubleValue());
+					}
+				} else {
+					out.writeByte(STRING);
+					writeString(primitive.getAsString());
+				}
+			} else if(element.isJsonArray()) {
+				JsonArray array = element.getAsJsonArray();
+				if(isRealArray(array)) {
+					out.writeByte(REAL_ARRAY);
+					writeVarLong(array.size());
+					for(JsonElement value : array) {
+						out.writeDouble(value.getAsDouble());
+					}
+				} else {
+					out.writeByte(ARRAY);
+					writeVarLong(array.size());
+					for(JsonElement value : array) {
+						write(value);
+					}
+				}
+			} else {
+				JsonObject object = element.getAsJsonObject();
+				int typeIndex = getTypeIndex(object);
+				if(typeIndex >= 0) {
+					out.writeByte(TYPED_OBJECT);
+					writeVarLong(typeIndex);
+					write(object.get(DATA));
+				} else {
+					out.writeByte(OBJECT);
+					writeVarLong(object.size());
+					for(Map.Entry<String, JsonElement> entry : object.entrySet()) {
+						writeString(entry.getKey());
+						write(entry.getValue());
+					}
+				}
+			}
+		}
+
+		/**
+		 * Writes a string as an index into the string table, followed by
+		 * its UTF-8 bytes the first time it is written.
+		 *
+		 * @param value the value
+		 * @throws IOException Signals that an I/O exception has occurred.
+		 */
+		private void writeString(String value) throws IOException {
+			Integer index = strings.get(value);
+			if(index != null) {
+				writeVarLong(index);
+			} else {
+				writeVarLong(strings.size());
+				strings.put(value, strings.size());
+				byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				writeVarLong(bytes.length);
+				out.write(bytes);
+			}
+		}
+
+		/**
+		 * Writes a non-negative value in a variable number of bytes.
+		 *
+		 * @param value the value
+		 * @throws IOException Signals that an I/O exception has occurred.
+		 */
+		private void writeVarLong(long value) throws IOException {
+			while((value & ~0x7FL) != 0) {
+				out.writeByte((int) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			out.writeByte((int) value);
+		}
+	}
+
+	/**
+	 * Reads tagged nodes from a data input stream.
+	 */
+	private static final class Decoder {
+		private final DataInputStream in;
+		private final List<String> strings = new ArrayList<String>();
+
+		/**
+		 * Instantiates a new decoder.
+		 *
+		 * @param in the input stream
+		 */
+		Decoder(DataInputStream in) {
+			this.in = in;
+		}
+
+		/**
+		 * Reads a node.
+		 *
+		 * @return the element
+		 * @throws IOException Signals that an I/O exception has occurred.
+		 */
+		JsonElement read() throws IOException {
+			int tag = in.readUnsignedByte();
+			switch(tag) {
+			case NULL:
+				return JsonNull.INSTANCE;
+			case TRUE:
+				return new JsonPrimitive(true);
+			case FALSE:
+				return new JsonPrimitive(false);
+			case INTEGER:
+				long value = readVarLong();
+				return new JsonPrimitive((value >>> 1) ^ -(value & 1));
+			case REAL:
+				return new JsonPrimitive(in.readDouble());
+			case STRING:
+				return new JsonPrimitive(readString());
+			case ARRAY:
+				JsonArray array = new JsonArray();
+				for(int i = readSize(); i > 0; i--) {
+					array.add(read());
+				}
+				return array;
+			case REAL_ARRAY:
+				JsonArray realArray = new JsonArray();
+				for(int i = readSize(); i > 0; i--) {
+					realArray.add(in.readDouble());
+				}
+				return realArray;
+			case OBJECT:
+				JsonObject object = new JsonObject();
+				for(int i = readSize(); i > 0; i--) {
+					String key = readString();
+					object.add(key, read());
+				}
+				return object;
+			case TYPED_OBJECT:
+				int typeIndex = readSize();
+				if(typeIndex >= TYPES.size()) {
+					throw new IOException("Unknown type index " + typeIndex + ".");
+				}
+				JsonObject wrapper = new JsonObject();
+				wrapper.addProperty(TYPE, TYPES.get(typeIndex));
+				wrapper.add(DATA, read());
+				return wrapper;
+			default:
+				throw new IOException("Unknown tag " + tag + ".");
+			}
+		}
+
+		/**
+		 * Reads a string from the string table or, if it is new, from
+		 * its UTF-8 bytes.
+		 *
+		 * @return the string
+		 * @throws IOException Signals that an I/O exception has occurred.
+		 */
+		private String readString() throws IOException {
+			int index = readSize();
+			if(index < strings.size()) {
+				return strings.get(index);
+			} else if(index > strings.size()) {
+				throw new IOException("Invalid string index " + index + ".");
+			}
+			byte[] bytes = new byte[readSize()];
+			in.readFully(bytes);
+			String value = new String(bytes, StandardCharsets.UTF_8);
+			strings.add(value);
+			return value;
+		}
+
+		/**
+		 * Reads a size or an index.
+		 *
+		 * @return the size
+		 * @throws IOException Signals that an I/O exception has occurred.
+		 */
+		private int readSize() throws IOException {
+			long size = readVarLong();
+			if(size > Integer.MAX_VALUE) {
+				throw new IOException("Invalid size " + size + ".");
+			}
+			return (int) size;
+		}
+
+		/**
+		 * Reads a non-negative value written in a variable number of bytes.
+		 *
+		 * @return the value
+		 * @throws IOException Signals that an I/O exception has occurred.
+		 */
+		private long readVarLong() throws IOException {
+			long value = 0;
+			for(int shift = 0; shift < Long.SIZE; shift += 7) {
+				int b = in.readUnsignedByte();
+				value |= (long) (b & 0x7F) << shift;
+				if((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new IOException("Malformed variable-length value.");
+		}
+	}
+
+	/**
+	 * Instantiates a new binary codec.
+	 */
+	private BinaryCodec() { }
+}
@@ -15,19 +15,47 @@
  *****************************************************************************/
 package edu.mit.sipg.io;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 import edu.mit.sipg.core.City;
 import edu.mit.sipg.core.Country;
@@ -38,6 +66,7 @@ import edu.mit.sipg.core.agriculture.AgricultureSystem;
 import edu.mit.sipg.core.agriculture.DefaultAgricultureSystem;
 import edu.mit.sipg.core.agriculture.EditableAgricultureElement;
 import edu.mit.sipg.core.base.InfrastructureSystem;
+import edu.mit.sipg.core.base.TimeSeries;
 import edu.mit.sipg.core.electricity.DefaultElectricitySystem;
 import edu.mit.sipg.core.electricity.EditableElectricityElement;
 import edu.mit.sipg.core.electricity.ElectricityElement;
@@ -63,6 +92,7 @@ import edu.mit.sipg.core.water.WaterSoS;
 import edu.mit.sipg.core.water.WaterSystem;
 import edu.mit.sipg.scenario.ElementTemplate;
 import edu.mit.sipg.scenario.Scenario;
+import edu.mit.sipg.sim.SimulationMetrics;
 import edu.mit.sipg.sim.hla.HlaAgricultureSystem;
 import edu.mit.sipg.sim.hla.HlaElectricitySystem;
 import edu.mit.sipg.sim.hla.HlaPetroleumSystem;
@@ -72,9 +102,22 @@ import edu.mit.sipg.sim.hla.HlaWaterSystem;
 /**
  * A utility class to assist with scenario serialization/deserialization.
  * 
+ * Scenarios can be written as JSON text or in a compact binary format 
+ * (see {@link #serializeBinary(Scenario, OutputStream, boolean)}). Both 
+ * formats, optionally GZIP-compressed, are read by 
+ * {@link #deserialize(InputStream)}. The stream and reader/writer 
+ * methods read and write JSON incrementally without building the 
+ * complete document as a string. Loading and saving scenarios is timed 
+ * by the {@link SimulationMetrics} timers "io.load" and "io.save".
+ * 
  * @author Paul T. Grogan
  */
 public final class Serialization {
+	public static final String BINARY_EXTENSION = "sipg";
+	private static final SimulationMetrics metrics = SimulationMetrics.getInstance();
+	private static final SimulationMetrics.Timer loadTimer = metrics.timer("io.load");
+	private static final SimulationMetrics.Timer saveTimer = metrics.timer("io.save");
+	
 	/**
 	 * The Class InterfaceAdapter.
 	 * 
@@ -131,6 +174,31 @@ public final class Serialization {
 		}
 	}
 
+	/**
+	 * The Class TimeSeriesAdapter. Serializes a time series as an array 
+	 * of values to remain compatible with lists of values.
+	 */
+	private static class TimeSeriesAdapter implements JsonSerializer<TimeSeries>, JsonDeserializer<TimeSeries> {
+
+		@Override
+		public TimeSeries deserialize(JsonElement elem, Type type, JsonDeserializationContext context) throws JsonParseException {
+			TimeSeries series = new TimeSeries();
+			for(JsonElement value : elem.getAsJsonArray()) {
+				series.add(value.getAsDouble());
+			}
+			return series;
+		}
+
+		@Override
+		public JsonElement serialize(TimeSeries series, Type type, JsonSerializationContext context) {
+			JsonArray array = new JsonArray();
+			for(double value : series.toArray()) {
+				array.add(value);
+			}
+			return array;
+		}
+	}
+
 	private static final GsonBuilder gsonBuilder = new GsonBuilder();
 
 	static {
@@ -186,6 +254,8 @@ public final class Serialization {
 				new InterfaceAdapter<Scenario>());
 		gsonBuilder.registerTypeAdapter(ElementTemplate.class, 
 				new InterfaceAdapter<ElementTemplate>());
+		gsonBuilder.registerTypeAdapter(TimeSeries.class, 
+				new TimeSeriesAdapter());
 	}
 
 	private static Gson gson = gsonBuilder.create();
@@ -197,7 +267,73 @@ public final class Serialization {
 	 * @return the country
 	 */
 	public static Scenario deserialize(String json) {
-		Scenario scenario = getGson().fromJson(json, ScenarioWrapper.class).scenario;
+		long start = loadTimer.start();
+		Scenario scenario = restore(getGson().fromJson(json, ScenarioWrapper.class).scenario);
+		loadTimer.stop(start);
+		return scenario;
+	}
+
+	/**
+	 * Deserializes a scenario in either the JSON or the binary format, 
+	 * optionally GZIP-compressed. The format is detected from the 
+	 * leading bytes of the stream. The stream is not closed.
+	 *
+	 * @param in the input stream
+	 * @return the scenario
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static Scenario deserialize(InputStream in) throws IOException {
+		InputStream buffered = new BufferedInputStream(in);
+		byte[] header = new byte[BinaryCodec.MAGIC.length];
+		buffered.mark(header.length);
+		int length = IOUtils.read(buffered, header);
+		buffered.reset();
+		if(length >= 2 && (header[0] & 0xFF) == 0x1F && (header[1] & 0xFF) == 0x8B) {
+			return deserialize(new GZIPInputStream(buffered));
+		} else if(length == header.length && Arrays.equals(header, BinaryCodec.MAGIC)) {
+			long start = loadTimer.start();
+			Scenario scenario = restore(getGson().fromJson(BinaryCodec.read(buffered), 
+					ScenarioWrapper.class).scenario);
+			loadTimer.stop(start);
+			return scenario;
+		} else {
+			return deserialize(new InputStreamReader(buffered, StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Deserializes a scenario from JSON read incrementally from a reader. 
+	 * The reader is not closed.
+	 *
+	 * @param reader the reader
+	 * @return the scenario
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static Scenario deserialize(Reader reader) throws IOException {
+		long start = loadTimer.start();
+		JsonReader jsonReader = getGson().newJsonReader(reader);
+		try {
+			ScenarioWrapper wrapper = getGson().fromJson(jsonReader, ScenarioWrapper.class);
+			if(wrapper == null) {
+				throw new IOException("No scenario found.");
+			}
+			Scenario scenario = restore(wrapper.scenario);
+			loadTimer.stop(start);
+			return scenario;
+		} catch(JsonIOException e) {
+			throw new IOException(e.getMessage(), e.getCause());
+		}
+	}
+
+	/**
+	 * Restores a deserialized scenario: re-links systems to their 
+	 * societies, replaces HLA systems, and re-creates elements from 
+	 * their templates.
+	 *
+	 * @param scenario the scenario
+	 * @return the scenario
+	 */
+	private static Scenario restore(Scenario scenario) {
 		Country country = scenario.getCountry();
 		recursiveReplaceCircularReferences(country);
 		// replace HLA datatypes; they will need to be re-created
@@ -365,7 +501,108 @@ public final class Serialization {
 	 * @return the string
 	 */
 	public static String serialize(Scenario scenario) {
-		return getGson().toJson(new ScenarioWrapper(scenario));
+		long start = saveTimer.start();
+		String json = getGson().toJson(new ScenarioWrapper(scenario));
+		saveTimer.stop(start);
+		return json;
+	}
+
+	/**
+	 * Serializes a scenario as UTF-8 encoded JSON to a file. The scenario 
+	 * is first written to a temporary file in the same directory which 
+	 * then atomically replaces the target file, so readers never see a 
+	 * partially-written file. A new file is created with the default 
+	 * permissions; an existing file keeps its permissions.
+	 *
+	 * @param scenario the scenario
+	 * @param file the file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static void serialize(Scenario scenario, File file) throws IOException {
+		File directory = file.getAbsoluteFile().getParentFile();
+		// temporary files from createTempFile are owner-only, so create a 
+		// file with the default permissions as for any new file
+		Path temp = directory.toPath().resolve(
+				file.getName() + "." + UUID.randomUUID() + ".tmp");
+		Files.createFile(temp);
+		try {
+			FileOutputStream out = new FileOutputStream(temp.toFile());
+			try {
+				serialize(scenario, out);
+				out.getFD().sync();
+			} finally {
+				out.close();
+			}
+			PosixFileAttributeView view = Files.getFileAttributeView(
+					file.toPath(), PosixFileAttributeView.class);
+			if(view != null && file.exists()) {
+				Files.setPosixFilePermissions(temp, view.readAttributes().permissions());
+			}
+			try {
+				Files.move(temp, file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch(AtomicMoveNotSupportedException e) {
+				Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Serializes a scenario as UTF-8 encoded JSON written incrementally 
+	 * to an output stream. The stream is flushed but not closed.
+	 *
+	 * @param scenario the scenario
+	 * @param out the output stream
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static void serialize(Scenario scenario, OutputStream out) throws IOException {
+		serialize(scenario, new BufferedWriter(
+				new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Serializes a scenario as JSON written incrementally to a writer. 
+	 * The writer is flushed but not closed.
+	 *
+	 * @param scenario the scenario
+	 * @param writer the writer
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static void serialize(Scenario scenario, Writer writer) throws IOException {
+		long start = saveTimer.start();
+		JsonWriter jsonWriter = getGson().newJsonWriter(writer);
+		try {
+			getGson().toJson(new ScenarioWrapper(scenario), ScenarioWrapper.class, jsonWriter);
+		} catch(JsonIOException e) {
+			throw new IOException(e.getMessage(), e.getCause());
+		}
+		jsonWriter.flush();
+		saveTimer.stop(start);
+	}
+
+	/**
+	 * Serializes a scenario in the compact binary format, optionally 
+	 * compressed with GZIP. The stream is flushed but not closed.
+	 *
+	 * @param scenario the scenario
+	 * @param out the output stream
+	 * @param compressed true, if the output is compressed
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static void serializeBinary(Scenario scenario, OutputStream out, 
+			boolean compressed) throws IOException {
+		long start = saveTimer.start();
+		JsonElement tree = getGson().toJsonTree(new ScenarioWrapper(scenario));
+		if(compressed) {
+			GZIPOutputStream gzip = new GZIPOutputStream(out);
+			BinaryCodec.write(tree, new BufferedOutputStream(gzip));
+			gzip.finish();
+			out.flush();
+		} else {
+			BinaryCodec.write(tree, new BufferedOutputStream(out));
+		}
+		saveTimer.stop(start);
 	}
 
 	/**
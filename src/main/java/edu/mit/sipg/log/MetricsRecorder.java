@@ -0,0 +1,207 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import edu.mit.sipg.core.MetricsSnapshot;
+import edu.mit.sipg.core.MetricsSnapshot.Metric;
+import edu.mit.sipg.core.Society;
+import edu.mit.sipg.core.base.InfrastructureSystem;
+import edu.mit.sipg.gui.event.UpdateEvent;
+import edu.mit.sipg.gui.event.UpdateListener;
+
+/**
+ * Records the catalogue of {@link Metric} values for each society and
+ * infrastructure system in each simulation year. Values are stored in
+ * columns of primitive arrays (one column per society, system, and
+ * defined metric) which are fixed when the simulation is initialized.
+ * A new set of columns is created each time a simulation is initialized.
+ *
+ * The recorder only exports the recorded values in bulk to a
+ * comma-delimited text file (one row per year) when the user requests
+ * it. GUI panels and the score logger read the per-event
+ * {@link MetricsSnapshot} instead and do not use the recorder.
+ */
+public class MetricsRecorder implements UpdateListener {
+	private static Logger logger = Logger.getLogger(MetricsRecorder.class);
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * Gets the name of a column.
+	 *
+	 * @param societyName the society name
+	 * @param systemName the system name
+	 * @param metric the metric
+	 * @return the column name
+	 */
+	private static String getColumnName(String societyName,
+			String systemName, Metric metric) {
+		return societyName + "/" + systemName + "/" + metric.name();
+	}
+
+	private List<String> columnNames = Collections.emptyList();
+	private Map<String, Integer> columnIndex = Collections.emptyMap();
+	private int[] years = new int[0];
+	private double[][] columns = new double[0][];
+	private int size;
+
+	/**
+	 * Appends a record of a metrics snapshot.
+	 *
+	 * @param year the year
+	 * @param metrics the metrics
+	 */
+	private void append(int year, MetricsSnapshot metrics) {
+		if(size > 0 && year <= years[size - 1]) {
+			logger.warn("Ignoring metrics for year " + year
+					+ " recorded out of order.");
+			return;
+		}
+		if(size == years.length) {
+			int capacity = Math.max(INITIAL_CAPACITY, 2*years.length);
+			years = Arrays.copyOf(years, capacity);
+			for(int i = 0; i < columns.length; i++) {
+				columns[i] = Arrays.copyOf(columns[i], capacity);
+			}
+		}
+		years[size] = year;
+		for(Society society : metrics.getSocieties()) {
+			for(InfrastructureSystem system : society.getInfrastructureSystems()) {
+				if(system == null) {
+					continue;
+				}
+				for(Metric metric : Metric.values()) {
+					Integer index = columnIndex.get(getColumnName(
+							society.getName(), system.getName(), metric));
+					if(index != null) {
+						columns[index][size] = metrics.getValue(system, metric);
+					}
+				}
+			}
+		}
+		size++;
+	}
+
+	/**
+	 * Exports the recorded values to a comma-delimited text file.
+	 *
+	 * @param file the file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void exportCsv(File file) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(file), StandardCharsets.UTF_8));
+		try {
+			exportCsv(writer);
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Exports the recorded values as comma-delimited text with one row
+	 * per year. The writer is flushed but not closed.
+	 *
+	 * @param writer the writer
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public synchronized void exportCsv(Writer writer) throws IOException {
+		writer.write("Year");
+		for(String name : columnNames) {
+			writer.write(", " + name);
+		}
+		writer.write("\n");
+		for(int i = 0; i < size; i++) {
+			writer.write(Integer.toString(years[i]));
+			for(int j = 0; j < columns.length; j++) {
+				writer.write(", " + columns[j][i]);
+			}
+			writer.write("\n");
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Gets the column names fixed by the last simulation initialization.
+	 *
+	 * @return the column names
+	 */
+	public synchronized List<String> getColumnNames() {
+		return columnNames;
+	}
+
+	/**
+	 * Gets the number of recorded years.
+	 *
+	 * @return the size
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	@Override
+	public void simulationCompleted(UpdateEvent event) { }
+
+	@Override
+	public synchronized void simulationInitialized(UpdateEvent event) {
+		MetricsSnapshot metrics = event.getMetrics();
+		List<String> names = new ArrayList<String>();
+		Map<String, Integer> index = new HashMap<String, Integer>();
+		for(Society society : metrics.getSocieties()) {
+			for(InfrastructureSystem system : society.getInfrastructureSystems()) {
+				if(system == null) {
+					continue;
+				}
+				for(Metric metric : Metric.values()) {
+					String name = getColumnName(society.getName(),
+							system.getName(), metric);
+					if(metric.isDefined(system) && !index.containsKey(name)) {
+						index.put(name, names.size());
+						names.add(name);
+					}
+				}
+			}
+		}
+		columnNames = Collections.unmodifiableList(names);
+		columnIndex = index;
+		years = new int[INITIAL_CAPACITY];
+		columns = new double[names.size()][INITIAL_CAPACITY];
+		size = 0;
+
+		append((int) event.getTime(), metrics);
+	}
+
+	@Override
+	public synchronized void simulationUpdated(UpdateEvent event) {
+		append((int) event.getTime(), event.getMetrics());
+	}
+}
@@ -15,13 +15,25 @@
  *****************************************************************************/
 package edu.mit.sipg.log;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 import org.apache.log4j.Logger;
 
+import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.MetricsSnapshot;
+import edu.mit.sipg.core.MetricsSnapshot.Metric;
 import edu.mit.sipg.core.agriculture.AgricultureSoS;
 import edu.mit.sipg.core.electricity.ElectricitySoS;
 import edu.mit.sipg.core.petroleum.PetroleumSoS;
@@ -30,25 +42,79 @@ import edu.mit.sipg.gui.event.UpdateEvent;
 import edu.mit.sipg.gui.event.UpdateListener;
 
 /**
- * Logs the scores for all local infrastructure systems at the end of 
- * each simulation execution. Writes a comma-delimited text file to 
- * the SIPG_HOME logs directory (specified with environment variable, 
+ * Logs the scores for all local infrastructure systems at the end of
+ * each simulation execution. Writes a comma-delimited text file to
+ * the SIPG_HOME logs directory (specified with environment variable,
  * defaults to user.home/SIPG/logs).
- * 
+ *
+ * The log files are kept open between rounds and flushed after a
+ * configurable number of records (every record by default) and when
+ * the logger is flushed or closed. The columns are fixed when the
+ * simulation is initialized depending on which sectors are local.
+ *
+ * Optionally, records are also written to a binary file (with the
+ * same name as the log file and extension <code>bin</code>) containing
+ * a header (magic number, version, number of columns, and column
+ * names) followed by one record per round (time as a long, round as
+ * an int, each score as a double, over budget year as an int, and the
+ * national profit and team score as doubles).
+ *
  * @author Paul T. Grogan
  */
 public class ScoreFileLogger implements UpdateListener {
 	private static Logger logger = Logger.getLogger(ScoreFileLogger.class);
-	
+
+	public static final int BINARY_MAGIC = 0x5349504C; // SIPL
+	public static final int BINARY_VERSION = 1;
+
 	private final File logFile;
-	
+	private final File binaryFile;
+	private int flushInterval = 1;
+
+	private Writer writer;
+	private DataOutputStream binaryOutput;
+	private int unflushedRecords;
+
+	private List<String> columnNames;
+	private boolean agricultureLocal, waterLocal, energyLocal;
 	private int overBudgetYear = 0;
 	private int roundNumber = 0;
-	
+
 	/**
 	 * Instantiates a new score file logger.
 	 */
 	public ScoreFileLogger() {
+		this(createLogFile(), false);
+	}
+
+	/**
+	 * Instantiates a new score file logger.
+	 *
+	 * @param logFile the log file
+	 * @param binaryOutput true, if records are also written to a binary file
+	 */
+	public ScoreFileLogger(File logFile, boolean binaryOutput) {
+		if(logFile == null) {
+			throw new IllegalArgumentException("Log file cannot be null.");
+		}
+		this.logFile = logFile;
+		if(binaryOutput) {
+			String name = logFile.getName();
+			if(name.lastIndexOf('.') > 0) {
+				name = name.substring(0, name.lastIndexOf('.'));
+			}
+			binaryFile = new File(logFile.getParentFile(), name + ".bin");
+		} else {
+			binaryFile = null;
+		}
+	}
+
+	/**
+	 * Creates the default log file in the logs directory.
+	 *
+	 * @return the log file
+	 */
+	private static File createLogFile() {
 		File userOutputDir;
 		if(System.getenv().containsKey("SIPG_HOME")) {
 			userOutputDir = new File(System.getenv("SIPG_HOME"));
@@ -62,113 +128,264 @@ public class ScoreFileLogger implements UpdateListener {
 		if(!logOutputDir.exists()) {
 			logOutputDir.mkdir();
 		}
-		logFile = new File(logOutputDir, System.getProperty("user.name") 
+		return new File(logOutputDir, System.getProperty("user.name")
 				+ "_" + new Date().getTime() + ".log");
 	}
 
-	@Override
-	public void simulationCompleted(UpdateEvent event) {
-		int year = (int) event.getTime();
-		
+	/**
+	 * Flushes and closes the log files. The files are re-opened (and
+	 * appended) if another record is logged.
+	 */
+	public synchronized void close() {
 		try {
-			FileWriter fw = new FileWriter(logFile, true);
-			fw.write(new Date().getTime() + ", ");
-			fw.write(roundNumber + ", ");
-			
-			double foodScore = event.getCountry().getAgricultureSystem().getFoodSecurityScore();
-			double aquiferScore = event.getCountry().getWaterSystem().getAquiferSecurityScore();
-			double reservoirScore = event.getCountry().getPetroleumSystem().getReservoirSecurityScore();
-			
-			fw.write(foodScore + ", ");
-			fw.write(aquiferScore + ", ");
-			fw.write(reservoirScore + ", ");
-			
-			if(event.getCountry().getAgricultureSystem() instanceof AgricultureSoS.Local) {	
-				double politicalScore = ((AgricultureSoS.Local) event.getCountry().getAgricultureSystem()).getPoliticalPowerScore(year);
-				double financialScore = ((AgricultureSoS.Local) event.getCountry().getAgricultureSystem()).getFinancialSecurityScore(year);
-				double aggregateScore = ((AgricultureSoS.Local) event.getCountry().getAgricultureSystem()).getAggregateScore(year);
-
-				fw.write(financialScore + ", ");
-				fw.write(politicalScore + ", ");
-				fw.write(aggregateScore + ", ");
-			}
-			if(event.getCountry().getWaterSystem() instanceof WaterSoS.Local) {
-				double politicalScore = ((WaterSoS.Local) event.getCountry().getWaterSystem()).getPoliticalPowerScore(year);
-				double financialScore = ((WaterSoS.Local) event.getCountry().getWaterSystem()).getFinancialSecurityScore(year);
-				double aggregateScore = ((WaterSoS.Local) event.getCountry().getWaterSystem()).getAggregateScore(year);
-
-				fw.write(financialScore + ", ");
-				fw.write(politicalScore + ", ");
-				fw.write(aggregateScore + ", ");
+			if(writer != null) {
+				writer.close();
 			}
-			if(event.getCountry().getPetroleumSystem() instanceof PetroleumSoS.Local
-					&& event.getCountry().getElectricitySystem() instanceof ElectricitySoS.Local) {
-				double politicalScore = ((PetroleumSoS.Local) event.getCountry().getPetroleumSystem()).getPoliticalPowerScore(
-						year, (ElectricitySoS.Local) event.getCountry().getElectricitySystem());
-				double financialScore = ((PetroleumSoS.Local) event.getCountry().getPetroleumSystem()).getFinancialSecurityScore(
-						year, (ElectricitySoS.Local) event.getCountry().getElectricitySystem());
-				double aggregateScore = ((PetroleumSoS.Local) event.getCountry().getPetroleumSystem()).getAggregateScore(
-						year, (ElectricitySoS.Local) event.getCountry().getElectricitySystem());
-
-				fw.write(financialScore + ", ");
-				fw.write(politicalScore + ", ");
-				fw.write(aggregateScore + ", ");
+			if(binaryOutput != null) {
+				binaryOutput.close();
 			}
+		} catch (IOException e) {
+			logger.error(e);
+		}
+		writer = null;
+		binaryOutput = null;
+		unflushedRecords = 0;
+	}
 
-			fw.write(overBudgetYear + ", ");
-			fw.write(event.getCountry().getFinancialSecurityScore(year) + ", ");
-			fw.write(event.getCountry().getAggregatedScore(year) + "\n");
-			fw.close();
+	/**
+	 * Flushes any buffered records to the log files.
+	 */
+	public synchronized void flush() {
+		try {
+			if(writer != null) {
+				writer.flush();
+			}
+			if(binaryOutput != null) {
+				binaryOutput.flush();
+			}
 		} catch (IOException e) {
 			logger.error(e);
 		}
+		unflushedRecords = 0;
+	}
+
+	/**
+	 * Gets the binary file.
+	 *
+	 * @return the binary file (null if binary output is disabled)
+	 */
+	public File getBinaryFile() {
+		return binaryFile;
+	}
+
+	/**
+	 * Gets the column names fixed by the last simulation initialization.
+	 *
+	 * @return the column names
+	 */
+	public synchronized List<String> getColumnNames() {
+		if(columnNames == null) {
+			return Collections.emptyList();
+		}
+		return columnNames;
+	}
+
+	/**
+	 * Gets the number of records written between flushes.
+	 *
+	 * @return the flush interval
+	 */
+	public synchronized int getFlushInterval() {
+		return flushInterval;
+	}
+
+	/**
+	 * Gets the log file.
+	 *
+	 * @return the log file
+	 */
+	public File getLogFile() {
+		return logFile;
+	}
+
+	/**
+	 * Opens the log files if they are not already open and writes the
+	 * headers to any new files.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private void open() throws IOException {
+		if(writer == null) {
+			boolean exists = logFile.exists() && logFile.length() > 0;
+			writer = new BufferedWriter(new OutputStreamWriter(
+					new FileOutputStream(logFile, true), StandardCharsets.UTF_8));
+			if(!exists) {
+				for(int i = 0; i < columnNames.size(); i++) {
+					writer.write((i > 0 ? ", " : "") + columnNames.get(i));
+				}
+				writer.write(" \n");
+			}
+		}
+		if(binaryFile != null && binaryOutput == null) {
+			boolean exists = binaryFile.exists() && binaryFile.length() > 0;
+			binaryOutput = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(binaryFile, true)));
+			if(!exists) {
+				binaryOutput.writeInt(BINARY_MAGIC);
+				binaryOutput.writeInt(BINARY_VERSION);
+				binaryOutput.writeInt(columnNames.size());
+				for(String name : columnNames) {
+					binaryOutput.writeUTF(name);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sets the number of records written between flushes. Batch runs
+	 * which log many rounds can use a larger interval and flush or
+	 * close the logger when done.
+	 *
+	 * @param flushInterval the new flush interval
+	 */
+	public synchronized void setFlushInterval(int flushInterval) {
+		if(flushInterval < 1) {
+			throw new IllegalArgumentException("Flush interval must be positive.");
+		}
+		this.flushInterval = flushInterval;
 	}
-	
+
 	@Override
-	public void simulationInitialized(UpdateEvent event) {
+	public synchronized void simulationCompleted(UpdateEvent event) {
+		if(columnNames == null) {
+			logger.warn("Simulation completed before it was initialized.");
+			return;
+		}
+		int year = (int) event.getTime();
+		Country country = event.getCountry();
+		MetricsSnapshot metrics = event.getMetrics();
+
+		// scores in column order between the round and over budget year
+		double[] scores = new double[columnNames.size() - 5];
+		int i = 0;
+		scores[i++] = metrics.getValue(country.getAgricultureSystem(),
+				Metric.FOOD_SECURITY_SCORE);
+		scores[i++] = metrics.getValue(country.getWaterSystem(),
+				Metric.AQUIFER_SECURITY_SCORE);
+		scores[i++] = metrics.getValue(country.getPetroleumSystem(),
+				Metric.RESERVOIR_SECURITY_SCORE);
+		if(agricultureLocal) {
+			AgricultureSoS.Local system = (AgricultureSoS.Local) country.getAgricultureSystem();
+			scores[i++] = system.getFinancialSecurityScore(year);
+			scores[i++] = system.getPoliticalPowerScore(year);
+			scores[i++] = system.getAggregateScore(year);
+		}
+		if(waterLocal) {
+			WaterSoS.Local system = (WaterSoS.Local) country.getWaterSystem();
+			scores[i++] = system.getFinancialSecurityScore(year);
+			scores[i++] = system.getPoliticalPowerScore(year);
+			scores[i++] = system.getAggregateScore(year);
+		}
+		if(energyLocal) {
+			PetroleumSoS.Local system = (PetroleumSoS.Local) country.getPetroleumSystem();
+			ElectricitySoS.Local electricitySystem = (ElectricitySoS.Local) country.getElectricitySystem();
+			scores[i++] = system.getFinancialSecurityScore(year, electricitySystem);
+			scores[i++] = system.getPoliticalPowerScore(year, electricitySystem);
+			scores[i++] = system.getAggregateScore(year, electricitySystem);
+		}
+
+		writeRecord(new Date().getTime(), scores,
+				country.getFinancialSecurityScore(year),
+				country.getAggregatedScore(year));
+	}
+
+	@Override
+	public synchronized void simulationInitialized(UpdateEvent event) {
 		overBudgetYear = 0;
 		roundNumber++;
-		if(!logFile.exists()) {
-			try {
-				FileWriter fw = new FileWriter(logFile);
-				fw.write("Time, ");
-				fw.write("Round, ");
-				fw.write("Food Security, ");
-				fw.write("Aquifer Security, ");
-				fw.write("Reservoir Security, ");
-
-				if(event.getCountry().getAgricultureSystem().isLocal()) {
-					fw.write("Agriculture Profit, ");
-					fw.write("Agriculture Investment, ");
-					fw.write("Agriculture Score, ");
-				}
-				if(event.getCountry().getWaterSystem().isLocal()) {
-					fw.write("Water Profit, ");
-					fw.write("Water Investment, ");
-					fw.write("Water Score, ");
-				}
-				if(event.getCountry().getPetroleumSystem().isLocal() 
-						&& event.getCountry().getElectricitySystem().isLocal()) {
-					fw.write("Energy Profit, ");
-					fw.write("Energy Investment, ");
-					fw.write("Energy Score, ");
-				}
 
-				fw.write("Over Budget, ");
-				fw.write("National Profit, ");
-				fw.write("Team Score \n");
-				fw.close();
-			} catch (IOException e) {
-				logger.error(e);
-			}
+		Country country = event.getCountry();
+		agricultureLocal = country.getAgricultureSystem() instanceof AgricultureSoS.Local;
+		waterLocal = country.getWaterSystem() instanceof WaterSoS.Local;
+		energyLocal = country.getPetroleumSystem() instanceof PetroleumSoS.Local
+				&& country.getElectricitySystem() instanceof ElectricitySoS.Local;
+
+		List<String> names = new ArrayList<String>();
+		names.add("Time");
+		names.add("Round");
+		names.add("Food Security");
+		names.add("Aquifer Security");
+		names.add("Reservoir Security");
+		if(agricultureLocal) {
+			names.add("Agriculture Profit");
+			names.add("Agriculture Investment");
+			names.add("Agriculture Score");
+		}
+		if(waterLocal) {
+			names.add("Water Profit");
+			names.add("Water Investment");
+			names.add("Water Score");
+		}
+		if(energyLocal) {
+			names.add("Energy Profit");
+			names.add("Energy Investment");
+			names.add("Energy Score");
+		}
+		names.add("Over Budget");
+		names.add("National Profit");
+		names.add("Team Score");
+		columnNames = Collections.unmodifiableList(names);
+
+		try {
+			open();
+		} catch (IOException e) {
+			logger.error(e);
 		}
 	}
 
 	@Override
-	public void simulationUpdated(UpdateEvent event) {
+	public synchronized void simulationUpdated(UpdateEvent event) {
 		int year = (int) event.getTime();
 		if(event.getCountry().getTotalCapitalExpense() > event.getCountry().getCapitalBudgetLimit()) {
 			overBudgetYear = year;
 		}
 	}
+
+	/**
+	 * Writes a record to the log files.
+	 *
+	 * @param time the time
+	 * @param scores the scores
+	 * @param nationalProfit the national profit
+	 * @param teamScore the team score
+	 */
+	private void writeRecord(long time, double[] scores,
+			double nationalProfit, double teamScore) {
+		try {
+			open();
+			writer.write(time + ", ");
+			writer.write(roundNumber + ", ");
+			for(double score : scores) {
+				writer.write(score + ", ");
+			}
+			writer.write(overBudgetYear + ", ");
+			writer.write(nationalProfit + ", ");
+			writer.write(teamScore + "\n");
+			if(binaryOutput != null) {
+				binaryOutput.writeLong(time);
+				binaryOutput.writeInt(roundNumber);
+				for(double score : scores) {
+					binaryOutput.writeDouble(score);
+				}
+				binaryOutput.writeInt(overBudgetYear);
+				binaryOutput.writeDouble(nationalProfit);
+				binaryOutput.writeDouble(teamScore);
+			}
+			if(++unflushedRecords >= flushInterval) {
+				flush();
+			}
+		} catch (IOException e) {
+			logger.error(e);
+		}
+	}
 }
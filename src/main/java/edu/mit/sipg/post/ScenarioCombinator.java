@@ -15,10 +15,8 @@
  *****************************************************************************/
 package edu.mit.sipg.post;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
@@ -61,8 +59,9 @@ public class ScenarioCombinator {
 	 * The main method.
 	 *
 	 * @param args the arguments
+	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
 		String basePath = ""; // define directory path to data directory
 		String sessionDir = ""; // define session directory
 		String agricultureDir = ""; // define sub-directory for agriculture player data
@@ -148,15 +147,11 @@ public class ScenarioCombinator {
 				masterElectricitySoS.addElement(e);
 			}
 			// write out master scenario file
+			FileOutputStream fos = new FileOutputStream(basePath+sessionDir+"master-"+(i+1)+".json");
 			try {
-				FileWriter fw = new FileWriter(basePath+sessionDir+"master-"+(i+1)+".json");
-				BufferedWriter bw = new BufferedWriter(fw);
-				bw.write(Serialization.serialize(masterScenario));
-				bw.flush();
-				bw.close();
-				fw.close();
-			} catch (IOException e) {
-				e.printStackTrace();
+				Serialization.serialize(masterScenario, fos);
+			} finally {
+				fos.close();
 			}
 			// verify scenario can be simulated
 			runSimulation(masterScenario);
@@ -190,23 +185,14 @@ public class ScenarioCombinator {
 	 *
 	 * @param filePath the file path
 	 * @return the scenario
+	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
-	private static Scenario getScenario(String filePath) {
-		StringBuilder jsonBuilder = new StringBuilder();
-
+	private static Scenario getScenario(String filePath) throws IOException {
+		FileInputStream fis = new FileInputStream(filePath);
 		try {
-			FileReader fr = new FileReader(filePath);
-			BufferedReader br = new BufferedReader(fr);
-			String line;
-			while((line = br.readLine()) != null) {
-				jsonBuilder.append(line);
-			}
-			br.close();
-			fr.close();
-		} catch(Exception e) {
-			e.printStackTrace();
+			return Serialization.deserialize(fis);
+		} finally {
+			fis.close();
 		}
-
-		return Serialization.deserialize(jsonBuilder.toString());
 	}
 }
@@ -65,6 +65,24 @@ public class DefaultScenario implements Scenario {
 		this.presentTime = presentTime;
 	}
 	
+	/**
+	 * Instantiates a new default scenario with a deep copy of the country 
+	 * of another scenario. Subclasses use this constructor to implement 
+	 * {@link #copy()} so the copy retains the concrete scenario type.
+	 *
+	 * @param scenario the scenario to copy
+	 */
+	protected DefaultScenario(DefaultScenario scenario) {
+		this(scenario.country.copy(), scenario.templates, scenario.startTime, 
+				scenario.presentTime, scenario.endTime, scenario.displayTeamScore, 
+				scenario.displayRemotePanels);
+	}
+	
+	@Override
+	public DefaultScenario copy() {
+		return new DefaultScenario(this);
+	}
+	
 	@Override
 	public Country getCountry() {
 		return country;
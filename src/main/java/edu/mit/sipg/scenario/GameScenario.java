@@ -234,6 +234,21 @@ public final class GameScenario extends DefaultScenario {
 				Arrays.asList(GameElementTemplate.values()), 
 				1950, 1980, 2010, isTeamScoreDisplayed, false);
 	}
+	
+	/**
+	 * Instantiates a new game scenario with a deep copy of the country 
+	 * of another game scenario.
+	 *
+	 * @param scenario the scenario to copy
+	 */
+	private GameScenario(GameScenario scenario) {
+		super(scenario);
+	}
+	
+	@Override
+	public GameScenario copy() {
+		return new GameScenario(this);
+	}
 
 	@Override
 	public List<? extends ElementTemplate> getTemplates(Collection<Sector> sectors) {
@@ -93,6 +93,21 @@ public final class GameScenarioComplete extends DefaultScenario {
 				Arrays.asList(GameElementTemplate.values()), 
 				1950, 1980, 2010, isTeamScoreDisplayed, false);
 	}
+	
+	/**
+	 * Instantiates a new completed game scenario with a deep copy of the 
+	 * country of another completed game scenario.
+	 *
+	 * @param scenario the scenario to copy
+	 */
+	private GameScenarioComplete(GameScenarioComplete scenario) {
+		super(scenario);
+	}
+	
+	@Override
+	public GameScenarioComplete copy() {
+		return new GameScenarioComplete(this);
+	}
 
 	/**
 	 * Creates the industrial city.
@@ -27,6 +27,14 @@ import edu.mit.sipg.core.Country;
  */
 public interface Scenario {
 	
+	/**
+	 * Creates a copy of this scenario with a deep copy of its country. 
+	 * Element templates are immutable and shared with the copy.
+	 *
+	 * @return the scenario copy
+	 */
+	public Scenario copy();
+	
 	/**
 	 * Gets the country.
 	 *
@@ -0,0 +1,514 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.sim;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.optim.CachingLinearSolver;
+import edu.mit.sipg.core.optim.LinearProgram;
+import edu.mit.sipg.core.optim.LinearSolver;
+import edu.mit.sipg.gui.event.SimulationControlEvent;
+import edu.mit.sipg.io.Serialization;
+import edu.mit.sipg.scenario.Scenario;
+
+/**
+ * A headless batch engine which executes a set of serialized scenarios
+ * concurrently on a bounded pool of worker threads. Each run deserializes
+ * its own scenario so no model objects are shared between workers.
+ */
+public class BatchSimulator {
+	private static Logger logger = Logger.getLogger(BatchSimulator.class);
+
+	/**
+	 * An analysis extracts one row of results from a completed scenario.
+	 * Implementations are called concurrently from worker threads and
+	 * must not hold any per-run state.
+	 */
+	public static interface Analysis {
+
+		/**
+		 * Gets the column names.
+		 *
+		 * @return the column names
+		 */
+		public List<String> getColumnNames();
+
+		/**
+		 * Analyzes a scenario after simulation has completed.
+		 *
+		 * @param scenario the scenario
+		 * @param endTime the simulation end time
+		 * @return the values (one per column name)
+		 */
+		public List<? extends Object> analyze(Scenario scenario, long endTime);
+	}
+
+	/**
+	 * The default analysis which records the national scores at the end time.
+	 */
+	public static final Analysis SCORE_ANALYSIS = new Analysis() {
+		@Override
+		public List<String> getColumnNames() {
+			return Arrays.asList("cumulative_cash_flow", "financial_score",
+					"food_score", "aquifer_score", "reservoir_score",
+					"aggregated_score");
+		}
+
+		@Override
+		public List<? extends Object> analyze(Scenario scenario, long endTime) {
+			Country country = scenario.getCountry();
+			return Arrays.asList(country.getCumulativeCashFlow(),
+					country.getFinancialSecurityScore(endTime),
+					country.getFoodSecurityScore(),
+					country.getAquiferSecurityScore(),
+					country.getReservoirSecurityScore(),
+					country.getAggregatedScore(endTime));
+		}
+	};
+
+	/**
+	 * The result of a single batch run.
+	 */
+	public static class Result {
+		private final File file;
+		private final List<? extends Object> values;
+		private final long elapsedTime;
+		private final Throwable error;
+
+		/**
+		 * Instantiates a new result.
+		 *
+		 * @param file the scenario file
+		 * @param values the analysis values
+		 * @param elapsedTime the elapsed time (milliseconds)
+		 * @param error the error (null if successful)
+		 */
+		private Result(File file, List<? extends Object> values,
+				long elapsedTime, Throwable error) {
+			this.file = file;
+			this.values = values;
+			this.elapsedTime = elapsedTime;
+			this.error = error;
+		}
+
+		/**
+		 * Gets the elapsed time in milliseconds.
+		 *
+		 * @return the elapsed time
+		 */
+		public long getElapsedTime() {
+			return elapsedTime;
+		}
+
+		/**
+		 * Gets the error, or null if the run was successful.
+		 *
+		 * @return the error
+		 */
+		public Throwable getError() {
+			return error;
+		}
+
+		/**
+		 * Gets the scenario file.
+		 *
+		 * @return the file
+		 */
+		public File getFile() {
+			return file;
+		}
+
+		/**
+		 * Gets the analysis values.
+		 *
+		 * @return the values
+		 */
+		public List<? extends Object> getValues() {
+			return values;
+		}
+
+		/**
+		 * Checks if the run was successful.
+		 *
+		 * @return true, if successful
+		 */
+		public boolean isSuccessful() {
+			return error == null;
+		}
+	}
+
+	/**
+	 * Lists the serialized scenario files (JSON or binary) in a directory.
+	 *
+	 * @param directory the directory
+	 * @return the scenario files (sorted by name)
+	 */
+	public static List<File> listScenarioFiles(File directory) {
+		File[] files = directory.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File file) {
+				return file.isFile() && (file.getName().endsWith(".json")
+						|| file.getName().endsWith("." + Serialization.BINARY_EXTENSION));
+			}
+		});
+		if(files == null) {
+			throw new IllegalArgumentException(
+					directory + " is not a readable directory.");
+		}
+		Arrays.sort(files);
+		return Arrays.asList(files);
+	}
+
+	/**
+	 * The main method. Arguments are scenario files or directories of
+	 * scenario files; options include {@code -o <file>} for the output
+	 * table (default standard output), {@code -t <threads>} for the
+	 * number of worker threads (default number of processors), 
+	 * {@code -s <year>} and {@code -e <year>} for the start and end years,
+	 * and {@code -c <capacity>} for the capacity of a solution cache 
+	 * shared by all runs (default no cache).
+	 *
+	 * @param args the arguments
+	 * @throws Exception the exception
+	 */
+	public static void main(String[] args) throws Exception {
+		List<File> files = new ArrayList<File>();
+		File outputFile = null;
+		int numberThreads = Runtime.getRuntime().availableProcessors();
+		long startTime = 1950, endTime = 2010;
+		int cacheCapacity = 0;
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-o")) {
+				outputFile = new File(args[++i]);
+			} else if(args[i].equals("-t")) {
+				numberThreads = Integer.parseInt(args[++i]);
+			} else if(args[i].equals("-s")) {
+				startTime = Long.parseLong(args[++i]);
+			} else if(args[i].equals("-e")) {
+				endTime = Long.parseLong(args[++i]);
+			} else if(args[i].equals("-c")) {
+				cacheCapacity = Integer.parseInt(args[++i]);
+			} else if(new File(args[i]).isDirectory()) {
+				files.addAll(listScenarioFiles(new File(args[i])));
+			} else {
+				files.add(new File(args[i]));
+			}
+		}
+
+		BatchSimulator batch = new BatchSimulator(numberThreads, startTime, endTime);
+		if(cacheCapacity > 0) {
+			batch.setLinearSolver(new CachingLinearSolver(
+					LinearProgram.DEFAULT_SOLVER, cacheCapacity));
+		}
+		List<Result> results = batch.execute(files);
+		if(outputFile == null) {
+			Writer writer = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+			batch.writeTable(results, writer);
+			writer.flush();
+		} else {
+			Writer writer = new OutputStreamWriter(
+					new FileOutputStream(outputFile), StandardCharsets.UTF_8);
+			try {
+				batch.writeTable(results, writer);
+			} finally {
+				writer.close();
+			}
+		}
+	}
+
+	/**
+	 * Quotes a comma-delimited field if it contains commas, quotes or
+	 * line breaks. Quotes within the field are doubled.
+	 *
+	 * @param field the field
+	 * @return the quoted field
+	 */
+	static String quote(String field) {
+		if(field.indexOf(',') < 0 && field.indexOf('"') < 0
+				&& field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+			return field;
+		}
+		return '"' + field.replace("\"", "\"\"") + '"';
+	}
+
+	private final int numberThreads;
+	private final long startTime, endTime;
+	private final Analysis analysis;
+	private volatile LinearSolver linearSolver = LinearProgram.DEFAULT_SOLVER;
+
+	/**
+	 * Instantiates a new batch simulator with the default score analysis.
+	 *
+	 * @param numberThreads the number of worker threads
+	 * @param startTime the start time
+	 * @param endTime the end time
+	 */
+	public BatchSimulator(int numberThreads, long startTime, long endTime) {
+		this(numberThreads, startTime, endTime, SCORE_ANALYSIS);
+	}
+
+	/**
+	 * Instantiates a new batch simulator.
+	 *
+	 * @param numberThreads the number of worker threads
+	 * @param startTime the start time
+	 * @param endTime the end time
+	 * @param analysis the analysis
+	 */
+	public BatchSimulator(int numberThreads, long startTime, long endTime,
+			Analysis analysis) {
+		if(numberThreads < 1) {
+			throw new IllegalArgumentException(
+					"Number of threads must be positive.");
+		}
+		this.numberThreads = numberThreads;
+
+		if(endTime < startTime) {
+			throw new IllegalArgumentException(
+					"End year cannot precede start year.");
+		}
+		this.startTime = startTime;
+		this.endTime = endTime;
+
+		if(analysis == null) {
+			throw new IllegalArgumentException("Analysis cannot be null.");
+		}
+		this.analysis = analysis;
+	}
+
+	/**
+	 * Executes all scenario files and waits for completion. Results are
+	 * returned in the same order as the files; a failed run is reported
+	 * in its result rather than aborting the batch.
+	 *
+	 * @param files the scenario files
+	 * @return the results
+	 * @throws InterruptedException the interrupted exception
+	 */
+	public List<Result> execute(List<File> files) throws InterruptedException {
+		logger.info("Executing " + files.size() + " scenarios on "
+				+ numberThreads + " threads.");
+
+		ExecutorService executor = Executors.newFixedThreadPool(
+				Math.max(1, Math.min(numberThreads, files.size())),
+				new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger(0);
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable,
+						"batch-worker-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		List<Future<Result>> futures = new ArrayList<Future<Result>>();
+		try {
+			for(final File file : files) {
+				futures.add(executor.submit(new Callable<Result>() {
+					@Override
+					public Result call() {
+						return run(file);
+					}
+				}));
+			}
+			List<Result> results = new ArrayList<Result>();
+			for(Future<Result> future : futures) {
+				try {
+					results.add(future.get());
+				} catch(ExecutionException e) {
+					// run() traps all exceptions, so this is not expected
+					throw new IllegalStateException(e.getCause());
+				}
+			}
+			if(linearSolver instanceof CachingLinearSolver) {
+				logger.info("Solution cache hit rate is " 
+						+ ((CachingLinearSolver) linearSolver).getHitRate() + ".");
+			}
+			return Collections.unmodifiableList(results);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Gets the analysis.
+	 *
+	 * @return the analysis
+	 */
+	public Analysis getAnalysis() {
+		return analysis;
+	}
+
+	/**
+	 * Gets the end time.
+	 *
+	 * @return the end time
+	 */
+	public long getEndTime() {
+		return endTime;
+	}
+
+	/**
+	 * Gets the linear solver used by all runs.
+	 *
+	 * @return the linear solver
+	 */
+	public LinearSolver getLinearSolver() {
+		return linearSolver;
+	}
+
+	/**
+	 * Gets the number of worker threads.
+	 *
+	 * @return the number of threads
+	 */
+	public int getNumberThreads() {
+		return numberThreads;
+	}
+
+	/**
+	 * Gets the start time.
+	 *
+	 * @return the start time
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * Runs a single scenario file on the calling thread.
+	 *
+	 * @param file the scenario file
+	 * @return the result
+	 */
+	public Result run(File file) {
+		long start = System.currentTimeMillis();
+		try {
+			Scenario scenario;
+			InputStream in = new FileInputStream(file);
+			try {
+				scenario = Serialization.deserialize(in);
+			} finally {
+				in.close();
+			}
+			DefaultSimulator simulator = new DefaultSimulator(scenario);
+			simulator.setLinearSolver(linearSolver);
+			simulator.executeSimulation(new SimulationControlEvent.Execute(
+					this, startTime, endTime));
+			List<? extends Object> values = analysis.analyze(scenario, endTime);
+			long elapsedTime = System.currentTimeMillis() - start;
+			logger.debug("Completed " + file + " in " + elapsedTime + " ms.");
+			return new Result(file, values, elapsedTime, null);
+		} catch(Exception e) {
+			logger.error("Failed to simulate " + file + ": " + e.getMessage());
+			return new Result(file, null, System.currentTimeMillis() - start, e);
+		}
+	}
+
+	/**
+	 * Sets the linear solver used by all runs. The solver is shared by 
+	 * concurrent runs, so a {@link CachingLinearSolver} re-uses solutions
+	 * across scenarios with identical designs.
+	 *
+	 * @param linearSolver the linear solver
+	 */
+	public void setLinearSolver(LinearSolver linearSolver) {
+		if(linearSolver == null) {
+			throw new IllegalArgumentException("Linear solver cannot be null.");
+		}
+		this.linearSolver = linearSolver;
+	}
+
+	/**
+	 * Writes the results as a comma-delimited table with one row per
+	 * scenario, followed by the elapsed time and error message of each
+	 * run. Failed runs are written with empty values.
+	 *
+	 * @param results the results
+	 * @param writer the writer
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void writeTable(List<Result> results, Writer writer) throws IOException {
+		writeTable(results, writer, true);
+	}
+
+	/**
+	 * Writes the results as a comma-delimited table with one row per
+	 * scenario. The columns are the path and the analysis columns,
+	 * optionally followed by the elapsed time and error message of each
+	 * run. Failed runs are written with empty values. Fields containing
+	 * commas, quotes or line breaks are quoted.
+	 *
+	 * @param results the results
+	 * @param writer the writer
+	 * @param runColumns true, to include the elapsed time and error columns
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void writeTable(List<Result> results, Writer writer, 
+			boolean runColumns) throws IOException {
+		writer.write("path");
+		for(String name : analysis.getColumnNames()) {
+			writer.write(", " + name);
+		}
+		writer.write(runColumns ? ", elapsed_ms, error\n" : "\n");
+		for(Result result : results) {
+			writer.write(quote(result.getFile().getPath()));
+			if(result.isSuccessful()) {
+				for(Object value : result.getValues()) {
+					writer.write(", " + quote(String.valueOf(value)));
+				}
+			} else {
+				for(int i = 0; i < analysis.getColumnNames().size(); i++) {
+					writer.write(", ");
+				}
+			}
+			if(runColumns) {
+				String message = "";
+				if(!result.isSuccessful()) {
+					message = result.getError().getMessage();
+					if(message == null) {
+						message = result.getError().getClass().getName();
+					}
+				}
+				writer.write(", " + result.getElapsedTime() + ", " + quote(message));
+			}
+			writer.write("\n");
+		}
+	}
+}
@@ -15,23 +15,44 @@
  *****************************************************************************/
 package edu.mit.sipg.sim;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
-
-import javax.swing.event.EventListenerList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 
+import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.CoupledOptimizer;
+import edu.mit.sipg.core.agriculture.AgricultureElement;
 import edu.mit.sipg.core.agriculture.AgricultureSoS;
+import edu.mit.sipg.core.electricity.ElectricityElement;
 import edu.mit.sipg.core.electricity.ElectricitySoS;
+import edu.mit.sipg.core.optim.CachingLinearSolver;
+import edu.mit.sipg.core.optim.LinearProgram;
+import edu.mit.sipg.core.optim.LinearSolver;
+import edu.mit.sipg.core.optim.PreparedOptimization;
+import edu.mit.sipg.core.petroleum.PetroleumElement;
 import edu.mit.sipg.core.petroleum.PetroleumSoS;
+import edu.mit.sipg.core.water.WaterElement;
 import edu.mit.sipg.core.water.WaterSoS;
 import edu.mit.sipg.gui.event.SimulationControlEvent;
 import edu.mit.sipg.gui.event.SimulationControlEvent.AdvanceToEnd;
 import edu.mit.sipg.gui.event.SimulationControlEvent.Execute;
 import edu.mit.sipg.gui.event.SimulationControlEvent.Reset;
-import edu.mit.sipg.gui.event.UpdateEvent;
 import edu.mit.sipg.gui.event.UpdateListener;
 import edu.mit.sipg.scenario.Scenario;
+import edu.mit.sipg.scenario.Sector;
 
 /**
  * The default implementation of the simulator interface.
@@ -40,6 +61,24 @@ import edu.mit.sipg.scenario.Scenario;
  */
 public class DefaultSimulator implements Simulator {	
 	private static Logger logger = Logger.getLogger(DefaultSimulator.class);
+	private static ExecutorService optimizationExecutor;
+	private static final SimulationMetrics metrics = SimulationMetrics.getInstance();
+	private static final Map<Sector, SimulationMetrics.Timer> optimizeTimers = 
+			new EnumMap<Sector, SimulationMetrics.Timer>(Sector.class);
+	static {
+		for(Sector sector : Sector.values()) {
+			optimizeTimers.put(sector, metrics.timer(
+					"optimize." + sector.name().toLowerCase()));
+		}
+	}
+	private static final SimulationMetrics.Timer coupledOptimizeTimer = 
+			metrics.timer("optimize.coupled");
+	private static final SimulationMetrics.Counter solveFailures = 
+			metrics.counter("optimize.failures");
+	protected static final SimulationMetrics.Timer tickTimer = 
+			metrics.timer("country.tick");
+	protected static final SimulationMetrics.Timer tockTimer = 
+			metrics.timer("country.tock");
 	
 	protected Scenario scenario;
 	protected boolean autoOptimizeDistribution = true;
@@ -49,8 +88,19 @@ public class DefaultSimulator implements Simulator {
 	protected long startTime, endTime;
 	protected long time;
 	protected final int numberIterations = 4;
+	protected boolean adaptiveOptimization = false;
+	protected double optimizationTolerance = 1e-6;
+	protected int maxOptimizationIterations = 10;
+	protected boolean parallelOptimization = false;
+	protected boolean coupledOptimization = false;
+	private transient CoupledOptimizer coupledOptimizer;
+	protected LinearSolver linearSolver = LinearProgram.DEFAULT_SOLVER;
+	protected boolean flowReplay = false;
+	private final FlowReplay replay = new FlowReplay();
+	protected final Map<Long, Integer> optimizationPasses = 
+			Collections.synchronizedMap(new TreeMap<Long, Integer>());
 	protected final Connection connection;
-	protected transient EventListenerList listenerList = new EventListenerList();
+	protected final transient UpdateDispatcher updateDispatcher = new UpdateDispatcher();
 	
 	/**
 	 * Instantiates a new default simulator.
@@ -79,7 +129,12 @@ public class DefaultSimulator implements Simulator {
 	 */
 	@Override
 	public void addUpdateListener(UpdateListener listener) {
-		listenerList.add(UpdateListener.class, listener);
+		updateDispatcher.addListener(listener, UpdateDispatcher.Policy.SYNCHRONOUS);
+	}
+
+	@Override
+	public void addUpdateListener(UpdateListener listener, UpdateDispatcher.Policy policy) {
+		updateDispatcher.addListener(listener, policy);
 	}
 	
 	/**
@@ -104,20 +159,36 @@ public class DefaultSimulator implements Simulator {
 		long stopTime = Math.min(endTime, time + duration);
 		
 		while(time <= stopTime) {
-			for(int i = 0; i < numberIterations; i++) {
-				runAutoOptimization();
+			if(flowReplay && replay.isValid(time)) {
+				logger.trace("Replaying optimized flows (time = " + time + ").");
+				replay.replay(time);
+				optimizationPasses.put(time, replay.getPasses(time));
+			} else {
+				int passes = runOptimizationPasses();
+				optimizationPasses.put(time, passes);
+				if(flowReplay) {
+					replay.record(time, passes);
+				}
 			}
 			
 			logger.trace("Tick/tocking the country (time = " + time + ").");
+			long start = tickTimer.start();
 			scenario.getCountry().tick();
+			tickTimer.stop(start);
 			fireUpdateEvent(time);
 			if(time >= endTime) {
 				logger.trace("Simulation is completed.");
+				if(linearSolver instanceof CachingLinearSolver) {
+					logger.debug("Solution cache hit rate is " 
+							+ getSolutionCacheHitRate() + ".");
+				}
 				completed.set(true);
 				fireCompleteEvent(time);
 				return;
 			}
+			start = tockTimer.start();
 			scenario.getCountry().tock();
+			tockTimer.stop(start);
 			time = time + 1;
 			logger.trace("The time is now " + time + ".");
 		}
@@ -146,20 +217,14 @@ public class DefaultSimulator implements Simulator {
 	 */
 	protected void fireCompleteEvent(long time) {
 		logger.info("Firing complete event with time " + time);
-		for(UpdateListener listener 
-				: listenerList.getListeners(UpdateListener.class)) {
-			listener.simulationCompleted(new UpdateEvent(this, time, scenario.getCountry()));
-		}
+		updateDispatcher.fireCompleteEvent(this, time, scenario.getCountry());
 	}
 	
 	/**
 	 * Fire initialize event.
 	 */
 	protected void fireInitializeEvent() {
-		for(UpdateListener listener 
-				: listenerList.getListeners(UpdateListener.class)) {
-			listener.simulationInitialized(new UpdateEvent(this, time, scenario.getCountry()));
-		}
+		updateDispatcher.fireInitializeEvent(this, time, scenario.getCountry());
 	}
 	
 	/**
@@ -169,10 +234,7 @@ public class DefaultSimulator implements Simulator {
 	 */
 	protected void fireUpdateEvent(long time) {
 		logger.info("Firing update event with time " + time);
-		for(UpdateListener listener 
-				: listenerList.getListeners(UpdateListener.class)) {
-			listener.simulationUpdated(new UpdateEvent(this, time, scenario.getCountry()));
-		}
+		updateDispatcher.fireUpdateEvent(this, time, scenario.getCountry());
 	}
 	
 	@Override
@@ -180,6 +242,155 @@ public class DefaultSimulator implements Simulator {
 		return connection;
 	}
 
+	/**
+	 * Gets the coupled optimizer for the current country.
+	 *
+	 * @return the coupled optimizer
+	 */
+	private CoupledOptimizer getCoupledOptimizer() {
+		if(coupledOptimizer == null 
+				|| coupledOptimizer.getSociety() != scenario.getCountry()) {
+			coupledOptimizer = new CoupledOptimizer(scenario.getCountry());
+		}
+		return coupledOptimizer;
+	}
+
+	/**
+	 * Gets the maximum number of optimization passes per year in 
+	 * adaptive optimization mode.
+	 *
+	 * @return the maximum optimization iterations
+	 */
+	public int getMaxOptimizationIterations() {
+		return maxOptimizationIterations;
+	}
+	
+	/**
+	 * Gets the settings which affect the optimization results. Replay 
+	 * records made with different settings are discarded.
+	 *
+	 * @return the optimization settings
+	 */
+	private List<Object> getOptimizationSettings() {
+		return Arrays.<Object>asList(autoOptimizeDistribution, 
+				autoOptimizeProductionAndDistribution, adaptiveOptimization, 
+				optimizationTolerance, maxOptimizationIterations, 
+				parallelOptimization, coupledOptimization, linearSolver);
+	}
+
+	/**
+	 * Gets the number of optimization passes performed in each simulated 
+	 * year since the simulation was last initialized.
+	 *
+	 * @return the optimization passes (keyed by year)
+	 */
+	public Map<Long, Integer> getOptimizationPasses() {
+		synchronized(optimizationPasses) {
+			return Collections.unmodifiableMap(
+					new TreeMap<Long, Integer>(optimizationPasses));
+		}
+	}
+	
+	/**
+	 * Gets the linear solver used for sector optimizations.
+	 *
+	 * @return the linear solver
+	 */
+	public LinearSolver getLinearSolver() {
+		return linearSolver;
+	}
+
+	/**
+	 * Gets the fraction of linear programs solved from the solution 
+	 * cache of the linear solver. Returns {@link Double#NaN} if the 
+	 * linear solver does not cache solutions or no linear programs 
+	 * have been solved.
+	 *
+	 * @return the solution cache hit rate
+	 */
+	public double getSolutionCacheHitRate() {
+		if(linearSolver instanceof CachingLinearSolver) {
+			return ((CachingLinearSolver) linearSolver).getHitRate();
+		}
+		return Double.NaN;
+	}
+
+	/**
+	 * Gets the shared executor used to solve sector optimizations 
+	 * concurrently in parallel optimization mode.
+	 *
+	 * @return the optimization executor
+	 */
+	private static synchronized ExecutorService getOptimizationExecutor() {
+		if(optimizationExecutor == null) {
+			optimizationExecutor = Executors.newCachedThreadPool(
+					new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger(0);
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable,
+							"optimization-worker-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return optimizationExecutor;
+	}
+	
+	/**
+	 * Gets the optimization state vector comprising the production 
+	 * and input values of all locally-optimized elements.
+	 *
+	 * @return the optimization state
+	 */
+	private double[] getOptimizationState() {
+		Country country = scenario.getCountry();
+		List<Double> state = new ArrayList<Double>();
+		if(country.getAgricultureSystem() instanceof AgricultureSoS.Local) {
+			for(AgricultureElement e : ((AgricultureSoS.Local)
+					country.getAgricultureSystem()).getInternalElements()) {
+				state.add(e.getLandArea());
+				state.add(e.getFoodInput());
+			}
+		}
+		if(country.getWaterSystem() instanceof WaterSoS.Local) {
+			for(WaterElement e : ((WaterSoS.Local)
+					country.getWaterSystem()).getInternalElements()) {
+				state.add(e.getWaterProduction());
+				state.add(e.getWaterInput());
+			}
+		}
+		if(country.getElectricitySystem() instanceof ElectricitySoS.Local) {
+			for(ElectricityElement e : ((ElectricitySoS.Local)
+					country.getElectricitySystem()).getInternalElements()) {
+				state.add(e.getElectricityProduction());
+				state.add(e.getElectricityInput());
+			}
+		}
+		if(country.getPetroleumSystem() instanceof PetroleumSoS.Local) {
+			for(PetroleumElement e : ((PetroleumSoS.Local)
+					country.getPetroleumSystem()).getInternalElements()) {
+				state.add(e.getPetroleumProduction());
+				state.add(e.getPetroleumInput());
+			}
+		}
+		double[] values = new double[state.size()];
+		for(int i = 0; i < values.length; i++) {
+			values[i] = state.get(i);
+		}
+		return values;
+	}
+	
+	/**
+	 * Gets the relative convergence tolerance for adaptive optimization.
+	 *
+	 * @return the optimization tolerance
+	 */
+	public double getOptimizationTolerance() {
+		return optimizationTolerance;
+	}
+
 	@Override
 	public Scenario getScenario() {
 		return scenario;
@@ -200,6 +411,16 @@ public class DefaultSimulator implements Simulator {
 		return time;
 	}
 	
+	/**
+	 * Gets the update dispatcher which delivers events to the update 
+	 * listeners and reports their queue depths.
+	 *
+	 * @return the update dispatcher
+	 */
+	public UpdateDispatcher getUpdateDispatcher() {
+		return updateDispatcher;
+	}
+	
 	/**
 	 * Initialize.
 	 *
@@ -221,8 +442,22 @@ public class DefaultSimulator implements Simulator {
 
 		scenario.getCountry().initialize(startTime);
 
-		for(int i = 0; i < numberIterations; i++) {
-			runAutoOptimization();
+		optimizationPasses.clear();
+		if(flowReplay) {
+			replay.initialize(scenario.getCountry(), startTime, 
+					getOptimizationSettings(), autoOptimizeProductionAndDistribution, 
+					autoOptimizeProductionAndDistribution || autoOptimizeDistribution);
+			logger.debug("Optimized flows can be replayed until " 
+					+ replay.getValidTime() + ".");
+		}
+		if(flowReplay && replay.isInitialValid()) {
+			replay.replayInitial();
+		} else {
+			int passes = runOptimizationPasses();
+			logger.debug("Initial optimization required " + passes + " passes.");
+			if(flowReplay) {
+				replay.recordInitial();
+			}
 		}
 		
 		fireInitializeEvent();
@@ -236,6 +471,18 @@ public class DefaultSimulator implements Simulator {
 		initialize(event.getStartTime(), event.getEndTime());
 	}
 
+	/**
+	 * Checks if adaptive optimization is enabled. In adaptive mode, 
+	 * optimization passes are repeated until the element production and 
+	 * input values stop changing (up to a maximum number of passes) 
+	 * rather than a fixed number of times per year.
+	 *
+	 * @return true, if adaptive optimization is enabled
+	 */
+	public boolean isAdaptiveOptimization() {
+		return adaptiveOptimization;
+	}
+
 	@Override
 	public boolean isAutoOptimizeDistribution() {
 		return autoOptimizeDistribution;
@@ -246,19 +493,138 @@ public class DefaultSimulator implements Simulator {
 		return autoOptimizeProductionAndDistribution;
 	}
 
+	/**
+	 * Checks if coupled optimization is enabled. In coupled mode, 
+	 * production and distribution in all sectors is optimized by a single 
+	 * linear program with explicit resource flows between sectors, solved 
+	 * once per year. Coupled optimization requires all sectors to be 
+	 * locally controlled; otherwise, sectors are optimized separately.
+	 *
+	 * @return true, if coupled optimization is enabled
+	 */
+	public boolean isCoupledOptimization() {
+		return coupledOptimization;
+	}
+
+	/**
+	 * Checks if the coupled optimizer applies to the current state, i.e. 
+	 * coupled optimization and production optimization are enabled and 
+	 * all sectors are locally controlled.
+	 *
+	 * @return true, if the coupled optimizer applies
+	 */
+	private boolean isCoupledOptimizerApplicable() {
+		return coupledOptimization && autoOptimizeProductionAndDistribution
+				&& CoupledOptimizer.isApplicable(scenario.getCountry());
+	}
+
 	@Override
 	public boolean isCompleted() {
 		return completed.get();
 	}
 
+	/**
+	 * Checks if flow replay is enabled. With flow replay, the optimized 
+	 * element flows are recorded in each year of a run. A re-run still 
+	 * simulates every year from the start time, but years before the first 
+	 * year in which an added or removed element exists apply the recorded 
+	 * flows instead of being re-optimized.
+	 *
+	 * @return true, if flow replay is enabled
+	 */
+	public boolean isFlowReplay() {
+		return flowReplay;
+	}
+
 	@Override
 	public boolean isInitialized() {
 		return initialized.get();
 	}
 
+	/**
+	 * Checks if parallel optimization is enabled. In parallel mode, each 
+	 * optimization pass assembles all sector optimizations against the 
+	 * same state, solves them concurrently, and then applies the results 
+	 * together (Jacobi iteration). Otherwise, sectors are optimized one 
+	 * after another and each sector sees the results of the previous 
+	 * sectors (Gauss-Seidel iteration).
+	 *
+	 * @return true, if parallel optimization is enabled
+	 */
+	public boolean isParallelOptimization() {
+		return parallelOptimization;
+	}
+
+	/**
+	 * Solves a prepared optimization with the linear solver and applies 
+	 * the result.
+	 *
+	 * @param timer the timer to record the latency
+	 * @param optimization the optimization
+	 */
+	private void optimize(SimulationMetrics.Timer timer, 
+			PreparedOptimization optimization) {
+		long start = timer.start();
+		solve(optimization);
+		optimization.apply();
+		timer.stop(start);
+	}
+
+	/**
+	 * Prepares the enabled sector optimizations from the current state.
+	 *
+	 * @return the prepared optimizations by sector
+	 */
+	private Map<Sector, PreparedOptimization> prepareOptimizations() {
+		Map<Sector, PreparedOptimization> optimizations = 
+				new EnumMap<Sector, PreparedOptimization>(Sector.class);
+		if(autoOptimizeProductionAndDistribution) {
+			if(scenario.getCountry().getAgricultureSystem() instanceof AgricultureSoS.Local) {
+				optimizations.put(Sector.AGRICULTURE, ((AgricultureSoS.Local)scenario.getCountry().getAgricultureSystem())
+						.prepareFoodProductionAndDistribution());
+			}
+			
+			if(scenario.getCountry().getWaterSystem() instanceof WaterSoS.Local) {
+				optimizations.put(Sector.WATER, ((WaterSoS.Local)scenario.getCountry().getWaterSystem())
+						.prepareWaterProductionAndDistribution());
+			}
+			
+			if(scenario.getCountry().getElectricitySystem() instanceof ElectricitySoS.Local) {
+				optimizations.put(Sector.ELECTRICITY, ((ElectricitySoS.Local)scenario.getCountry().getElectricitySystem())
+						.prepareElectricityProductionAndDistribution());
+			}
+			
+			if(scenario.getCountry().getPetroleumSystem() instanceof PetroleumSoS.Local) {
+				optimizations.put(Sector.PETROLEUM, ((PetroleumSoS.Local)scenario.getCountry().getPetroleumSystem())
+						.preparePetroleumProductionAndDistribution());
+			}
+		} else if(autoOptimizeDistribution) {
+			if(scenario.getCountry().getAgricultureSystem() instanceof AgricultureSoS.Local) {
+				optimizations.put(Sector.AGRICULTURE, ((AgricultureSoS.Local)scenario.getCountry().getAgricultureSystem())
+						.prepareFoodDistribution());
+			}
+			
+			if(scenario.getCountry().getWaterSystem() instanceof WaterSoS.Local) {
+				optimizations.put(Sector.WATER, ((WaterSoS.Local)scenario.getCountry().getWaterSystem())
+						.prepareWaterDistribution());
+			}
+			
+			if(scenario.getCountry().getElectricitySystem() instanceof ElectricitySoS.Local) {
+				optimizations.put(Sector.ELECTRICITY, ((ElectricitySoS.Local)scenario.getCountry().getElectricitySystem())
+						.prepareElectricityDistribution());
+			}
+			
+			if(scenario.getCountry().getPetroleumSystem() instanceof PetroleumSoS.Local) {
+				optimizations.put(Sector.PETROLEUM, ((PetroleumSoS.Local)scenario.getCountry().getPetroleumSystem())
+						.preparePetroleumDistribution());
+			}
+		}
+		return optimizations;
+	}
+
 	@Override
 	public void removeUpdateListener(UpdateListener listener) {
-		listenerList.remove(UpdateListener.class, listener);
+		updateDispatcher.removeListener(listener);
 	}
 
 	@Override
@@ -268,55 +634,196 @@ public class DefaultSimulator implements Simulator {
 
 	@Override
 	public void runAutoOptimization() {
-		if(autoOptimizeProductionAndDistribution) {
+		if(isCoupledOptimizerApplicable()) {
+			optimize(coupledOptimizeTimer, 
+					getCoupledOptimizer().prepareProductionAndDistribution());
+		} else if(parallelOptimization) {
+			// assemble all sectors before applying any results so each 
+			// sector sees the same cross-sector inputs
+			Map<Sector, PreparedOptimization> optimizations = prepareOptimizations();
+			solveOptimizations(optimizations);
+			for(PreparedOptimization optimization : optimizations.values()) {
+				optimization.apply();
+			}
+		} else if(autoOptimizeProductionAndDistribution) {
 			if(scenario.getCountry().getAgricultureSystem() instanceof AgricultureSoS.Local) {
-				((AgricultureSoS.Local)scenario.getCountry().getAgricultureSystem())
-				.optimizeFoodProductionAndDistribution();
+				optimize(optimizeTimers.get(Sector.AGRICULTURE), ((AgricultureSoS.Local)scenario.getCountry().getAgricultureSystem())
+						.prepareFoodProductionAndDistribution());
 			}
 			
 			if(scenario.getCountry().getWaterSystem() instanceof WaterSoS.Local) {
-				((WaterSoS.Local)scenario.getCountry().getWaterSystem())
-				.optimizeWaterProductionAndDistribution();
+				optimize(optimizeTimers.get(Sector.WATER), ((WaterSoS.Local)scenario.getCountry().getWaterSystem())
+						.prepareWaterProductionAndDistribution());
 			}
 			
 			if(scenario.getCountry().getElectricitySystem() instanceof ElectricitySoS.Local) {
-				((ElectricitySoS.Local)scenario.getCountry().getElectricitySystem())
-				.optimizeElectricityProductionAndDistribution();
+				optimize(optimizeTimers.get(Sector.ELECTRICITY), ((ElectricitySoS.Local)scenario.getCountry().getElectricitySystem())
+						.prepareElectricityProductionAndDistribution());
 			}
 			
 			if(scenario.getCountry().getPetroleumSystem() instanceof PetroleumSoS.Local) {
-				((PetroleumSoS.Local)scenario.getCountry().getPetroleumSystem())
-				.optimizePetroleumProductionAndDistribution();
+				optimize(optimizeTimers.get(Sector.PETROLEUM), ((PetroleumSoS.Local)scenario.getCountry().getPetroleumSystem())
+						.preparePetroleumProductionAndDistribution());
 			}
 		} else if(autoOptimizeDistribution) {
 			if(scenario.getCountry().getAgricultureSystem() instanceof AgricultureSoS.Local) {
-				((AgricultureSoS.Local)scenario.getCountry().getAgricultureSystem())
-				.optimizeFoodDistribution();
+				optimize(optimizeTimers.get(Sector.AGRICULTURE), ((AgricultureSoS.Local)scenario.getCountry().getAgricultureSystem())
+						.prepareFoodDistribution());
 			}
 			
 			if(scenario.getCountry().getWaterSystem() instanceof WaterSoS.Local) {
-				((WaterSoS.Local)scenario.getCountry().getWaterSystem())
-				.optimizeWaterDistribution();
+				optimize(optimizeTimers.get(Sector.WATER), ((WaterSoS.Local)scenario.getCountry().getWaterSystem())
+						.prepareWaterDistribution());
 			}
 			
 			if(scenario.getCountry().getElectricitySystem() instanceof ElectricitySoS.Local) {
-				((ElectricitySoS.Local)scenario.getCountry().getElectricitySystem())
-				.optimizeElectricityDistribution();
+				optimize(optimizeTimers.get(Sector.ELECTRICITY), ((ElectricitySoS.Local)scenario.getCountry().getElectricitySystem())
+						.prepareElectricityDistribution());
 			}
 			
 			if(scenario.getCountry().getPetroleumSystem() instanceof PetroleumSoS.Local) {
-				((PetroleumSoS.Local)scenario.getCountry().getPetroleumSystem())
-				.optimizePetroleumDistribution();
+				optimize(optimizeTimers.get(Sector.PETROLEUM), ((PetroleumSoS.Local)scenario.getCountry().getPetroleumSystem())
+						.preparePetroleumDistribution());
 			}
 		}
 	}
 
+	/**
+	 * Runs the auto-optimization passes for the current year: a single 
+	 * pass in coupled mode, otherwise either a fixed number of iterations 
+	 * or, in adaptive mode, until the optimization state converges.
+	 *
+	 * @return the number of passes performed
+	 */
+	protected int runOptimizationPasses() {
+		if(isCoupledOptimizerApplicable()) {
+			// sectors are solved together so no iteration is required
+			runAutoOptimization();
+			return 1;
+		}
+		if(!adaptiveOptimization) {
+			for(int i = 0; i < numberIterations; i++) {
+				runAutoOptimization();
+			}
+			return numberIterations;
+		}
+		
+		double[] state = getOptimizationState();
+		for(int i = 1; i <= maxOptimizationIterations; i++) {
+			runAutoOptimization();
+			double[] nextState = getOptimizationState();
+			if(isConverged(state, nextState)) {
+				logger.trace("Optimization converged after " + i 
+						+ " passes (time = " + time + ").");
+				return i;
+			}
+			state = nextState;
+		}
+		logger.warn("Optimization did not converge after " 
+				+ maxOptimizationIterations + " passes (time = " + time + ").");
+		return maxOptimizationIterations;
+	}
+	
+	/**
+	 * Checks if two optimization states are equal within the 
+	 * relative optimization tolerance.
+	 *
+	 * @param state the previous state
+	 * @param nextState the next state
+	 * @return true, if converged
+	 */
+	private boolean isConverged(double[] state, double[] nextState) {
+		if(state.length != nextState.length) {
+			return false;
+		}
+		for(int i = 0; i < state.length; i++) {
+			double scale = Math.max(1, Math.max(
+					Math.abs(state[i]), Math.abs(nextState[i])));
+			if(Math.abs(nextState[i] - state[i]) > optimizationTolerance*scale) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public void runOptimization() {
+		// flows no longer match the replay records from this time
+		replay.invalidate(time);
 		runAutoOptimization();
 		fireUpdateEvent(time);
 	}
 
+	/**
+	 * Solves a prepared optimization with the linear solver and counts 
+	 * the failures.
+	 *
+	 * @param optimization the optimization
+	 */
+	private void solve(PreparedOptimization optimization) {
+		optimization.solve(linearSolver);
+		if(!optimization.isSolved()) {
+			solveFailures.increment();
+		}
+	}
+
+	/**
+	 * Solves prepared optimizations concurrently, using the calling 
+	 * thread for the last optimization.
+	 *
+	 * @param optimizations the optimizations
+	 */
+	private void solveOptimizations(Map<Sector, PreparedOptimization> optimizations) {
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		List<Sector> sectors = new ArrayList<Sector>(optimizations.keySet());
+		for(int i = 0; i < sectors.size(); i++) {
+			final SimulationMetrics.Timer timer = optimizeTimers.get(sectors.get(i));
+			final PreparedOptimization optimization = optimizations.get(sectors.get(i));
+			Runnable task = new Runnable() {
+				@Override
+				public void run() {
+					long start = timer.start();
+					solve(optimization);
+					timer.stop(start);
+				}
+			};
+			if(i < sectors.size() - 1) {
+				futures.add(getOptimizationExecutor().submit(task));
+			} else {
+				task.run();
+			}
+		}
+		boolean interrupted = false;
+		for(Future<?> future : futures) {
+			while(true) {
+				try {
+					future.get();
+					break;
+				} catch(InterruptedException e) {
+					// results are needed before continuing; restore later
+					interrupted = true;
+				} catch(ExecutionException e) {
+					if(e.getCause() instanceof RuntimeException) {
+						throw (RuntimeException) e.getCause();
+					}
+					throw new IllegalStateException(e.getCause());
+				}
+			}
+		}
+		if(interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Sets the adaptive optimization mode.
+	 *
+	 * @param adaptiveOptimization true to enable adaptive optimization
+	 */
+	public void setAdaptiveOptimization(boolean adaptiveOptimization) {
+		this.adaptiveOptimization = adaptiveOptimization;
+	}
+
 	@Override
 	public void setAutoOptimizeDistribution(boolean autoOptimizeDistribution) {
 		this.autoOptimizeDistribution = autoOptimizeDistribution;
@@ -328,6 +835,79 @@ public class DefaultSimulator implements Simulator {
 		this.autoOptimizeProductionAndDistribution = autoOptimizeProductionAndDistribution;
 	}
 
+	/**
+	 * Sets the coupled optimization mode.
+	 *
+	 * @param coupledOptimization true to enable coupled optimization
+	 */
+	public void setCoupledOptimization(boolean coupledOptimization) {
+		this.coupledOptimization = coupledOptimization;
+	}
+
+	/**
+	 * Sets the flow replay mode. Disabling flow replay discards all 
+	 * recorded flows.
+	 *
+	 * @param flowReplay true to enable flow replay
+	 */
+	public void setFlowReplay(boolean flowReplay) {
+		this.flowReplay = flowReplay;
+		if(!flowReplay) {
+			replay.clear();
+		}
+	}
+
+	/**
+	 * Sets the linear solver used for sector optimizations. Wrapping a 
+	 * solver in a {@link CachingLinearSolver} re-uses solutions of 
+	 * identical linear programs, e.g. when a simulation is reset and 
+	 * re-run with small changes.
+	 *
+	 * @param linearSolver the linear solver
+	 */
+	public void setLinearSolver(LinearSolver linearSolver) {
+		if(linearSolver == null) {
+			throw new IllegalArgumentException("Linear solver cannot be null.");
+		}
+		this.linearSolver = linearSolver;
+	}
+
+	/**
+	 * Sets the maximum number of optimization passes per year in 
+	 * adaptive optimization mode.
+	 *
+	 * @param maxOptimizationIterations the maximum optimization iterations
+	 */
+	public void setMaxOptimizationIterations(int maxOptimizationIterations) {
+		if(maxOptimizationIterations < 1) {
+			throw new IllegalArgumentException(
+					"Maximum optimization iterations must be positive.");
+		}
+		this.maxOptimizationIterations = maxOptimizationIterations;
+	}
+	
+	/**
+	 * Sets the relative convergence tolerance for adaptive optimization.
+	 *
+	 * @param optimizationTolerance the optimization tolerance
+	 */
+	public void setOptimizationTolerance(double optimizationTolerance) {
+		if(optimizationTolerance < 0) {
+			throw new IllegalArgumentException(
+					"Optimization tolerance cannot be negative.");
+		}
+		this.optimizationTolerance = optimizationTolerance;
+	}
+
+	/**
+	 * Sets the parallel optimization mode.
+	 *
+	 * @param parallelOptimization true to enable parallel optimization
+	 */
+	public void setParallelOptimization(boolean parallelOptimization) {
+		this.parallelOptimization = parallelOptimization;
+	}
+
 	@Override
 	public void connect() {
 		connection.setConnected(true);
@@ -341,6 +921,7 @@ public class DefaultSimulator implements Simulator {
 	@Override
 	public void setScenario(Scenario scenario) {
 		this.scenario = scenario;
+		replay.clear();
 		initialized.set(false);
 	}
 }
@@ -0,0 +1,347 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.sim;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.agriculture.AgricultureElement;
+import edu.mit.sipg.core.base.InfrastructureElement;
+import edu.mit.sipg.core.electricity.ElectricityElement;
+import edu.mit.sipg.core.lifecycle.LifecycleModel;
+import edu.mit.sipg.core.petroleum.PetroleumElement;
+import edu.mit.sipg.core.water.WaterElement;
+
+/**
+ * Per-year records of the optimized element flows in a simulation run 
+ * which can be replayed in a later run instead of re-optimizing.
+ * 
+ * This is not a state checkpoint: a re-run still initializes the country 
+ * at the start time and ticks and tocks every year, so all other state 
+ * (e.g. reservoir and aquifer volumes, cumulative cash flows, security 
+ * score histories, and model clocks) is re-computed. Only the optimization 
+ * passes are skipped. The optimized production and input of each element 
+ * are the only state which the simulator sets from outside the tick and 
+ * tock phases, so replaying recorded flows reproduces a previous run 
+ * exactly until the first year in which an added or removed element 
+ * exists.
+ * 
+ * Re-runs do not resume from per-year state snapshots. With recorded 
+ * flows, a re-run year costs about one country tick, 
+ * while a deep copy of the country costs about half as much in every 
+ * recorded year. Restoring a snapshot into the edited country would 
+ * also require copying state in place into every system, element, and 
+ * model, because the user interface holds references to them.
+ * 
+ * Records are discarded if the country, start time, or optimization 
+ * settings change between runs.
+ */
+final class FlowReplay {
+	private Country country;
+	private long startTime;
+	private List<Object> settings;
+	private boolean production, distribution;
+	private List<InfrastructureElement> elements = 
+			new ArrayList<InfrastructureElement>();
+	private double[] initialFlows;
+	private final Map<Long, double[]> flows = new HashMap<Long, double[]>();
+	private final Map<Long, Integer> passes = new HashMap<Long, Integer>();
+	private long validTime;
+	
+	/**
+	 * Removes all records.
+	 */
+	public void clear() {
+		country = null;
+		settings = null;
+		elements = new ArrayList<InfrastructureElement>();
+		initialFlows = null;
+		flows.clear();
+		passes.clear();
+	}
+	
+	/**
+	 * Gets the flows of all elements.
+	 *
+	 * @return the flows (production and input of each element)
+	 */
+	private double[] getFlows() {
+		double[] values = new double[2*elements.size()];
+		for(int i = 0; i < elements.size(); i++) {
+			InfrastructureElement element = elements.get(i);
+			if(element instanceof AgricultureElement) {
+				values[2*i] = ((AgricultureElement) element).getLandArea();
+				values[2*i+1] = ((AgricultureElement) element).getFoodInput();
+			} else if(element instanceof WaterElement) {
+				values[2*i] = ((WaterElement) element).getWaterProduction();
+				values[2*i+1] = ((WaterElement) element).getWaterInput();
+			} else if(element instanceof ElectricityElement) {
+				values[2*i] = ((ElectricityElement) element).getElectricityProduction();
+				values[2*i+1] = ((ElectricityElement) element).getElectricityInput();
+			} else if(element instanceof PetroleumElement) {
+				values[2*i] = ((PetroleumElement) element).getPetroleumProduction();
+				values[2*i+1] = ((PetroleumElement) element).getPetroleumInput();
+			}
+		}
+		return values;
+	}
+	
+	/**
+	 * Gets the first time an element exists, evaluated on a copy of its 
+	 * lifecycle model.
+	 *
+	 * @param element the element
+	 * @param limit the latest time to evaluate
+	 * @return the first time the element exists, or the limit if it 
+	 * does not exist before the limit
+	 */
+	private long getFirstExistingTime(InfrastructureElement element, long limit) {
+		LifecycleModel model = element.getLifecycleModel()
+				.getMutableLifecycleModel().createLifecycleModel();
+		model.initialize(startTime);
+		for(long time = startTime; time < limit; time++) {
+			if(model.isExists()) {
+				return time;
+			}
+			model.tick();
+			model.tock();
+		}
+		return limit;
+	}
+	
+	/**
+	 * Gets the number of optimization passes recorded for a time.
+	 *
+	 * @param time the time
+	 * @return the number of passes
+	 */
+	public int getPasses(long time) {
+		return passes.get(time);
+	}
+	
+	/**
+	 * Gets the time before which records are valid.
+	 *
+	 * @return the valid time
+	 */
+	public long getValidTime() {
+		return validTime;
+	}
+	
+	/**
+	 * Prepares the records for a new run of a country which has been 
+	 * initialized to the start time. Records are discarded if the 
+	 * country, start time, or settings changed; otherwise, records 
+	 * remain valid before the first year in which any added or removed 
+	 * element exists.
+	 *
+	 * @param country the country
+	 * @param startTime the start time
+	 * @param settings the optimization settings
+	 * @param production true, if element production is optimized
+	 * @param distribution true, if element inputs are optimized
+	 */
+	public void initialize(Country country, long startTime, 
+			List<Object> settings, boolean production, boolean distribution) {
+		List<InfrastructureElement> currentElements = 
+				new ArrayList<InfrastructureElement>(country.getInternalElements());
+		if(country != this.country || startTime != this.startTime 
+				|| !settings.equals(this.settings)) {
+			clear();
+			this.country = country;
+			this.startTime = startTime;
+			this.settings = settings;
+			this.production = production;
+			this.distribution = distribution;
+			validTime = startTime;
+		} else if(!currentElements.equals(elements)) {
+			Map<InfrastructureElement, Integer> currentIndices = getIndices(currentElements);
+			for(InfrastructureElement element : elements) {
+				if(!currentIndices.containsKey(element)) {
+					validTime = getFirstExistingTime(element, validTime);
+				}
+			}
+			Map<InfrastructureElement, Integer> indices = getIndices(elements);
+			for(InfrastructureElement element : currentElements) {
+				if(!indices.containsKey(element)) {
+					validTime = getFirstExistingTime(element, validTime);
+				}
+			}
+			
+			// re-map retained elements; new elements do not exist 
+			// (and have no flows) in any remaining record
+			int[] previousIndices = new int[currentElements.size()];
+			for(int i = 0; i < currentElements.size(); i++) {
+				Integer index = indices.get(currentElements.get(i));
+				previousIndices[i] = index == null ? -1 : index;
+			}
+			if(initialFlows != null) {
+				initialFlows = remap(initialFlows, previousIndices);
+			}
+			for(Map.Entry<Long, double[]> entry : flows.entrySet()) {
+				entry.setValue(remap(entry.getValue(), previousIndices));
+			}
+		}
+		elements = currentElements;
+	}
+	
+	/**
+	 * Gets the index of each element by identity.
+	 *
+	 * @param elements the elements
+	 * @return the indices
+	 */
+	private static Map<InfrastructureElement, Integer> getIndices(
+			List<InfrastructureElement> elements) {
+		Map<InfrastructureElement, Integer> indices = 
+				new IdentityHashMap<InfrastructureElement, Integer>();
+		for(int i = 0; i < elements.size(); i++) {
+			indices.put(elements.get(i), i);
+		}
+		return indices;
+	}
+	
+	/**
+	 * Invalidates the records at and after a time.
+	 *
+	 * @param time the time
+	 */
+	public void invalidate(long time) {
+		validTime = Math.min(validTime, time);
+	}
+	
+	/**
+	 * Checks if the initial flows can be replayed.
+	 *
+	 * @return true, if the initial flows are valid
+	 */
+	public boolean isInitialValid() {
+		return country != null && initialFlows != null && startTime < validTime;
+	}
+	
+	/**
+	 * Checks if the flows for a time can be replayed.
+	 *
+	 * @param time the time
+	 * @return true, if the flows are valid
+	 */
+	public boolean isValid(long time) {
+		return country != null && time < validTime && flows.containsKey(time);
+	}
+	
+	/**
+	 * Records the initial flows after the initial optimization.
+	 */
+	public void recordInitial() {
+		if(country != null) {
+			initialFlows = getFlows();
+		}
+	}
+	
+	/**
+	 * Records the flows after the optimization for a time. Any later 
+	 * records are invalidated.
+	 *
+	 * @param time the time
+	 * @param passes the number of optimization passes
+	 */
+	public void record(long time, int passes) {
+		if(country != null) {
+			flows.put(time, getFlows());
+			this.passes.put(time, passes);
+			validTime = time + 1;
+		}
+	}
+	
+	/**
+	 * Re-maps flows to a new list of elements.
+	 *
+	 * @param values the flows
+	 * @param previousIndices the previous index of each element (or -1)
+	 * @return the re-mapped flows
+	 */
+	private static double[] remap(double[] values, int[] previousIndices) {
+		double[] remapped = new double[2*previousIndices.length];
+		for(int i = 0; i < previousIndices.length; i++) {
+			if(previousIndices[i] >= 0) {
+				remapped[2*i] = values[2*previousIndices[i]];
+				remapped[2*i+1] = values[2*previousIndices[i]+1];
+			}
+		}
+		return remapped;
+	}
+	
+	/**
+	 * Replays the flows recorded for a time.
+	 *
+	 * @param time the time
+	 */
+	public void replay(long time) {
+		setFlows(flows.get(time));
+	}
+	
+	/**
+	 * Replays the initial flows.
+	 */
+	public void replayInitial() {
+		setFlows(initialFlows);
+	}
+	
+	/**
+	 * Sets the flows of all elements. Production and inputs are only set 
+	 * if they are optimized; otherwise they retain their initial values.
+	 *
+	 * @param values the flows (production and input of each element)
+	 */
+	private void setFlows(double[] values) {
+		for(int i = 0; i < elements.size(); i++) {
+			InfrastructureElement element = elements.get(i);
+			if(element instanceof AgricultureElement) {
+				if(production) {
+					((AgricultureElement) element).setLandArea(values[2*i]);
+				}
+				if(distribution) {
+					((AgricultureElement) element).setFoodInput(values[2*i+1]);
+				}
+			} else if(element instanceof WaterElement) {
+				if(production) {
+					((WaterElement) element).setWaterProduction(values[2*i]);
+				}
+				if(distribution) {
+					((WaterElement) element).setWaterInput(values[2*i+1]);
+				}
+			} else if(element instanceof ElectricityElement) {
+				if(production) {
+					((ElectricityElement) element).setElectricityProduction(values[2*i]);
+				}
+				if(distribution) {
+					((ElectricityElement) element).setElectricityInput(values[2*i+1]);
+				}
+			} else if(element instanceof PetroleumElement) {
+				if(production) {
+					((PetroleumElement) element).setPetroleumProduction(values[2*i]);
+				}
+				if(distribution) {
+					((PetroleumElement) element).setPetroleumInput(values[2*i+1]);
+				}
+			}
+		}
+	}
+}
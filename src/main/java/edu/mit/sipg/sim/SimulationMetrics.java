@@ -0,0 +1,559 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.sim;
+
+import java.beans.ConstructorProperties;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+
+/**
+ * A process-wide registry of named latency timers and event counters
+ * used to profile the phases of a simulation (sector optimizations,
+ * country tick and tock, listener dispatch, scenario loading and saving,
+ * HLA attribute encoding and sends, and HLA time advance waits)
+ * without attaching a profiler.
+ *
+ * Each timer records a histogram with four logarithmic buckets per power
+ * of two (so percentiles are accurate to within 25%) along with the
+ * count, total, and maximum latency. Timers and counters are resolved
+ * by name once (e.g. in a static field) and only record while the
+ * registry is enabled; when disabled, starting a timer costs a single
+ * volatile read and stopping it does nothing.
+ *
+ * The registry is registered with the platform MBean server as
+ * {@value #OBJECT_NAME} and may be enabled with the system property
+ * {@value #ENABLED_PROPERTY}. The statistics can be written to the log
+ * periodically by setting a dump interval, either with the system
+ * property {@value #DUMP_INTERVAL_PROPERTY} (seconds) or over JMX.
+ */
+public final class SimulationMetrics implements SimulationMetricsMXBean {
+	private static Logger logger = Logger.getLogger(SimulationMetrics.class);
+
+	public static final String OBJECT_NAME = "edu.mit.sipg:type=SimulationMetrics";
+	public static final String ENABLED_PROPERTY = "sipg.metrics";
+	public static final String DUMP_INTERVAL_PROPERTY = "sipg.metrics.dumpInterval";
+
+	private static final int SUB_BUCKET_BITS = 2;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int NUMBER_BUCKETS = SUB_BUCKETS*(64 - SUB_BUCKET_BITS);
+	private static final double NANOS_PER_MILLI = 1e6;
+
+	private static final SimulationMetrics instance = new SimulationMetrics();
+
+	static {
+		instance.setEnabled(Boolean.getBoolean(ENABLED_PROPERTY));
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(
+					instance, new ObjectName(OBJECT_NAME));
+		} catch(JMException | SecurityException e) {
+			logger.warn("Could not register simulation metrics MBean: " + e.getMessage());
+		}
+		long dumpInterval = Long.getLong(DUMP_INTERVAL_PROPERTY, 0);
+		if(dumpInterval > 0) {
+			instance.setDumpInterval(dumpInterval);
+		}
+	}
+
+	/**
+	 * Gets the shared simulation metrics registry.
+	 *
+	 * @return the simulation metrics
+	 */
+	public static SimulationMetrics getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Gets the bucket of a latency.
+	 *
+	 * @param nanos the latency (nanoseconds)
+	 * @return the bucket index
+	 */
+	private static int getBucket(long nanos) {
+		if(nanos < SUB_BUCKETS) {
+			return (int) Math.max(0, nanos);
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int mantissa = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return SUB_BUCKETS*(exponent - SUB_BUCKET_BITS + 1) + mantissa;
+	}
+
+	/**
+	 * Gets the largest latency in a bucket.
+	 *
+	 * @param bucket the bucket index
+	 * @return the upper bound (nanoseconds)
+	 */
+	private static long getUpperBound(int bucket) {
+		if(bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket/SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long mantissa = bucket % SUB_BUCKETS;
+		long width = 1L << (exponent - SUB_BUCKET_BITS);
+		return (1L << exponent) + (mantissa + 1)*width - 1;
+	}
+
+	/**
+	 * The statistics of a timer at one time. Latencies are in milliseconds.
+	 * Statistics are reconstructed from their composite data by MXBean
+	 * proxies using the annotated constructor.
+	 */
+	public static final class Statistics {
+		private final String name;
+		private final long count;
+		private final double total, mean, percentile50, percentile95,
+				percentile99, max;
+
+		/**
+		 * Instantiates a new statistics.
+		 *
+		 * @param name the name
+		 * @param count the count
+		 * @param total the total
+		 * @param mean the mean
+		 * @param percentile50 the 50th percentile
+		 * @param percentile95 the 95th percentile
+		 * @param percentile99 the 99th percentile
+		 * @param max the max
+		 */
+		@ConstructorProperties({"name", "count", "total", "mean",
+				"percentile50", "percentile95", "percentile99", "max"})
+		public Statistics(String name, long count, double total, double mean,
+				double percentile50, double percentile95, double percentile99,
+				double max) {
+			this.name = name;
+			this.count = count;
+			this.total = total;
+			this.mean = mean;
+			this.percentile50 = percentile50;
+			this.percentile95 = percentile95;
+			this.percentile99 = percentile99;
+			this.max = max;
+		}
+
+		/**
+		 * Gets the number of recorded latencies.
+		 *
+		 * @return the count
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Gets the maximum latency.
+		 *
+		 * @return the max
+		 */
+		public double getMax() {
+			return max;
+		}
+
+		/**
+		 * Gets the mean latency.
+		 *
+		 * @return the mean
+		 */
+		public double getMean() {
+			return mean;
+		}
+
+		/**
+		 * Gets the name.
+		 *
+		 * @return the name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Gets the 50th percentile latency.
+		 *
+		 * @return the 50th percentile
+		 */
+		public double getPercentile50() {
+			return percentile50;
+		}
+
+		/**
+		 * Gets the 95th percentile latency.
+		 *
+		 * @return the 95th percentile
+		 */
+		public double getPercentile95() {
+			return percentile95;
+		}
+
+		/**
+		 * Gets the 99th percentile latency.
+		 *
+		 * @return the 99th percentile
+		 */
+		public double getPercentile99() {
+			return percentile99;
+		}
+
+		/**
+		 * Gets the total latency.
+		 *
+		 * @return the total
+		 */
+		public double getTotal() {
+			return total;
+		}
+	}
+
+	/**
+	 * A named latency histogram.
+	 */
+	public final class Timer {
+		private final String name;
+		private final AtomicLongArray buckets = new AtomicLongArray(NUMBER_BUCKETS);
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong total = new AtomicLong();
+		private final AtomicLong max = new AtomicLong();
+
+		/**
+		 * Instantiates a new timer.
+		 *
+		 * @param name the name
+		 */
+		private Timer(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Gets the name.
+		 *
+		 * @return the name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Gets the latency at a quantile.
+		 *
+		 * @param quantile the quantile
+		 * @param count the total count
+		 * @param max the maximum latency
+		 * @return the latency (nanoseconds)
+		 */
+		private long getQuantile(double quantile, long count, long max) {
+			long target = (long) Math.ceil(quantile*count);
+			long cumulative = 0;
+			for(int i = 0; i < NUMBER_BUCKETS; i++) {
+				cumulative += buckets.get(i);
+				if(cumulative >= target) {
+					return Math.min(getUpperBound(i), max);
+				}
+			}
+			return max;
+		}
+
+		/**
+		 * Gets the current statistics.
+		 *
+		 * @return the statistics
+		 */
+		public Statistics getStatistics() {
+			long count = this.count.get();
+			long total = this.total.get();
+			long max = this.max.get();
+			if(count == 0) {
+				return new Statistics(name, 0, 0, 0, 0, 0, 0, 0);
+			}
+			return new Statistics(name, count,
+					total/NANOS_PER_MILLI,
+					total/NANOS_PER_MILLI/count,
+					getQuantile(0.50, count, max)/NANOS_PER_MILLI,
+					getQuantile(0.95, count, max)/NANOS_PER_MILLI,
+					getQuantile(0.99, count, max)/NANOS_PER_MILLI,
+					max/NANOS_PER_MILLI);
+		}
+
+		/**
+		 * Records a latency if the registry is enabled.
+		 *
+		 * @param nanos the latency (nanoseconds)
+		 */
+		public void record(long nanos) {
+			if(!enabled) {
+				return;
+			}
+			buckets.incrementAndGet(getBucket(nanos));
+			count.incrementAndGet();
+			total.addAndGet(nanos);
+			long previous = max.get();
+			while(nanos > previous && !max.compareAndSet(previous, nanos)) {
+				previous = max.get();
+			}
+		}
+
+		/**
+		 * Resets this timer.
+		 */
+		private void reset() {
+			for(int i = 0; i < NUMBER_BUCKETS; i++) {
+				buckets.set(i, 0);
+			}
+			count.set(0);
+			total.set(0);
+			max.set(0);
+		}
+
+		/**
+		 * Starts timing an operation.
+		 *
+		 * @return the start time to pass to {@link #stop(long)}, or 0 if
+		 * the registry is disabled
+		 */
+		public long start() {
+			return enabled ? System.nanoTime() : 0;
+		}
+
+		/**
+		 * Stops timing an operation and records its latency. Does nothing
+		 * if the operation was started while the registry was disabled.
+		 *
+		 * @param start the start time returned by {@link #start()}
+		 */
+		public void stop(long start) {
+			if(start != 0) {
+				record(System.nanoTime() - start);
+			}
+		}
+	}
+
+	/**
+	 * A named event counter.
+	 */
+	public final class Counter {
+		private final String name;
+		private final AtomicLong value = new AtomicLong();
+
+		/**
+		 * Instantiates a new counter.
+		 *
+		 * @param name the name
+		 */
+		private Counter(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Gets the name.
+		 *
+		 * @return the name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Gets the value.
+		 *
+		 * @return the value
+		 */
+		public long getValue() {
+			return value.get();
+		}
+
+		/**
+		 * Increments this counter if the registry is enabled.
+		 */
+		public void increment() {
+			if(enabled) {
+				value.incrementAndGet();
+			}
+		}
+	}
+
+	private volatile boolean enabled;
+	private final ConcurrentMap<String, Timer> timers =
+			new ConcurrentHashMap<String, Timer>();
+	private final ConcurrentMap<String, Counter> counters =
+			new ConcurrentHashMap<String, Counter>();
+	private ScheduledExecutorService dumpExecutor;
+	private ScheduledFuture<?> dumpTask;
+	private long dumpInterval;
+
+	/**
+	 * Instantiates a new simulation metrics registry.
+	 */
+	private SimulationMetrics() { }
+
+	/**
+	 * Gets a counter, creating it if necessary.
+	 *
+	 * @param name the name
+	 * @return the counter
+	 */
+	public Counter counter(String name) {
+		if(name == null) {
+			throw new IllegalArgumentException("Name cannot be null.");
+		}
+		Counter counter = counters.get(name);
+		if(counter == null) {
+			counters.putIfAbsent(name, new Counter(name));
+			counter = counters.get(name);
+		}
+		return counter;
+	}
+
+	@Override
+	public String dump() {
+		StringBuilder b = new StringBuilder();
+		b.append(String.format("%-40s %10s %12s %10s %10s %10s %10s %10s%n",
+				"Timer", "Count", "Total (ms)", "Mean (ms)",
+				"p50 (ms)", "p95 (ms)", "p99 (ms)", "Max (ms)"));
+		for(Statistics s : getTimers()) {
+			b.append(String.format("%-40s %10d %12.3f %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+					s.getName(), s.getCount(), s.getTotal(), s.getMean(),
+					s.getPercentile50(), s.getPercentile95(),
+					s.getPercentile99(), s.getMax()));
+		}
+		b.append(String.format("%-40s %10s%n", "Counter", "Value"));
+		for(Map.Entry<String, Long> entry : getCounters().entrySet()) {
+			b.append(String.format("%-40s %10d%n", entry.getKey(), entry.getValue()));
+		}
+		if(!enabled) {
+			b.append("(recording is disabled)").append(String.format("%n"));
+		}
+		return b.toString();
+	}
+
+	@Override
+	public Map<String, Long> getCounters() {
+		Map<String, Long> values = new TreeMap<String, Long>();
+		for(Counter counter : counters.values()) {
+			values.put(counter.getName(), counter.getValue());
+		}
+		return Collections.unmodifiableMap(values);
+	}
+
+	/**
+	 * Gets the executor which writes periodic text dumps.
+	 *
+	 * @return the dump executor
+	 */
+	private ScheduledExecutorService getDumpExecutor() {
+		if(dumpExecutor == null) {
+			dumpExecutor = Executors.newSingleThreadScheduledExecutor(
+					new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "metrics-dump");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return dumpExecutor;
+	}
+
+	@Override
+	public synchronized long getDumpInterval() {
+		return dumpInterval;
+	}
+
+	@Override
+	public List<Statistics> getTimers() {
+		List<Statistics> statistics = new ArrayList<Statistics>();
+		for(Timer timer : new TreeMap<String, Timer>(timers).values()) {
+			statistics.add(timer.getStatistics());
+		}
+		return Collections.unmodifiableList(statistics);
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public void reset() {
+		for(Timer timer : timers.values()) {
+			timer.reset();
+		}
+		for(Counter counter : counters.values()) {
+			counter.value.set(0);
+		}
+	}
+
+	@Override
+	public synchronized void setDumpInterval(long seconds) {
+		if(seconds < 0) {
+			throw new IllegalArgumentException("Dump interval cannot be negative.");
+		}
+		if(dumpTask != null) {
+			dumpTask.cancel(false);
+			dumpTask = null;
+		}
+		dumpInterval = seconds;
+		if(seconds > 0) {
+			dumpTask = getDumpExecutor().scheduleAtFixedRate(new Runnable() {
+				@Override
+				public void run() {
+					logger.info("Simulation metrics:\n" + dump());
+				}
+			}, seconds, seconds, TimeUnit.SECONDS);
+		}
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Gets a timer, creating it if necessary.
+	 *
+	 * @param name the name
+	 * @return the timer
+	 */
+	public Timer timer(String name) {
+		if(name == null) {
+			throw new IllegalArgumentException("Name cannot be null.");
+		}
+		Timer timer = timers.get(name);
+		if(timer == null) {
+			timers.putIfAbsent(name, new Timer(name));
+			timer = timers.get(name);
+		}
+		return timer;
+	}
+}
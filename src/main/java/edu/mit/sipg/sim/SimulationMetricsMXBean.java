@@ -0,0 +1,81 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.sim;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The management interface of the {@link SimulationMetrics} registry,
+ * registered with the platform MBean server as
+ * {@value SimulationMetrics#OBJECT_NAME}.
+ */
+public interface SimulationMetricsMXBean {
+
+	/**
+	 * Formats the current statistics of all timers and counters as text.
+	 *
+	 * @return the text
+	 */
+	public String dump();
+
+	/**
+	 * Gets the values of all counters.
+	 *
+	 * @return the counters
+	 */
+	public Map<String, Long> getCounters();
+
+	/**
+	 * Gets the interval between periodic text dumps to the log.
+	 *
+	 * @return the dump interval in seconds (0 if disabled)
+	 */
+	public long getDumpInterval();
+
+	/**
+	 * Gets the statistics of all timers.
+	 *
+	 * @return the timer statistics
+	 */
+	public List<SimulationMetrics.Statistics> getTimers();
+
+	/**
+	 * Checks if timers and counters are recording.
+	 *
+	 * @return true, if enabled
+	 */
+	public boolean isEnabled();
+
+	/**
+	 * Resets all timers and counters.
+	 */
+	public void reset();
+
+	/**
+	 * Sets the interval between periodic text dumps to the log.
+	 *
+	 * @param seconds the dump interval in seconds (0 to disable)
+	 */
+	public void setDumpInterval(long seconds);
+
+	/**
+	 * Sets whether timers and counters are recording.
+	 *
+	 * @param enabled true, to enable recording
+	 */
+	public void setEnabled(boolean enabled);
+}
@@ -33,6 +33,15 @@ public interface Simulator extends SimulationControlListener {
 	 */
 	public void addUpdateListener(UpdateListener listener);
 	
+	/**
+	 * Adds the update listener with a delivery policy. Listeners added 
+	 * without a policy are updated synchronously.
+	 *
+	 * @param listener the listener
+	 * @param policy the delivery policy
+	 */
+	public void addUpdateListener(UpdateListener listener, UpdateDispatcher.Policy policy);
+	
 	/**
 	 * Connects this simulator.
 	 */
@@ -0,0 +1,543 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.sim;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.MetricsSnapshot;
+import edu.mit.sipg.gui.event.UpdateEvent;
+import edu.mit.sipg.gui.event.UpdateListener;
+
+/**
+ * Dispatches simulation update events to listeners with a per-listener
+ * delivery policy. Synchronous listeners are called on the simulation
+ * thread with the active country, as before. Asynchronous listeners
+ * each have a bounded queue drained by a background thread, so slow
+ * listeners (loggers, charts) do not add to the simulation time; they
+ * receive events with a snapshot copy of the country taken when the
+ * event was fired, which may be read safely while the simulation
+ * continues. If a queue is full, the simulation thread waits for the
+ * listener to catch up, which bounds memory use. A snapshot only copies
+ * local systems; remote systems (e.g. of other federates) are replaced
+ * by default systems, so listeners which read them must be synchronous.
+ *
+ * Removing a listener waits (for a bounded time) until the events
+ * already queued for it have been delivered, so a listener which is
+ * closed after removal still receives the complete event. The delivery
+ * threads exit when idle and are not daemon threads, so queued events
+ * are delivered before the application exits.
+ */
+public class UpdateDispatcher {
+	private static Logger logger = Logger.getLogger(UpdateDispatcher.class);
+	private static ExecutorService dispatchExecutor;
+	private static final SimulationMetrics metrics = SimulationMetrics.getInstance();
+	private static final SimulationMetrics.Timer snapshotTimer = 
+			metrics.timer("dispatch.snapshot");
+
+	/**
+	 * The default capacity of each asynchronous listener queue.
+	 */
+	public static final int DEFAULT_CAPACITY = 256;
+
+	/**
+	 * The time (seconds) to wait for queued events to be delivered when
+	 * a listener is removed.
+	 */
+	public static final long REMOVE_TIMEOUT = 30;
+
+	/**
+	 * The policies to deliver events to a listener.
+	 */
+	public static enum Policy {
+
+		/** Delivered on the simulation thread before it continues. */
+		SYNCHRONOUS,
+
+		/** Every event delivered in order on a background thread. */
+		ASYNCHRONOUS,
+
+		/**
+		 * Delivered in order on a background thread, but pending update
+		 * events are replaced by newer ones, so a slow listener only
+		 * receives the latest update. Initialize and complete events
+		 * are never dropped.
+		 */
+		LATEST
+	}
+
+	/**
+	 * The types of update events.
+	 */
+	private static enum Type { INITIALIZED, UPDATED, COMPLETED }
+
+	/**
+	 * An event waiting to be delivered.
+	 */
+	private static class Delivery {
+		private final Type type;
+		private final UpdateEvent event;
+
+		/**
+		 * Instantiates a new delivery.
+		 *
+		 * @param type the type
+		 * @param event the event
+		 */
+		public Delivery(Type type, UpdateEvent event) {
+			this.type = type;
+			this.event = event;
+		}
+
+		/**
+		 * Delivers the event to a listener.
+		 *
+		 * @param listener the listener
+		 */
+		public void deliver(UpdateListener listener) {
+			switch(type) {
+			case INITIALIZED:
+				listener.simulationInitialized(event);
+				break;
+			case UPDATED:
+				listener.simulationUpdated(event);
+				break;
+			case COMPLETED:
+				listener.simulationCompleted(event);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * A listener and its delivery queue.
+	 */
+	private class Channel implements Runnable {
+		private final UpdateListener listener;
+		private final SimulationMetrics.Timer timer;
+		private final Policy policy;
+		private final Deque<Delivery> queue = new ArrayDeque<Delivery>();
+		private boolean scheduled;
+		private boolean closed;
+		private Thread worker;
+		private int maxQueueDepth;
+		private long coalescedCount;
+
+		/**
+		 * Instantiates a new channel.
+		 *
+		 * @param listener the listener
+		 * @param policy the policy
+		 */
+		public Channel(UpdateListener listener, Policy policy) {
+			this.listener = listener;
+			this.policy = policy;
+			String name = listener.getClass().getName();
+			this.timer = metrics.timer("dispatch." 
+					+ name.substring(name.lastIndexOf('.') + 1));
+		}
+
+		/**
+		 * Waits until all queued events have been delivered.
+		 *
+		 * @param deadline the deadline (nanoseconds)
+		 * @return true, if all events were delivered before the deadline
+		 * @throws InterruptedException the interrupted exception
+		 */
+		public synchronized boolean awaitIdle(long deadline) throws InterruptedException {
+			while(scheduled && !closed) {
+				long remaining = deadline - System.nanoTime();
+				if(remaining <= 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(this, remaining);
+			}
+			return true;
+		}
+
+		/**
+		 * Closes this channel and discards any queued events.
+		 *
+		 * @return the number of discarded events
+		 */
+		public synchronized int close() {
+			int discarded = queue.size();
+			closed = true;
+			queue.clear();
+			notifyAll();
+			return discarded;
+		}
+
+		/**
+		 * Checks if the calling thread is delivering events of this channel.
+		 *
+		 * @return true, if is delivering
+		 */
+		public synchronized boolean isDelivering() {
+			return worker == Thread.currentThread();
+		}
+
+		/**
+		 * Queues an event for delivery, waiting while the queue is full.
+		 *
+		 * @param delivery the delivery
+		 * @throws InterruptedException the interrupted exception
+		 */
+		public synchronized void offer(Delivery delivery) throws InterruptedException {
+			if(policy == Policy.LATEST && delivery.type == Type.UPDATED
+					&& !queue.isEmpty() && queue.peekLast().type == Type.UPDATED) {
+				queue.pollLast();
+				coalescedCount++;
+			}
+			while(queue.size() >= capacity && !closed) {
+				wait();
+			}
+			if(closed) {
+				return;
+			}
+			queue.addLast(delivery);
+			maxQueueDepth = Math.max(maxQueueDepth, queue.size());
+			if(!scheduled) {
+				scheduled = true;
+				getDispatchExecutor().execute(this);
+			}
+		}
+
+		@Override
+		public void run() {
+			while(true) {
+				Delivery delivery;
+				synchronized(this) {
+					delivery = queue.pollFirst();
+					if(delivery == null) {
+						scheduled = false;
+						worker = null;
+					} else {
+						worker = Thread.currentThread();
+					}
+					notifyAll();
+				}
+				if(delivery == null) {
+					return;
+				}
+				try {
+					long start = timer.start();
+					delivery.deliver(listener);
+					timer.stop(start);
+				} catch(RuntimeException e) {
+					logger.error("Listener " + listener + " failed: " + e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the shared executor used to deliver events to asynchronous
+	 * listeners. Its threads exit after one idle second.
+	 *
+	 * @return the dispatch executor
+	 */
+	private static synchronized ExecutorService getDispatchExecutor() {
+		if(dispatchExecutor == null) {
+			dispatchExecutor = new ThreadPoolExecutor(
+					0, Integer.MAX_VALUE, 1, TimeUnit.SECONDS,
+					new SynchronousQueue<Runnable>(), new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger(0);
+				@Override
+				public Thread newThread(Runnable runnable) {
+					return new Thread(runnable,
+							"update-dispatch-" + count.incrementAndGet());
+				}
+			});
+		}
+		return dispatchExecutor;
+	}
+
+	private final int capacity;
+	private final List<Channel> channels = new CopyOnWriteArrayList<Channel>();
+
+	/**
+	 * Instantiates a new update dispatcher with the default capacity.
+	 */
+	public UpdateDispatcher() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Instantiates a new update dispatcher.
+	 *
+	 * @param capacity the capacity of each asynchronous listener queue
+	 */
+	public UpdateDispatcher(int capacity) {
+		if(capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive.");
+		}
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Adds a listener with a delivery policy.
+	 *
+	 * @param listener the listener
+	 * @param policy the policy
+	 */
+	public void addListener(UpdateListener listener, Policy policy) {
+		if(listener == null) {
+			throw new IllegalArgumentException("Listener cannot be null.");
+		}
+		if(policy == null) {
+			throw new IllegalArgumentException("Policy cannot be null.");
+		}
+		// listeners are notified last-to-first like an EventListenerList
+		channels.add(0, new Channel(listener, policy));
+	}
+
+	/**
+	 * Waits until all asynchronous listeners have received all events
+	 * fired so far.
+	 *
+	 * @param timeout the timeout
+	 * @param unit the time unit of the timeout
+	 * @return true, if all events were delivered before the timeout
+	 * @throws InterruptedException the interrupted exception
+	 */
+	public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for(Channel channel : channels) {
+			if(!channel.awaitIdle(deadline)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Dispatches an event to all listeners.
+	 *
+	 * @param type the type
+	 * @param source the source
+	 * @param time the time
+	 * @param country the active country
+	 */
+	private void dispatch(Type type, Object source, long time, Country country) {
+		if(channels.isEmpty()) {
+			return;
+		}
+		// capture metrics once for all synchronous listeners rather than
+		// each listener re-traversing the systems and elements
+		UpdateEvent event = null;
+		// asynchronous listeners share one snapshot which is not modified
+		// by the simulation; its metrics are captured on demand
+		UpdateEvent snapshotEvent = null;
+		for(Channel channel : channels) {
+			if(channel.policy == Policy.SYNCHRONOUS) {
+				if(event == null) {
+					event = new UpdateEvent(source, time, country,
+							MetricsSnapshot.capture(country));
+				}
+				long start = channel.timer.start();
+				new Delivery(type, event).deliver(channel.listener);
+				channel.timer.stop(start);
+			} else {
+				if(snapshotEvent == null) {
+					long start = snapshotTimer.start();
+					snapshotEvent = new UpdateEvent(source, time, country.copy());
+					snapshotTimer.stop(start);
+				}
+				try {
+					channel.offer(new Delivery(type, snapshotEvent));
+				} catch(InterruptedException e) {
+					logger.warn("Interrupted while dispatching to " + channel.listener + ".");
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Fires a simulation completed event.
+	 *
+	 * @param source the source
+	 * @param time the time
+	 * @param country the active country
+	 */
+	public void fireCompleteEvent(Object source, long time, Country country) {
+		dispatch(Type.COMPLETED, source, time, country);
+	}
+
+	/**
+	 * Fires a simulation initialized event.
+	 *
+	 * @param source the source
+	 * @param time the time
+	 * @param country the active country
+	 */
+	public void fireInitializeEvent(Object source, long time, Country country) {
+		dispatch(Type.INITIALIZED, source, time, country);
+	}
+
+	/**
+	 * Fires a simulation updated event.
+	 *
+	 * @param source the source
+	 * @param time the time
+	 * @param country the active country
+	 */
+	public void fireUpdateEvent(Object source, long time, Country country) {
+		dispatch(Type.UPDATED, source, time, country);
+	}
+
+	/**
+	 * Gets the number of update events replaced by newer ones for a
+	 * listener with the latest-value policy.
+	 *
+	 * @param listener the listener
+	 * @return the coalesced event count
+	 */
+	public long getCoalescedCount(UpdateListener listener) {
+		Channel channel = getChannel(listener);
+		synchronized(channel) {
+			return channel.coalescedCount;
+		}
+	}
+
+	/**
+	 * Gets the channel for a listener.
+	 *
+	 * @param listener the listener
+	 * @return the channel
+	 */
+	private Channel getChannel(UpdateListener listener) {
+		for(Channel channel : channels) {
+			if(channel.listener == listener) {
+				return channel;
+			}
+		}
+		throw new IllegalArgumentException("Listener is not registered.");
+	}
+
+	/**
+	 * Gets the listeners.
+	 *
+	 * @return the listeners
+	 */
+	public List<UpdateListener> getListeners() {
+		List<UpdateListener> listeners = new ArrayList<UpdateListener>();
+		for(Channel channel : channels) {
+			listeners.add(channel.listener);
+		}
+		return listeners;
+	}
+
+	/**
+	 * Gets the largest number of events which have been waiting for
+	 * delivery to a listener at one time.
+	 *
+	 * @param listener the listener
+	 * @return the maximum queue depth
+	 */
+	public int getMaxQueueDepth(UpdateListener listener) {
+		Channel channel = getChannel(listener);
+		synchronized(channel) {
+			return channel.maxQueueDepth;
+		}
+	}
+
+	/**
+	 * Gets the number of events waiting for delivery to a listener.
+	 *
+	 * @param listener the listener
+	 * @return the queue depth
+	 */
+	public int getQueueDepth(UpdateListener listener) {
+		Channel channel = getChannel(listener);
+		synchronized(channel) {
+			return channel.queue.size();
+		}
+	}
+
+	/**
+	 * Gets the total number of events waiting for delivery to all
+	 * listeners.
+	 *
+	 * @return the total queue depth
+	 */
+	public int getTotalQueueDepth() {
+		int depth = 0;
+		for(Channel channel : channels) {
+			synchronized(channel) {
+				depth += channel.queue.size();
+			}
+		}
+		return depth;
+	}
+
+	/**
+	 * Removes a listener after waiting up to {@link #REMOVE_TIMEOUT} 
+	 * seconds for events already queued for it to be delivered.
+	 *
+	 * @param listener the listener
+	 */
+	public void removeListener(UpdateListener listener) {
+		removeListener(listener, REMOVE_TIMEOUT, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Removes a listener after waiting for events already queued for it 
+	 * to be delivered. Events which are not delivered before the timeout 
+	 * are discarded. A listener which removes itself while receiving an 
+	 * event does not wait for its remaining events.
+	 *
+	 * @param listener the listener
+	 * @param timeout the timeout
+	 * @param unit the time unit of the timeout
+	 * @return true, if all queued events were delivered
+	 */
+	public boolean removeListener(UpdateListener listener, long timeout, TimeUnit unit) {
+		for(Channel channel : channels) {
+			if(channel.listener == listener) {
+				// no further events are queued once the channel is removed
+				channels.remove(channel);
+				if(!channel.isDelivering()) {
+					try {
+						channel.awaitIdle(System.nanoTime() + unit.toNanos(timeout));
+					} catch(InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				int discarded = channel.close();
+				if(discarded > 0) {
+					logger.warn("Discarded " + discarded + " events queued for " + listener + ".");
+				}
+				return discarded == 0;
+			}
+		}
+		return true;
+	}
+}
@@ -20,6 +20,7 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -32,6 +33,7 @@ import edu.mit.sipg.core.electricity.ElectricitySystem;
 import edu.mit.sipg.core.petroleum.PetroleumSystem;
 import edu.mit.sipg.core.social.SocialSystem;
 import edu.mit.sipg.core.water.WaterSystem;
+import edu.mit.sipg.sim.SimulationMetrics;
 import edu.mit.sipg.sim.Simulator;
 import hla.rti1516e.AttributeHandleSet;
 import hla.rti1516e.AttributeHandleValueMap;
@@ -78,6 +80,15 @@ import hla.rti1516e.time.HLAinteger64TimeFactory;
  */
 public class HlaFederateAmbassador extends NullFederateAmbassador {
 	private static Logger logger = Logger.getLogger(HlaFederateAmbassador.class);
+	private static final SimulationMetrics metrics = SimulationMetrics.getInstance();
+	private static final SimulationMetrics.Timer timeAdvanceTimer = 
+			metrics.timer("hla.timeAdvanceWait");
+	private static final SimulationMetrics.Timer serializeTimer = 
+			metrics.timer("hla.serialize");
+	private static final SimulationMetrics.Timer sendTimer = 
+			metrics.timer("hla.send");
+	private static final SimulationMetrics.Timer deserializeTimer = 
+			metrics.timer("hla.deserialize");
 	
 	private final int unitsPerYear;
 	private final int numberIterations; // must be a factor of unitsPerYear
@@ -152,10 +163,22 @@ public class HlaFederateAmbassador extends NullFederateAmbassador {
 					+ " of " + numberIterations + ".");
 			simulator.runAutoOptimization();
 			synchronized(localObjects) {
+				// encode all objects before sending so the encoding and 
+				// the RTI calls are timed separately
+				long start = serializeTimer.start();
+				Map<HlaObject, AttributeHandleValueMap> updates = 
+						new LinkedHashMap<HlaObject, AttributeHandleValueMap>();
 				for(InfrastructureSystem system : localObjects.keySet()) {
 					localObjects.get(system).setAttributes(system);
-					localObjects.get(system).updateAllAttributes();
+					updates.put(localObjects.get(system), 
+							localObjects.get(system).encodeAllAttributes());
 				}
+				serializeTimer.stop(start);
+				start = sendTimer.start();
+				for(Map.Entry<HlaObject, AttributeHandleValueMap> update : updates.entrySet()) {
+					update.getKey().updateAllAttributes(update.getValue());
+				}
+				sendTimer.stop(start);
 			}
 
 			if(!connected.get()) {
@@ -169,9 +192,11 @@ public class HlaFederateAmbassador extends NullFederateAmbassador {
 					logicalTime.add(lookaheadInterval));
 			
 			logger.debug("Waiting for time advance grant.");
+			long start = timeAdvanceTimer.start();
 			while(!timeAdvanceGranted.get()) {
 				Thread.yield();
 			}
+			timeAdvanceTimer.stop(start);
 			timeAdvanceGranted.set(false);
 		}
 	}
@@ -418,9 +443,11 @@ public class HlaFederateAmbassador extends NullFederateAmbassador {
 				+ initialTime.getValue() + ".");
 		rtiAmbassador.timeAdvanceRequest(initialTime);
 		logger.trace("Waiting for time request grant...");
+		long start = timeAdvanceTimer.start();
 		while(!timeAdvanceGranted.get()) {
 			Thread.yield();
 		}
+		timeAdvanceTimer.stop(start);
 		timeAdvanceGranted.set(false);
 		
 		logger.trace("Waiting for synchronization point announcement...");
@@ -646,7 +673,9 @@ public class HlaFederateAmbassador extends NullFederateAmbassador {
 		if(hlaObjects.containsKey(theObject)) {
 			try {
 				HlaInfrastructureSystem system = hlaObjects.get(theObject);
+				long start = deserializeTimer.start();
 				system.setAllAttributes(theAttributes);
+				deserializeTimer.stop(start);
 			
 				if(theAttributes.containsKey(rtiAmbassador.getAttributeHandle(
 						rtiAmbassador.getObjectClassHandle(HlaInfrastructureSystem.CLASS_NAME), 
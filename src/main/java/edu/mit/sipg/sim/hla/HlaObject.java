@@ -89,6 +89,22 @@ public abstract class HlaObject {
 		rtiAmbassador.deleteObjectInstance(getObjectInstanceHandle(), new byte[0]);
 	}
 	
+	/**
+	 * Encodes the values of all attributes.
+	 *
+	 * @return the encoded attribute values
+	 * @throws RTIexception the RTI exception
+	 */
+	public final AttributeHandleValueMap encodeAllAttributes() throws RTIexception {
+		AttributeHandleValueMap attributes = 
+				rtiAmbassador.getAttributeHandleValueMapFactory().
+				create(getAttributeValues().keySet().size());
+		for(AttributeHandle attributeHandle : getAttributeHandleSet()) {
+			attributes.put(attributeHandle, getAttributeValues().get(attributeHandle).toByteArray());
+		}
+		return attributes;
+	}
+	
 	/**
 	 * Gets the attribute handle.
 	 *
@@ -264,12 +280,17 @@ public abstract class HlaObject {
 	 * @throws RTIexception the RTI exception
 	 */
 	public final void updateAllAttributes() throws RTIexception {
-		AttributeHandleValueMap attributes = 
-				rtiAmbassador.getAttributeHandleValueMapFactory().
-				create(getAttributeValues().keySet().size());
-		for(AttributeHandle attributeHandle : getAttributeHandleSet()) {
-			attributes.put(attributeHandle, getAttributeValues().get(attributeHandle).toByteArray());
-		}
+		updateAllAttributes(encodeAllAttributes());
+	}
+	
+	/**
+	 * Update all attributes with previously-encoded values.
+	 *
+	 * @param attributes the encoded attribute values
+	 * @throws RTIexception the RTI exception
+	 */
+	public final void updateAllAttributes(AttributeHandleValueMap attributes) 
+			throws RTIexception {
 		logger.info("Sending attributes with timestamp " 
 				+ rtiAmbassador.queryLogicalTime().add(rtiAmbassador.queryLookahead()).toString());
 		rtiAmbassador.updateAttributeValues(
@@ -70,7 +70,9 @@ public class HlaSimulator extends DefaultSimulator {
 			}
 			
 			logger.trace("Tick/tocking the country (time = " + time + ").");
+			long start = tickTimer.start();
 			scenario.getCountry().tick();
+			tickTimer.stop(start);
 			fireUpdateEvent(time);
 			if(time >= endTime) {
 				logger.trace("Simulation is completed.");
@@ -78,7 +80,9 @@ public class HlaSimulator extends DefaultSimulator {
 				fireCompleteEvent(time);
 				return;
 			}
+			start = tockTimer.start();
 			scenario.getCountry().tock();
+			tockTimer.stop(start);
 			time = time + 1;
 			logger.trace("The time is now " + time + ".");
 		}
@@ -0,0 +1,149 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.mit.sipg.core.electricity.ElectricityElement;
+import edu.mit.sipg.core.electricity.ElectricitySystem;
+import edu.mit.sipg.core.water.WaterElement;
+import edu.mit.sipg.core.water.WaterSystem;
+import edu.mit.sipg.gui.event.SimulationControlEvent;
+import edu.mit.sipg.gui.event.UpdateEvent;
+import edu.mit.sipg.gui.event.UpdateListener;
+import edu.mit.sipg.scenario.GameElementTemplate;
+import edu.mit.sipg.scenario.GameScenario;
+import edu.mit.sipg.scenario.Sector;
+import edu.mit.sipg.sim.DefaultSimulator;
+
+/**
+ * Tests that the coupled optimizer reproduces the results of the
+ * iterative sector models on the game scenario with an added element.
+ * Cash flows and scores must agree to within one part per million of
+ * their magnitude, or of one thousand for smaller values; the measured
+ * difference is below one part per trillion.
+ */
+public class CoupledOptimizerTest {
+	private static final double TOLERANCE = 1e-6;
+
+	/**
+	 * Disables logging below warnings.
+	 */
+	@BeforeClass
+	public static void setUpClass() {
+		Logger.getRootLogger().setLevel(Level.WARN);
+	}
+
+	/**
+	 * Creates the game scenario with an element added to the urban city.
+	 *
+	 * @param template the template of the added element
+	 * @return the scenario
+	 */
+	private static GameScenario createGameScenario(GameElementTemplate template) {
+		GameScenario scenario = new GameScenario(Arrays.asList(GameScenario.INDUSTRIAL,
+				GameScenario.URBAN, GameScenario.RURAL), Arrays.asList(Sector.values()), false);
+		City city = scenario.getCountry().getCity(GameScenario.URBAN);
+		if(template.getSector() == Sector.WATER) {
+			((WaterSystem.Local) city.getWaterSystem()).addElement((WaterElement)
+					template.createElement(1970, city.getName(), city.getName()));
+		} else {
+			((ElectricitySystem.Local) city.getElectricitySystem()).addElement((ElectricityElement)
+					template.createElement(1970, city.getName(), city.getName()));
+		}
+		return scenario;
+	}
+
+	/**
+	 * Simulates the game scenario with an added element and records the
+	 * cash flow of each city system and the country scores in each year.
+	 *
+	 * @param template the template of the added element
+	 * @param coupled true, to use the coupled optimizer
+	 * @return the results by year and name
+	 */
+	private static Map<String, Double> simulate(GameElementTemplate template, boolean coupled) {
+		DefaultSimulator simulator = new DefaultSimulator(createGameScenario(template));
+		simulator.setCoupledOptimization(coupled);
+		final Map<String, Double> results = new TreeMap<String, Double>();
+		simulator.addUpdateListener(new UpdateListener() {
+			@Override
+			public void simulationCompleted(UpdateEvent event) { }
+
+			@Override
+			public void simulationInitialized(UpdateEvent event) { }
+
+			@Override
+			public void simulationUpdated(UpdateEvent event) {
+				String year = event.getTime() + " ";
+				Country country = event.getCountry();
+				for(City city : country.getCities()) {
+					results.put(year + city.getName() + " agriculture",
+							city.getAgricultureSystem().getCashFlow());
+					results.put(year + city.getName() + " water",
+							city.getWaterSystem().getCashFlow());
+					results.put(year + city.getName() + " electricity",
+							city.getElectricitySystem().getCashFlow());
+					results.put(year + city.getName() + " petroleum",
+							city.getPetroleumSystem().getCashFlow());
+				}
+				results.put(year + "food score", country.getFoodSecurityScore());
+				results.put(year + "aquifer score", country.getAquiferSecurityScore());
+				results.put(year + "reservoir score", country.getReservoirSecurityScore());
+				results.put(year + "financial score",
+						country.getFinancialSecurityScore(event.getTime()));
+			}
+		});
+		simulator.executeSimulation(new SimulationControlEvent.Execute(
+				CoupledOptimizerTest.class, 1950, 2010));
+		return results;
+	}
+
+	/**
+	 * Asserts that the coupled results match the iterative results.
+	 *
+	 * @param template the template of the added element
+	 */
+	private static void assertCoupledMatchesIterative(GameElementTemplate template) {
+		Map<String, Double> expected = simulate(template, false);
+		Map<String, Double> actual = simulate(template, true);
+		assertEquals(expected.keySet(), actual.keySet());
+		for(String name : expected.keySet()) {
+			double value = expected.get(name);
+			assertEquals(name, value, actual.get(name),
+					TOLERANCE * Math.max(1e3, Math.abs(value)));
+		}
+	}
+
+	@Test
+	public void testAddedWaterElement() {
+		assertCoupledMatchesIterative(GameElementTemplate.RO_PLANT_1);
+	}
+
+	@Test
+	public void testAddedElectricityElement() {
+		assertCoupledMatchesIterative(GameElementTemplate.POWER_PLANT_1);
+	}
+}
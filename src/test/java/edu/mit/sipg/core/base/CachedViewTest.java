@@ -0,0 +1,117 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.core.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.mit.sipg.core.City;
+import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.water.WaterElement;
+import edu.mit.sipg.core.water.WaterSystem;
+import edu.mit.sipg.scenario.GameScenario;
+import edu.mit.sipg.scenario.Sector;
+
+/**
+ * Tests that cached structural views are scoped to their society tree.
+ */
+public class CachedViewTest {
+	private Country country;
+	private Country otherCountry;
+	
+	/**
+	 * Creates two independent countries.
+	 */
+	@Before
+	public void setUp() {
+		country = createCountry();
+		otherCountry = createCountry();
+	}
+	
+	/**
+	 * Creates a country with all cities and sectors assigned.
+	 *
+	 * @return the country
+	 */
+	private static Country createCountry() {
+		return new GameScenario(Arrays.asList(GameScenario.INDUSTRIAL, 
+				GameScenario.URBAN, GameScenario.RURAL), 
+				Arrays.asList(Sector.values()), false).getCountry();
+	}
+	
+	/**
+	 * Gets the local water system of the first city in a country.
+	 *
+	 * @param country the country
+	 * @return the water system
+	 */
+	private static WaterSystem.Local getWaterSystem(Country country) {
+		City city = country.getCities().get(0);
+		return (WaterSystem.Local) city.getWaterSystem();
+	}
+	
+	@Test
+	public void testViewIsCachedWithoutChange() {
+		assertSame(country.getInternalElements(), country.getInternalElements());
+		assertSame(country.getCities(), country.getCities());
+	}
+	
+	@Test
+	public void testChangeInvalidatesOwnTree() {
+		WaterSystem.Local waterSystem = getWaterSystem(country);
+		WaterElement element = waterSystem.getInternalElements().get(0);
+		List<? extends InfrastructureElement> elements = country.getInternalElements();
+		long version = country.getStructureVersion();
+		
+		waterSystem.removeElement(element);
+		
+		assertFalse(version == country.getStructureVersion());
+		assertNotSame(elements, country.getInternalElements());
+		assertEquals(elements.size() - 1, country.getInternalElements().size());
+		assertFalse(country.getInternalElements().contains(element));
+		assertFalse(waterSystem.getInternalElements().contains(element));
+	}
+	
+	@Test
+	public void testChangeDoesNotInvalidateOtherTree() {
+		List<? extends InfrastructureElement> otherElements = 
+				otherCountry.getInternalElements();
+		long otherVersion = otherCountry.getStructureVersion();
+		
+		WaterSystem.Local waterSystem = getWaterSystem(country);
+		waterSystem.removeElement(waterSystem.getInternalElements().get(0));
+		
+		assertEquals(otherVersion, otherCountry.getStructureVersion());
+		assertSame(otherElements, otherCountry.getInternalElements());
+	}
+	
+	@Test
+	public void testNestedSocietiesShareRootVersion() {
+		City city = country.getCities().get(0);
+		assertEquals(country.getStructureVersion(), city.getStructureVersion());
+		
+		city.invalidateStructure();
+		assertEquals(country.getStructureVersion(), city.getStructureVersion());
+	}
+}
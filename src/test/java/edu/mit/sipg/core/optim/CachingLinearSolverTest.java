@@ -0,0 +1,168 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.core.optim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.linear.NoFeasibleSolutionException;
+import org.apache.commons.math3.optim.linear.Relationship;
+import org.junit.Test;
+
+import edu.mit.sipg.sim.SimulationMetrics;
+
+/**
+ * Tests that the caching linear solver returns cached solutions only for
+ * identical problems, evicts the least-recently-used solution, does not
+ * cache failures, and counts hits and misses.
+ */
+public class CachingLinearSolverTest {
+
+	/**
+	 * A linear solver which counts its calls and returns the right-hand
+	 * side value of the first row, or throws a failure if one is set.
+	 */
+	private static class CountingSolver implements LinearSolver {
+		private int calls;
+		private RuntimeException failure;
+
+		@Override
+		public PointValuePair solve(LinearProblem problem) {
+			calls++;
+			if(failure != null) {
+				throw failure;
+			}
+			return new PointValuePair(new double[] {problem.getValue(0)},
+					-problem.getValue(0));
+		}
+	}
+
+	/**
+	 * Creates a problem which maximizes one variable up to a value.
+	 *
+	 * @param value the right-hand side value
+	 * @param initialValue the initial value
+	 * @return the problem
+	 */
+	private static LinearProblem createProblem(double value, double initialValue) {
+		return new LinearProblem(new double[] {-1}, new double[] {100},
+				new double[] {initialValue}, Arrays.asList(new int[] {0}),
+				Arrays.asList(new double[] {1}), Arrays.asList(Relationship.LEQ),
+				new double[] {value}, LinearProgram.DEFAULT_EPSILON,
+				LinearProgram.DEFAULT_MAX_ULPS);
+	}
+
+	/**
+	 * Creates a problem which maximizes one variable up to a value.
+	 *
+	 * @param value the right-hand side value
+	 * @return the problem
+	 */
+	private static LinearProblem createProblem(double value) {
+		return createProblem(value, 0);
+	}
+
+	@Test
+	public void testHit() {
+		CountingSolver counting = new CountingSolver();
+		CachingLinearSolver solver = new CachingLinearSolver(counting);
+		PointValuePair solution = solver.solve(createProblem(1));
+
+		// initial values are not part of the key
+		assertSame(solution, solver.solve(createProblem(1, 1)));
+		assertEquals(1, counting.calls);
+		assertEquals(1, solver.getHitCount());
+		assertEquals(1, solver.getMissCount());
+		assertEquals(0.5, solver.getHitRate(), 0);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEviction() {
+		CountingSolver counting = new CountingSolver();
+		CachingLinearSolver solver = new CachingLinearSolver(counting, 2);
+		solver.solve(createProblem(1));
+		solver.solve(createProblem(2));
+		solver.solve(createProblem(1));
+		solver.solve(createProblem(3));
+		assertEquals(3, counting.calls);
+		assertEquals(2, solver.getSize());
+
+		// the second problem was least recently used when the third was added
+		solver.solve(createProblem(1));
+		solver.solve(createProblem(3));
+		assertEquals(3, counting.calls);
+		solver.solve(createProblem(2));
+		assertEquals(4, counting.calls);
+	}
+
+	@Test
+	public void testHashCollision() {
+		double value = 1;
+		double collision = Double.longBitsToDouble(
+				Double.doubleToLongBits(value) ^ 0x0000000100000001L);
+		assertEquals(Double.hashCode(value), Double.hashCode(collision));
+
+		CountingSolver counting = new CountingSolver();
+		CachingLinearSolver solver = new CachingLinearSolver(counting);
+		PointValuePair solution = solver.solve(createProblem(value));
+		PointValuePair collisionSolution = solver.solve(createProblem(collision));
+		assertNotSame(solution, collisionSolution);
+		assertEquals(collision, collisionSolution.getPoint()[0], 0);
+		assertEquals(2, counting.calls);
+		assertEquals(0, solver.getHitCount());
+	}
+
+	@Test
+	public void testFailureNotCached() {
+		CountingSolver counting = new CountingSolver();
+		counting.failure = new NoFeasibleSolutionException();
+		CachingLinearSolver solver = new CachingLinearSolver(counting);
+		try {
+			solver.solve(createProblem(1));
+			fail("Expected the failure of the solver.");
+		} catch(NoFeasibleSolutionException expected) { }
+		assertEquals(0, solver.getSize());
+
+		counting.failure = null;
+		solver.solve(createProblem(1));
+		assertEquals(2, counting.calls);
+		assertEquals(1, solver.getSize());
+	}
+
+	@Test
+	public void testMetrics() {
+		SimulationMetrics metrics = SimulationMetrics.getInstance();
+		boolean enabled = metrics.isEnabled();
+		metrics.setEnabled(true);
+		try {
+			long hits = metrics.counter("solver.cache.hits").getValue();
+			long misses = metrics.counter("solver.cache.misses").getValue();
+			CachingLinearSolver solver = new CachingLinearSolver(new CountingSolver());
+			solver.solve(createProblem(1));
+			solver.solve(createProblem(1));
+			solver.solve(createProblem(2));
+			assertEquals(hits + 1, metrics.counter("solver.cache.hits").getValue());
+			assertEquals(misses + 2, metrics.counter("solver.cache.misses").getValue());
+		} finally {
+			metrics.setEnabled(enabled);
+		}
+	}
+}
@@ -0,0 +1,283 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.core.optim;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.math3.exception.TooManyIterationsException;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.linear.NoFeasibleSolutionException;
+import org.apache.commons.math3.optim.linear.Relationship;
+import org.apache.commons.math3.optim.linear.UnboundedSolutionException;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.agriculture.AgricultureSoS;
+import edu.mit.sipg.core.electricity.ElectricitySoS;
+import edu.mit.sipg.core.petroleum.PetroleumSoS;
+import edu.mit.sipg.core.water.WaterSoS;
+import edu.mit.sipg.gui.event.SimulationControlEvent;
+import edu.mit.sipg.scenario.GameScenario;
+import edu.mit.sipg.scenario.Scenario;
+import edu.mit.sipg.scenario.Sector;
+import edu.mit.sipg.sim.DefaultSimulator;
+
+/**
+ * Tests that the revised simplex solver agrees with the Apache Commons 
+ * Math simplex solver on edge-case linear programs and on the sector 
+ * production and distribution models of the game scenario.
+ */
+public class RevisedSimplexSolverTest {
+	private static final long START_TIME = 1950, END_TIME = 2010;
+	private static final double TOLERANCE = 1e-6;
+	
+	private static Country startCountry, endCountry;
+	
+	private final LinearSolver commonsSolver = new CommonsSimplexSolver();
+	private final LinearSolver revisedSolver = new RevisedSimplexSolver();
+	
+	/**
+	 * Creates the game scenario at the start time and simulates a 
+	 * second game scenario to the end time.
+	 */
+	@BeforeClass
+	public static void setUpClass() {
+		Logger.getRootLogger().setLevel(Level.WARN);
+		
+		startCountry = createScenario().getCountry();
+		startCountry.initialize(START_TIME);
+		
+		DefaultSimulator simulator = new DefaultSimulator(createScenario());
+		simulator.executeSimulation(new SimulationControlEvent.Execute(
+				RevisedSimplexSolverTest.class, START_TIME, END_TIME));
+		endCountry = simulator.getScenario().getCountry();
+	}
+	
+	/**
+	 * Creates the game scenario with all cities and sectors assigned.
+	 *
+	 * @return the scenario
+	 */
+	private static Scenario createScenario() {
+		return new GameScenario(Arrays.asList(GameScenario.INDUSTRIAL, 
+				GameScenario.URBAN, GameScenario.RURAL), 
+				Arrays.asList(Sector.values()), false);
+	}
+	
+	/**
+	 * Gets the sector production and distribution models of a country.
+	 *
+	 * @param country the country
+	 * @return the models by sector
+	 */
+	private static Map<Sector, LinearProgram> getSectorModels(Country country) {
+		Map<Sector, LinearProgram> models = new LinkedHashMap<Sector, LinearProgram>();
+		models.put(Sector.AGRICULTURE, ((AgricultureSoS.Local) country.getAgricultureSystem())
+				.prepareFoodProductionAndDistribution().getModel());
+		models.put(Sector.WATER, ((WaterSoS.Local) country.getWaterSystem())
+				.prepareWaterProductionAndDistribution().getModel());
+		models.put(Sector.ELECTRICITY, ((ElectricitySoS.Local) country.getElectricitySystem())
+				.prepareElectricityProductionAndDistribution().getModel());
+		models.put(Sector.PETROLEUM, ((PetroleumSoS.Local) country.getPetroleumSystem())
+				.preparePetroleumProductionAndDistribution().getModel());
+		return models;
+	}
+	
+	/**
+	 * Creates a linear program without a topology.
+	 *
+	 * @param costCoefficients the cost coefficients
+	 * @return the linear program
+	 */
+	private static LinearProgram createModel(double... costCoefficients) {
+		LinearProgram model = new LinearProgram(
+				Collections.emptyList(), costCoefficients.length);
+		for(int j = 0; j < costCoefficients.length; j++) {
+			model.setCostCoefficient(j, costCoefficients[j]);
+		}
+		return model;
+	}
+	
+	/**
+	 * Adds a constraint to a linear program.
+	 *
+	 * @param model the model
+	 * @param relationship the relationship
+	 * @param value the right-hand side value
+	 * @param coefficients the coefficients of all variables
+	 */
+	private static void addConstraint(LinearProgram model, 
+			Relationship relationship, double value, double... coefficients) {
+		int constraint = model.addConstraint(relationship);
+		for(int j = 0; j < coefficients.length; j++) {
+			model.setCoefficient(constraint, j, coefficients[j]);
+		}
+		model.setValue(constraint, value);
+	}
+	
+	/**
+	 * Asserts that both solvers find the same optimal cost and returns 
+	 * the revised solution.
+	 *
+	 * @param model the model
+	 * @return the revised solution
+	 */
+	private PointValuePair assertSameCost(LinearProgram model) {
+		PointValuePair commons = model.solve(commonsSolver);
+		PointValuePair revised = model.solve(revisedSolver);
+		assertEquals(commons.getValue(), revised.getValue(), 
+				TOLERANCE * Math.max(1, Math.abs(commons.getValue())));
+		return revised;
+	}
+	
+	/**
+	 * Asserts that both solvers fail with the same exception.
+	 *
+	 * @param type the expected exception type
+	 * @param model the model
+	 */
+	private void assertSameFailure(Class<? extends RuntimeException> type, 
+			LinearProgram model) {
+		for(LinearSolver solver : Arrays.asList(commonsSolver, revisedSolver)) {
+			try {
+				model.solve(solver);
+				fail(solver.getClass().getSimpleName() 
+						+ " should throw " + type.getSimpleName());
+			} catch(RuntimeException e) {
+				assertEquals(solver.getClass().getSimpleName(), type, e.getClass());
+			}
+		}
+	}
+	
+	@Test
+	public void testInfeasibleInequality() {
+		LinearProgram model = createModel(1, 1);
+		model.setUpperBound(0, 1);
+		model.setUpperBound(1, 1);
+		addConstraint(model, Relationship.GEQ, 5, 1, 1);
+		assertSameFailure(NoFeasibleSolutionException.class, model);
+	}
+	
+	@Test
+	public void testInfeasibleEquality() {
+		LinearProgram model = createModel(1, 1);
+		addConstraint(model, Relationship.EQ, 3, 1, 1);
+		addConstraint(model, Relationship.EQ, 5, 1, 1);
+		assertSameFailure(NoFeasibleSolutionException.class, model);
+	}
+	
+	@Test
+	public void testUnbounded() {
+		LinearProgram model = createModel(-1, 0);
+		addConstraint(model, Relationship.LEQ, 1, 1, -1);
+		assertSameFailure(UnboundedSolutionException.class, model);
+	}
+	
+	@Test
+	public void testCycling() {
+		// Beale's example cycles under the textbook pivoting rules; the
+		// commons solver cycles until its iteration limit
+		LinearProgram model = createModel(-0.75, 150, -0.02, 6);
+		addConstraint(model, Relationship.LEQ, 0, 0.25, -60, -0.04, 9);
+		addConstraint(model, Relationship.LEQ, 0, 0.5, -90, -0.02, 3);
+		model.setUpperBound(2, 1);
+		try {
+			model.solve(commonsSolver);
+			fail("CommonsSimplexSolver should throw TooManyIterationsException");
+		} catch(TooManyIterationsException e) { }
+		PointValuePair solution = model.solve(revisedSolver);
+		assertEquals(-0.05, solution.getValue(), TOLERANCE);
+		assertArrayEquals(new double[] {0.04, 0, 1, 0}, 
+				solution.getPoint(), TOLERANCE);
+	}
+	
+	@Test
+	public void testDegenerate() {
+		// redundant constraints meet at the optimal vertex
+		LinearProgram model = createModel(-1, -1);
+		addConstraint(model, Relationship.LEQ, 1, 1, 1);
+		addConstraint(model, Relationship.LEQ, 1, 1, 0);
+		addConstraint(model, Relationship.LEQ, 1, 0, 1);
+		addConstraint(model, Relationship.LEQ, 2, 2, 2);
+		PointValuePair solution = assertSameCost(model);
+		assertEquals(-1, solution.getValue(), TOLERANCE);
+	}
+	
+	@Test
+	public void testZeroBound() {
+		LinearProgram model = createModel(1, 2, 3);
+		addConstraint(model, Relationship.GEQ, 2, 1, 1, 1);
+		model.setUpperBound(0, 0);
+		PointValuePair solution = assertSameCost(model);
+		assertEquals(4, solution.getValue(), TOLERANCE);
+		assertArrayEquals(new double[] {0, 2, 0}, solution.getPoint(), TOLERANCE);
+	}
+	
+	@Test
+	public void testAllZeroBounds() {
+		LinearProgram model = createModel(1, 1);
+		addConstraint(model, Relationship.GEQ, 0, 1, 1);
+		model.setUpperBound(0, 0);
+		model.setUpperBound(1, 0);
+		PointValuePair solution = assertSameCost(model);
+		assertEquals(0, solution.getValue(), TOLERANCE);
+		
+		model.setValue(0, 1);
+		assertSameFailure(NoFeasibleSolutionException.class, model);
+	}
+	
+	@Test
+	public void testEqualityOnly() {
+		LinearProgram model = createModel(1, 1);
+		addConstraint(model, Relationship.EQ, 3, 1, 1);
+		addConstraint(model, Relationship.EQ, 1, 1, -1);
+		PointValuePair solution = assertSameCost(model);
+		assertArrayEquals(new double[] {2, 1}, solution.getPoint(), TOLERANCE);
+		
+		model = createModel(1, 2, 3);
+		addConstraint(model, Relationship.EQ, 6, 1, 1, 1);
+		addConstraint(model, Relationship.EQ, 0, 0, 1, -1);
+		solution = assertSameCost(model);
+		assertArrayEquals(new double[] {6, 0, 0}, solution.getPoint(), TOLERANCE);
+	}
+	
+	@Test
+	public void testSectorModelsAtStartTime() {
+		for(Map.Entry<Sector, LinearProgram> entry : 
+				getSectorModels(startCountry).entrySet()) {
+			assertNotNull(entry.getKey().toString(), assertSameCost(entry.getValue()));
+		}
+	}
+	
+	@Test
+	public void testSectorModelsAtEndTime() {
+		for(Map.Entry<Sector, LinearProgram> entry : 
+				getSectorModels(endCountry).entrySet()) {
+			assertNotNull(entry.getKey().toString(), assertSameCost(entry.getValue()));
+		}
+	}
+}
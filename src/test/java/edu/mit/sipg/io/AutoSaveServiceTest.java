@@ -0,0 +1,157 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.mit.sipg.core.electricity.ElectricityElement;
+import edu.mit.sipg.core.electricity.ElectricitySystem;
+import edu.mit.sipg.scenario.GameElementTemplate;
+import edu.mit.sipg.scenario.GameScenario;
+import edu.mit.sipg.scenario.Scenario;
+import edu.mit.sipg.scenario.Sector;
+
+/**
+ * Tests that auto-saved scenarios are snapshots which reload with their
+ * concrete scenario type.
+ */
+public class AutoSaveServiceTest {
+	private static final Collection<Sector> SECTORS = Arrays.asList(Sector.values());
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Disables logging below warnings.
+	 */
+	@BeforeClass
+	public static void setUpClass() {
+		Logger.getRootLogger().setLevel(Level.WARN);
+	}
+
+	/**
+	 * Creates the game scenario with all cities and sectors assigned.
+	 *
+	 * @return the scenario
+	 */
+	private static GameScenario createGameScenario() {
+		return new GameScenario(Arrays.asList(GameScenario.INDUSTRIAL,
+				GameScenario.URBAN, GameScenario.RURAL), SECTORS, false);
+	}
+
+	/**
+	 * Saves a scenario with a service and waits for the file to be written.
+	 *
+	 * @param service the service
+	 * @param scenario the scenario
+	 * @param file the file
+	 * @throws InterruptedException the interrupted exception
+	 */
+	private static void save(AutoSaveService service, Scenario scenario,
+			File file) throws InterruptedException {
+		service.save(scenario, file);
+		assertTrue(service.awaitIdle(30, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * Loads a scenario from file.
+	 *
+	 * @param file the file
+	 * @return the scenario
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static Scenario load(File file) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			return Serialization.deserialize(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void testSaveRetainsGameTemplates() throws Exception {
+		GameScenario scenario = createGameScenario();
+		File file = new File(folder.getRoot(), "autosave.json");
+		save(new AutoSaveService(), scenario, file);
+
+		Scenario restored = load(file);
+		assertEquals(GameScenario.class, restored.getClass());
+		assertEquals(8, scenario.getTemplates(SECTORS).size());
+		assertEquals(8, restored.getTemplates(SECTORS).size());
+	}
+
+	@Test
+	public void testSaveIsSnapshot() throws Exception {
+		GameScenario scenario = createGameScenario();
+		String expected = Serialization.serialize(scenario);
+		File file = new File(folder.getRoot(), "autosave.json");
+		AutoSaveService service = new AutoSaveService();
+		service.save(scenario, file);
+
+		// changes after the request are not included in the saved file
+		String city = scenario.getCountry().getCities().get(0).getName();
+		((ElectricitySystem.Local) scenario.getCountry().getCities().get(0)
+				.getElectricitySystem()).addElement((ElectricityElement)
+						GameElementTemplate.POWER_PLANT_1.createElement(1960, city, city));
+		assertTrue(service.awaitIdle(30, TimeUnit.SECONDS));
+
+		assertEquals(Serialization.serialize(Serialization.deserialize(expected)),
+				Serialization.serialize(load(file)));
+	}
+
+	@Test
+	public void testRepeatedSavesWriteLatest() throws Exception {
+		GameScenario scenario = createGameScenario();
+		File file = new File(folder.getRoot(), "autosave.json");
+		AutoSaveService service = new AutoSaveService();
+		save(service, scenario, file);
+		String city = scenario.getCountry().getCities().get(0).getName();
+		((ElectricitySystem.Local) scenario.getCountry().getCities().get(0)
+				.getElectricitySystem()).addElement((ElectricityElement)
+						GameElementTemplate.POWER_PLANT_1.createElement(1960, city, city));
+		save(service, scenario, file);
+
+		assertEquals(Serialization.serialize(Serialization.deserialize(
+				Serialization.serialize(scenario))),
+				Serialization.serialize(load(file)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSaveNullScenario() {
+		new AutoSaveService().save(null, new File(folder.getRoot(), "autosave.json"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSaveNullFile() {
+		new AutoSaveService().save(createGameScenario(), null);
+	}
+}
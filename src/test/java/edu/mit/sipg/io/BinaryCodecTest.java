@@ -0,0 +1,281 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import edu.mit.sipg.scenario.GameScenario;
+import edu.mit.sipg.scenario.Scenario;
+import edu.mit.sipg.scenario.Sector;
+
+/**
+ * Tests the binary scenario format and the format detection when
+ * deserializing scenarios from streams.
+ */
+public class BinaryCodecTest {
+	private static final int TAG_OFFSET = BinaryCodec.MAGIC.length + 1;
+	private static final int ARRAY = 6, REAL_ARRAY = 7, OBJECT = 8, TYPED_OBJECT = 9;
+
+	private static Scenario scenario;
+	private static String json;
+
+	/**
+	 * Disables logging below warnings and creates the game scenario.
+	 */
+	@BeforeClass
+	public static void setUpClass() {
+		Logger.getRootLogger().setLevel(Level.WARN);
+		scenario = new GameScenario(Arrays.asList(GameScenario.INDUSTRIAL,
+				GameScenario.URBAN, GameScenario.RURAL),
+				Arrays.asList(Sector.values()), false);
+		json = Serialization.serialize(scenario);
+	}
+
+	/**
+	 * Writes a JSON tree in the binary format.
+	 *
+	 * @param element the element
+	 * @return the bytes
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static byte[] write(JsonElement element) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryCodec.write(element, out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Reads a JSON tree in the binary format.
+	 *
+	 * @param bytes the bytes
+	 * @return the element
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static JsonElement read(byte[] bytes) throws IOException {
+		return BinaryCodec.read(new ByteArrayInputStream(bytes));
+	}
+
+	/**
+	 * Serializes the scenario in the binary format.
+	 *
+	 * @param compressed true, if the output is compressed
+	 * @return the bytes
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static byte[] serializeBinary(boolean compressed) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Serialization.serializeBinary(scenario, out, compressed);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Gets the JSON of a scenario after a round trip through the JSON format,
+	 * which is the reference for round trips through other formats.
+	 *
+	 * @return the JSON
+	 */
+	private static String getJsonRoundTrip() {
+		return Serialization.serialize(Serialization.deserialize(json));
+	}
+
+	/**
+	 * Asserts that reading the bytes fails with an I/O exception.
+	 *
+	 * @param bytes the bytes
+	 */
+	private static void assertReadFails(byte[] bytes) {
+		try {
+			read(bytes);
+			fail("Expected an I/O exception.");
+		} catch(IOException expected) { }
+	}
+
+	@Test
+	public void testScenarioTreeRoundTrip() throws IOException {
+		JsonElement tree = JsonParser.parseString(json);
+		assertEquals(tree, read(write(tree)));
+	}
+
+	@Test
+	public void testBinaryIsSmallerThanJson() throws IOException {
+		assertTrue(serializeBinary(false).length
+				< json.getBytes(StandardCharsets.UTF_8).length);
+	}
+
+	@Test
+	public void testDeserializeBinary() throws IOException {
+		Scenario restored = Serialization.deserialize(
+				new ByteArrayInputStream(serializeBinary(false)));
+		assertEquals(GameScenario.class, restored.getClass());
+		assertEquals(getJsonRoundTrip(), Serialization.serialize(restored));
+	}
+
+	@Test
+	public void testDeserializeCompressedBinary() throws IOException {
+		byte[] bytes = serializeBinary(true);
+		assertEquals(0x1F, bytes[0] & 0xFF);
+		assertEquals(0x8B, bytes[1] & 0xFF);
+		Scenario restored = Serialization.deserialize(new ByteArrayInputStream(bytes));
+		assertEquals(getJsonRoundTrip(), Serialization.serialize(restored));
+	}
+
+	@Test
+	public void testDeserializeJson() throws IOException {
+		Scenario restored = Serialization.deserialize(
+				new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+		assertEquals(getJsonRoundTrip(), Serialization.serialize(restored));
+	}
+
+	@Test
+	public void testDeserializeCompressedJson() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Writer writer = new OutputStreamWriter(new GZIPOutputStream(out),
+				StandardCharsets.UTF_8);
+		writer.write(json);
+		writer.close();
+		Scenario restored = Serialization.deserialize(
+				new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(getJsonRoundTrip(), Serialization.serialize(restored));
+	}
+
+	@Test
+	public void testRegisteredType() throws IOException {
+		JsonObject wrapper = new JsonObject();
+		wrapper.addProperty("type", GameScenario.class.getName());
+		wrapper.add("data", new JsonObject());
+		byte[] bytes = write(wrapper);
+		assertEquals(TYPED_OBJECT, bytes[TAG_OFFSET]);
+		assertEquals(wrapper, read(bytes));
+	}
+
+	@Test
+	public void testUnregisteredType() throws IOException {
+		JsonObject data = new JsonObject();
+		data.addProperty("name", "Unregistered");
+		JsonObject wrapper = new JsonObject();
+		wrapper.addProperty("type", "edu.mit.sipg.UnregisteredType");
+		wrapper.add("data", data);
+		byte[] bytes = write(wrapper);
+		assertEquals(OBJECT, bytes[TAG_OFFSET]);
+		assertEquals(wrapper, read(bytes));
+	}
+
+	@Test
+	public void testRealArray() throws IOException {
+		JsonArray array = new JsonArray();
+		array.add(1.5);
+		array.add(-2.25);
+		array.add(1e300);
+		byte[] bytes = write(array);
+		assertEquals(REAL_ARRAY, bytes[TAG_OFFSET]);
+		assertEquals(array, read(bytes));
+	}
+
+	@Test
+	public void testMixedArray() throws IOException {
+		JsonArray array = new JsonArray();
+		array.add(1.5);
+		array.add(2);
+		array.add("text");
+		array.add(true);
+		array.add((String) null);
+		byte[] bytes = write(array);
+		assertEquals(ARRAY, bytes[TAG_OFFSET]);
+		assertEquals(array, read(bytes));
+	}
+
+	@Test
+	public void testIntegerArray() throws IOException {
+		JsonArray array = new JsonArray();
+		array.add(Long.MIN_VALUE);
+		array.add(-1);
+		array.add(Long.MAX_VALUE);
+		byte[] bytes = write(array);
+		assertEquals(ARRAY, bytes[TAG_OFFSET]);
+		JsonArray result = read(bytes).getAsJsonArray();
+		for(int i = 0; i < array.size(); i++) {
+			assertEquals(array.get(i).getAsLong(), result.get(i).getAsLong());
+		}
+	}
+
+	@Test
+	public void testEmptyArray() throws IOException {
+		JsonArray array = new JsonArray();
+		byte[] bytes = write(array);
+		assertEquals(ARRAY, bytes[TAG_OFFSET]);
+		assertEquals(array, read(bytes));
+	}
+
+	@Test
+	public void testTruncatedInput() throws IOException {
+		byte[] bytes = write(JsonParser.parseString(json));
+		assertReadFails(Arrays.copyOf(bytes, bytes.length / 2));
+		assertReadFails(Arrays.copyOf(bytes, bytes.length - 1));
+		assertReadFails(Arrays.copyOf(bytes, BinaryCodec.MAGIC.length));
+	}
+
+	@Test
+	public void testTruncatedScenario() throws IOException {
+		byte[] bytes = serializeBinary(false);
+		try {
+			Serialization.deserialize(new ByteArrayInputStream(
+					Arrays.copyOf(bytes, bytes.length / 2)));
+			fail("Expected an I/O exception.");
+		} catch(IOException expected) { }
+	}
+
+	@Test
+	public void testBadMagic() throws IOException {
+		byte[] bytes = write(JsonParser.parseString(json));
+		bytes[BinaryCodec.MAGIC.length - 1] = 'X';
+		assertReadFails(bytes);
+	}
+
+	@Test
+	public void testUnsupportedVersion() throws IOException {
+		byte[] bytes = write(JsonParser.parseString(json));
+		bytes[BinaryCodec.MAGIC.length] = (byte) (BinaryCodec.VERSION + 1);
+		assertReadFails(bytes);
+	}
+
+	@Test
+	public void testUnknownTag() throws IOException {
+		byte[] bytes = write(new JsonArray());
+		bytes[TAG_OFFSET] = (byte) 0x7F;
+		assertReadFails(bytes);
+	}
+}
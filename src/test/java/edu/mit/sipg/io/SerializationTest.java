@@ -0,0 +1,110 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.mit.sipg.scenario.GameScenario;
+import edu.mit.sipg.scenario.Scenario;
+import edu.mit.sipg.scenario.Sector;
+
+/**
+ * Tests that scenarios saved to files replace the file contents without
+ * changing its permissions or leaving temporary files.
+ */
+public class SerializationTest {
+	private static Scenario scenario;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Disables logging below warnings and creates the game scenario.
+	 */
+	@BeforeClass
+	public static void setUpClass() {
+		Logger.getRootLogger().setLevel(Level.WARN);
+		scenario = new GameScenario(Arrays.asList(GameScenario.INDUSTRIAL,
+				GameScenario.URBAN, GameScenario.RURAL),
+				Arrays.asList(Sector.values()), false);
+	}
+
+	/**
+	 * Skips the tests if the file system has no POSIX permissions.
+	 */
+	@Before
+	public void setUp() {
+		assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+	}
+
+	/**
+	 * Gets the POSIX permissions of a file.
+	 *
+	 * @param file the file
+	 * @return the permissions (e.g. rw-r-----)
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static String getPermissions(File file) throws IOException {
+		return PosixFilePermissions.toString(Files.getPosixFilePermissions(file.toPath()));
+	}
+
+	@Test
+	public void testSaveOverExistingFileKeepsPermissions() throws IOException {
+		File file = folder.newFile("scenario.json");
+		Files.setPosixFilePermissions(file.toPath(), PosixFilePermissions.fromString("rw-r-----"));
+		Serialization.serialize(scenario, file);
+		assertEquals("rw-r-----", getPermissions(file));
+		assertEquals(Serialization.serialize(scenario),
+				new String(Files.readAllBytes(file.toPath()), "UTF-8"));
+		assertArrayEquals(new String[] {"scenario.json"}, folder.getRoot().list());
+	}
+
+	@Test
+	public void testSaveOverReadOnlyFileKeepsPermissions() throws IOException {
+		File file = folder.newFile("scenario.json");
+		Files.setPosixFilePermissions(file.toPath(), PosixFilePermissions.fromString("r--r--r--"));
+		Serialization.serialize(scenario, file);
+		assertEquals("r--r--r--", getPermissions(file));
+	}
+
+	@Test
+	public void testSaveNewFileHasDefaultPermissions() throws IOException {
+		File reference = new File(folder.getRoot(), "reference.json");
+		new FileOutputStream(reference).close();
+		File file = new File(folder.getRoot(), "scenario.json");
+		Serialization.serialize(scenario, file);
+		assertEquals(getPermissions(reference), getPermissions(file));
+		assertEquals(2, folder.getRoot().list().length);
+	}
+}
@@ -0,0 +1,151 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.log;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.mit.sipg.core.Country;
+import edu.mit.sipg.scenario.GameScenario;
+import edu.mit.sipg.scenario.Sector;
+import edu.mit.sipg.sim.UpdateDispatcher;
+
+/**
+ * Tests the comma-delimited and binary log files written by the score
+ * file logger over two rounds.
+ */
+public class ScoreFileLoggerTest {
+	private static final List<String> COLUMN_NAMES = Arrays.asList("Time", "Round",
+			"Food Security", "Aquifer Security", "Reservoir Security",
+			"Agriculture Profit", "Agriculture Investment", "Agriculture Score",
+			"Water Profit", "Water Investment", "Water Score",
+			"Energy Profit", "Energy Investment", "Energy Score",
+			"Over Budget", "National Profit", "Team Score");
+
+	private static Country country;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Disables logging below warnings and creates the game country.
+	 */
+	@BeforeClass
+	public static void setUpClass() {
+		Logger.getRootLogger().setLevel(Level.WARN);
+		country = new GameScenario(Arrays.asList(GameScenario.INDUSTRIAL,
+				GameScenario.URBAN, GameScenario.RURAL),
+				Arrays.asList(Sector.values()), false).getCountry();
+	}
+
+	/**
+	 * Logs two rounds of a simulation and closes the logger.
+	 *
+	 * @param logger the logger
+	 */
+	private void logRounds(ScoreFileLogger logger) {
+		UpdateDispatcher dispatcher = new UpdateDispatcher();
+		dispatcher.addListener(logger, UpdateDispatcher.Policy.SYNCHRONOUS);
+		for(int round = 0; round < 2; round++) {
+			dispatcher.fireInitializeEvent(this, 1950, country);
+			dispatcher.fireUpdateEvent(this, 1951, country);
+			dispatcher.fireCompleteEvent(this, 1951, country);
+		}
+		logger.close();
+	}
+
+	/**
+	 * Reads the lines of the comma-delimited log file.
+	 *
+	 * @param logger the logger
+	 * @return the lines
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static List<String> readLines(ScoreFileLogger logger) throws IOException {
+		return Files.readAllLines(logger.getLogFile().toPath(), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testTextFile() throws IOException {
+		ScoreFileLogger logger = new ScoreFileLogger(folder.newFile("scores.log"), false);
+		logRounds(logger);
+		assertEquals(COLUMN_NAMES, logger.getColumnNames());
+
+		List<String> lines = readLines(logger);
+		assertEquals(3, lines.size());
+		assertEquals(String.join(", ", COLUMN_NAMES) + " ", lines.get(0));
+		for(int i = 1; i < lines.size(); i++) {
+			String[] values = lines.get(i).split(", ");
+			assertEquals(COLUMN_NAMES.size(), values.length);
+			assertEquals(String.valueOf(i), values[1]);
+		}
+		assertEquals(1, folder.getRoot().list().length);
+	}
+
+	@Test
+	public void testBinaryFile() throws IOException {
+		ScoreFileLogger logger = new ScoreFileLogger(folder.newFile("scores.log"), true);
+		logRounds(logger);
+		assertEquals(new File(folder.getRoot(), "scores.bin"), logger.getBinaryFile());
+		List<String> lines = readLines(logger);
+
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(logger.getBinaryFile())));
+		try {
+			assertEquals(ScoreFileLogger.BINARY_MAGIC, in.readInt());
+			assertEquals(ScoreFileLogger.BINARY_VERSION, in.readInt());
+			assertEquals(COLUMN_NAMES.size(), in.readInt());
+			List<String> names = new ArrayList<String>();
+			for(int i = 0; i < COLUMN_NAMES.size(); i++) {
+				names.add(in.readUTF());
+			}
+			assertEquals(COLUMN_NAMES, names);
+
+			// each record matches the corresponding comma-delimited row
+			for(int i = 1; i < lines.size(); i++) {
+				String[] values = lines.get(i).split(", ");
+				assertEquals(Long.parseLong(values[0]), in.readLong());
+				assertEquals(i, in.readInt());
+				for(int j = 2; j < values.length - 3; j++) {
+					assertEquals(values[j], String.valueOf(in.readDouble()));
+				}
+				assertEquals(Integer.parseInt(values[values.length - 3]), in.readInt());
+				assertEquals(values[values.length - 2], String.valueOf(in.readDouble()));
+				assertEquals(values[values.length - 1], String.valueOf(in.readDouble()));
+			}
+			assertEquals(-1, in.read());
+		} finally {
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,140 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.scenario;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.mit.sipg.core.Country;
+import edu.mit.sipg.gui.event.SimulationControlEvent;
+import edu.mit.sipg.io.Serialization;
+import edu.mit.sipg.sim.DefaultSimulator;
+
+/**
+ * Tests that scenario copies retain the concrete scenario type and are 
+ * independent deep copies.
+ */
+public class ScenarioCopyTest {
+	private static final Collection<Sector> SECTORS = Arrays.asList(Sector.values());
+	
+	/**
+	 * Disables logging below warnings.
+	 */
+	@BeforeClass
+	public static void setUpClass() {
+		Logger.getRootLogger().setLevel(Level.WARN);
+	}
+	
+	/**
+	 * Creates the game scenario with all cities and sectors assigned.
+	 *
+	 * @return the scenario
+	 */
+	private static GameScenario createGameScenario() {
+		return new GameScenario(Arrays.asList(GameScenario.INDUSTRIAL, 
+				GameScenario.URBAN, GameScenario.RURAL), SECTORS, true);
+	}
+	
+	/**
+	 * Simulates a scenario from its start time to its end time.
+	 *
+	 * @param scenario the scenario
+	 */
+	private static void simulate(Scenario scenario) {
+		new DefaultSimulator(scenario).executeSimulation(
+				new SimulationControlEvent.Execute(ScenarioCopyTest.class, 
+						scenario.getStartTime(), scenario.getEndTime()));
+	}
+	
+	@Test
+	public void testCopyRetainsGameScenario() {
+		GameScenario scenario = createGameScenario();
+		Scenario copy = scenario.copy();
+		assertSame(GameScenario.class, copy.getClass());
+		assertEquals(scenario.getTemplates(SECTORS), copy.getTemplates(SECTORS));
+		assertEquals(8, copy.getTemplates(SECTORS).size());
+	}
+	
+	@Test
+	public void testCopyRetainsGameScenarioComplete() {
+		GameScenarioComplete scenario = new GameScenarioComplete(
+				Arrays.asList(GameScenarioComplete.INDUSTRIAL, 
+						GameScenarioComplete.URBAN, GameScenarioComplete.RURAL), 
+				SECTORS, true);
+		Scenario copy = scenario.copy();
+		assertSame(GameScenarioComplete.class, copy.getClass());
+		assertEquals(scenario.getTemplates(SECTORS), copy.getTemplates(SECTORS));
+	}
+	
+	@Test
+	public void testCopyRetainsDefaultScenario() {
+		DefaultScenario scenario = new DefaultScenario(
+				createGameScenario().getCountry(), 
+				Arrays.asList(GameElementTemplate.values()), 
+				1950, 1980, 2010, false, true);
+		Scenario copy = scenario.copy();
+		assertSame(DefaultScenario.class, copy.getClass());
+		assertEquals(scenario.getTemplates(SECTORS), copy.getTemplates(SECTORS));
+		assertEquals(scenario.getStartTime(), copy.getStartTime());
+		assertEquals(scenario.getPresentTime(), copy.getPresentTime());
+		assertEquals(scenario.getEndTime(), copy.getEndTime());
+		assertEquals(scenario.isTeamScoreDisplayed(), copy.isTeamScoreDisplayed());
+		assertEquals(scenario.isRemotePanelsDisplayed(), copy.isRemotePanelsDisplayed());
+	}
+	
+	@Test
+	public void testCopyThenSimulate() {
+		GameScenario scenario = createGameScenario();
+		GameScenario copy = scenario.copy();
+		assertNotSame(scenario.getCountry(), copy.getCountry());
+		String json = Serialization.serialize(scenario);
+		
+		simulate(copy);
+		Country country = copy.getCountry();
+		
+		// the original scenario is not affected by simulating the copy
+		assertEquals(json, Serialization.serialize(scenario));
+		
+		simulate(scenario);
+		assertEquals(scenario.getCountry().getCumulativeCashFlow(), 
+				country.getCumulativeCashFlow(), 0);
+		assertEquals(scenario.getCountry().getCumulativeCapitalExpense(), 
+				country.getCumulativeCapitalExpense(), 0);
+		assertEquals(Serialization.serialize(scenario), Serialization.serialize(copy));
+	}
+	
+	@Test
+	public void testCopyThenSerialize() {
+		GameScenario scenario = createGameScenario();
+		Scenario copy = scenario.copy();
+		String json = Serialization.serialize(copy);
+		assertEquals(Serialization.serialize(scenario), json);
+		
+		Scenario restored = Serialization.deserialize(json);
+		assertSame(GameScenario.class, restored.getClass());
+		assertEquals(scenario.getTemplates(SECTORS), restored.getTemplates(SECTORS));
+		assertEquals(json, Serialization.serialize(restored));
+	}
+}
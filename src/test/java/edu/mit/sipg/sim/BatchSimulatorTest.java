@@ -0,0 +1,104 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.sim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.mit.sipg.scenario.Scenario;
+
+/**
+ * Tests the comma-delimited result table written by the batch simulator.
+ */
+public class BatchSimulatorTest {
+	private static final BatchSimulator.Analysis ANALYSIS = new BatchSimulator.Analysis() {
+		@Override
+		public List<String> getColumnNames() {
+			return Arrays.asList("first", "second");
+		}
+
+		@Override
+		public List<? extends Object> analyze(Scenario scenario, long endTime) {
+			return Arrays.asList(0, 0);
+		}
+	};
+
+	/**
+	 * Disables logging below warnings.
+	 */
+	@BeforeClass
+	public static void setUpClass() {
+		Logger.getRootLogger().setLevel(Level.WARN);
+	}
+
+	/**
+	 * Writes the table of a failed run of a missing file.
+	 *
+	 * @param path the path of the missing file
+	 * @param runColumns true, to include the run columns
+	 * @return the lines of the table
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static String[] writeTable(String path, boolean runColumns) throws IOException {
+		BatchSimulator batch = new BatchSimulator(1, 1950, 1960, ANALYSIS);
+		BatchSimulator.Result result = batch.run(new File(path));
+		assertFalse(result.isSuccessful());
+		StringWriter writer = new StringWriter();
+		batch.writeTable(Arrays.asList(result), writer, runColumns);
+		return writer.toString().split("\n");
+	}
+
+	@Test
+	public void testAnalysisColumnsOnly() throws IOException {
+		String[] lines = writeTable("missing.json", false);
+		assertEquals(2, lines.length);
+		assertEquals("path, first, second", lines[0]);
+		assertEquals("missing.json, , ", lines[1]);
+	}
+
+	@Test
+	public void testRunColumns() throws IOException {
+		String[] lines = writeTable("missing.json", true);
+		assertEquals(2, lines.length);
+		assertEquals("path, first, second, elapsed_ms, error", lines[0]);
+		assertEquals(5, lines[1].split(", ", -1).length);
+	}
+
+	@Test
+	public void testQuotedPath() throws IOException {
+		String[] lines = writeTable("a,b.json", false);
+		assertEquals("\"a,b.json\", , ", lines[1]);
+	}
+
+	@Test
+	public void testQuote() {
+		assertEquals("plain", BatchSimulator.quote("plain"));
+		assertEquals("\"a,b\"", BatchSimulator.quote("a,b"));
+		assertEquals("\"say \"\"hi\"\"\"", BatchSimulator.quote("say \"hi\""));
+		assertEquals("\"two\nlines\"", BatchSimulator.quote("two\nlines"));
+	}
+}
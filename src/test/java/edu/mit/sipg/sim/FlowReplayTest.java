@@ -0,0 +1,340 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.sim;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.mit.sipg.core.City;
+import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.base.InfrastructureSystem;
+import edu.mit.sipg.core.electricity.ElectricityElement;
+import edu.mit.sipg.core.electricity.ElectricitySystem;
+import edu.mit.sipg.core.optim.LinearProblem;
+import edu.mit.sipg.core.optim.LinearProgram;
+import edu.mit.sipg.core.optim.LinearSolver;
+import edu.mit.sipg.core.water.WaterSystem;
+import edu.mit.sipg.gui.event.SimulationControlEvent;
+import edu.mit.sipg.gui.event.UpdateEvent;
+import edu.mit.sipg.gui.event.UpdateListener;
+import edu.mit.sipg.scenario.GameElementTemplate;
+import edu.mit.sipg.scenario.GameScenario;
+import edu.mit.sipg.scenario.Scenario;
+import edu.mit.sipg.scenario.Sector;
+
+/**
+ * Tests that a re-run with flow replay after an element edit matches a 
+ * full re-simulation of the edited scenario, and that recorded flows are 
+ * only replayed before the first year in which the edited element exists.
+ */
+public class FlowReplayTest {
+	private static final long START_TIME = 1950, END_TIME = 2010;
+	private static final long COMMISSION_TIME = 1980;
+	private static final double TOLERANCE = 1e-9;
+	
+	/**
+	 * A linear solver which records the simulation time of each solve.
+	 */
+	private static class RecordingSolver implements LinearSolver {
+		private final SortedSet<Long> times = new TreeSet<Long>();
+		private DefaultSimulator simulator;
+		
+		@Override
+		public PointValuePair solve(LinearProblem problem) {
+			times.add(simulator.getTime());
+			return LinearProgram.DEFAULT_SOLVER.solve(problem);
+		}
+	}
+	
+	/**
+	 * An update listener which records the state of the country in each year.
+	 */
+	private static class StateRecorder implements UpdateListener {
+		private final Map<Long, double[]> states = new TreeMap<Long, double[]>();
+		
+		@Override
+		public void simulationCompleted(UpdateEvent event) { }
+		
+		@Override
+		public void simulationInitialized(UpdateEvent event) {
+			states.clear();
+		}
+		
+		@Override
+		public void simulationUpdated(UpdateEvent event) {
+			states.put(event.getTime(), getState(event.getCountry()));
+		}
+	}
+	
+	/**
+	 * Gets the state of a country which depends on the optimized flows.
+	 *
+	 * @param country the country
+	 * @return the state
+	 */
+	private static double[] getState(Country country) {
+		List<Double> state = new ArrayList<Double>();
+		state.add(country.getCumulativeCashFlow());
+		state.add(country.getCumulativeCapitalExpense());
+		for(City city : country.getCities()) {
+			state.add(city.getCumulativeCashFlow());
+			for(InfrastructureSystem system : city.getInfrastructureSystems()) {
+				state.add(system.getCashFlow());
+			}
+			if(city.getWaterSystem() instanceof WaterSystem.Local) {
+				state.add(((WaterSystem.Local) city.getWaterSystem())
+						.getWaterReservoirVolume());
+			}
+		}
+		double[] values = new double[state.size()];
+		for(int i = 0; i < values.length; i++) {
+			values[i] = state.get(i);
+		}
+		return values;
+	}
+	
+	/**
+	 * Creates the game scenario with all cities and sectors assigned.
+	 *
+	 * @return the scenario
+	 */
+	private static Scenario createScenario() {
+		return new GameScenario(Arrays.asList(GameScenario.INDUSTRIAL, 
+				GameScenario.URBAN, GameScenario.RURAL), 
+				Arrays.asList(Sector.values()), false);
+	}
+	
+	/**
+	 * Gets the local electricity system of the first city in a scenario.
+	 *
+	 * @param scenario the scenario
+	 * @return the electricity system
+	 */
+	private static ElectricitySystem.Local getElectricitySystem(Scenario scenario) {
+		return (ElectricitySystem.Local) scenario.getCountry()
+				.getCities().get(0).getElectricitySystem();
+	}
+	
+	/**
+	 * Adds a power plant commissioned at a time to a scenario.
+	 *
+	 * @param scenario the scenario
+	 * @param time the commission time
+	 */
+	private static void addPowerPlant(Scenario scenario, long time) {
+		String city = scenario.getCountry().getCities().get(0).getName();
+		getElectricitySystem(scenario).addElement((ElectricityElement) 
+				GameElementTemplate.POWER_PLANT_1.createElement(time, city, city));
+	}
+	
+	/**
+	 * Creates a simulator with a recording solver and state recorder.
+	 *
+	 * @param scenario the scenario
+	 * @param solver the solver
+	 * @param recorder the recorder
+	 * @param flowReplay true, to enable flow replay
+	 * @return the simulator
+	 */
+	private static DefaultSimulator createSimulator(Scenario scenario, 
+			RecordingSolver solver, StateRecorder recorder, boolean flowReplay) {
+		DefaultSimulator simulator = new DefaultSimulator(scenario);
+		solver.simulator = simulator;
+		simulator.setLinearSolver(solver);
+		simulator.addUpdateListener(recorder);
+		simulator.setFlowReplay(flowReplay);
+		return simulator;
+	}
+	
+	/**
+	 * Executes a simulation from the start time to the end time.
+	 *
+	 * @param simulator the simulator
+	 */
+	private static void execute(DefaultSimulator simulator) {
+		simulator.executeSimulation(new SimulationControlEvent.Execute(
+				FlowReplayTest.class, START_TIME, END_TIME));
+	}
+	
+	/**
+	 * Asserts that two runs recorded the same state in each year.
+	 *
+	 * @param expected the expected run
+	 * @param actual the actual run
+	 */
+	private static void assertSameStates(StateRecorder expected, StateRecorder actual) {
+		assertEquals(expected.states.keySet(), actual.states.keySet());
+		for(long time : expected.states.keySet()) {
+			double[] expectedState = expected.states.get(time);
+			double[] actualState = actual.states.get(time);
+			assertEquals(expectedState.length, actualState.length);
+			for(int i = 0; i < expectedState.length; i++) {
+				assertEquals("state " + i + " at " + time, expectedState[i], actualState[i], 
+						TOLERANCE * Math.max(1, Math.abs(expectedState[i])));
+			}
+		}
+	}
+	
+	/**
+	 * Disables logging below warnings.
+	 */
+	@BeforeClass
+	public static void setUpClass() {
+		Logger.getRootLogger().setLevel(Level.WARN);
+	}
+	
+	@Test
+	public void testReplayWithoutEdit() {
+		RecordingSolver solver = new RecordingSolver();
+		StateRecorder recorder = new StateRecorder();
+		DefaultSimulator simulator = createSimulator(createScenario(), solver, recorder, true);
+		execute(simulator);
+		StateRecorder firstRun = new StateRecorder();
+		firstRun.states.putAll(recorder.states);
+		
+		solver.times.clear();
+		execute(simulator);
+		assertTrue(solver.times.isEmpty());
+		assertSameStates(firstRun, recorder);
+	}
+	
+	@Test
+	public void testReplayAfterAddedElement() {
+		RecordingSolver solver = new RecordingSolver();
+		StateRecorder recorder = new StateRecorder();
+		Scenario scenario = createScenario();
+		DefaultSimulator simulator = createSimulator(scenario, solver, recorder, true);
+		execute(simulator);
+		
+		addPowerPlant(scenario, COMMISSION_TIME);
+		solver.times.clear();
+		execute(simulator);
+		
+		// flows are replayed until the power plant first exists
+		assertEquals(COMMISSION_TIME, (long) solver.times.first());
+		
+		RecordingSolver fullSolver = new RecordingSolver();
+		StateRecorder fullRecorder = new StateRecorder();
+		Scenario fullScenario = createScenario();
+		addPowerPlant(fullScenario, COMMISSION_TIME);
+		execute(createSimulator(fullScenario, fullSolver, fullRecorder, false));
+		assertEquals(START_TIME, (long) fullSolver.times.first());
+		
+		assertSameStates(fullRecorder, recorder);
+	}
+	
+	@Test
+	public void testReplayAfterRemovedElement() {
+		RecordingSolver solver = new RecordingSolver();
+		StateRecorder recorder = new StateRecorder();
+		Scenario scenario = createScenario();
+		addPowerPlant(scenario, COMMISSION_TIME);
+		DefaultSimulator simulator = createSimulator(scenario, solver, recorder, true);
+		execute(simulator);
+		
+		ElectricitySystem.Local system = getElectricitySystem(scenario);
+		List<? extends ElectricityElement> elements = system.getInternalElements();
+		system.removeElement(elements.get(elements.size() - 1));
+		solver.times.clear();
+		execute(simulator);
+		assertEquals(COMMISSION_TIME, (long) solver.times.first());
+		
+		RecordingSolver fullSolver = new RecordingSolver();
+		StateRecorder fullRecorder = new StateRecorder();
+		execute(createSimulator(createScenario(), fullSolver, fullRecorder, false));
+		
+		assertSameStates(fullRecorder, recorder);
+	}
+	
+	@Test
+	public void testEditAtStartTimeInvalidatesAllRecords() {
+		RecordingSolver solver = new RecordingSolver();
+		StateRecorder recorder = new StateRecorder();
+		Scenario scenario = createScenario();
+		DefaultSimulator simulator = createSimulator(scenario, solver, recorder, true);
+		execute(simulator);
+		
+		addPowerPlant(scenario, START_TIME);
+		solver.times.clear();
+		execute(simulator);
+		assertEquals(START_TIME, (long) solver.times.first());
+		
+		RecordingSolver fullSolver = new RecordingSolver();
+		StateRecorder fullRecorder = new StateRecorder();
+		Scenario fullScenario = createScenario();
+		addPowerPlant(fullScenario, START_TIME);
+		execute(createSimulator(fullScenario, fullSolver, fullRecorder, false));
+		
+		assertSameStates(fullRecorder, recorder);
+	}
+	
+	@Test
+	public void testEditAfterEndTimeKeepsAllRecords() {
+		RecordingSolver solver = new RecordingSolver();
+		StateRecorder recorder = new StateRecorder();
+		Scenario scenario = createScenario();
+		DefaultSimulator simulator = createSimulator(scenario, solver, recorder, true);
+		execute(simulator);
+		
+		addPowerPlant(scenario, END_TIME + 1);
+		solver.times.clear();
+		execute(simulator);
+		assertTrue(solver.times.isEmpty());
+	}
+	
+	@Test
+	public void testValidTimeBoundary() {
+		Scenario scenario = createScenario();
+		Country country = scenario.getCountry();
+		country.initialize(START_TIME);
+		FlowReplay replay = new FlowReplay();
+		List<Object> settings = Arrays.<Object>asList("settings");
+		replay.initialize(country, START_TIME, settings, true, true);
+		replay.recordInitial();
+		for(long time = START_TIME; time <= END_TIME; time++) {
+			replay.record(time, 1);
+		}
+		assertEquals(END_TIME + 1, replay.getValidTime());
+		
+		addPowerPlant(scenario, COMMISSION_TIME);
+		country.initialize(START_TIME);
+		replay.initialize(country, START_TIME, settings, true, true);
+		assertEquals(COMMISSION_TIME, replay.getValidTime());
+		assertTrue(replay.isInitialValid());
+		assertTrue(replay.isValid(COMMISSION_TIME - 1));
+		assertFalse(replay.isValid(COMMISSION_TIME));
+		
+		replay.initialize(country, START_TIME, Arrays.<Object>asList("other"), true, true);
+		assertFalse(replay.isInitialValid());
+		assertFalse(replay.isValid(START_TIME));
+	}
+}
@@ -0,0 +1,133 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.sim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.management.JMX;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.mit.sipg.io.Serialization;
+import edu.mit.sipg.scenario.GameScenario;
+import edu.mit.sipg.scenario.Scenario;
+import edu.mit.sipg.scenario.Sector;
+
+/**
+ * Tests that timer statistics can be read through an MXBean proxy and
+ * that scenario loading and saving are timed.
+ */
+public class SimulationMetricsTest {
+	private static final SimulationMetrics metrics = SimulationMetrics.getInstance();
+
+	private boolean enabled;
+
+	/**
+	 * Disables logging below warnings.
+	 */
+	@BeforeClass
+	public static void setUpClass() {
+		Logger.getRootLogger().setLevel(Level.WARN);
+	}
+
+	/**
+	 * Enables recording.
+	 */
+	@Before
+	public void setUp() {
+		enabled = metrics.isEnabled();
+		metrics.setEnabled(true);
+	}
+
+	/**
+	 * Restores the recording state.
+	 */
+	@After
+	public void tearDown() {
+		metrics.setEnabled(enabled);
+	}
+
+	/**
+	 * Gets the number of latencies recorded by a timer.
+	 *
+	 * @param name the timer name
+	 * @return the count
+	 */
+	private static long getCount(String name) {
+		return metrics.timer(name).getStatistics().getCount();
+	}
+
+	@Test
+	public void testTimersThroughProxy() throws Exception {
+		SimulationMetrics.Timer timer = metrics.timer("test.proxy");
+		timer.record(2000000);
+		timer.record(5000000);
+		SimulationMetrics.Statistics expected = timer.getStatistics();
+
+		SimulationMetricsMXBean proxy = JMX.newMXBeanProxy(
+				ManagementFactory.getPlatformMBeanServer(),
+				new ObjectName(SimulationMetrics.OBJECT_NAME),
+				SimulationMetricsMXBean.class);
+		SimulationMetrics.Statistics actual = null;
+		for(SimulationMetrics.Statistics statistics : proxy.getTimers()) {
+			if(statistics.getName().equals("test.proxy")) {
+				actual = statistics;
+			}
+		}
+		assertNotNull(actual);
+		assertEquals(expected.getCount(), actual.getCount());
+		assertEquals(expected.getTotal(), actual.getTotal(), 0);
+		assertEquals(expected.getMean(), actual.getMean(), 0);
+		assertEquals(expected.getPercentile50(), actual.getPercentile50(), 0);
+		assertEquals(expected.getPercentile95(), actual.getPercentile95(), 0);
+		assertEquals(expected.getPercentile99(), actual.getPercentile99(), 0);
+		assertEquals(expected.getMax(), actual.getMax(), 0);
+	}
+
+	@Test
+	public void testSerializationTimers() throws IOException {
+		Scenario scenario = new GameScenario(Arrays.asList(GameScenario.INDUSTRIAL,
+				GameScenario.URBAN, GameScenario.RURAL),
+				Arrays.asList(Sector.values()), false);
+		long loads = getCount("io.load");
+		long saves = getCount("io.save");
+
+		String json = Serialization.serialize(scenario);
+		Serialization.deserialize(json);
+		assertEquals(saves + 1, getCount("io.save"));
+		assertEquals(loads + 1, getCount("io.load"));
+
+		// compressed streams are timed once, not for each nested format
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Serialization.serializeBinary(scenario, out, true);
+		Serialization.deserialize(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(saves + 2, getCount("io.save"));
+		assertEquals(loads + 2, getCount("io.load"));
+	}
+}
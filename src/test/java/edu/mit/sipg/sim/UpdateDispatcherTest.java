@@ -0,0 +1,265 @@
+/******************************************************************************
+ * Copyright 2020 Paul T. Grogan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *****************************************************************************/
+package edu.mit.sipg.sim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.mit.sipg.core.City;
+import edu.mit.sipg.core.Country;
+import edu.mit.sipg.core.agriculture.DefaultAgricultureSystem;
+import edu.mit.sipg.core.electricity.DefaultElectricitySystem;
+import edu.mit.sipg.core.petroleum.DefaultPetroleumSystem;
+import edu.mit.sipg.core.social.DefaultSocialSystem;
+import edu.mit.sipg.core.water.RecordedWaterSystem;
+import edu.mit.sipg.gui.event.UpdateEvent;
+import edu.mit.sipg.gui.event.UpdateListener;
+import edu.mit.sipg.scenario.GameScenario;
+import edu.mit.sipg.scenario.Sector;
+
+/**
+ * Tests that asynchronous listeners receive all queued events, including
+ * the completed event, when they are removed, and that their snapshots
+ * replace remote systems with default systems.
+ */
+public class UpdateDispatcherTest {
+	private static final int UPDATES = 20;
+
+	private static Country country;
+
+	/**
+	 * Disables logging below errors and creates the game country.
+	 */
+	@BeforeClass
+	public static void setUpClass() {
+		Logger.getRootLogger().setLevel(Level.ERROR);
+		country = new GameScenario(Arrays.asList(GameScenario.INDUSTRIAL,
+				GameScenario.URBAN, GameScenario.RURAL),
+				Arrays.asList(Sector.values()), false).getCountry();
+	}
+
+	/**
+	 * An update listener which records the events it receives, optionally
+	 * waiting before each one.
+	 */
+	private static class EventRecorder implements UpdateListener {
+		private final List<String> events = new ArrayList<String>();
+		private final CountDownLatch release;
+		private boolean daemon;
+
+		/**
+		 * Instantiates a new event recorder which waits for a latch before
+		 * each event.
+		 *
+		 * @param release the latch
+		 */
+		public EventRecorder(CountDownLatch release) {
+			this.release = release;
+		}
+
+		/**
+		 * Records an event.
+		 *
+		 * @param event the event
+		 */
+		protected void record(String event) {
+			try {
+				release.await();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			synchronized(this) {
+				daemon |= Thread.currentThread().isDaemon();
+				events.add(event);
+			}
+		}
+
+		/**
+		 * Gets the recorded events.
+		 *
+		 * @return the events
+		 */
+		public synchronized List<String> getEvents() {
+			return new ArrayList<String>(events);
+		}
+
+		@Override
+		public void simulationCompleted(UpdateEvent event) {
+			record("completed");
+		}
+
+		@Override
+		public void simulationInitialized(UpdateEvent event) {
+			record("initialized");
+		}
+
+		@Override
+		public void simulationUpdated(UpdateEvent event) {
+			record("updated");
+		}
+	}
+
+	/**
+	 * Fires an initialized event, a number of updated events and a
+	 * completed event.
+	 *
+	 * @param dispatcher the dispatcher
+	 */
+	private void fireRun(UpdateDispatcher dispatcher) {
+		dispatcher.fireInitializeEvent(this, 1950, country);
+		for(int i = 1; i <= UPDATES; i++) {
+			dispatcher.fireUpdateEvent(this, 1950 + i, country);
+		}
+		dispatcher.fireCompleteEvent(this, 1950 + UPDATES, country);
+	}
+
+	/**
+	 * Gets the events of a complete run.
+	 *
+	 * @return the events
+	 */
+	private static List<String> getRunEvents() {
+		List<String> events = new ArrayList<String>();
+		events.add("initialized");
+		for(int i = 0; i < UPDATES; i++) {
+			events.add("updated");
+		}
+		events.add("completed");
+		return events;
+	}
+
+	@Test
+	public void testRemoveDeliversQueuedEvents() {
+		final CountDownLatch release = new CountDownLatch(1);
+		EventRecorder recorder = new EventRecorder(release);
+		UpdateDispatcher dispatcher = new UpdateDispatcher();
+		dispatcher.addListener(recorder, UpdateDispatcher.Policy.ASYNCHRONOUS);
+		fireRun(dispatcher);
+		assertTrue(recorder.getEvents().size() < UPDATES + 2);
+
+		// release the listener only once the removal has started waiting
+		new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(100);
+				} catch(InterruptedException e) { }
+				release.countDown();
+			}
+		}).start();
+		assertTrue(dispatcher.removeListener(recorder, 30, TimeUnit.SECONDS));
+		assertEquals(getRunEvents(), recorder.getEvents());
+		assertTrue(dispatcher.getListeners().isEmpty());
+	}
+
+	@Test
+	public void testRemoveTimeoutDiscardsQueuedEvents() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		EventRecorder recorder = new EventRecorder(release);
+		UpdateDispatcher dispatcher = new UpdateDispatcher();
+		dispatcher.addListener(recorder, UpdateDispatcher.Policy.ASYNCHRONOUS);
+		fireRun(dispatcher);
+
+		assertFalse(dispatcher.removeListener(recorder, 50, TimeUnit.MILLISECONDS));
+		release.countDown();
+		Thread.sleep(100);
+		// at most the event being delivered when the listener was removed
+		assertTrue(recorder.getEvents().size() <= 1);
+	}
+
+	@Test
+	public void testSelfRemovalDoesNotWait() throws InterruptedException {
+		final UpdateDispatcher dispatcher = new UpdateDispatcher();
+		final CountDownLatch removed = new CountDownLatch(1);
+		EventRecorder recorder = new EventRecorder(new CountDownLatch(0)) {
+			@Override
+			public void simulationInitialized(UpdateEvent event) {
+				super.simulationInitialized(event);
+				dispatcher.removeListener(this);
+				removed.countDown();
+			}
+		};
+		dispatcher.addListener(recorder, UpdateDispatcher.Policy.ASYNCHRONOUS);
+		fireRun(dispatcher);
+
+		assertTrue(removed.await(5, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList("initialized"), recorder.getEvents());
+	}
+
+	@Test
+	public void testSnapshotReplacesRemoteSystems() {
+		// a recorded system is not local, like the system of another federate
+		RecordedWaterSystem waterSystem = new RecordedWaterSystem();
+		Map<Long, Double> capitalExpense = new HashMap<Long, Double>();
+		capitalExpense.put(1950L, 1e6);
+		waterSystem.setRecordedCapitalExpense(capitalExpense);
+		waterSystem.initialize(1950);
+		City city = new City("City", new DefaultAgricultureSystem(), waterSystem,
+				new DefaultPetroleumSystem(), new DefaultElectricitySystem(),
+				new DefaultSocialSystem());
+		Country remoteCountry = Country.buildCountry("Country", 0, 0, Arrays.asList(city));
+
+		final List<Double> synchronous = new ArrayList<Double>();
+		final List<Double> asynchronous = new ArrayList<Double>();
+		UpdateDispatcher dispatcher = new UpdateDispatcher();
+		dispatcher.addListener(new EventRecorder(new CountDownLatch(0)) {
+			@Override
+			public void simulationUpdated(UpdateEvent event) {
+				synchronous.add(event.getCountry().getCity("City").getTotalCapitalExpense());
+			}
+		}, UpdateDispatcher.Policy.SYNCHRONOUS);
+		EventRecorder recorder = new EventRecorder(new CountDownLatch(0)) {
+			@Override
+			public void simulationUpdated(UpdateEvent event) {
+				asynchronous.add(event.getCountry().getCity("City").getTotalCapitalExpense());
+			}
+		};
+		dispatcher.addListener(recorder, UpdateDispatcher.Policy.ASYNCHRONOUS);
+		dispatcher.fireUpdateEvent(this, 1950, remoteCountry);
+
+		assertTrue(dispatcher.removeListener(recorder, 30, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList(1e6), synchronous);
+		assertEquals(Arrays.asList(0d), asynchronous);
+	}
+
+	@Test
+	public void testDeliveryThreadsAreNotDaemons() {
+		EventRecorder recorder = new EventRecorder(new CountDownLatch(0));
+		UpdateDispatcher dispatcher = new UpdateDispatcher();
+		dispatcher.addListener(recorder, UpdateDispatcher.Policy.LATEST);
+		fireRun(dispatcher);
+
+		assertTrue(dispatcher.removeListener(recorder, 30, TimeUnit.SECONDS));
+		assertEquals("completed", recorder.getEvents().get(recorder.getEvents().size() - 1));
+		synchronized(recorder) {
+			assertFalse(recorder.daemon);
+		}
+	}
+}